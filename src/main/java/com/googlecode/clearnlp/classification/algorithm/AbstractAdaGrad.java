@@ -0,0 +1,313 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.algorithm;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
+import com.googlecode.clearnlp.classification.train.InstanceView;
+import com.googlecode.clearnlp.util.UTArray;
+
+/**
+ * Abstract AdaGrad algorithm.
+ * Each instance is trained in two steps: a step is computed from the current weights (e.g., predictions),
+ * then applied to the weights and the sums of squared gradients.
+ * With multiple threads (see {@link AbstractAdaGrad#setParallel(boolean, boolean)}), instances are trained either
+ * Hogwild-style, where each thread trains a slice of the shuffled instances and updates the shared weights without locking,
+ * or reproducibly, where steps of a batch of instances are computed in parallel from the same weights and applied in order.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+abstract public class AbstractAdaGrad<T> extends AbstractAlgorithm
+{
+	/** The number of instances whose steps are computed from the same weights in the reproducible mode. */
+	static public final int BATCH_SIZE = 256;
+	
+	/** The mode where instances are trained by one thread. */
+	static public final byte MODE_SEQUENTIAL   = 0;
+	/** The mode where instances are trained by multiple threads updating the shared weights without locking. */
+	static public final byte MODE_HOGWILD      = 1;
+	/** The mode where instances are trained by multiple threads in batches whose steps are applied in order. */
+	static public final byte MODE_REPRODUCIBLE = 2;
+	
+	protected int     n_iter;
+	protected Random  r_rand;
+	protected double  d_alpha;
+	protected double  d_rho;
+	protected boolean b_parallel;
+	protected boolean b_reproducible;
+	
+	/**
+	 * @param alpha the learning rate.
+	 * @param rho the smoothing denominator.
+	 */
+	public AbstractAdaGrad(int iter, double alpha, double rho, Random rand)
+	{
+		n_iter  = iter;
+		r_rand  = rand;
+		d_alpha = alpha;
+		d_rho   = rho;
+	}
+	
+	/**
+	 * Sets the parallel mode used when more than one thread is given.
+	 * @param parallel if {@code true}, instances are trained by multiple threads; otherwise, by one thread.
+	 * @param reproducible if {@code true}, the trained weights do not depend on the number of threads or their scheduling
+	 * (but differ from the ones trained by one thread in the non-parallel mode);
+	 * otherwise, threads update the shared weights without locking (Hogwild), which is faster but not reproducible.
+	 */
+	public void setParallel(boolean parallel, boolean reproducible)
+	{
+		b_parallel     = parallel;
+		b_reproducible = reproducible;
+	}
+	
+	/**
+	 * Sets the parallel mode used when more than one thread is given (see {@link AbstractAdaGrad#setParallel(boolean, boolean)}).
+	 * @param mode {@link AbstractAdaGrad#MODE_SEQUENTIAL}, {@link AbstractAdaGrad#MODE_HOGWILD}, or {@link AbstractAdaGrad#MODE_REPRODUCIBLE}.
+	 */
+	public void setMode(byte mode)
+	{
+		setParallel(mode != MODE_SEQUENTIAL, mode == MODE_REPRODUCIBLE);
+	}
+	
+	@Override
+	public double[] getWeight(AbstractTrainSpace space, int numThreads)
+	{
+		double[] weights = new double[space.getFeatureSize() * space.getLabelSize()];
+		
+		updateWeight(space, weights, numThreads);
+		return weights;
+	}
+	
+	public void updateWeight(AbstractTrainSpace space)
+	{
+		updateWeight(space, space.getModel().getWeights(), 1);
+	}
+	
+	public void updateWeight(AbstractTrainSpace space, int numThreads)
+	{
+		updateWeight(space, space.getModel().getWeights(), numThreads);
+	}
+	
+	public void updateWeight(AbstractTrainSpace space, double[] weights)
+	{
+		updateWeight(space, weights, 1);
+	}
+	
+	/**
+	 * Updates the specific weights by training on the specific space for {@link AbstractAdaGrad#n_iter} iterations.
+	 * @throws RuntimeException if a worker fails or the current thread is interrupted (see {@link AbstractAlgorithm#toRuntimeException(Exception)}).
+	 */
+	public void updateWeight(AbstractTrainSpace space, double[] weights, int numThreads)
+	{
+		final int D = space.getFeatureSize();
+		final int L = space.getLabelSize();
+		final int N = space.getInstanceSize();
+		double[] gs = new double[D*L];
+		
+		if (numThreads < 1)	numThreads = 1;
+		boolean sequential = !b_parallel || (numThreads == 1 && !b_reproducible);
+		ExecutorService executor = sequential ? null : Executors.newFixedThreadPool(numThreads);
+		int[] indices;
+		int i, correct;
+		
+		try
+		{
+			for (i=0; i<n_iter; i++)
+			{
+				indices = getShuffledIndices(N);
+				Arrays.fill(gs, 0);
+				
+				if (executor == null)
+					correct = update(space, L, indices, 0, N, gs, weights);
+				else if (b_reproducible)
+					correct = updateBatches(executor, numThreads, space, L, indices, gs, weights);
+				else
+					correct = updateHogwild(executor, numThreads, space, L, indices, gs, weights);
+				
+				printIteration(i+1, correct, N);
+			}
+		}
+		catch (InterruptedException e) {throw toRuntimeException(e);}
+		catch (ExecutionException   e) {throw toRuntimeException(e);}
+		finally
+		{
+			if (executor != null)	executor.shutdown();
+		}
+	}
+	
+	/** Called after each iteration; nothing is printed by default. */
+	protected void printIteration(int iter, int correct, int N) {}
+	
+	protected int[] getShuffledIndices(int N)
+	{
+		int[] indices = new int[N];
+		int i, j;
+		
+		for (i=0; i<N; i++)
+			indices[i] = i;
+		
+		for (i=0; i<N; i++)
+		{
+			j = i + r_rand.nextInt(N - i);
+			UTArray.swap(indices, i, j);
+		}
+		
+		return indices;
+	}
+	
+	/**
+	 * Trains the instances from {@code indices[bIdx]} to {@code indices[eIdx-1]} in order.
+	 * @return the number of instances counted as correct by {@link AbstractAdaGrad#applyStep(int, int, int[], double[], int, Object, double[], double[])}.
+	 */
+	private int update(AbstractTrainSpace space, int L, int[] indices, int bIdx, int eIdx, double[] gs, double[] weights)
+	{
+		IntArrayList ys = space.getYs();
+		InstanceView view = new InstanceView();
+		int i, idx, y, correct = 0;
+		
+		for (i=bIdx; i<eIdx; i++)
+		{
+			idx = indices[i];
+			y   = ys.get(idx);
+			space.getInstance(idx, view);
+			
+			if (applyStep(L, y, view.x, view.v, view.size, getStep(L, y, view.x, view.v, view.size, weights), gs, weights))
+				correct++;
+		}
+		
+		return correct;
+	}
+	
+	/** Each thread trains a contiguous slice of the shuffled instances and updates the shared weights without locking. */
+	private int updateHogwild(ExecutorService executor, int numThreads, final AbstractTrainSpace space, final int L, final int[] indices, final double[] gs, final double[] weights) throws InterruptedException, ExecutionException
+	{
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>(numThreads);
+		int t, N = indices.length, correct = 0;
+		
+		for (t=0; t<numThreads; t++)
+		{
+			final int bIdx = (int)((long)N *  t    / numThreads);
+			final int eIdx = (int)((long)N * (t+1) / numThreads);
+			
+			tasks.add(new Callable<Integer>()
+			{
+				@Override
+				public Integer call()
+				{
+					return update(space, L, indices, bIdx, eIdx, gs, weights);
+				}
+			});
+		}
+		
+		for (Future<Integer> f : executor.invokeAll(tasks))
+			correct += f.get();
+		
+		return correct;
+	}
+	
+	/** Steps of each batch are computed in parallel from the same weights, then applied in the order of the shuffled instances. */
+	@SuppressWarnings("unchecked")
+	private int updateBatches(ExecutorService executor, int numThreads, final AbstractTrainSpace space, final int L, final int[] indices, double[] gs, double[] weights) throws InterruptedException, ExecutionException
+	{
+		final IntArrayList ys = space.getYs();
+		final Object[] steps = new Object[BATCH_SIZE];
+		final double[] w = weights;
+		
+		List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(numThreads);
+		InstanceView[] views = new InstanceView[numThreads];
+		InstanceView view = new InstanceView();
+		int i, j, idx, size, N = indices.length, correct = 0;
+		
+		for (j=0; j<numThreads; j++)
+			views[j] = new InstanceView();
+		
+		for (i=0; i<N; i+=BATCH_SIZE)
+		{
+			final int bIdx = i;
+			size = Math.min(BATCH_SIZE, N - i);
+			tasks.clear();
+			
+			for (j=0; j<numThreads; j++)
+			{
+				final int sIdx = bIdx + (int)((long)size *  j    / numThreads);
+				final int eIdx = bIdx + (int)((long)size * (j+1) / numThreads);
+				final InstanceView tView = views[j];
+				
+				tasks.add(new Callable<Object>()
+				{
+					@Override
+					public Object call()
+					{
+						int k, kdx;
+						
+						for (k=sIdx; k<eIdx; k++)
+						{
+							kdx = indices[k];
+							space.getInstance(kdx, tView);
+							steps[k-bIdx] = getStep(L, ys.get(kdx), tView.x, tView.v, tView.size, w);
+						}
+						
+						return null;
+					}
+				});
+			}
+			
+			for (Future<Object> f : executor.invokeAll(tasks))
+				f.get();
+			
+			for (j=0; j<size; j++)
+			{
+				idx = indices[i+j];
+				space.getInstance(idx, view);
+				
+				if (applyStep(L, ys.get(idx), view.x, view.v, view.size, (T)steps[j], gs, weights))
+					correct++;
+			}
+		}
+		
+		return correct;
+	}
+	
+	/**
+	 * Returns the step of the specific instance computed from the specific weights.
+	 * Only the first {@code len} elements of {@code x} and {@code v} belong to the instance.
+	 * Must not modify the weights; may be called by multiple threads at the same time.
+	 */
+	abstract protected T getStep(int L, int y, int[] x, double[] v, int len, double[] weights);
+	
+	/**
+	 * Applies the specific step of the specific instance to the sums of squared gradients and the weights.
+	 * Only the first {@code len} elements of {@code x} and {@code v} belong to the instance.
+	 * @return {@code true} if the instance is counted as correct for the iteration.
+	 */
+	abstract protected boolean applyStep(int L, int y, int[] x, double[] v, int len, T step, double[] gs, double[] weights);
+	
+	protected double getUpdate(int L, double[] gs, int y, int x)
+	{
+		return d_alpha / (d_rho + Math.sqrt(gs[getWeightIndex(L, y, x)]));
+	}
+}
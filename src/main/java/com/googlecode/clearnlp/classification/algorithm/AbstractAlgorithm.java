@@ -23,7 +23,13 @@
 */
 package com.googlecode.clearnlp.classification.algorithm;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
@@ -52,6 +58,59 @@ abstract public class AbstractAlgorithm
 	 */
 	abstract public double[] getWeight(AbstractTrainSpace space, int currLabel);
 	
+	/**
+	 * Returns the weight vector for the specific label given the training space using the specific number of threads.
+	 * By default, calls {@link AbstractAlgorithm#getWeight(AbstractTrainSpace, int)} using one thread.
+	 * @param space the training space.
+	 * @param currLabel the label to get the weight vector for.
+	 * @param numThreads the number of threads.
+	 * @return the weight vector for the specific label given the training space.
+	 */
+	public double[] getWeight(AbstractTrainSpace space, int currLabel, int numThreads)
+	{
+		return getWeight(space, currLabel);
+	}
+	
+	/**
+	 * Runs all of the specific tasks by the specific executor and waits until they are done.
+	 * @return the results of the tasks in order.
+	 * @throws RuntimeException if a task fails or the current thread is interrupted (see {@link AbstractAlgorithm#toRuntimeException(Exception)}).
+	 */
+	static public <T> List<T> invokeAll(ExecutorService executor, Collection<? extends Callable<T>> tasks)
+	{
+		List<T> results = new ArrayList<T>(tasks.size());
+		
+		try
+		{
+			for (Future<T> f : executor.invokeAll(tasks))
+				results.add(f.get());
+		}
+		catch (InterruptedException e) {throw toRuntimeException(e);}
+		catch (ExecutionException   e) {throw toRuntimeException(e);}
+		
+		return results;
+	}
+	
+	/**
+	 * Returns the specific exception thrown while waiting for tasks as an unchecked exception to be rethrown.
+	 * The cause of an {@link ExecutionException} is returned as it is if unchecked (errors are thrown); otherwise, it is wrapped.
+	 * For an {@link InterruptedException}, the interrupt flag of the current thread is restored.
+	 */
+	static public RuntimeException toRuntimeException(Exception e)
+	{
+		if (e instanceof InterruptedException)
+		{
+			Thread.currentThread().interrupt();
+			return new RuntimeException(e);
+		}
+		
+		Throwable t = (e instanceof ExecutionException) ? e.getCause() : e;
+		
+		if      (t instanceof RuntimeException)	return (RuntimeException)t;
+		else if (t instanceof Error)			throw (Error)t;
+		else									return new RuntimeException(t);
+	}
+	
 	/** Used for liblinear algorithms. */
 	protected int GETI(byte[] y, int i)
 	{
@@ -15,14 +15,10 @@
 */
 package com.googlecode.clearnlp.classification.algorithm;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Random;
 
-import com.carrotsearch.hppc.IntArrayList;
 import com.googlecode.clearnlp.classification.prediction.IntPrediction;
-import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
-import com.googlecode.clearnlp.util.UTArray;
 import com.googlecode.clearnlp.util.triple.Triple;
 
 /**
@@ -30,119 +26,52 @@ import com.googlecode.clearnlp.util.triple.Triple;
  * @since 1.3.0
  * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
  */
-public class AdaGrad extends AbstractAlgorithm
+public class AdaGrad extends AbstractAdaGrad<Integer>
 {
-	protected int    n_iter;
-	protected Random r_rand;
-	protected double d_alpha;
-	protected double d_rho;
-	
 	/**
 	 * @param alpha the learning rate.
 	 * @param rho the smoothing denominator.
 	 */
 	public AdaGrad(int iter, double alpha, double rho, Random rand)
 	{
-		n_iter  = iter;
-		r_rand  = rand;
-		d_alpha = alpha;
-		d_rho   = rho;
+		super(iter, alpha, rho, rand);
 	}
 	
 	@Override
-	public double[] getWeight(AbstractTrainSpace space, int numThreads)
+	protected void printIteration(int iter, int correct, int N)
 	{
-		double[] weights = new double[space.getFeatureSize() * space.getLabelSize()];
-		
-		updateWeight(space, weights);
-		return weights;
+		double acc = 100d * correct / N;
+		System.out.printf("- %3d: acc = %7.4f\n", iter, acc);
 	}
 	
-	public void updateWeight(AbstractTrainSpace space)
+	/** @return the label to be penalized against {@code y}, or {@code -1} if the instance is correctly predicted with a margin. */
+	@Override
+	protected Integer getStep(int L, int y, int[] x, double[] v, int len, double[] weights)
 	{
-		updateWeight(space, space.getModel().getWeights());
-	}
-	
-	public void updateWeight(AbstractTrainSpace space, double[] weights)
-	{	
-		final int D = space.getFeatureSize();
-		final int L = space.getLabelSize();
-		final int N = space.getInstanceSize();
-		double[] gs = new double[D*L];
-		
-		IntArrayList        ys = space.getYs();
-		ArrayList<int[]>    xs = space.getXs();
-		ArrayList<double[]> vs = space.getVs();
+		Triple<IntPrediction,IntPrediction,IntPrediction> ps = getPredictions(L, y, x, v, len, weights);
+		IntPrediction fst = ps.o1, snd = ps.o2;
 		
-		Triple<IntPrediction,IntPrediction,IntPrediction> ps;
-		IntPrediction fst, snd;
-		int i, j, sum;
-		int[] indices;
-		double acc;
-		
-		int      yi;
-		int[]    xi;
-		double[] vi = null;
-		
-		for (i=0; i<n_iter; i++)
-		{
-			indices = getShuffledIndices(N);
-			Arrays.fill(gs, 0);
-			sum = 0;
-			
-			for (j=0; j<N; j++)
-			{
-				yi = ys.get(indices[j]);
-				xi = xs.get(indices[j]);
-				if (space.hasWeight())	vi = vs.get(indices[j]);
-				
-				ps  = getPredictions(L, yi, xi, vi, weights);
-				fst = ps.o1;
-				snd = ps.o2;
-				
-				if (fst.label == yi)
-				{
-					if (fst.score - snd.score < 1)
-					{
-						updateCounts (L, gs, yi, snd.label, xi, vi);
-						updateWeights(L, gs, yi, snd.label, xi, vi, weights);
-					}
-					else
-						sum++;
-				}
-				else
-				{
-					updateCounts (L, gs, yi, fst.label, xi, vi);
-					updateWeights(L, gs, yi, fst.label, xi, vi, weights);
-				}
-			}
-			
-			acc = 100d * sum / N;
-			System.out.printf("- %3d: acc = %7.4f\n", i+1, acc);
-		}
+		if (fst.label == y)
+			return (fst.score - snd.score < 1) ? snd.label : -1;
+		else
+			return fst.label;
 	}
 	
-	private int[] getShuffledIndices(int N)
+	@Override
+	protected boolean applyStep(int L, int y, int[] x, double[] v, int len, Integer step, double[] gs, double[] weights)
 	{
-		int[] indices = new int[N];
-		int i, j;
-		
-		for (i=0; i<N; i++)
-			indices[i] = i;
+		int yn = step;
+		if (yn < 0)	return true;
 		
-		for (i=0; i<N; i++)
-		{
-			j = i + r_rand.nextInt(N - i);
-			UTArray.swap(indices, i, j);
-		}
-		
-		return indices;
+		updateCounts (L, gs, y, yn, x, v, len);
+		updateWeights(L, gs, y, yn, x, v, len, weights);
+		return false;
 	}
 	
-	protected IntPrediction getPrediction(int L, int y, int[] x, double[] v, double[] weights)
+	protected IntPrediction getPrediction(int L, int y, int[] x, double[] v, int size, double[] weights)
 	{
 		double[] scores = new double[L];
-		int i, label, size = x.length;
+		int i, label;
 		
 		Arrays.fill(scores, 1);
 		scores[y] = 0;
@@ -171,10 +100,10 @@ public class AdaGrad extends AbstractAlgorithm
 		return max;
 	}
 	
-	protected Triple<IntPrediction,IntPrediction,IntPrediction> getPredictions(int L, int y, int[] x, double[] v, double[] weights)
+	protected Triple<IntPrediction,IntPrediction,IntPrediction> getPredictions(int L, int y, int[] x, double[] v, int size, double[] weights)
 	{
 		double[] scores = new double[L];
-		int i, label, size = x.length;
+		int i, label;
 		
 		if (v != null)
 		{
@@ -216,9 +145,9 @@ public class AdaGrad extends AbstractAlgorithm
 		return new Triple<IntPrediction,IntPrediction,IntPrediction>(fst, snd, new IntPrediction(y, scores[y]));
 	}
 	
-	protected void updateCounts(int L, double[] gs, int yp, int yn, int[] x, double[] v)
+	protected void updateCounts(int L, double[] gs, int yp, int yn, int[] x, double[] v, int len)
 	{
-		int i, len = x.length;
+		int i;
 		
 		if (v != null)
 		{
@@ -242,9 +171,9 @@ public class AdaGrad extends AbstractAlgorithm
 		}
 	}
 	
-	protected void updateWeights(int L, double[] gs, int yp, int yn, int[] x, double[] v, double[] weights)
+	protected void updateWeights(int L, double[] gs, int yp, int yn, int[] x, double[] v, int len, double[] weights)
 	{
-		int i, xi, len = x.length;
+		int i, xi;
 		double vi;
 		
 		if (v != null)
@@ -266,10 +195,4 @@ public class AdaGrad extends AbstractAlgorithm
 			}
 		}
 	}
-	
-	protected double getUpdate(int L, double[] gs, int y, int x)
-	{
-		return d_alpha / (d_rho + Math.sqrt(gs[getWeightIndex(L, y, x)]));
-	}
 }
-	
\ No newline at end of file
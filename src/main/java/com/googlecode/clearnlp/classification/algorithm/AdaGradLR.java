@@ -15,108 +15,41 @@
 */
 package com.googlecode.clearnlp.classification.algorithm;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Random;
 
-import com.carrotsearch.hppc.IntArrayList;
-import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
-import com.googlecode.clearnlp.util.UTArray;
-
 /**
  * AdaGrad algorithm.
  * @since 1.3.0
  * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
  */
-public class AdaGradLR extends AbstractAlgorithm
+public class AdaGradLR extends AbstractAdaGrad<double[]>
 {
-	protected int    n_iter;
-	protected Random r_rand;
-	protected double d_alpha;
-	protected double d_rho;
-	
 	/**
 	 * @param alpha the learning rate.
 	 * @param rho the smoothing denominator.
 	 */
 	public AdaGradLR(int iter, double alpha, double rho, Random rand)
 	{
-		n_iter  = iter;
-		r_rand  = rand;
-		d_alpha = alpha;
-		d_rho   = rho;
+		super(iter, alpha, rho, rand);
 	}
 	
 	@Override
-	public double[] getWeight(AbstractTrainSpace space, int numThreads)
+	protected double[] getStep(int L, int y, int[] x, double[] v, int len, double[] weights)
 	{
-		double[] weights = new double[space.getFeatureSize() * space.getLabelSize()];
-		
-		updateWeight(space, weights);
-		return weights;
-	}
-	
-	public void updateWeight(AbstractTrainSpace space)
-	{
-		updateWeight(space, space.getModel().getWeights());
-	}
-	
-	public void updateWeight(AbstractTrainSpace space, double[] weights)
-	{	
-		final int D = space.getFeatureSize();
-		final int L = space.getLabelSize();
-		final int N = space.getInstanceSize();
-		double[] gs = new double[D*L];
-		
-		IntArrayList        ys = space.getYs();
-		ArrayList<int[]>    xs = space.getXs();
-		ArrayList<double[]> vs = space.getVs();
-		
-		int[] indices;
-		int i, j;
-		
-		int      yi;
-		int[]    xi;
-		double[] vi = null, grad;
-		
-		for (i=0; i<n_iter; i++)
-		{
-			indices = getShuffledIndices(N);
-			Arrays.fill(gs, 0);
-			
-			for (j=0; j<N; j++)
-			{
-				yi = ys.get(indices[j]);
-				xi = xs.get(indices[j]);
-				if (space.hasWeight())	vi = vs.get(indices[j]);
-				
-				grad = getGradients(L, yi, xi, vi, weights);
-				updateCounts(L, gs, grad, xi, vi);
-				updateWeights(L, gs, grad, xi, vi, weights);
-			}
-		}
+		return getGradients(L, y, x, v, len, weights);
 	}
 	
-	protected int[] getShuffledIndices(int N)
+	@Override
+	protected boolean applyStep(int L, int y, int[] x, double[] v, int len, double[] grad, double[] gs, double[] weights)
 	{
-		int[] indices = new int[N];
-		int i, j;
-		
-		for (i=0; i<N; i++)
-			indices[i] = i;
-		
-		for (i=0; i<N; i++)
-		{
-			j = i + r_rand.nextInt(N - i);
-			UTArray.swap(indices, i, j);
-		}
-		
-		return indices;
+		updateCounts(L, gs, grad, x, v, len);
+		updateWeights(L, gs, grad, x, v, len, weights);
+		return false;
 	}
 	
-	protected double[] getGradients(int L, int y, int[] x, double[] v, double[] weights)
+	protected double[] getGradients(int L, int y, int[] x, double[] v, int len, double[] weights)
 	{
-		double[] scores = getScores(L, x, v, weights);
+		double[] scores = getScores(L, x, v, len, weights);
 		normalize(scores);
 
 		int i; for (i=0; i<L; i++) scores[i] *= -1;
@@ -125,10 +58,10 @@ public class AdaGradLR extends AbstractAlgorithm
 		return scores;
 	}
 	
-	private double[] getScores(int L, int[] x, double[] v, double[] weights)
+	private double[] getScores(int L, int[] x, double[] v, int len, double[] weights)
 	{
 		double[] scores = new double[L];
-		int i, label, len = x.length;
+		int i, label;
 		
 		if (v != null)
 		{
@@ -146,9 +79,9 @@ public class AdaGradLR extends AbstractAlgorithm
 		return scores;
 	}
 	
-	protected void updateCounts(int L, double[] gs, double[] grad, int[] x, double[] v)
+	protected void updateCounts(int L, double[] gs, double[] grad, int[] x, double[] v, int len)
 	{
-		int i, label, len = x.length;
+		int i, label;
 		double[] g = new double[L];
 		double d;
 
@@ -173,9 +106,9 @@ public class AdaGradLR extends AbstractAlgorithm
 		}
 	}
 	
-	protected void updateWeights(int L, double[] gs, double[] grad, int[] x, double[] v, double[] weights)
+	protected void updateWeights(int L, double[] gs, double[] grad, int[] x, double[] v, int len, double[] weights)
 	{
-		int i, label, len = x.length;
+		int i, label;
 		
 		if (v != null)
 		{
@@ -190,10 +123,4 @@ public class AdaGradLR extends AbstractAlgorithm
 					weights[getWeightIndex(L, label, x[i])] += getUpdate(L, gs, label, x[i]) * grad[label];
 		}
 	}
-	
-	protected double getUpdate(int L, double[] gs, int y, int x)
-	{
-		return d_alpha / (d_rho + Math.sqrt(gs[getWeightIndex(L, y, x)]));
-	}
 }
-	
\ No newline at end of file
@@ -23,11 +23,16 @@
 */
 package com.googlecode.clearnlp.classification.algorithm;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.carrotsearch.hppc.IntArrayList;
 import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
+import com.googlecode.clearnlp.classification.train.InstanceView;
 import com.googlecode.clearnlp.util.UTArray;
 
 
@@ -60,48 +65,48 @@ public class LiblinearL2LR extends AbstractAlgorithm
 	 */
 	public double[] getWeight(AbstractTrainSpace space, int currLabel)
 	{
-		Random rand = new Random(1);
-		
-		final int MAX_ITER = 1000;
-		final int MAX_ITER_NEWTON = 100;
+		return getWeight(space, currLabel, 1);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * With multiple threads, instances are split into shards optimized asynchronously by the threads,
+	 * then the weight vector is recomputed from the dual variables and optimized by one thread until
+	 * it reaches the tolerance {@link LiblinearL2LR#d_eps}.
+	 */
+	@Override
+	public double[] getWeight(AbstractTrainSpace space, int currLabel, int numThreads)
+	{
 		final int N = space.getInstanceSize();
 		final int D = space.getFeatureSize();
 		
-		final double eta          = 0.1;
-		final double innereps_min = Math.min(1e-8, d_eps);
-				
-		IntArrayList        ys = space.getYs();
-		ArrayList<int[]>    xs = space.getXs();
-		ArrayList<double[]> vs = space.getVs();
+		IntArrayList ys = space.getYs();
+		InstanceView view = new InstanceView();
 		
 		double[] xTx    = new double[N];
 		double[] alpha  = new double[2*N];
 		double[] weight = new double[D];
-		double C, ywTx, xisq, alpha_old, a, b, d, z, gp, gpp, tmpz;
-		
-		int [] index = new int [N];
-		byte[] aY    = new byte[N];
+		byte[]   aY     = new byte[N];
+		double[] upper_bound = {d_cost, 0, d_cost};
+		double[] innereps = {1e-2};
+		double d;
 		
-		int i, j, s, iter, iter_newton, iter_inner, ind1, ind2, sign;
-		byte     yi;
+		int i, j, len, iter, pIter = 0;
 		int[]    xi;
-		double[] vi = null;
-		
-		double   Gmax;
-		double   innereps = 1e-2;
-		double[] upper_bound = {d_cost, 0, d_cost};
+		double[] vi;
 		
 		for (i=0; i<N; i++)
 		{
-			index[i] = i;
 			aY   [i] = (ys.get(i) == currLabel) ? (byte)1 : (byte)-1;
 			
 			alpha[2*i  ] = Math.min(0.001 * upper_bound[GETI(aY, i)], 1e-8);
 			alpha[2*i+1] = upper_bound[GETI(aY, i)] - alpha[2*i];
 
-			d  = aY[i] * alpha[2*i];
-			xi = xs.get(i);
-			if (space.hasWeight())	vi = vs.get(i);
+			d   = aY[i] * alpha[2*i];
+			space.getInstance(i, view);
+			xi  = view.x;
+			vi  = view.v;
+			len = view.size;
 			
 			if (d_bias > 0)
 			{
@@ -109,9 +114,9 @@ public class LiblinearL2LR extends AbstractAlgorithm
 				weight[0] += d      * d_bias;
 			}
 			
-			for (j=0; j<xi.length; j++)
+			for (j=0; j<len; j++)
 			{
-				if (space.hasWeight())
+				if (vi != null)
 				{
 					xTx[i]        += vi[j] * vi[j];
 					weight[xi[j]] += d     * vi[j];
@@ -124,8 +129,194 @@ public class LiblinearL2LR extends AbstractAlgorithm
 			}
 		}
 		
+		if (numThreads > 1)
+		{
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			
+			try
+			{
+				pIter = solve(getShards(space, aY, xTx, alpha, weight, upper_bound, numThreads), executor, innereps);
+			}
+			finally
+			{
+				executor.shutdown();
+			}
+			
+			Arrays.fill(weight, 0);
+			
+			for (i=0; i<N; i++)
+				addWeight(space.getInstance(i, view), weight, aY[i] * alpha[2*i]);
+		}
+		
+		iter = solve(getShards(space, aY, xTx, alpha, weight, upper_bound, 1), null, innereps);
+		double v = 0;
+		
+		for (i=0; i<D; i++)
+			v += weight[i] * weight[i];
+		
+		v *= 0.5;
+		
+		for (i=0; i<N; i++)
+			v += alpha[2*i] * Math.log(alpha[2*i]) + alpha[2*i+1] * Math.log(alpha[2*i+1]) - upper_bound[GETI(aY,i)] * Math.log(upper_bound[GETI(aY,i)]);
+		
+		StringBuilder build = new StringBuilder();
+		
+		build.append("- label = ");
+		build.append(currLabel);
+		build.append(": iter = ");
+		build.append(iter);
+		
+		if (numThreads > 1)
+		{
+			build.append(" (parallel = ");
+			build.append(pIter);
+			build.append(")");
+		}
+		
+		build.append(", obj-value = ");
+		build.append(v);
+
+		System.out.println(build.toString());
+		
+		return weight;
+	}
+	
+	/** @return shards splitting all instances evenly. */
+	private Shard[] getShards(AbstractTrainSpace space, byte[] aY, double[] xTx, double[] alpha, double[] weight, double[] upper_bound, int numShards)
+	{
+		final int N = space.getInstanceSize();
+		Shard[] shards = new Shard[numShards];
+		int i, j, bIdx, eIdx;
+		int[] index;
+		
+		for (i=0; i<numShards; i++)
+		{
+			bIdx  = (int)((long)N *  i    / numShards);
+			eIdx  = (int)((long)N * (i+1) / numShards);
+			index = new int[eIdx - bIdx];
+			
+			for (j=bIdx; j<eIdx; j++)
+				index[j-bIdx] = j;
+			
+			shards[i] = new Shard(space, index, new Random(1+i), aY, xTx, alpha, weight, upper_bound);
+		}
+		
+		return shards;
+	}
+	
+	/**
+	 * Optimizes the dual variables of all shards until the maximum gradient is less than {@link LiblinearL2LR#d_eps}.
+	 * @param executor the executor to run shards in parallel; {@code null} if there is only one shard.
+	 * @param innereps the tolerance of the Newton method, updated by this method.
+	 * @return the number of iterations.
+	 */
+	private int solve(Shard[] shards, ExecutorService executor, double[] innereps)
+	{
+		final int MAX_ITER = 1000;
+		final double innereps_min = Math.min(1e-8, d_eps);
+		
+		List<Shard> tasks = Arrays.asList(shards);
+		int iter, iter_newton, N = 0;
+		double Gmax;
+		
+		for (Shard shard : shards)
+			N += shard.index.length;
+		
 		for (iter=0; iter<MAX_ITER; iter++)
 		{
+			for (Shard shard : shards)
+				shard.innereps = innereps[0];
+			
+			if (executor == null)
+				shards[0].call();
+			else
+				invokeAll(executor, tasks);
+			
+			iter_newton = 0;
+			Gmax = 0;
+			
+			for (Shard shard : shards)
+			{
+				iter_newton += shard.iter_newton;
+				Gmax = Math.max(Gmax, shard.Gmax);
+			}
+			
+			if (Gmax < d_eps)
+				break;
+			
+			if (iter_newton <= N/10) 
+				innereps[0] = Math.max(innereps_min, 0.1*innereps[0]);
+		}
+		
+		return iter;
+	}
+	
+	/** Adds {@code d * x} to the specific weight vector, where {@code x} is the instance in the specific view. */
+	private void addWeight(InstanceView view, double[] weight, double d)
+	{
+		int[]    xi = view.x;
+		double[] vi = view.v;
+		int j, len = view.size;
+		
+		if (d_bias > 0)	weight[0] += d * d_bias;
+		
+		if (vi != null)
+		{
+			for (j=0; j<len; j++)
+				weight[xi[j]] += d * vi[j];
+		}
+		else
+		{
+			for (j=0; j<len; j++)
+				weight[xi[j]] += d;
+		}
+	}
+	
+	/**
+	 * Instances whose dual variables are optimized by one thread.
+	 * The weight vector is shared with other shards and updated without locking.
+	 */
+	private class Shard implements Callable<Object>
+	{
+		AbstractTrainSpace space;
+		int[]    index;
+		Random   rand;
+		byte[]   aY;
+		double[] xTx;
+		double[] alpha;
+		double[] weight;
+		double[] upper_bound;
+		double   innereps, Gmax;
+		int      iter_newton;
+		/** The view of the current instance, reused across passes. */
+		InstanceView view;
+		
+		public Shard(AbstractTrainSpace space, int[] index, Random rand, byte[] aY, double[] xTx, double[] alpha, double[] weight, double[] upper_bound)
+		{
+			this.space       = space;
+			this.index       = index;
+			this.rand        = rand;
+			this.aY          = aY;
+			this.xTx         = xTx;
+			this.alpha       = alpha;
+			this.weight      = weight;
+			this.upper_bound = upper_bound;
+			this.view        = new InstanceView();
+		}
+		
+		/** Runs one pass over the instances of this shard. */
+		@Override
+		public Object call()
+		{
+			final int MAX_ITER_NEWTON = 100;
+			final double eta = 0.1;
+			
+			double C, ywTx, xisq, alpha_old, a, b, d, z, gp, gpp, tmpz;
+			int i, j, s, len, iter_inner, ind1, ind2, sign, N = index.length;
+			byte     yi;
+			int[]    xi;
+			double[] vi;
+			
 			for (i=0; i<N; i++)
 			{
 				j = i + rand.nextInt(N - i);
@@ -139,21 +330,22 @@ public class LiblinearL2LR extends AbstractAlgorithm
 			{
 				i    = index[s];
 				yi   = aY[i];
-				xi   = xs.get(i);
+				space.getInstance(i, view);
+				xi   = view.x;
+				vi   = view.v;
+				len  = view.size;
 				xisq = xTx[i];
 				C    = upper_bound[GETI(aY, i)];
 				ywTx = (d_bias > 0) ? weight[0] * d_bias : 0;
 								
-				if (space.hasWeight())
+				if (vi != null)
 				{
-					vi = vs.get(i);
-					
-					for (j=0; j<xi.length; j++)
+					for (j=0; j<len; j++)
 						ywTx += weight[xi[j]] * vi[j];
 				}
 				else
 				{
-					for (j=0; j<xi.length; j++)
+					for (j=0; j<len; j++)
 						ywTx += weight[xi[j]];
 				}
 				
@@ -205,9 +397,9 @@ public class LiblinearL2LR extends AbstractAlgorithm
 
  					if (d_bias > 0)	weight[0] += d * d_bias;
 					
-					for (j=0; j<xi.length; j++)
+					for (j=0; j<len; j++)
 					{
-						if (space.hasWeight())
+						if (vi != null)
 							weight[xi[j]] += d * vi[j];
 						else
 							weight[xi[j]] += d;
@@ -215,35 +407,7 @@ public class LiblinearL2LR extends AbstractAlgorithm
  				}
 			}
 			
-			if (Gmax < d_eps)
-				break;
-			
-			if (iter_newton <= N/10) 
-				innereps = Math.max(innereps_min, 0.1*innereps);
+			return null;
 		}
-		
-		double v = 0;
-		
-		for (i=0; i<D; i++)
-			v += weight[i] * weight[i];
-		
-		v *= 0.5;
-		
-		for (i=0; i<N; i++)
-			v += alpha[2*i] * Math.log(alpha[2*i]) + alpha[2*i+1] * Math.log(alpha[2*i+1]) - upper_bound[GETI(aY,i)] * Math.log(upper_bound[GETI(aY,i)]);
-		
-		StringBuilder build = new StringBuilder();
-		
-		build.append("- label = ");
-		build.append(currLabel);
-		build.append(": iter = ");
-		build.append(iter);
-		build.append(", obj-value = ");
-		build.append(v);
-
-		System.out.println(build.toString());
-		
-		return weight;
 	}
 }
-	
\ No newline at end of file
@@ -23,11 +23,16 @@
 */
 package com.googlecode.clearnlp.classification.algorithm;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import com.carrotsearch.hppc.IntArrayList;
 import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
+import com.googlecode.clearnlp.classification.train.InstanceView;
 import com.googlecode.clearnlp.util.UTArray;
 
 
@@ -63,36 +68,29 @@ public class LiblinearL2SV extends AbstractAlgorithm
 	 */
 	public double[] getWeight(AbstractTrainSpace space, int currLabel)
 	{
-		Random rand = new Random(5);
-		
-		final int MAX_ITER = 1000;
+		return getWeight(space, currLabel, 1);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * With multiple threads, instances are split into shards optimized asynchronously by the threads,
+	 * then the weight vector is recomputed from the dual variables and optimized by one thread until
+	 * it reaches the tolerance {@link LiblinearL2SV#d_eps}.
+	 */
+	@Override
+	public double[] getWeight(AbstractTrainSpace space, int currLabel, int numThreads)
+	{
 		final int N = space.getInstanceSize();
 		final int D = space.getFeatureSize();
 		
-		IntArrayList        ys = space.getYs();
-		ArrayList<int[]>    xs = space.getXs();
-		ArrayList<double[]> vs = space.getVs();
+		IntArrayList ys = space.getYs();
+		InstanceView view = new InstanceView();
 		
 		double[] QD     = new double[N];
 		double[] alpha  = new double[N];
 		double[] weight = new double[D];
-		double U, G, d, alpha_old;
-		
-		int [] index = new int [N];
-		byte[] aY    = new byte[N];
-		
-		int active_size = N;
-		int i, j, s, iter;
-		byte     yi;
-		int[]    xi;
-		double[] vi = null;
-		boolean  bBias = d_bias > 0;
-		
-		// PG: projected gradient, for shrinking and stopping
-		double PG;
-		double PGmax_old = Double.POSITIVE_INFINITY;
-		double PGmin_old = Double.NEGATIVE_INFINITY;
-		double PGmax_new, PGmin_new;
+		byte[]   aY     = new byte[N];
+		int i, j, iter, pIter = 0;
 		
 		// for loss function
 		double diag = 0;
@@ -106,26 +104,215 @@ public class LiblinearL2SV extends AbstractAlgorithm
 		
 		for (i=0; i<N; i++)
 		{
-			index[i] = i;
-			
 			aY[i] = (ys.get(i) == currLabel) ? (byte)1 : (byte)-1;
 			QD[i] = diag;
 
-			if (bBias)	QD[i] += d_bias * d_bias;
+			if (d_bias > 0)	QD[i] += d_bias * d_bias;
+			space.getInstance(i, view);
 			
-			if (space.hasWeight())
+			if (view.v != null)
 			{
-				for (double value : vs.get(i))
-					QD[i] += value * value;
+				for (j=0; j<view.size; j++)
+					QD[i] += view.v[j] * view.v[j];
 			}
 			else
 			{
-				QD[i] += xs.get(i).length;				
+				QD[i] += view.size;
+			}
+		}
+		
+		if (numThreads > 1)
+		{
+			ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+			
+			try
+			{
+				pIter = solve(getShards(space, aY, QD, alpha, weight, diag, upper_bound, numThreads), executor);
+			}
+			finally
+			{
+				executor.shutdown();
 			}
+			
+			Arrays.fill(weight, 0);
+			
+			for (i=0; i<N; i++)
+				addWeight(space.getInstance(i, view), weight, alpha[i] * aY[i]);
+		}
+		
+		iter = solve(getShards(space, aY, QD, alpha, weight, diag, upper_bound, 1), null);
+		int nSV = 0;
+		
+		for (i = 0; i < N; i++)
+			if (alpha[i] > 0) ++nSV;
+		
+		if (numThreads > 1)
+			System.out.printf("- label = %3d: iter = %4d (parallel = %4d), nSV = %5d\n", currLabel, iter, pIter, nSV);
+		else
+			System.out.printf("- label = %3d: iter = %4d, nSV = %5d\n", currLabel, iter, nSV);
+		
+		return weight;
+	}
+	
+	/** @return shards splitting all instances evenly. */
+	private Shard[] getShards(AbstractTrainSpace space, byte[] aY, double[] QD, double[] alpha, double[] weight, double diag, double upper_bound, int numShards)
+	{
+		final int N = space.getInstanceSize();
+		Shard[] shards = new Shard[numShards];
+		int i, j, bIdx, eIdx;
+		int[] index;
+		
+		for (i=0; i<numShards; i++)
+		{
+			bIdx  = (int)((long)N *  i    / numShards);
+			eIdx  = (int)((long)N * (i+1) / numShards);
+			index = new int[eIdx - bIdx];
+			
+			for (j=bIdx; j<eIdx; j++)
+				index[j-bIdx] = j;
+			
+			shards[i] = new Shard(space, index, new Random(5+i), aY, QD, alpha, weight, diag, upper_bound);
 		}
 		
+		return shards;
+	}
+	
+	/**
+	 * Optimizes the dual variables of all shards until the projected gradients are within {@link LiblinearL2SV#d_eps}.
+	 * @param executor the executor to run shards in parallel; {@code null} if there is only one shard.
+	 * @return the number of iterations.
+	 */
+	private int solve(Shard[] shards, ExecutorService executor)
+	{
+		final int MAX_ITER = 1000;
+		List<Shard> tasks = Arrays.asList(shards);
+		double PGmax_new, PGmin_new;
+		boolean shrunk;
+		int iter;
+		
+		// PG: projected gradient, for shrinking and stopping
+		double PGmax_old = Double.POSITIVE_INFINITY;
+		double PGmin_old = Double.NEGATIVE_INFINITY;
+		
 		for (iter=0; iter<MAX_ITER; iter++)
 		{
+			for (Shard shard : shards)
+				shard.setBounds(PGmax_old, PGmin_old);
+			
+			if (executor == null)
+				shards[0].call();
+			else
+				invokeAll(executor, tasks);
+			
+			PGmax_new = Double.NEGATIVE_INFINITY;
+			PGmin_new = Double.POSITIVE_INFINITY;
+			shrunk    = false;
+			
+			for (Shard shard : shards)
+			{
+				PGmax_new = Math.max(PGmax_new, shard.PGmax_new);
+				PGmin_new = Math.min(PGmin_new, shard.PGmin_new);
+				shrunk |= shard.active_size < shard.index.length;
+			}
+			
+			if (PGmax_new - PGmin_new <= d_eps)
+			{
+				if (!shrunk)
+					break;
+				else
+				{
+					for (Shard shard : shards)
+						shard.active_size = shard.index.length;
+					
+					PGmax_old = Double.POSITIVE_INFINITY;
+					PGmin_old = Double.NEGATIVE_INFINITY;
+					continue;
+				}
+			}
+			
+			PGmax_old = PGmax_new;
+			PGmin_old = PGmin_new;
+			if (PGmax_old <= 0) PGmax_old = Double.POSITIVE_INFINITY;
+			if (PGmin_old >= 0) PGmin_old = Double.NEGATIVE_INFINITY;
+		}
+		
+		return iter;
+	}
+	
+	/** Adds {@code d * x} to the specific weight vector, where {@code x} is the instance in the specific view. */
+	private void addWeight(InstanceView view, double[] weight, double d)
+	{
+		int[]    xi = view.x;
+		double[] vi = view.v;
+		int j, len = view.size;
+		
+		if (d == 0)		return;
+		if (d_bias > 0)	weight[0] += d * d_bias;
+		
+		if (vi != null)
+		{
+			for (j=0; j<len; j++)
+				weight[xi[j]] += d * vi[j];
+		}
+		else
+		{
+			for (j=0; j<len; j++)
+				weight[xi[j]] += d;
+		}
+	}
+	
+	/**
+	 * Instances whose dual variables are optimized by one thread.
+	 * The weight vector is shared with other shards and updated without locking.
+	 */
+	private class Shard implements Callable<Object>
+	{
+		AbstractTrainSpace space;
+		int[]    index;
+		int      active_size;
+		Random   rand;
+		byte[]   aY;
+		double[] QD;
+		double[] alpha;
+		double[] weight;
+		double   diag;
+		double   upper_bound;
+		double   PGmax_old, PGmin_old, PGmax_new, PGmin_new;
+		/** The view of the current instance, reused across passes. */
+		InstanceView view;
+		
+		public Shard(AbstractTrainSpace space, int[] index, Random rand, byte[] aY, double[] QD, double[] alpha, double[] weight, double diag, double upper_bound)
+		{
+			this.space       = space;
+			this.index       = index;
+			this.active_size = index.length;
+			this.rand        = rand;
+			this.aY          = aY;
+			this.QD          = QD;
+			this.alpha       = alpha;
+			this.weight      = weight;
+			this.diag        = diag;
+			this.upper_bound = upper_bound;
+			this.view        = new InstanceView();
+		}
+		
+		public void setBounds(double PGmax_old, double PGmin_old)
+		{
+			this.PGmax_old = PGmax_old;
+			this.PGmin_old = PGmin_old;
+		}
+		
+		/** Runs one pass over the active instances of this shard. */
+		@Override
+		public Object call()
+		{
+			double U, G, d, alpha_old, PG;
+			int i, j, s, len;
+			byte     yi;
+			int[]    xi;
+			double[] vi;
+			boolean  bBias = d_bias > 0;
+			
 			PGmax_new = Double.NEGATIVE_INFINITY;
 			PGmin_new = Double.POSITIVE_INFINITY;
 			
@@ -137,22 +324,23 @@ public class LiblinearL2SV extends AbstractAlgorithm
 			
 			for (s=0; s<active_size; s++)
 			{
-				i  = index[s];
-				yi = aY[i];
-				xi = xs.get(i);
-				U  = upper_bound;
-				G  = (bBias) ? weight[0] * d_bias : 0;
+				i   = index[s];
+				yi  = aY[i];
+				space.getInstance(i, view);
+				xi  = view.x;
+				vi  = view.v;
+				len = view.size;
+				U   = upper_bound;
+				G   = (bBias) ? weight[0] * d_bias : 0;
 								
-				if (space.hasWeight())
+				if (vi != null)
 				{
-					vi = vs.get(i);
-					
-					for (j=0; j<xi.length; j++)
+					for (j=0; j<len; j++)
 						G += weight[xi[j]] * vi[j];
 				}
 				else
 				{
-					for (j=0; j<xi.length; j++)
+					for (j=0; j<len; j++)
 						G += weight[xi[j]];
 				}
 				
@@ -199,9 +387,9 @@ public class LiblinearL2SV extends AbstractAlgorithm
 					
 					if (bBias)	weight[0] += d * d_bias;
 					
-					for (j=0; j<xi.length; j++)
+					for (j=0; j<len; j++)
 					{
-						if (space.hasWeight())
+						if (vi != null)
 							weight[xi[j]] += d * vi[j];
 						else
 							weight[xi[j]] += d;
@@ -209,32 +397,7 @@ public class LiblinearL2SV extends AbstractAlgorithm
 				}
 			}
 			
-			if (PGmax_new - PGmin_new <= d_eps)
-			{
-				if (active_size == N)
-					break;
-				else
-				{
-					active_size = N;
-					PGmax_old = Double.POSITIVE_INFINITY;
-					PGmin_old = Double.NEGATIVE_INFINITY;
-					continue;
-				}
-			}
-			
-			PGmax_old = PGmax_new;
-			PGmin_old = PGmin_new;
-			if (PGmax_old <= 0) PGmax_old = Double.POSITIVE_INFINITY;
-			if (PGmin_old >= 0) PGmin_old = Double.NEGATIVE_INFINITY;
+			return null;
 		}
-		
-		int nSV = 0;
-		
-		for (i = 0; i < N; i++)
-			if (alpha[i] > 0) ++nSV;
-		
-		System.out.printf("- label = %3d: iter = %4d, nSV = %5d\n", currLabel, iter, nSV);
-		return weight;
 	}
 }
-	
\ No newline at end of file
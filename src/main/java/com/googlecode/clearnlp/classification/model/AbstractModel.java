@@ -24,9 +24,14 @@
 package com.googlecode.clearnlp.classification.model;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.ByteBuffer;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -35,6 +40,7 @@ import java.util.List;
 import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.googlecode.clearnlp.classification.prediction.IntPrediction;
+import com.googlecode.clearnlp.classification.prediction.PredictionBuffer;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.util.UTArray;
@@ -51,17 +57,29 @@ abstract public class AbstractModel
 	static public String LABEL_TRUE  = "T";
 	static public String LABEL_FALSE = "F";
 	
+	/** The magic number starting a binary model. */
+	static public final int BINARY_MAGIC   = 0xC1EA4E4C;
+	/** The version of the binary model format. */
+	static public final int BINARY_VERSION = 1;
+	/** The maximum number of bytes in each buffer mapping a part of the weight vector of a binary model file. */
+	static public final int SEGMENT_BYTES  = 1 << 30;
+	static private final Charset UTF_8 = Charset.forName("UTF-8");
+	
 	/** The total number of labels. */
 	protected int      n_labels;
 	/** The total number of features. */
 	protected int      n_features;
-	/** The weight vector for all labels. */
+	/** The weight vector for all labels ({@code null} if the weights are not kept on the heap). */
 	protected double[] d_weights;
+	/** The weight vector used for scoring. */
+	protected AbstractWeightVector w_weights;
 	/** The list of all labels. */
 	protected String[] a_labels;
 	/** The map between labels and their indices. */
 	protected ObjectIntHashMap<String> m_labels;
 	protected byte i_solver;
+	/** The channel of the binary model file being loaded if the file is larger than 2GB; otherwise, {@code null}. */
+	private FileChannel c_channel;
 	
 	/** Constructs an abstract model for training. */
 	public AbstractModel()
@@ -80,6 +98,37 @@ abstract public class AbstractModel
 		load(reader);
 	}
 	
+	/**
+	 * Constructs an abstract model for decoding from a binary model.
+	 * If the buffer is direct (e.g., memory-mapped), the weights are read in place.
+	 * @param buffer the buffer to load the model from.
+	 */
+	public AbstractModel(ByteBuffer buffer)
+	{
+		loadBinary(buffer);
+	}
+	
+	/**
+	 * Constructs an abstract model for decoding from a binary model file.
+	 * The file is memory-mapped and the weights are read in place;
+	 * weights larger than 2GB are mapped into several buffers (see {@link AbstractModel#SEGMENT_BYTES}).
+	 * @param channel the channel of the binary model file, which can be closed after this model is constructed.
+	 */
+	public AbstractModel(FileChannel channel) throws IOException
+	{
+		long size = channel.size();
+		c_channel = (size > Integer.MAX_VALUE) ? channel : null;
+		
+		try
+		{
+			loadBinary(channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, Integer.MAX_VALUE)));
+		}
+		finally
+		{
+			c_channel = null;
+		}
+	}
+	
 	/**
 	 * Loads this model from the specific reader.
 	 * @param reader the reader to load the model from.
@@ -92,6 +141,18 @@ abstract public class AbstractModel
 	 */
 	abstract public void save(PrintStream fout);
 	
+	/**
+	 * Loads this model from the specific binary buffer.
+	 * @param buffer the buffer to load the model from.
+	 */
+	abstract public void loadBinary(ByteBuffer buffer);
+	
+	/**
+	 * Saves this model in the binary format to the specific stream.
+	 * @param fout the stream to save this model to.
+	 */
+	abstract public void saveBinary(DataOutputStream fout);
+	
 	public void setSolver(byte solver)
 	{
 		i_solver = solver;
@@ -99,7 +160,8 @@ abstract public class AbstractModel
 	
 	public void setWeights(double[] weights)
 	{
-		d_weights = weights; 
+		d_weights = weights;
+		w_weights = (weights != null) ? new DoubleWeightVector(weights) : null;
 	}
 	
 	public double[] getWeights()
@@ -107,6 +169,50 @@ abstract public class AbstractModel
 		return d_weights;
 	}
 	
+	/** @return the total number of weights used for scoring. */
+	public int getWeightSize()
+	{
+		return w_weights.size();
+	}
+	
+	/** @return the type of the weight vector used for scoring (e.g., {@link AbstractWeightVector#TYPE_FLOAT}). */
+	public byte getWeightType()
+	{
+		return w_weights.getType();
+	}
+	
+	/**
+	 * Converts the weight vector used for scoring to the specific type.
+	 * Weights stored in single precision or 8-bit integers are not kept on the heap as doubles; thus, the model cannot be trained any further.
+	 * @param type the weight type (e.g., {@link AbstractWeightVector#TYPE_INT8}).
+	 */
+	public void setWeightType(byte type)
+	{
+		if (w_weights.getType() == type)	return;
+		
+		switch (type)
+		{
+		case AbstractWeightVector.TYPE_DOUBLE:
+			double[] weights = new double[w_weights.size()];
+			int i; for (i=0; i<weights.length; i++)	weights[i] = w_weights.get(i);
+			setWeights(weights);	break;
+		case AbstractWeightVector.TYPE_FLOAT:
+			w_weights = new FloatWeightVector(w_weights);
+			d_weights = null;	break;
+		case AbstractWeightVector.TYPE_INT8:
+			w_weights = new ByteWeightVector(w_weights, getScaleSize());
+			d_weights = null;	break;
+		default:
+			throw new IllegalArgumentException("Unknown weight type: "+type);
+		}
+	}
+	
+	/** @return the number of labels sharing each feature in the weight vector (1 for binary classification). */
+	protected int getScaleSize()
+	{
+		return isBinaryLabel() ? 1 : n_labels;
+	}
+	
 	/**
 	 * Initializes the label array after adding all labels.
 	 * @see StringModel#addLabel(String)
@@ -184,12 +290,12 @@ abstract public class AbstractModel
 	/** Initializes the weight vector given the label and feature sizes. */
 	public void initWeightVector()
 	{
-		d_weights = isBinaryLabel() ? new double[n_features] : new double[n_features * n_labels];
+		setWeights(isBinaryLabel() ? new double[n_features] : new double[n_features * n_labels]);
 	}
 	
 	public void initWeightVector(int nLabels)
 	{
-		d_weights = new double[n_features * nLabels];
+		setWeights(new double[n_features * nLabels]);
 	}
 	
 	/**
@@ -214,6 +320,47 @@ abstract public class AbstractModel
 			d_weights[getWeightIndex(label, i)] = weights[i];
 	}
 	
+	/**
+	 * Copies the weight vectors of all labels (for multi-classification).
+	 * Each vector is contiguous so the interleaved weights are written in one sequential pass.
+	 * @param weights the weight vectors to be copied, where {@code weights[label]} is the weight vector of the label.
+	 */
+	public void copyWeightVectors(double[][] weights)
+	{
+		int i, label;
+		
+		for (i=0; i<n_features; i++)
+			for (label=0; label<n_labels; label++)
+				d_weights[getWeightIndex(label, i)] = weights[label][i];
+	}
+	
+	/**
+	 * Initializes the weight vectors of all labels and copies the weights of the specific model to them.
+	 * Features of the specific model must keep their indices in this model (see {@link StringModel#copyDictionary(StringModel)});
+	 * labels are matched by their names, and weights of labels or features not found in the specific model are {@code 0}.
+	 * @param model the model to copy the weights from.
+	 */
+	public void copyWeights(AbstractModel model)
+	{
+		int i, label, y, size = model.getFeatureSize();
+		boolean binary = model.isBinaryLabel();
+		double weight;
+		
+		initWeightVector(n_labels);
+		
+		for (label=0; label<model.n_labels; label++)
+		{
+			y = getLabelIndex(model.getLabel(label));
+			
+			for (i=0; i<size; i++)
+			{
+				// binary models keep the weights of the first label only (see getScoresBinary())
+				weight = binary ? model.w_weights.get(i) : model.w_weights.get(model.getWeightIndex(label, i));
+				d_weights[getWeightIndex(y, i)] = (binary && label == 1) ? -weight : weight;
+			}
+		}
+	}
+	
 	public double[] getWeightVector(int label)
 	{
 		double[] weights = new double[n_features];
@@ -245,6 +392,29 @@ abstract public class AbstractModel
 		return isBinaryLabel() ? getScoresBinary(x) : getScoresMulti(x);
 	}
 	
+	/**
+	 * Puts the scores of all labels given the feature vector to the specific array.
+	 * @param x the feature vector.
+	 * @param scores the array to put the scores to, whose length is at least the number of labels.
+	 */
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		if (isBinaryLabel())	getScoresBinary(x, scores);
+		else					getScoresMulti (x, scores);
+	}
+	
+	/**
+	 * Puts the scores of all labels given each of the first {@code size} feature vectors to the corresponding row of the specific matrix.
+	 * @param xs the feature vectors.
+	 * @param size the number of feature vectors to score.
+	 * @param scores the matrix to put the scores to, whose row length is at least the number of labels.
+	 */
+	public void getScores(SparseFeatureVector[] xs, int size, double[][] scores)
+	{
+		for (int i=0; i<size; i++)
+			getScores(xs[i], scores[i]);
+	}
+	
 	/**
 	 * Returns the scores of all labels given the feature vector.
 	 * This method is used for binary classification.
@@ -253,24 +423,38 @@ abstract public class AbstractModel
 	 */
 	public double[] getScoresBinary(SparseFeatureVector x)
 	{
-		double score = d_weights[0];
+		double[] scores = new double[2];
+		getScoresBinary(x, scores);
+		
+		return scores;
+	}
+	
+	/** Called by {@link AbstractModel#getScoresBinary(SparseFeatureVector)}. */
+	protected void getScoresBinary(SparseFeatureVector x, double[] scores)
+	{
+		double score = w_weights.get(0);
 		int    i, index, size = x.size();
 		
-		for (i=0; i<size; i++)
+		if (isRange(x))
+			score = x.hasWeight() ? w_weights.addScore(score, x.getIndexBuffer(), x.getWeightBuffer(), size) : w_weights.addScore(score, x.getIndexBuffer(), size);
+		else
 		{
-			index = x.getIndex(i);
-			
-			if (isRange(index))
+			for (i=0; i<size; i++)
 			{
-				if (x.hasWeight())
-					score += d_weights[index] * x.getWeight(i);
-				else
-					score += d_weights[index];
+				index = x.getIndex(i);
+				
+				if (isRange(index))
+				{
+					if (x.hasWeight())
+						score += w_weights.get(index) * x.getWeight(i);
+					else
+						score += w_weights.get(index);
+				}
 			}
 		}
 		
-		double[] scores = {score, -score};
-		return scores;
+		scores[0] =  score;
+		scores[1] = -score;
 	}
 	
 	/**
@@ -281,28 +465,38 @@ abstract public class AbstractModel
 	 */
 	public double[] getScoresMulti(SparseFeatureVector x)
 	{
-		double[] scores = Arrays.copyOf(d_weights, n_labels);
-		int      i, index, label, weightIndex, size = x.size();
-		double   weight = 1;
+		double[] scores = new double[n_labels];
+		getScoresMulti(x, scores);
 		
-		for (i=0; i<size; i++)
+		return scores;
+	}
+	
+	/** Called by {@link AbstractModel#getScoresMulti(SparseFeatureVector)}. */
+	protected void getScoresMulti(SparseFeatureVector x, double[] scores)
+	{
+		int i, index, size = x.size();
+		
+		Arrays.fill(scores, 0, n_labels, 0);
+		w_weights.addScores(scores, 0, n_labels);
+		
+		if (isRange(x))
 		{
-			index = x.getIndex(i);
-			if (x.hasWeight())	weight = x.getWeight(i);
-			
-			if (isRange(index))
+			if (x.hasWeight())	w_weights.addScores(scores, x.getIndexBuffer(), x.getWeightBuffer(), size, n_labels);
+			else				w_weights.addScores(scores, x.getIndexBuffer(), size, n_labels);
+		}
+		else
+		{
+			for (i=0; i<size; i++)
 			{
-				for (label=0; label<n_labels; label++)
+				index = x.getIndex(i);
+				
+				if (isRange(index))
 				{
-					weightIndex = getWeightIndex(label, index);
-					
-					if (x.hasWeight())	scores[label] += d_weights[weightIndex] * weight;
-					else				scores[label] += d_weights[weightIndex];
+					if (x.hasWeight())	w_weights.addScores(scores, getWeightIndex(0, index), n_labels, x.getWeight(i));
+					else				w_weights.addScores(scores, getWeightIndex(0, index), n_labels);
 				}
 			}
 		}
-		
-		return scores;
 	}
 	
 	/**
@@ -315,6 +509,24 @@ abstract public class AbstractModel
 		return 0 < featureIndex && featureIndex < n_features;
 	}
 	
+	/**
+	 * Returns {@code true} if all features in the specific vector are within the range of this model,
+	 * in which case the vector can be scored by the kernels of {@link AbstractWeightVector} without per-feature checks.
+	 * @param x the feature vector.
+	 * @return {@code true} if all features in the specific vector are within the range of this model.
+	 */
+	public boolean isRange(SparseFeatureVector x)
+	{
+		int[] indices = x.getIndexBuffer();
+		int i, size = x.size();
+		boolean b = true;
+		
+		for (i=0; i<size; i++)
+			b &= 0 < indices[i] & indices[i] < n_features;
+		
+		return b;
+	}
+	
 	/** Returns the index of the weight vector given the label and the feature index. */
 	protected int getWeightIndex(int label, int index)
 	{
@@ -351,7 +563,7 @@ abstract public class AbstractModel
 		int   i, b, size, ch;
 		
 		size = Integer.parseInt(fin.readLine());
-		d_weights = new double[size];
+		double[] weights = new double[size];
 		
 		for (i=0; i<size; i++)
 		{
@@ -365,11 +577,12 @@ abstract public class AbstractModel
 				else			buffer[b++] = ch;
 			}
 
-			d_weights[i] = Double.parseDouble((new String(buffer, 0, b)));
+			weights[i] = Double.parseDouble((new String(buffer, 0, b)));
 			if (i%n_features == 0)	System.out.print(".");
 		}
 		
 		fin.readLine();
+		setWeights(weights);
 	}
 
 	/**
@@ -378,7 +591,7 @@ abstract public class AbstractModel
 	 */
 	protected void saveWeightVector(PrintStream fout)
 	{
-		int i, size = d_weights.length;
+		int i, size = w_weights.size();
 		StringBuilder build = null;
 		
 		fout.println(size);
@@ -393,13 +606,229 @@ abstract public class AbstractModel
 				build = new StringBuilder();
 			}
 			
-			build.append(d_weights[i]);
+			build.append(w_weights.get(i));
 			build.append(' ');
 		}
 		
 		fout.println(build.toString());
 	}
 	
+	/**
+	 * Reads and validates the header of a binary model.
+	 * @param buffer the buffer to read the header from.
+	 */
+	protected void loadBinaryHeader(ByteBuffer buffer)
+	{
+		if (buffer.getInt() != BINARY_MAGIC)
+			throw new IllegalArgumentException("Not a binary model.");
+		
+		int version = buffer.getInt();
+		
+		if (version > BINARY_VERSION)
+			throw new IllegalArgumentException("Unsupported binary model version: "+version);
+		
+		i_solver = buffer.get();
+	}
+	
+	/** Writes the header of a binary model to the specific stream. */
+	protected void saveBinaryHeader(DataOutputStream fout) throws IOException
+	{
+		fout.writeInt(BINARY_MAGIC);
+		fout.writeInt(BINARY_VERSION);
+		fout.writeByte(i_solver);
+	}
+	
+	/** Loads labels from the specific binary buffer. */
+	protected void loadLabels(ByteBuffer buffer)
+	{
+		n_labels = buffer.getInt();
+		a_labels = new String[n_labels];
+		m_labels = new ObjectIntHashMap<String>();
+		
+		int i;
+		for (i=0; i<n_labels; i++)
+		{
+			a_labels[i] = readString(buffer);
+			m_labels.put(a_labels[i], i+1);
+		}
+	}
+	
+	/** Saves labels to the specific binary stream. */
+	protected void saveLabels(DataOutputStream fout) throws IOException
+	{
+		fout.writeInt(n_labels);
+		
+		for (String label : a_labels)
+			writeString(fout, label);
+	}
+	
+	/**
+	 * Loads the weight vector from the specific binary buffer.
+	 * If the buffer is direct (e.g., memory-mapped), the weights are read in place.
+	 * If the binary model file being loaded is larger than 2GB, the weights are mapped from the file (see {@link AbstractModel#AbstractModel(FileChannel)}).
+	 * @param buffer the buffer to load the weight vector from.
+	 */
+	protected void loadWeightVector(ByteBuffer buffer)
+	{
+		byte type  = buffer.get();
+		int  size  = buffer.getInt();
+		long bytes = (long)size * AbstractWeightVector.getBytesPerWeight(type);
+		ByteBuffer[] segments;
+		
+		buffer.position(getAlignedPosition(buffer.position()));
+		
+		if (c_channel != null)
+		{
+			long position = buffer.position();
+			
+			try
+			{
+				segments = mapSegments(position, bytes, (type == AbstractWeightVector.TYPE_INT8) ? Integer.MAX_VALUE : SEGMENT_BYTES);
+				buffer   = c_channel.map(FileChannel.MapMode.READ_ONLY, position + bytes, c_channel.size() - position - bytes);
+			}
+			catch (IOException e) {throw new RuntimeException(e);}
+		}
+		else if (bytes <= buffer.remaining())
+		{
+			ByteBuffer slice = buffer.slice();
+			slice.limit((int)bytes);
+			buffer.position(buffer.position() + (int)bytes);
+			segments = new ByteBuffer[]{slice};
+		}
+		else
+			throw new IllegalArgumentException("The weight vector ("+bytes+" bytes) exceeds the binary model ("+buffer.remaining()+" bytes).");
+		
+		if (type == AbstractWeightVector.TYPE_DOUBLE)
+		{
+			if (buffer.isDirect())
+			{
+				DoubleBuffer[] weights = new DoubleBuffer[segments.length];
+				
+				int i; for (i=0; i<segments.length; i++)
+					weights[i] = segments[i].asDoubleBuffer();
+				
+				d_weights = null;
+				w_weights = new MappedWeightVector(weights);
+			}
+			else
+			{
+				double[] array = new double[size];
+				segments[0].asDoubleBuffer().get(array);
+				setWeights(array);
+			}
+		}
+		else if (type == AbstractWeightVector.TYPE_FLOAT)
+		{
+			FloatBuffer[] weights = new FloatBuffer[segments.length];
+			
+			int i; for (i=0; i<segments.length; i++)
+				weights[i] = segments[i].asFloatBuffer();
+			
+			if (!buffer.isDirect())
+			{
+				float[] array = new float[size];
+				weights[0].get(array);
+				weights[0] = FloatBuffer.wrap(array);
+			}
+			
+			d_weights = null;
+			w_weights = new FloatWeightVector(weights);
+		}
+		else if (type == AbstractWeightVector.TYPE_INT8)
+		{
+			ByteBuffer weights = segments[0];
+			
+			if (!buffer.isDirect())
+			{
+				byte[] array = new byte[size];
+				weights.get(array);
+				weights = ByteBuffer.wrap(array);
+			}
+			
+			float[] scales = new float[buffer.getInt()];
+			
+			int i; for (i=0; i<scales.length; i++)
+				scales[i] = buffer.getFloat();
+			
+			d_weights = null;
+			w_weights = new ByteWeightVector(weights, scales);
+		}
+	}
+	
+	/**
+	 * Maps the specific region of the binary model file being loaded into buffers of at most {@code segmentBytes} bytes.
+	 * @param position the position of the region in the file.
+	 * @param bytes the size of the region.
+	 * @param segmentBytes the maximum number of bytes in each buffer.
+	 * @return the buffers mapping consecutive parts of the region.
+	 */
+	private ByteBuffer[] mapSegments(long position, long bytes, int segmentBytes) throws IOException
+	{
+		ByteBuffer[] segments = new ByteBuffer[(int)((bytes + segmentBytes - 1) / segmentBytes)];
+		long offset;
+		int  i;
+		
+		for (i=0; i<segments.length; i++)
+		{
+			offset = (long)i * segmentBytes;
+			segments[i] = c_channel.map(FileChannel.MapMode.READ_ONLY, position + offset, Math.min(segmentBytes, bytes - offset));
+		}
+		
+		return segments;
+	}
+	
+	/**
+	 * Saves the weight vector to the specific binary stream.
+	 * The weights are aligned to 8 bytes from the beginning of the stream so they can be memory-mapped.
+	 * The weights are saved in the type of the current weight vector (see {@link AbstractModel#setWeightType(byte)}).
+	 * @param fout the output stream to save the weight vector to.
+	 */
+	protected void saveWeightVector(DataOutputStream fout) throws IOException
+	{
+		fout.writeByte(w_weights.getType());
+		fout.writeInt(w_weights.size());
+		
+		int i, pad = getAlignedPosition(fout.size()) - fout.size();
+		for (i=0; i<pad; i++)	fout.writeByte(0);
+		
+		w_weights.write(fout);
+	}
+	
+	/** @return the smallest position greater than or equal to the specific position that is a multiple of 8. */
+	private int getAlignedPosition(int position)
+	{
+		return (position + 7) & ~7;
+	}
+	
+	/** Reads a length-prefixed UTF-8 string from the specific buffer. */
+	static protected String readString(ByteBuffer buffer)
+	{
+		int len = buffer.getInt();
+		byte[] bytes = new byte[len];
+		
+		buffer.get(bytes);
+		return new String(bytes, UTF_8);
+	}
+	
+	/** Writes a length-prefixed UTF-8 string to the specific stream. */
+	static protected void writeString(DataOutputStream fout, String s) throws IOException
+	{
+		byte[] bytes = s.getBytes(UTF_8);
+		
+		fout.writeInt(bytes.length);
+		fout.write(bytes);
+	}
+	
+	/**
+	 * Returns {@code true} if the specific bytes start with {@link AbstractModel#BINARY_MAGIC}.
+	 * @param bytes the first bytes of a model.
+	 * @return {@code true} if the specific bytes start with {@link AbstractModel#BINARY_MAGIC}.
+	 */
+	static public boolean isBinary(byte[] bytes)
+	{
+		return bytes.length >= 4 && ByteBuffer.wrap(bytes).getInt() == BINARY_MAGIC;
+	}
+	
 	public byte[] toByteArray(double value)
 	{
 		byte[] bytes = new byte[8];
@@ -510,6 +939,42 @@ abstract public class AbstractModel
 		return list;
 	}
 	
+	/**
+	 * Puts the scores of all labels given the feature vector to the specific buffer and ranks the best label.
+	 * Unlike {@link AbstractModel#predictBest(SparseFeatureVector)}, this method does not create any object.
+	 * @param x the feature vector.
+	 * @param buffer the buffer to put the scores to.
+	 * @return the id of the best label (see {@link AbstractModel#getLabel(int)}).
+	 */
+	public int predictBest(SparseFeatureVector x, PredictionBuffer buffer)
+	{
+		predictTop(x, buffer, 1);
+		return buffer.getLabel(0);
+	}
+	
+	/**
+	 * Puts the scores of all labels given the feature vector to the specific buffer and ranks the first and second best labels.
+	 * Unlike {@link AbstractModel#predictTwo(SparseFeatureVector)}, this method does not create any object.
+	 * @param x the feature vector.
+	 * @param buffer the buffer to put the scores to.
+	 */
+	public void predictTwo(SparseFeatureVector x, PredictionBuffer buffer)
+	{
+		predictTop(x, buffer, 2);
+	}
+	
+	/**
+	 * Puts the scores of all labels given the feature vector to the specific buffer and ranks the top-k labels.
+	 * @param x the feature vector.
+	 * @param buffer the buffer to put the scores to.
+	 * @param k the number of labels to rank.
+	 */
+	public void predictTop(SparseFeatureVector x, PredictionBuffer buffer, int k)
+	{
+		getScores(x, buffer.init(n_labels));
+		buffer.rank(k);
+	}
+	
 	/**
 	 * Returns an unsorted list of predictions given the specific feature vector.
 	 * @param x the feature vector.
@@ -0,0 +1,204 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.Buffer;
+
+/**
+ * Weight vector used for scoring.
+ * Weights are laid out as in {@link AbstractModel#getWeightIndex(int, int)}.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+abstract public class AbstractWeightVector
+{
+	/** The weight type of {@link DoubleWeightVector} and {@link MappedWeightVector}. */
+	static public final byte TYPE_DOUBLE = 0;
+	/** The weight type of {@link FloatWeightVector}. */
+	static public final byte TYPE_FLOAT  = 1;
+	/** The weight type of {@link ByteWeightVector}. */
+	static public final byte TYPE_INT8   = 2;
+	
+	/** @return the type of this weight vector (e.g., {@link AbstractWeightVector#TYPE_DOUBLE}). */
+	abstract public byte getType();
+	
+	/** @return the total number of weights. */
+	abstract public int size();
+	
+	/** @return the weight at the specific index. */
+	abstract public double get(int index);
+	
+	/**
+	 * Adds {@code length} weights starting at {@code offset} to the specific scores.
+	 * @param scores the scores to be updated.
+	 * @param offset the index of the first weight.
+	 * @param length the number of weights.
+	 */
+	abstract public void addScores(double[] scores, int offset, int length);
+	
+	/**
+	 * Adds {@code length} weights starting at {@code offset}, multiplied by the specific value, to the specific scores.
+	 * @param scores the scores to be updated.
+	 * @param offset the index of the first weight.
+	 * @param length the number of weights.
+	 * @param value the feature value.
+	 */
+	abstract public void addScores(double[] scores, int offset, int length, double value);
+	
+	/**
+	 * Adds the weights of {@code size} features to the specific scores,
+	 * where the weights of the {@code k}'th feature are the {@code length} weights starting at {@code indices[k] * length}.
+	 * Subclasses backed by arrays override this method so that the whole loop stays in one method whose inner loop the JIT can vectorize.
+	 * @param scores the scores to be updated.
+	 * @param indices the feature indices.
+	 * @param size the number of features.
+	 * @param length the number of weights per feature (the number of labels).
+	 */
+	public void addScores(double[] scores, int[] indices, int size, int length)
+	{
+		int k;
+		
+		for (k=0; k<size; k++)
+			addScores(scores, indices[k] * length, length);
+	}
+	
+	/**
+	 * Adds the weights of {@code size} features, where the weights of the {@code k}'th feature are multiplied by {@code values[k]}, to the specific scores.
+	 * @param scores the scores to be updated.
+	 * @param indices the feature indices.
+	 * @param values the feature values.
+	 * @param size the number of features.
+	 * @param length the number of weights per feature (the number of labels).
+	 */
+	public void addScores(double[] scores, int[] indices, double[] values, int size, int length)
+	{
+		int k;
+		
+		for (k=0; k<size; k++)
+			addScores(scores, indices[k] * length, length, values[k]);
+	}
+	
+	/**
+	 * Adds the weights of {@code size} features to the specific score in order (for binary classification).
+	 * @param score the initial score.
+	 * @param indices the feature indices.
+	 * @param size the number of features.
+	 * @return the updated score.
+	 */
+	public double addScore(double score, int[] indices, int size)
+	{
+		int k;
+		
+		for (k=0; k<size; k++)
+			score += get(indices[k]);
+		
+		return score;
+	}
+	
+	/**
+	 * Adds the weights of {@code size} features, where the {@code k}'th weight is multiplied by {@code values[k]}, to the specific score in order.
+	 * @param score the initial score.
+	 * @param indices the feature indices.
+	 * @param values the feature values.
+	 * @param size the number of features.
+	 * @return the updated score.
+	 */
+	public double addScore(double score, int[] indices, double[] values, int size)
+	{
+		int k;
+		
+		for (k=0; k<size; k++)
+			score += get(indices[k]) * values[k];
+		
+		return score;
+	}
+	
+	/**
+	 * Writes the weights (followed by any quantization parameters) to the specific stream.
+	 * @param fout the output stream.
+	 * @throws IOException
+	 */
+	abstract public void write(DataOutputStream fout) throws IOException;
+	
+	/**
+	 * Returns the number of bytes used to store each weight of the specific type.
+	 * @param type the weight type (e.g., {@link AbstractWeightVector#TYPE_FLOAT}).
+	 * @return the number of bytes used to store each weight of the specific type.
+	 */
+	static public int getBytesPerWeight(byte type)
+	{
+		switch (type)
+		{
+		case TYPE_DOUBLE: return 8;
+		case TYPE_FLOAT : return 4;
+		case TYPE_INT8  : return 1;
+		}
+		
+		throw new IllegalArgumentException("Unknown weight type: "+type);
+	}
+	
+	/**
+	 * Returns the number of bits to shift an index by to find the segment containing the index.
+	 * All segments but the last must have the same number of elements, which must be a power of 2.
+	 * @param segments the buffers storing consecutive parts of a weight vector.
+	 * @return the number of bits to shift an index by to find the segment containing the index.
+	 */
+	static protected int getSegmentShift(Buffer[] segments)
+	{
+		int i, size = segments[0].limit();
+		
+		if (Integer.bitCount(size) != 1)
+			throw new IllegalArgumentException("The segment size must be a power of 2: "+size);
+		
+		for (i=1; i<segments.length-1; i++)
+		{
+			if (segments[i].limit() != size)
+				throw new IllegalArgumentException("All segments but the last must have the same size: "+segments[i].limit()+" != "+size);
+		}
+		
+		return Integer.numberOfTrailingZeros(size);
+	}
+	
+	/** @return the total number of elements in the specific segments. */
+	static protected int getSize(Buffer[] segments)
+	{
+		long size = 0;
+		
+		for (Buffer segment : segments)
+			size += segment.limit();
+		
+		if (size > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many weights: "+size);
+		
+		return (int)size;
+	}
+	
+	/**
+	 * Returns the weight type of the specific name.
+	 * @param name "double", "float", or "int8".
+	 * @return the weight type of the specific name.
+	 */
+	static public byte getType(String name)
+	{
+		if      (name.equals("double"))	return TYPE_DOUBLE;
+		else if (name.equals("float"))	return TYPE_FLOAT;
+		else if (name.equals("int8"))	return TYPE_INT8;
+		
+		throw new IllegalArgumentException("Unknown weight type: "+name);
+	}
+}
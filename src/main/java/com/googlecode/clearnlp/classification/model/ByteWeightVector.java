@@ -0,0 +1,137 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Weight vector storing weights as 8-bit integers with a scale per label.
+ * The weight at index {@code i} is {@code b[i] * scales[i % scales.length]},
+ * where {@code scales.length} is the number of labels (or 1 for binary classification).
+ * The buffer is either on the heap or (memory-mapped) direct; direct buffers are read in place.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class ByteWeightVector extends AbstractWeightVector
+{
+	static private final float MAX_BYTE = 127f;
+	
+	private ByteBuffer b_weights;
+	private float[]    f_scales;
+	
+	public ByteWeightVector(ByteBuffer weights, float[] scales)
+	{
+		b_weights = weights;
+		f_scales  = scales;
+	}
+	
+	/**
+	 * Quantizes the specific weight vector.
+	 * @param weights the weight vector to be quantized.
+	 * @param scaleSize the number of labels sharing the weight vector (1 for binary classification).
+	 */
+	public ByteWeightVector(AbstractWeightVector weights, int scaleSize)
+	{
+		int i, j, size = weights.size();
+		byte[] array = new byte[size];
+		float[] max  = new float[scaleSize];
+		float w;
+		
+		for (i=0; i<size; i++)
+		{
+			j = i % scaleSize;
+			w = (float)Math.abs(weights.get(i));
+			if (max[j] < w)	max[j] = w;
+		}
+		
+		f_scales = new float[scaleSize];
+		
+		for (j=0; j<scaleSize; j++)
+			f_scales[j] = max[j] / MAX_BYTE;
+		
+		for (i=0; i<size; i++)
+		{
+			j = i % scaleSize;
+			if (f_scales[j] > 0)	array[i] = (byte)Math.round(weights.get(i) / f_scales[j]);
+		}
+		
+		b_weights = ByteBuffer.wrap(array);
+	}
+	
+	public float[] getScales()
+	{
+		return f_scales;
+	}
+	
+	@Override
+	public byte getType()
+	{
+		return TYPE_INT8;
+	}
+	
+	@Override
+	public int size()
+	{
+		return b_weights.limit();
+	}
+	
+	@Override
+	public double get(int index)
+	{
+		return b_weights.get(index) * f_scales[index % f_scales.length];
+	}
+	
+	@Override
+	public void addScores(double[] scores, int offset, int length)
+	{
+		int i, j = offset % f_scales.length;
+		
+		for (i=0; i<length; i++)
+		{
+			scores[i] += b_weights.get(offset+i) * f_scales[j];
+			if (++j == f_scales.length)	j = 0;
+		}
+	}
+	
+	@Override
+	public void addScores(double[] scores, int offset, int length, double value)
+	{
+		int i, j = offset % f_scales.length;
+		
+		for (i=0; i<length; i++)
+		{
+			scores[i] += b_weights.get(offset+i) * f_scales[j] * value;
+			if (++j == f_scales.length)	j = 0;
+		}
+	}
+	
+	/** Writes the weights followed by the number of scales and the scales. */
+	@Override
+	public void write(DataOutputStream fout) throws IOException
+	{
+		int i, size = size();
+		
+		for (i=0; i<size; i++)
+			fout.writeByte(b_weights.get(i));
+		
+		fout.writeInt(f_scales.length);
+		
+		for (float scale : f_scales)
+			fout.writeFloat(scale);
+	}
+}
@@ -0,0 +1,174 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+
+/**
+ * Read-only map between feature values of one feature type and their feature ids.
+ * A feature value can be looked up by its fields without joining them into a string:
+ * the fields are hashed as if they were joined by a delimiter and verified against the stored value.
+ * Compiled maps replace the dictionary of a model for decoding (see {@link StringModel#compileFeatures()}).
+ * Instances are immutable and can be shared across threads.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class CompiledFeatureMap
+{
+	private final String[] s_values;
+	private final int[]    i_hashes;
+	private final int[]    i_ids;
+	private final int      n_mask;
+	private final int      n_size;
+	
+	/** @param map the map between feature values and their ids. */
+	public CompiledFeatureMap(ObjectIntHashMap<String> map)
+	{
+		int capacity = Integer.highestOneBit(Math.max(map.size(), 1)) * 4;
+		
+		s_values = new String[capacity];
+		i_hashes = new int[capacity];
+		i_ids    = new int[capacity];
+		n_mask   = capacity - 1;
+		n_size   = map.size();
+		
+		for (ObjectCursor<String> cur : map.keys())
+			put(cur.value, map.get(cur.value));
+	}
+	
+	private void put(String value, int id)
+	{
+		int hash = value.hashCode(), i;
+		
+		for (i=getSlot(hash); s_values[i] != null; i=(i+1)&n_mask);
+		
+		s_values[i] = value;
+		i_hashes[i] = hash;
+		i_ids   [i] = id;
+	}
+	
+	/**
+	 * Returns the id of the specific feature value, or {@code 0} if the value is not found.
+	 * @param value the feature value.
+	 * @return the id of the specific feature value, or {@code 0} if the value is not found.
+	 */
+	public int get(String value)
+	{
+		int hash = value.hashCode(), i;
+		
+		for (i=getSlot(hash); s_values[i] != null; i=(i+1)&n_mask)
+		{
+			if (i_hashes[i] == hash && s_values[i].equals(value))
+				return i_ids[i];
+		}
+		
+		return 0;
+	}
+	
+	/**
+	 * Returns the id of the feature value joined from the specific fields by the specific delimiter, or {@code 0} if the value is not found.
+	 * No string is created during the lookup.
+	 * @param fields the fields of the feature value.
+	 * @param size the number of fields to be joined.
+	 * @param delim the delimiter between fields in each feature value.
+	 * @return the id of the feature value joined from the specific fields, or {@code 0} if the value is not found.
+	 */
+	public int get(String[] fields, int size, String delim)
+	{
+		int hash = getHash(fields, size, delim), i;
+		
+		for (i=getSlot(hash); s_values[i] != null; i=(i+1)&n_mask)
+		{
+			if (i_hashes[i] == hash && matches(s_values[i], fields, size, delim))
+				return i_ids[i];
+		}
+		
+		return 0;
+	}
+	
+	/** @return the number of feature values in this map. */
+	public int size()
+	{
+		return n_size;
+	}
+	
+	/** @return a new map between the feature values in this map and their ids. */
+	public ObjectIntHashMap<String> toMap()
+	{
+		ObjectIntHashMap<String> map = new ObjectIntHashMap<String>(n_size);
+		int i;
+		
+		for (i=0; i<s_values.length; i++)
+		{
+			if (s_values[i] != null)
+				map.put(s_values[i], i_ids[i]);
+		}
+		
+		return map;
+	}
+	
+	/** @return the same hash as {@link String#hashCode()} of the joined fields. */
+	private int getHash(String[] fields, int size, String delim)
+	{
+		int i, hash = 0;
+		
+		for (i=0; i<size; i++)
+		{
+			if (i > 0)	hash = getHash(hash, delim);
+			hash = getHash(hash, fields[i]);
+		}
+		
+		return hash;
+	}
+	
+	private int getHash(int hash, String s)
+	{
+		int i, len = s.length();
+		
+		for (i=0; i<len; i++)
+			hash = 31 * hash + s.charAt(i);
+		
+		return hash;
+	}
+	
+	/** @return {@code true} if the specific value equals to the joined fields. */
+	private boolean matches(String value, String[] fields, int size, String delim)
+	{
+		int i, offset = 0, dLen = delim.length();
+		String field;
+		
+		for (i=0; i<size; i++)
+		{
+			if (i > 0)
+			{
+				if (!value.startsWith(delim, offset))	return false;
+				offset += dLen;
+			}
+			
+			field = fields[i];
+			if (!value.startsWith(field, offset))	return false;
+			offset += field.length();
+		}
+		
+		return offset == value.length();
+	}
+	
+	private int getSlot(int hash)
+	{
+		return (hash ^ (hash >>> 16)) & n_mask;
+	}
+}
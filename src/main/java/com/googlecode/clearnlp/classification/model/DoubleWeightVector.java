@@ -0,0 +1,165 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Weight vector backed by a heap array of doubles.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DoubleWeightVector extends AbstractWeightVector
+{
+	private double[] d_weights;
+	
+	public DoubleWeightVector(double[] weights)
+	{
+		d_weights = weights;
+	}
+	
+	public double[] getWeights()
+	{
+		return d_weights;
+	}
+	
+	@Override
+	public byte getType()
+	{
+		return TYPE_DOUBLE;
+	}
+	
+	@Override
+	public int size()
+	{
+		return d_weights.length;
+	}
+	
+	@Override
+	public double get(int index)
+	{
+		return d_weights[index];
+	}
+	
+	@Override
+	public void addScores(double[] scores, int offset, int length)
+	{
+		int i;
+		
+		for (i=0; i<length; i++)
+			scores[i] += d_weights[offset+i];
+	}
+	
+	@Override
+	public void addScores(double[] scores, int offset, int length, double value)
+	{
+		int i;
+		
+		for (i=0; i<length; i++)
+			scores[i] += d_weights[offset+i] * value;
+	}
+	
+	/**
+	 * Adds the weights of four features per pass so each score is loaded and stored once per four features.
+	 * The weights are added from left to right, so the scores are identical to adding one feature at a time.
+	 */
+	@Override
+	public void addScores(double[] scores, int[] indices, int size, int length)
+	{
+		double[] weights = d_weights;
+		int i, k, o0, o1, o2, o3;
+		
+		for (k=0; k+3<size; k+=4)
+		{
+			o0 = indices[k  ] * length;
+			o1 = indices[k+1] * length;
+			o2 = indices[k+2] * length;
+			o3 = indices[k+3] * length;
+			
+			for (i=0; i<length; i++)
+				scores[i] = scores[i] + weights[o0+i] + weights[o1+i] + weights[o2+i] + weights[o3+i];
+		}
+		
+		for (; k<size; k++)
+		{
+			o0 = indices[k] * length;
+			
+			for (i=0; i<length; i++)
+				scores[i] += weights[o0+i];
+		}
+	}
+	
+	/** @see DoubleWeightVector#addScores(double[], int[], int, int) */
+	@Override
+	public void addScores(double[] scores, int[] indices, double[] values, int size, int length)
+	{
+		double[] weights = d_weights;
+		int i, k, o0, o1, o2, o3;
+		double v0, v1, v2, v3;
+		
+		for (k=0; k+3<size; k+=4)
+		{
+			o0 = indices[k  ] * length;	v0 = values[k  ];
+			o1 = indices[k+1] * length;	v1 = values[k+1];
+			o2 = indices[k+2] * length;	v2 = values[k+2];
+			o3 = indices[k+3] * length;	v3 = values[k+3];
+			
+			for (i=0; i<length; i++)
+				scores[i] = scores[i] + weights[o0+i] * v0 + weights[o1+i] * v1 + weights[o2+i] * v2 + weights[o3+i] * v3;
+		}
+		
+		for (; k<size; k++)
+		{
+			o0 = indices[k] * length;
+			v0 = values[k];
+			
+			for (i=0; i<length; i++)
+				scores[i] += weights[o0+i] * v0;
+		}
+	}
+	
+	@Override
+	public double addScore(double score, int[] indices, int size)
+	{
+		double[] weights = d_weights;
+		int k;
+		
+		for (k=0; k<size; k++)
+			score += weights[indices[k]];
+		
+		return score;
+	}
+	
+	@Override
+	public double addScore(double score, int[] indices, double[] values, int size)
+	{
+		double[] weights = d_weights;
+		int k;
+		
+		for (k=0; k<size; k++)
+			score += weights[indices[k]] * values[k];
+		
+		return score;
+	}
+	
+	@Override
+	public void write(DataOutputStream fout) throws IOException
+	{
+		for (double weight : d_weights)
+			fout.writeDouble(weight);
+	}
+}
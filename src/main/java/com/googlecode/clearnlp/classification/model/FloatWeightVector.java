@@ -0,0 +1,129 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.FloatBuffer;
+
+/**
+ * Weight vector storing weights in single precision.
+ * The buffers are either on the heap or (memory-mapped) direct; direct buffers are read in place.
+ * Weights that do not fit in one buffer (2GB) are split into several segments (see {@link AbstractModel#SEGMENT_BYTES}).
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class FloatWeightVector extends AbstractWeightVector
+{
+	/** The first segment (the only segment if {@link FloatWeightVector#f_segments} is {@code null}). */
+	private FloatBuffer   f_weights;
+	/** The segments storing consecutive parts of the weights ({@code null} if there is only one segment). */
+	private FloatBuffer[] f_segments;
+	private int n_size, n_shift, n_mask;
+	
+	public FloatWeightVector(FloatBuffer weights)
+	{
+		this(new FloatBuffer[]{weights});
+	}
+	
+	/** @param segments the buffers storing consecutive parts of the weights (see {@link AbstractWeightVector#getSegmentShift(java.nio.Buffer[])}). */
+	public FloatWeightVector(FloatBuffer[] segments)
+	{
+		f_weights = segments[0];
+		n_size    = getSize(segments);
+		
+		if (segments.length > 1)
+		{
+			f_segments = segments;
+			n_shift    = getSegmentShift(segments);
+			n_mask     = (1 << n_shift) - 1;
+		}
+	}
+	
+	/** Converts the specific weight vector to single precision. */
+	public FloatWeightVector(AbstractWeightVector weights)
+	{
+		int i, size = weights.size();
+		float[] array = new float[size];
+		
+		for (i=0; i<size; i++)
+			array[i] = (float)weights.get(i);
+		
+		f_weights = FloatBuffer.wrap(array);
+		n_size    = size;
+	}
+	
+	@Override
+	public byte getType()
+	{
+		return TYPE_FLOAT;
+	}
+	
+	@Override
+	public int size()
+	{
+		return n_size;
+	}
+	
+	@Override
+	public double get(int index)
+	{
+		return (f_segments == null) ? f_weights.get(index) : f_segments[index >>> n_shift].get(index & n_mask);
+	}
+	
+	@Override
+	public void addScores(double[] scores, int offset, int length)
+	{
+		int i;
+		
+		if (f_segments == null)
+		{
+			for (i=0; i<length; i++)
+				scores[i] += f_weights.get(offset+i);
+		}
+		else
+		{
+			for (i=0; i<length; i++)
+				scores[i] += get(offset+i);
+		}
+	}
+	
+	@Override
+	public void addScores(double[] scores, int offset, int length, double value)
+	{
+		int i;
+		
+		if (f_segments == null)
+		{
+			for (i=0; i<length; i++)
+				scores[i] += f_weights.get(offset+i) * value;
+		}
+		else
+		{
+			for (i=0; i<length; i++)
+				scores[i] += get(offset+i) * value;
+		}
+	}
+	
+	@Override
+	public void write(DataOutputStream fout) throws IOException
+	{
+		int i, size = size();
+		
+		for (i=0; i<size; i++)
+			fout.writeFloat((float)get(i));
+	}
+}
@@ -16,14 +16,16 @@
 package com.googlecode.clearnlp.classification.model;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.regex.Pattern;
 
-import com.carrotsearch.hppc.DoubleArrayList;
 import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
@@ -41,12 +43,19 @@ import com.googlecode.clearnlp.util.pair.Pair;
  */
 public class ONStringModel extends StringModel
 {
-	/** The weight vector for all labels. */
-	protected List<DoubleArrayList> d_weights;
+	/** The initial number of labels reserved for each feature. */
+	static private final int INIT_LABEL_CAPACITY   = 8;
+	/** The initial number of features reserved. */
+	static private final int INIT_FEATURE_CAPACITY = 1024;
+	
+	/** The weights of all features, where the weight of label {@code j} for feature {@code i} is at {@code i * n_stride + j}. */
+	protected double[] d_ws;
+	/** Update counts for AdaGrad, laid out the same as {@link ONStringModel#d_ws}. */
+	protected double[] d_gs;
+	/** The number of labels reserved for each feature ({@code >= n_labels}). */
+	protected int n_stride;
 	/** The list of all labels. */
 	protected List<String> a_labels;
-	/** Update counts for AdaGrad. */
-	protected List<DoubleArrayList> d_gs;
 	/** AdaGrad parameters. */
 	protected double d_alpha, d_rho;
 
@@ -72,38 +81,21 @@ public class ONStringModel extends StringModel
 	{
 		n_labels   = 0;
 		n_features = 1;
-		d_weights  = new ArrayList<DoubleArrayList>();
-		d_gs       = new ArrayList<DoubleArrayList>();
+		n_stride   = INIT_LABEL_CAPACITY;
+		d_ws       = new double[INIT_FEATURE_CAPACITY * n_stride];
 		a_labels   = new ArrayList<String>();
 		m_labels   = new ObjectIntHashMap<String>();
 		m_features = new HashMap<String,ObjectIntHashMap<String>>();
 		i_solver   = AbstractAlgorithm.SOLVER_ADAGRAD;
-		
-		d_weights.add(getBlankDoubleArrayList(n_labels));
 	}
 	
 	private void initAdaGrad(double alpha, double rho)
 	{
-		d_gs = new ArrayList<DoubleArrayList>(n_features);
-		
-		int i; for (i=0; i<n_features; i++)
-			d_gs.add(getBlankDoubleArrayList(n_labels));
-		
+		d_gs    = new double[d_ws.length];
 		d_alpha = alpha;
 		d_rho   = rho;
 	}
 	
-	protected DoubleArrayList getBlankDoubleArrayList(int size)
-	{
-		DoubleArrayList list = new DoubleArrayList(size);
-		int i;
-		
-		for (i=0; i<size; i++)
-			list.add(0);
-		
-		return list;
-	}
-	
 	// ----------------------------------- LOAD MODELS -----------------------------------
 	
 	@Override
@@ -137,6 +129,10 @@ public class ONStringModel extends StringModel
 			m_labels.put(labels[i], i+1);
 	}
 	
+	/** Online models keep adding features while decoding, so their dictionaries are not compiled. */
+	@Override
+	public void compileFeatures() {}
+	
 	@Override
 	protected void loadFeatures(BufferedReader fin) throws IOException
 	{
@@ -171,16 +167,15 @@ public class ONStringModel extends StringModel
 	protected void loadWeightVector(BufferedReader fin) throws Exception
 	{
 		int[] buffer = new int[128];
-		DoubleArrayList weight;
 		int i, j, b, ch;
 		
-		d_weights = new ArrayList<DoubleArrayList>(n_features);
+		n_stride = Math.max(n_labels, 1);
+		d_ws     = new double[n_features * n_stride];
 		Integer.parseInt(fin.readLine());	// for compatibility
 		
 		for (i=0; i<n_features; i++)
 		{
 			if (i%100000 == 0)	System.out.print(".");
-			weight = new DoubleArrayList(n_labels);
 			
 			for (j=0; j<n_labels; j++)
 			{
@@ -194,15 +189,20 @@ public class ONStringModel extends StringModel
 					else			buffer[b++] = ch;
 				}
 				
-				weight.add(Double.parseDouble((new String(buffer, 0, b))));
+				d_ws[i * n_stride + j] = Double.parseDouble((new String(buffer, 0, b)));
 			}
-			
-			d_weights.add(weight);
 		}
 		
 		fin.readLine();
 	}
 	
+	/** Binary models are not supported for online models. */
+	@Override
+	public void loadBinary(ByteBuffer buffer)
+	{
+		throw new IllegalArgumentException("Binary models are not supported for online models.");
+	}
+	
 	// ----------------------------------- SAVE MODELS -----------------------------------
 	
 	@Override
@@ -222,6 +222,13 @@ public class ONStringModel extends StringModel
 		System.out.println();
 	}
 	
+	/** Binary models are not supported for online models. */
+	@Override
+	public void saveBinary(DataOutputStream fout)
+	{
+		throw new IllegalArgumentException("Binary models are not supported for online models.");
+	}
+	
 	@Override
 	protected void saveLabels(PrintStream fout)
 	{
@@ -262,7 +269,12 @@ public class ONStringModel extends StringModel
 	@Override
 	protected void saveWeightVector(PrintStream fout)
 	{
-		DoubleArrayList weight;
+		if (d_ws == null)
+		{
+			super.saveWeightVector(fout);
+			return;
+		}
+		
 		StringBuilder build;
 		int i, j;
 		
@@ -271,12 +283,11 @@ public class ONStringModel extends StringModel
 		for (i=0; i<n_features; i++)
 		{
 			if (i%100000 == 0)	System.out.print(".");
-			weight = d_weights.get(i);
-			build  = new StringBuilder();
+			build = new StringBuilder();
 			
 			for (j=0; j<n_labels; j++)
 			{
-				build.append(weight.get(j));
+				build.append(d_ws[i * n_stride + j]);
 				build.append(' ');
 			}
 			
@@ -288,6 +299,36 @@ public class ONStringModel extends StringModel
 	
 	// ----------------------------------- SETTERS -----------------------------------
 	
+	/**
+	 * Flattens the weight vector into the specific type for decoding.
+	 * Once flattened, this model can no longer be updated.
+	 */
+	@Override
+	public void setWeightType(byte type)
+	{
+		if (w_weights == null)
+		{
+			double[] weights = new double[n_features * n_labels];
+			int i, j;
+			
+			for (i=0; i<n_features; i++)
+				for (j=0; j<n_labels; j++)
+					weights[getWeightIndex(j, i)] = d_ws[i * n_stride + j];
+			
+			setWeights(weights);
+			d_ws = null;
+			d_gs = null;
+		}
+		
+		super.setWeightType(type);
+	}
+	
+	@Override
+	protected int getScaleSize()
+	{
+		return n_labels;
+	}
+	
 	@Override
 	public void addLabel(String label)
 	{
@@ -299,13 +340,28 @@ public class ONStringModel extends StringModel
 		}
 	}
 	
+	/** Reserves twice as many labels for each feature when the current reservation is full, so adding labels takes amortized constant time per feature. */
 	private void addLabelAux()
 	{
-		int i; for (i=0; i<n_features; i++)
-		{
-			d_weights.get(i).add(0);
-			d_gs.get(i).add(0);
-		}
+		if (n_labels <= n_stride)	return;
+		int stride = Math.max(n_stride * 2, n_labels);
+		int capacity = d_ws.length / n_stride;
+		
+		d_ws = restride(d_ws, stride, capacity);
+		d_gs = restride(d_gs, stride, capacity);
+		n_stride = stride;
+	}
+	
+	/** @return a copy of the specific matrix whose rows are reserved with the specific number of labels. */
+	private double[] restride(double[] matrix, int stride, int capacity)
+	{
+		double[] copy = new double[capacity * stride];
+		int i;
+		
+		for (i=0; i<n_features; i++)
+			System.arraycopy(matrix, i * n_stride, copy, i * stride, n_stride);
+		
+		return copy;
 	}
 	
 	@Override
@@ -326,10 +382,14 @@ public class ONStringModel extends StringModel
 		}
 	}
 	
+	/** Reserves twice as many features when the current reservation is full. */
 	private void addFeatureAux()
 	{
-		d_weights.add(getBlankDoubleArrayList(n_labels));
-		d_gs.add(getBlankDoubleArrayList(n_labels));
+		if (n_features * n_stride <= d_ws.length)	return;
+		int length = Math.max(d_ws.length * 2, n_features * n_stride);
+		
+		d_ws = Arrays.copyOf(d_ws, length);
+		d_gs = Arrays.copyOf(d_gs, length);
 	}
 	
 	public void addFeatures(StringFeatureVector vector)
@@ -345,30 +405,56 @@ public class ONStringModel extends StringModel
 	@Override
 	public double[] getScores(SparseFeatureVector x)
 	{
-		double[] scores = d_weights.get(0).toArray();
-		int i, index, label, size = x.size();
-		DoubleArrayList weight;
-		double value = 1;
+		double[] scores = new double[n_labels];
+		getScores(x, scores);
+		
+		return scores;
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		if (w_weights != null)
+		{
+			getScoresMulti(x, scores);
+			return;
+		}
+		
+		int i, index, label, offset, size = x.size();
+		double value;
+		
+		for (label=0; label<n_labels; label++)
+			scores[label] = d_ws[label];
 		
 		// features
 		for (i=0; i<size; i++)
 		{
 			index = x.getIndex(i);
-			if (x.hasWeight())	value = x.getWeight(i);
 			
 			if (isRange(index))
 			{
-				weight = d_weights.get(index);
+				offset = index * n_stride;
 				
-				for (label=0; label<n_labels; label++)
+				if (x.hasWeight())
+				{
+					value = x.getWeight(i);
+					
+					for (label=0; label<n_labels; label++)
+						scores[label] += d_ws[offset+label] * value;
+				}
+				else
 				{
-					if (x.hasWeight())	scores[label] += weight.get(label) * value;
-					else				scores[label] += weight.get(label);
+					for (label=0; label<n_labels; label++)
+						scores[label] += d_ws[offset+label];
 				}
 			}
 		}
-		
-		return scores;
+	}
+	
+	@Override
+	public String getLabel(int index)
+	{
+		return a_labels.get(index);
 	}
 	
 	@Override
@@ -394,6 +480,9 @@ public class ONStringModel extends StringModel
 	
 	public void updateWeights(String label, StringFeatureVector vector)
 	{
+		if (d_ws == null)
+			throw new IllegalArgumentException("Flattened models cannot be updated.");
+		
 		addLabel(label);
 		addFeatures(vector);
 		
@@ -419,8 +508,7 @@ public class ONStringModel extends StringModel
 	
 	private void updateCounts(int yp, int yn, SparseFeatureVector x)
 	{
-		int i, len = x.size();
-		DoubleArrayList g;
+		int i, offset, len = x.size();
 		
 		if (x.hasWeight())
 		{
@@ -428,63 +516,56 @@ public class ONStringModel extends StringModel
 			
 			for (i=0; i<len; i++)
 			{
-				g = d_gs.get(x.getIndex(i));
+				offset = x.getIndex(i) * n_stride;
 				d = x.getWeight(i) * x.getWeight(i);
-
-				add(g, yp, d);
-				add(g, yn, d);
+				
+				d_gs[offset+yp] += d;
+				d_gs[offset+yn] += d;
 			}
 		}
 		else
 		{
 			for (i=0; i<len; i++)
 			{
-				g = d_gs.get(x.getIndex(i));
+				offset = x.getIndex(i) * n_stride;
 				
-				add(g, yp, 1);
-				add(g, yn, 1);
+				d_gs[offset+yp] += 1;
+				d_gs[offset+yn] += 1;
 			}
 		}
 	}
 	
 	private void updateWeights(int yp, int yn, SparseFeatureVector x)
 	{
-		int i, xi, len = x.size();
-		DoubleArrayList w;
+		int i, offset, len = x.size();
 		double vi;
 		
 		if (x.hasWeight())
 		{
 			for (i=0; i<len; i++)
 			{
-				xi = x.getIndex(i);
+				offset = x.getIndex(i) * n_stride;
 				vi = x.getWeight(i);
-				w  = d_weights.get(xi);
 				
-				add(w, yp,  vi * getUpdate(yp, xi));
-				add(w, yn, -vi * getUpdate(yn, xi));
+				d_ws[offset+yp] +=  vi * getUpdate(offset+yp);
+				d_ws[offset+yn] += -vi * getUpdate(offset+yn);
 			}
 		}
 		else
 		{
 			for (i=0; i<len; i++)
 			{
-				xi = x.getIndex(i);
-				w  = d_weights.get(xi);
+				offset = x.getIndex(i) * n_stride;
 				
-				add(w, yp,  getUpdate(yp, xi));
-				add(w, yn, -getUpdate(yn, xi));
+				d_ws[offset+yp] +=  getUpdate(offset+yp);
+				d_ws[offset+yn] += -getUpdate(offset+yn);
 			}
 		}
 	}
 	
-	private void add(DoubleArrayList list, int index, double value)
-	{
-		list.set(index, list.get(index) + value);
-	}
-	
-	private double getUpdate(int y, int x)
+	/** @param index the index of the weight in {@link ONStringModel#d_ws}. */
+	private double getUpdate(int index)
 	{
-		return d_alpha / (d_rho + Math.sqrt(d_gs.get(x).get(y)));
+		return d_alpha / (d_rho + Math.sqrt(d_gs[index]));
 	}
 }
@@ -24,8 +24,10 @@
 package com.googlecode.clearnlp.classification.model;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 
 import com.googlecode.clearnlp.util.UTArray;
 
@@ -52,6 +54,15 @@ public class SparseModel extends AbstractModel
 		super(reader);
 	}
 	
+	/**
+	 * Constructs a sparse model for decoding from a binary model.
+	 * @param buffer the buffer to load the model from.
+	 */
+	public SparseModel(ByteBuffer buffer)
+	{
+		super(buffer);
+	}
+	
 	/* (non-Javadoc)
 	 * @see edu.colorado.clear.classification.model.AbstractModel#load(java.io.Reader)
 	 */
@@ -90,6 +101,36 @@ public class SparseModel extends AbstractModel
 		System.out.println();
 	}
 	
+	/* (non-Javadoc)
+	 * @see com.googlecode.clearnlp.classification.model.AbstractModel#loadBinary(java.nio.ByteBuffer)
+	 */
+	public void loadBinary(ByteBuffer buffer)
+	{
+		System.out.println("Loading binary model.");
+		
+		loadBinaryHeader(buffer);
+		loadLabels(buffer);
+		n_features = buffer.getInt();
+		loadWeightVector(buffer);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.googlecode.clearnlp.classification.model.AbstractModel#saveBinary(java.io.DataOutputStream)
+	 */
+	public void saveBinary(DataOutputStream fout)
+	{
+		System.out.println("Saving binary model.");
+		
+		try
+		{
+			saveBinaryHeader(fout);
+			saveLabels(fout);
+			fout.writeInt(n_features);
+			saveWeightVector(fout);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
 	private void loadFeatures(BufferedReader fin) throws IOException
 	{
 		n_features = Integer.parseInt(fin.readLine());
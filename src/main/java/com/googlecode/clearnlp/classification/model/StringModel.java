@@ -24,8 +24,11 @@
 package com.googlecode.clearnlp.classification.model;
 
 import java.io.BufferedReader;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -33,6 +36,7 @@ import java.util.regex.Pattern;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.googlecode.clearnlp.classification.prediction.PredictionBuffer;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
@@ -46,8 +50,12 @@ import com.googlecode.clearnlp.util.pair.Pair;
  */
 public class StringModel extends AbstractModel
 {
-	/** The map between features and their indices. */
+	/** The map between features and their indices (empty if features are hashed). */
 	protected Map<String,ObjectIntHashMap<String>> m_features;
+	/** The compiled map between features and their indices, which replaces {@link StringModel#m_features} for decoding ({@code null} if not compiled). */
+	protected Map<String,CompiledFeatureMap> m_compiled;
+	/** The number of bits of the hashed feature space; {@code 0} if features are looked up in {@link StringModel#m_features}. */
+	protected int n_hashBits;
 	
 	/** Constructs a string model for training. */
 	public StringModel()
@@ -65,6 +73,25 @@ public class StringModel extends AbstractModel
 		super(reader);
 	}
 	
+	/**
+	 * Constructs a string model for decoding from a binary model.
+	 * @param buffer the buffer to load the model from.
+	 */
+	public StringModel(ByteBuffer buffer)
+	{
+		super(buffer);
+	}
+	
+	/**
+	 * Constructs a string model for decoding from a memory-mapped binary model file.
+	 * @param channel the channel of the binary model file.
+	 * @see AbstractModel#AbstractModel(FileChannel)
+	 */
+	public StringModel(FileChannel channel) throws IOException
+	{
+		super(channel);
+	}
+	
 	/* (non-Javadoc)
 	 * @see edu.colorado.clear.classification.model.AbstractModel#load(java.io.Reader)
 	 */
@@ -103,6 +130,37 @@ public class StringModel extends AbstractModel
 		System.out.println();
 	}
 
+	/* (non-Javadoc)
+	 * @see com.googlecode.clearnlp.classification.model.AbstractModel#loadBinary(java.nio.ByteBuffer)
+	 */
+	public void loadBinary(ByteBuffer buffer)
+	{
+		System.out.println("Loading binary model.");
+		
+		loadBinaryHeader(buffer);
+		loadLabels(buffer);
+		loadFeatures(buffer);
+		loadWeightVector(buffer);
+	}
+	
+	/* (non-Javadoc)
+	 * @see com.googlecode.clearnlp.classification.model.AbstractModel#saveBinary(java.io.DataOutputStream)
+	 */
+	public void saveBinary(DataOutputStream fout)
+	{
+		System.out.println("Saving binary model.");
+		
+		try
+		{
+			saveBinaryHeader(fout);
+			saveLabels(fout);
+			saveFeatures(fout);
+			saveWeightVector(fout);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	/** A negative number of feature types indicates a hashed feature space with that many bits (see {@link StringModel#setHashBits(int)}). */
 	protected void loadFeatures(BufferedReader fin) throws IOException
 	{
 		ObjectIntHashMap<String> map;
@@ -113,6 +171,7 @@ public class StringModel extends AbstractModel
 		n_features = Integer.parseInt(fin.readLine());
 		typeSize   = Integer.parseInt(fin.readLine());
 		m_features = new HashMap<String, ObjectIntHashMap<String>>();
+		n_hashBits = (typeSize < 0) ? -typeSize : 0;
 		
 		Pattern P_DELIM = Pattern.compile(" ");
 		
@@ -138,12 +197,14 @@ public class StringModel extends AbstractModel
 		StringBuilder build;
 		String value;
 		
+		Map<String,ObjectIntHashMap<String>> features = getFeatureMaps();
+		
 		fout.println(n_features);
-		fout.println(m_features.size());
+		fout.println(isHashed() ? -n_hashBits : features.size());
 		
-		for (String type : m_features.keySet())
+		for (String type : features.keySet())
 		{
-			map = m_features.get(type);
+			map = features.get(type);
 			fout.println(type);
 			fout.println(map.size());
 			
@@ -161,15 +222,190 @@ public class StringModel extends AbstractModel
 		}
 	}
 	
+	protected void loadFeatures(ByteBuffer buffer)
+	{
+		ObjectIntHashMap<String> map;
+		int i, j, typeSize, valueSize;
+		String type;
+		
+		n_features = buffer.getInt();
+		typeSize   = buffer.getInt();
+		m_features = new HashMap<String, ObjectIntHashMap<String>>();
+		n_hashBits = (typeSize < 0) ? -typeSize : 0;
+		
+		for (i=0; i<typeSize; i++)
+		{
+			type = readString(buffer);
+			valueSize = buffer.getInt();
+			map  = new ObjectIntHashMap<String>(valueSize);
+			
+			for (j=0; j<valueSize; j++)
+				map.put(readString(buffer), buffer.getInt());
+			
+			m_features.put(type, map);
+		}
+	}
+	
+	protected void saveFeatures(DataOutputStream fout) throws IOException
+	{
+		ObjectIntHashMap<String> map;
+		
+		Map<String,ObjectIntHashMap<String>> features = getFeatureMaps();
+		
+		fout.writeInt(n_features);
+		fout.writeInt(isHashed() ? -n_hashBits : features.size());
+		
+		for (String type : features.keySet())
+		{
+			map = features.get(type);
+			writeString(fout, type);
+			fout.writeInt(map.size());
+			
+			for (ObjectCursor<String> cur : map.keys())
+			{
+				writeString(fout, cur.value);
+				fout.writeInt(map.get(cur.value));
+			}
+		}
+	}
+	
+	/**
+	 * Switches this model to a hashed feature space of {@code 2^bits} features, where each feature is indexed by
+	 * {@link StringModel#getHashIndex(String, String, int)} and no feature string is stored.
+	 * Must be called before weights are initialized.
+	 * @param bits the number of bits of the hashed feature space; {@code 0} to look up features in the dictionary.
+	 * @throws IllegalArgumentException if the weights of the hashed feature space for the labels added so far do not fit in an array.
+	 */
+	public void setHashBits(int bits)
+	{
+		if (bits < 0 || bits > 30)
+			throw new IllegalArgumentException("The number of hash bits must be between 0 and 30: "+bits);
+		
+		if (bits > 0)
+			checkHashedWeightSize(bits, Math.max(getScaleSize(), 1));
+		
+		n_hashBits = bits;
+		
+		if (isHashed())
+		{
+			m_features.clear();
+			m_compiled = null;
+			n_features = (1 << bits) + 1;
+		}
+	}
+	
+	/**
+	 * Labels can be added after {@link StringModel#setHashBits(int)}, so the size of the hashed weight vector is checked again here.
+	 * @throws IllegalArgumentException if the weights of the hashed feature space do not fit in an array.
+	 */
+	@Override
+	public void initWeightVector()
+	{
+		if (isHashed())
+			checkHashedWeightSize(n_hashBits, getScaleSize());
+		
+		super.initWeightVector();
+	}
+	
+	/** @throws IllegalArgumentException if {@code (2^bits+1) * labelSize} weights do not fit in an array. */
+	private void checkHashedWeightSize(int bits, int labelSize)
+	{
+		if (((long)(1 << bits) + 1) * labelSize > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("The hashed feature space of "+bits+" bits needs more than "+Integer.MAX_VALUE+" weights for "+labelSize+" labels; use fewer hash bits.");
+	}
+	
+	/** @return the number of bits of the hashed feature space; {@code 0} if features are not hashed. */
+	public int getHashBits()
+	{
+		return n_hashBits;
+	}
+	
+	/** @return {@code true} if features are hashed instead of looked up in the dictionary. */
+	public boolean isHashed()
+	{
+		return n_hashBits > 0;
+	}
+	
+	/**
+	 * Returns the index of the specific feature in a hashed feature space of {@code 2^bits} features.
+	 * The type and the value are hashed together by FNV-1a over their characters, followed by the finalizer of MurmurHash3.
+	 * Indices start at 1; index 0 is reserved for the bias.
+	 * @param type the feature type.
+	 * @param value the feature value.
+	 * @param bits the number of bits of the hashed feature space.
+	 * @return the index of the specific feature in the hashed feature space.
+	 */
+	static public int getHashIndex(String type, String value, int bits)
+	{
+		int i, len, h = 0x811c9dc5;
+		
+		for (i=0,len=type.length(); i<len; i++)
+			h = (h ^ type.charAt(i)) * 0x01000193;
+		
+		h = (h ^ 0x1f) * 0x01000193;	// separator between the type and the value
+		
+		for (i=0,len=value.length(); i<len; i++)
+			h = (h ^ value.charAt(i)) * 0x01000193;
+		
+		h ^= h >>> 16;
+		h *= 0x85ebca6b;
+		h ^= h >>> 13;
+		h *= 0xc2b2ae35;
+		h ^= h >>> 16;
+		
+		return (h & ((1 << bits) - 1)) + 1;
+	}
+	
+	/**
+	 * Copies the labels and features of the specific model to this model, keeping their indices, so that
+	 * labels and features added afterwards extend the dictionary of the specific model.
+	 * Must be called before any label or feature is added to this model.
+	 * @param model the model to copy the labels and features from.
+	 */
+	public void copyDictionary(StringModel model)
+	{
+		Map<String,ObjectIntHashMap<String>> features = model.getFeatureMaps();
+		ObjectIntHashMap<String> map, copy;
+		
+		for (ObjectCursor<String> cur : model.m_labels.keys())
+			m_labels.put(cur.value, model.m_labels.get(cur.value));
+		
+		m_features.clear();
+		m_compiled = null;
+		
+		for (String type : features.keySet())
+		{
+			map  = features.get(type);
+			copy = new ObjectIntHashMap<String>(map.size());
+			
+			for (ObjectCursor<String> cur : map.keys())
+				copy.put(cur.value, map.get(cur.value));
+			
+			m_features.put(type, copy);
+		}
+		
+		n_labels   = model.n_labels;
+		n_features = model.n_features;
+		n_hashBits = model.n_hashBits;
+	}
+	
 	/**
 	 * Adds the specific feature to this model.
+	 * If features are hashed, this method does nothing.
 	 * @param type the feature type.
 	 * @param value the feature value.
 	 */
 	public void addFeature(String type, String value)
 	{
+		if (isHashed())	return;
 		ObjectIntHashMap<String> map;
 		
+		if (m_compiled != null)
+		{
+			m_features = getFeatureMaps();
+			m_compiled = null;
+		}
+		
 		if (m_features.containsKey(type))
 		{
 			map = m_features.get(type);
@@ -184,6 +420,78 @@ public class StringModel extends AbstractModel
 		}
 	}
 
+	/**
+	 * Returns the index of the specific feature.
+	 * Returns {@code -1} if the feature is not found in this model; if features are hashed, the feature is always found.
+	 * @param type the feature type.
+	 * @param value the feature value.
+	 * @return the index of the specific feature.
+	 */
+	public int getFeatureIndex(String type, String value)
+	{
+		if (isHashed())	return getHashIndex(type, value, n_hashBits);
+		int index;
+		
+		if (m_compiled != null)
+		{
+			CompiledFeatureMap map = m_compiled.get(type);
+			return (map != null && (index = map.get(value)) > 0) ? index : -1;
+		}
+		
+		ObjectIntHashMap<String> map = m_features.get(type);
+		return (map != null && (index = map.get(value)) > 0) ? index : -1;
+	}
+	
+	/**
+	 * Replaces the dictionary of this model with compiled maps for decoding (see {@link CompiledFeatureMap}).
+	 * The original maps are released so that the dictionary is not kept twice.
+	 * Must be called before this model is shared across threads; adding a feature afterwards reverts the compilation.
+	 * If features are hashed, this method does nothing.
+	 */
+	public void compileFeatures()
+	{
+		if (isHashed() || m_compiled != null)	return;
+		Map<String,CompiledFeatureMap> compiled = new HashMap<String,CompiledFeatureMap>();
+		
+		for (String type : m_features.keySet())
+			compiled.put(type, new CompiledFeatureMap(m_features.get(type)));
+		
+		m_compiled = compiled;
+		m_features = new HashMap<String,ObjectIntHashMap<String>>();
+	}
+	
+	/** @return {@code true} if the dictionary of this model is compiled (see {@link StringModel#compileFeatures()}). */
+	public boolean isCompiled()
+	{
+		return m_compiled != null;
+	}
+	
+	/**
+	 * Returns the compiled map between values of the specific feature type and their ids.
+	 * If the dictionary of this model is not compiled (see {@link StringModel#compileFeatures()}), a new map is created.
+	 * Returns {@code null} if the feature type is not found in this model or features are hashed.
+	 * @param type the feature type.
+	 * @return the compiled map between values of the specific feature type and their ids.
+	 */
+	public CompiledFeatureMap getCompiledFeatureMap(String type)
+	{
+		if (m_compiled != null)	return m_compiled.get(type);
+		ObjectIntHashMap<String> map = m_features.get(type);
+		return (map != null) ? new CompiledFeatureMap(map) : null;
+	}
+	
+	/** @return the map between features and their indices, which is rebuilt from the compiled maps if the dictionary is compiled. */
+	private Map<String,ObjectIntHashMap<String>> getFeatureMaps()
+	{
+		if (m_compiled == null)	return m_features;
+		Map<String,ObjectIntHashMap<String>> features = new HashMap<String,ObjectIntHashMap<String>>();
+		
+		for (String type : m_compiled.keySet())
+			features.put(type, m_compiled.get(type).toMap());
+		
+		return features;
+	}
+	
 	/**
 	 * Returns the sparse feature vector converted from the string feature vector.
 	 * During the conversion, discards features not found in this model.
@@ -193,10 +501,58 @@ public class StringModel extends AbstractModel
 	public SparseFeatureVector toSparseFeatureVector(StringFeatureVector vector)
 	{
 		SparseFeatureVector sparse = new SparseFeatureVector(vector.hasWeight());
+		
+		toSparseFeatureVector(vector, sparse);
+		sparse.trimToSize();
+		
+		return sparse;
+	}
+	
+	/**
+	 * Adds features in the string feature vector to the specific sparse feature vector.
+	 * During the conversion, discards features not found in this model.
+	 * @param vector the string feature vector.
+	 * @param sparse the sparse feature vector to add features to.
+	 */
+	public void toSparseFeatureVector(StringFeatureVector vector, SparseFeatureVector sparse)
+	{
 		ObjectIntHashMap<String> map;
 		int i, index, size = vector.size();
 		String type, value;
 		
+		if (isHashed())
+		{
+			for (i=0; i<size; i++)
+			{
+				index = getHashIndex(vector.getType(i), vector.getValue(i), n_hashBits);
+				
+				if (sparse.hasWeight())
+					sparse.addFeature(index, vector.getWeight(i));
+				else
+					sparse.addFeature(index);
+			}
+			
+			return;
+		}
+		
+		if (m_compiled != null)
+		{
+			CompiledFeatureMap cmap;
+			
+			for (i=0; i<size; i++)
+			{
+				if ((cmap = m_compiled.get(vector.getType(i))) != null && (index = cmap.get(vector.getValue(i))) > 0)
+				{
+					if (sparse.hasWeight())
+						sparse.addFeature(index, vector.getWeight(i));
+					else
+						sparse.addFeature(index);
+				}
+			}
+			
+			return;
+		}
+		
 		for (i=0; i<size; i++)
 		{
 			type  = vector.getType(i);
@@ -210,9 +566,6 @@ public class StringModel extends AbstractModel
 					sparse.addFeature(index);
 			}
 		}
-		
-		sparse.trimToSize();
-		return sparse;
 	}
 	
 	public StringPrediction predictBest(StringFeatureVector x)
@@ -233,5 +586,32 @@ public class StringModel extends AbstractModel
 	public List<StringPrediction> getPredictions(StringFeatureVector x)
 	{
 		return getPredictions(toSparseFeatureVector(x));
+	}
+	
+	/** @see AbstractModel#predictBest(SparseFeatureVector, PredictionBuffer) */
+	public int predictBest(StringFeatureVector x, PredictionBuffer buffer)
+	{
+		return predictBest(toSparseFeatureVector(x, buffer), buffer);
+	}
+	
+	/** @see AbstractModel#predictTwo(SparseFeatureVector, PredictionBuffer) */
+	public void predictTwo(StringFeatureVector x, PredictionBuffer buffer)
+	{
+		predictTwo(toSparseFeatureVector(x, buffer), buffer);
+	}
+	
+	/** @see AbstractModel#predictTop(SparseFeatureVector, PredictionBuffer, int) */
+	public void predictTop(StringFeatureVector x, PredictionBuffer buffer, int k)
+	{
+		predictTop(toSparseFeatureVector(x, buffer), buffer, k);
+	}
+	
+	/** @return the sparse feature vector converted from the string feature vector using the sparse feature vector reused by the specific buffer. */
+	private SparseFeatureVector toSparseFeatureVector(StringFeatureVector x, PredictionBuffer buffer)
+	{
+		SparseFeatureVector sparse = buffer.getSparseVector(x.hasWeight());
+		toSparseFeatureVector(x, sparse);
+		
+		return sparse;
 	}	
 }
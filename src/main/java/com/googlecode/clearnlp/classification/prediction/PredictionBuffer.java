@@ -0,0 +1,159 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.prediction;
+
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
+
+/**
+ * Caller-owned buffer reused across predictions to avoid creating objects per prediction.
+ * Holds the scores of all labels (indexed by label ids) and the label ids of the top-k predictions.
+ * A buffer must not be shared across threads.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class PredictionBuffer
+{
+	/** The scores of all labels. */
+	private double[] d_scores;
+	/** The label ids of the top-k predictions in descending order of their scores. */
+	private int[]    i_ranks;
+	/** The number of labels. */
+	private int      n_labels;
+	/** The number of ranked labels. */
+	private int      n_ranks;
+	/** Reusable sparse feature vectors with and without weights. */
+	private SparseFeatureVector x_sparse, x_weighted;
+	
+	public PredictionBuffer()
+	{
+		this(16);
+	}
+	
+	public PredictionBuffer(int capacity)
+	{
+		d_scores   = new double[capacity];
+		i_ranks    = new int[capacity];
+		x_sparse   = new SparseFeatureVector(false);
+		x_weighted = new SparseFeatureVector(true);
+	}
+	
+	/**
+	 * Clears this buffer for a prediction over the specific number of labels.
+	 * @param labelSize the number of labels.
+	 * @return the score array to be filled, whose length is at least {@code labelSize}.
+	 */
+	public double[] init(int labelSize)
+	{
+		if (d_scores.length < labelSize)
+		{
+			d_scores = new double[labelSize];
+			i_ranks  = new int[labelSize];
+		}
+		
+		n_labels = labelSize;
+		n_ranks  = 0;
+		
+		return d_scores;
+	}
+	
+	/** @return an empty sparse feature vector reused by this buffer. */
+	public SparseFeatureVector getSparseVector(boolean hasWeight)
+	{
+		SparseFeatureVector x = hasWeight ? x_weighted : x_sparse;
+		x.clear();
+		
+		return x;
+	}
+	
+	/**
+	 * Ranks the top-k labels by their scores.
+	 * Labels with the same scores are ranked by their ids.
+	 * @param k the number of labels to rank.
+	 */
+	public void rank(int k)
+	{
+		int i, j, label;
+		double score;
+		
+		if (k > n_labels)	k = n_labels;
+		n_ranks = 0;
+		
+		for (label=0; label<n_labels; label++)
+		{
+			score = d_scores[label];
+			
+			for (i=n_ranks; i>0 && d_scores[i_ranks[i-1]] < score; i--);
+			if (i >= k)	continue;
+			
+			j = (n_ranks < k) ? n_ranks++ : k-1;
+			for (; j>i; j--)	i_ranks[j] = i_ranks[j-1];
+			i_ranks[i] = label;
+		}
+	}
+	
+	/**
+	 * Normalizes the scores of all labels into probabilities using softmax.
+	 * The maximum score is subtracted from all scores before exponentiation so that large scores do not overflow.
+	 */
+	public void normalize()
+	{
+		int i;
+		double d, max = Double.NEGATIVE_INFINITY, sum = 0;
+		
+		for (i=0; i<n_labels; i++)
+			max = Math.max(max, d_scores[i]);
+		
+		for (i=0; i<n_labels; i++)
+		{
+			d = Math.exp(d_scores[i] - max);
+			d_scores[i] = d;
+			sum += d;
+		}
+		
+		for (i=0; i<n_labels; i++)
+			d_scores[i] /= sum;
+	}
+	
+	/** @return the scores of all labels indexed by label ids. */
+	public double[] getScores()
+	{
+		return d_scores;
+	}
+	
+	/** @return the number of labels. */
+	public int getLabelSize()
+	{
+		return n_labels;
+	}
+	
+	/** @return the number of ranked labels. */
+	public int size()
+	{
+		return n_ranks;
+	}
+	
+	/** @return the label id of the specific rank (starting at 0). */
+	public int getLabel(int rank)
+	{
+		return i_ranks[rank];
+	}
+	
+	/** @return the score of the specific rank (starting at 0). */
+	public double getScore(int rank)
+	{
+		return d_scores[i_ranks[rank]];
+	}
+}
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.List;
 
 import com.carrotsearch.hppc.IntArrayList;
 import com.googlecode.clearnlp.classification.model.AbstractModel;
@@ -128,7 +129,7 @@ abstract public class AbstractTrainSpace
 	 * Returns the list of training feature indices.
 	 * @return the list of training feature indices.
 	 */
-	public ArrayList<int[]>getXs()
+	public List<int[]> getXs()
 	{
 		return a_xs;
 	}
@@ -137,11 +138,22 @@ abstract public class AbstractTrainSpace
 	 * Returns the list of training feature weights.
 	 * @return the list of training feature weights.
 	 */
-	public ArrayList<double[]> getVs()
+	public List<double[]> getVs()
 	{
 		return a_vs;
 	}
 	
+	/**
+	 * Fills the specific view with the feature indices and weights of the specific training instance.
+	 * Unlike {@link AbstractTrainSpace#getXs()} and {@link AbstractTrainSpace#getVs()}, this does not allocate new arrays for disk-backed instances.
+	 * @return the specific view.
+	 */
+	public InstanceView getInstance(int index, InstanceView view)
+	{
+		view.set(a_xs.get(index), b_weight ? a_vs.get(index) : null);
+		return view;
+	}
+	
 	/**
 	 * Returns {@code true} if features are assigned with different weights. 
 	 * @return {@code true} if features are assigned with different weights.
@@ -233,6 +245,8 @@ abstract public class AbstractTrainSpace
 	public void printInstances(PrintStream fout)
 	{
 		int i, j, len, size = a_ys.size();
+		List<int[]>    lxs = getXs();
+		List<double[]> lvs = getVs();
 		int[] xs; double[] vs;
 		StringBuilder build;
 		
@@ -241,8 +255,8 @@ abstract public class AbstractTrainSpace
 			build = new StringBuilder();
 			build.append(a_ys.get(i));
 			
-			xs  = a_xs.get(i);
-			vs  = (b_weight) ? a_vs.get(i) : null;
+			xs  = lxs.get(i);
+			vs  = (b_weight) ? lvs.get(i) : null;
 			len = xs.length;
 			
 			for (j=0; j<len; j++)
@@ -265,6 +279,8 @@ abstract public class AbstractTrainSpace
 	{
 		int y, i, j, len, lSize = m_model.getLabelSize(), tSize = a_ys.size();
 		IntIntPair[] counts = new IntIntPair[lSize];
+		List<int[]>    xs = getXs();
+		List<double[]> vs = getVs();
 		SparseFeatureVector vector;
 		int[] x; double[] v = null;
 		IntIntPair c;
@@ -275,8 +291,8 @@ abstract public class AbstractTrainSpace
 		for (i=0; i<tSize; i++)
 		{
 			y = a_ys.get(i);
-			x = a_xs.get(i);
-			if (b_weight)	v = a_vs.get(i);
+			x = xs.get(i);
+			if (b_weight)	v = vs.get(i);
 			
 			vector = new SparseFeatureVector(b_weight);
 			len = x.length;
@@ -0,0 +1,470 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * Disk-backed store of training instances.
+ * Instances are added as label and feature ids, and written to binary segment files.
+ * {@link DiskInstanceStore#build(int[], int[], IntArrayList, boolean)} converts the ids into label and feature indices of a model,
+ * and writes the converted instances to segment files that are memory-mapped for training.
+ * An {@link IOException} on segment files is rethrown wrapped in a {@link RuntimeException}, since training cannot continue without the instances.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DiskInstanceStore
+{
+	/** The default maximum number of bytes in each segment file. */
+	static public final int SEGMENT_SIZE = 1 << 28;
+	static private final String FILE_PREFIX = "instances";
+	static private final String FILE_SUFFIX = ".seg";
+	
+	/** The directory where segment files are created. */
+	private File    f_dir;
+	/** {@code true} if features are assigned with different weights. */
+	private boolean b_weight;
+	/** The maximum number of bytes in each segment file. */
+	private int     n_segmentSize;
+	/** Segments of instances added to this store. */
+	private List<RawSegment> l_raw;
+	/** The output stream of the last segment in {@link DiskInstanceStore#l_raw}; {@code null} if closed. */
+	private DataOutputStream f_out;
+	/** Memory-mapped segments of built instances. */
+	private List<MappedSegment> l_built;
+	/** The index of the first instance in each segment of {@link DiskInstanceStore#l_built}. */
+	private int[] i_begins;
+	/** The byte offset of each built instance in its segment. */
+	private IntArrayList a_offsets;
+	
+	/**
+	 * @param dir the directory where segment files are created.
+	 * @param hasWeight {@code true} if features are assigned with different weights.
+	 */
+	public DiskInstanceStore(File dir, boolean hasWeight)
+	{
+		this(dir, hasWeight, SEGMENT_SIZE);
+	}
+	
+	/**
+	 * @param dir the directory where segment files are created.
+	 * @param hasWeight {@code true} if features are assigned with different weights.
+	 * @param segmentSize the maximum number of bytes in each segment file.
+	 */
+	public DiskInstanceStore(File dir, boolean hasWeight, int segmentSize)
+	{
+		f_dir         = dir;
+		b_weight      = hasWeight;
+		n_segmentSize = segmentSize;
+		l_raw         = new ArrayList<RawSegment>();
+		l_built       = new ArrayList<MappedSegment>();
+		i_begins      = new int[0];
+		a_offsets     = new IntArrayList();
+	}
+	
+//	====================================== ADD ======================================
+	
+	/**
+	 * Adds a training instance to this store.
+	 * @param label the label id.
+	 * @param features the feature ids.
+	 * @param weights the feature weights if {@link DiskInstanceStore#b_weight} is {@code true}; otherwise, ignored.
+	 * @throws RuntimeException if the instance cannot be written to a segment file.
+	 */
+	public void addInstance(int label, int[] features, double[] weights)
+	{
+		try
+		{
+			if (f_out == null || f_out.size() >= n_segmentSize)
+				openRawSegment();
+			
+			int i, len = features.length;
+			
+			f_out.writeInt(label);
+			f_out.writeInt(len);
+			
+			for (i=0; i<len; i++)
+				f_out.writeInt(features[i]);
+			
+			if (b_weight)
+			{
+				for (i=0; i<len; i++)
+					f_out.writeDouble(weights[i]);
+			}
+			
+			l_raw.get(l_raw.size()-1).n_instances++;
+		}
+		catch (IOException e) {throw new RuntimeException("Failed to write an instance to a segment file in "+f_dir, e);}
+	}
+	
+	/**
+	 * Moves all instances in the specific store to the end of this store.
+	 * The specific store becomes empty after this method is called.
+	 * @param store the store whose instances are moved.
+	 * @param labels the map from label ids of the specific store to label ids of this store; {@code null} if identical.
+	 * @param features the map from feature ids of the specific store to feature ids of this store; {@code null} if identical.
+	 */
+	public void appendStore(DiskInstanceStore store, int[] labels, int[] features)
+	{
+		closeRawSegment();
+		store.closeRawSegment();
+		
+		for (RawSegment segment : store.l_raw)
+		{
+			segment.translate(labels, features);
+			l_raw.add(segment);
+		}
+		
+		store.l_raw.clear();
+	}
+	
+	private void openRawSegment() throws IOException
+	{
+		closeRawSegment();
+		
+		RawSegment segment = new RawSegment(createSegmentFile());
+		f_out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(segment.f_file), 1 << 16));
+		l_raw.add(segment);
+	}
+	
+	private void closeRawSegment()
+	{
+		if (f_out == null)	return;
+		DataOutputStream fout = f_out;
+		f_out = null;
+		
+		try
+		{
+			fout.close();
+		}
+		catch (IOException e) {throw new RuntimeException("Failed to close a segment file in "+f_dir, e);}
+	}
+	
+	private File createSegmentFile() throws IOException
+	{
+		File file = File.createTempFile(FILE_PREFIX, FILE_SUFFIX, f_dir);
+		file.deleteOnExit();
+		
+		return file;
+	}
+	
+//	====================================== BUILD ======================================
+	
+	/**
+	 * Converts the ids of all instances in this store into indices of a model, and memory-maps the converted instances.
+	 * Instances whose labels are not found in the model are discarded; so are features not found in the model.
+	 * @param labels the map from label ids to label indices ({@code -1} if not found).
+	 * @param features the map from feature ids to feature indices ({@code -1} if not found); {@code null} if the ids are already feature indices (e.g., hashed features).
+	 * @param ys the list to add labels of the converted instances to.
+	 * @param clearInstances if {@code true}, segments of the added instances are deleted.
+	 * @throws RuntimeException if segment files cannot be read or written.
+	 */
+	public void build(int[] labels, int[] features, IntArrayList ys, boolean clearInstances)
+	{
+		closeRawSegment();
+		clearBuilt();
+		
+		IntArrayList begins = new IntArrayList();
+		DataOutputStream fout = null;
+		File file = null;
+		
+		int[] lt, ft, indices = new int[0];
+		double[] weights = new double[0];
+		int i, j, f, y, len, size, count = 0;
+		
+		try
+		{
+			for (RawSegment segment : l_raw)
+			{
+				DataInputStream fin = new DataInputStream(new BufferedInputStream(new FileInputStream(segment.f_file), 1 << 16));
+				lt = segment.i_labels;
+				ft = segment.i_features;
+				
+				for (i=0; i<segment.n_instances; i++)
+				{
+					y   = fin.readInt();
+					len = fin.readInt();
+					
+					if (indices.length < len)
+					{
+						indices = new int[len];
+						weights = new double[len];
+					}
+					
+					for (j=0; j<len; j++)
+						indices[j] = fin.readInt();
+					
+					if (b_weight)
+					{
+						for (j=0; j<len; j++)
+							weights[j] = fin.readDouble();
+					}
+					
+					if ((y = labels[(lt != null) ? lt[y] : y]) < 0)
+						continue;
+					
+					for (j=0,size=0; j<len; j++)
+					{
+						f = (ft != null) ? ft[indices[j]] : indices[j];
+						
+						if ((indices[size] = (features != null) ? features[f] : f) > 0)
+						{
+							weights[size] = weights[j];
+							size++;
+						}
+					}
+					
+					if (fout == null || fout.size() >= n_segmentSize)
+					{
+						if (fout != null)
+						{
+							fout.close();
+							l_built.add(new MappedSegment(file));
+						}
+						
+						fout = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file = createSegmentFile()), 1 << 16));
+						begins.add(count);
+					}
+					
+					a_offsets.add(fout.size());
+					fout.writeInt(size);
+					
+					for (j=0; j<size; j++)
+						fout.writeInt(indices[j]);
+					
+					if (b_weight)
+					{
+						for (j=0; j<size; j++)
+							fout.writeDouble(weights[j]);
+					}
+					
+					ys.add(y);
+					if (++count%100000 == 0)	System.out.print(".");
+				}
+				
+				fin.close();
+			}
+			
+			if (fout != null)
+			{
+				fout.close();
+				l_built.add(new MappedSegment(file));
+			}
+		}
+		catch (IOException e) {throw new RuntimeException("Failed to build instances from segment files in "+f_dir, e);}
+		
+		a_offsets.trimToSize();
+		i_begins = begins.toArray();
+		
+		if (clearInstances)	clearRaw();
+	}
+	
+	/**
+	 * Fills the specific view with the feature indices and weights of the specific built instance.
+	 * The instance is copied into the buffers of the view, which are reused across calls.
+	 * @return the specific view.
+	 */
+	public InstanceView getInstance(int index, InstanceView view)
+	{
+		MappedByteBuffer buffer = getBuffer(index);
+		int offset = a_offsets.get(index);
+		int i, len = buffer.getInt(offset);
+		
+		view.setBuffers(len, b_weight);
+		int[] x = view.x;
+		
+		for (i=0,offset+=4; i<len; i++,offset+=4)
+			x[i] = buffer.getInt(offset);
+		
+		if (b_weight)
+		{
+			double[] v = view.v;
+			
+			for (i=0; i<len; i++,offset+=8)
+				v[i] = buffer.getDouble(offset);
+		}
+		
+		return view;
+	}
+	
+	/**
+	 * Returns the list of training feature indices backed by the memory-mapped segments.
+	 * Each call to {@link List#get(int)} allocates a new array; use {@link DiskInstanceStore#getInstance(int, InstanceView)} in loops over instances.
+	 * @return the list of training feature indices backed by the memory-mapped segments.
+	 */
+	public List<int[]> getXs()
+	{
+		return new AbstractList<int[]>()
+		{
+			@Override
+			public int[] get(int index)
+			{
+				MappedByteBuffer buffer = getBuffer(index);
+				int offset = a_offsets.get(index);
+				int i, len = buffer.getInt(offset);
+				int[] x = new int[len];
+				
+				for (i=0,offset+=4; i<len; i++,offset+=4)
+					x[i] = buffer.getInt(offset);
+				
+				return x;
+			}
+
+			@Override
+			public int size()
+			{
+				return a_offsets.size();
+			}
+		};
+	}
+	
+	/**
+	 * Returns the list of training feature weights backed by the memory-mapped segments.
+	 * Each call to {@link List#get(int)} allocates a new array; use {@link DiskInstanceStore#getInstance(int, InstanceView)} in loops over instances.
+	 * @return the list of training feature weights backed by the memory-mapped segments.
+	 */
+	public List<double[]> getVs()
+	{
+		return new AbstractList<double[]>()
+		{
+			@Override
+			public double[] get(int index)
+			{
+				MappedByteBuffer buffer = getBuffer(index);
+				int offset = a_offsets.get(index);
+				int i, len = buffer.getInt(offset);
+				double[] v = new double[len];
+				
+				for (i=0,offset+=4*(len+1); i<len; i++,offset+=8)
+					v[i] = buffer.getDouble(offset);
+				
+				return v;
+			}
+
+			@Override
+			public int size()
+			{
+				return a_offsets.size();
+			}
+		};
+	}
+	
+	/** Called by {@link DiskInstanceStore#getInstance(int, InstanceView)}, {@link DiskInstanceStore#getXs()}, and {@link DiskInstanceStore#getVs()}. */
+	private MappedByteBuffer getBuffer(int index)
+	{
+		int i = Arrays.binarySearch(i_begins, index);
+		if (i < 0)	i = -(i + 2);
+		
+		return l_built.get(i).f_buffer;
+	}
+	
+//	====================================== CLEAR ======================================
+	
+	/** Deletes all segment files of this store. */
+	public void clear()
+	{
+		closeRawSegment();
+		clearRaw();
+		clearBuilt();
+	}
+	
+	private void clearRaw()
+	{
+		for (RawSegment segment : l_raw)
+			segment.f_file.delete();
+		
+		l_raw.clear();
+	}
+	
+	private void clearBuilt()
+	{
+		for (MappedSegment segment : l_built)
+			segment.f_file.delete();
+		
+		l_built.clear();
+		a_offsets.clear();
+		i_begins = new int[0];
+	}
+	
+//	====================================== SEGMENTS ======================================
+	
+	/** Segment of instances whose labels and features are represented by ids. */
+	private class RawSegment
+	{
+		File  f_file;
+		int   n_instances;
+		/** The map from label ids in this segment to label ids in the store; {@code null} if identical. */
+		int[] i_labels;
+		/** The map from feature ids in this segment to feature ids in the store; {@code null} if identical. */
+		int[] i_features;
+		
+		public RawSegment(File file)
+		{
+			f_file = file;
+		}
+		
+		/** Composes the current maps with the specific maps. */
+		public void translate(int[] labels, int[] features)
+		{
+			i_labels   = compose(i_labels  , labels);
+			i_features = compose(i_features, features);
+		}
+		
+		private int[] compose(int[] curr, int[] next)
+		{
+			if (next == null)	return curr;
+			if (curr == null)	return next;
+			int i, size = curr.length;
+			
+			for (i=0; i<size; i++)
+				curr[i] = next[curr[i]];
+			
+			return curr;
+		}
+	}
+	
+	/** Memory-mapped segment of instances whose labels and features are represented by indices of a model. */
+	private class MappedSegment
+	{
+		File f_file;
+		MappedByteBuffer f_buffer;
+		
+		public MappedSegment(File file) throws IOException
+		{
+			RandomAccessFile fin = new RandomAccessFile(file, "r");
+			
+			f_file   = file;
+			f_buffer = fin.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fin.length());
+			fin.close();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+/**
+ * Reusable view of a training instance.
+ * Only the first {@link InstanceView#size} elements of {@link InstanceView#x} and {@link InstanceView#v} belong to the instance.
+ * A view is filled by {@link AbstractTrainSpace#getInstance(int, InstanceView)},
+ * which points the view at the in-memory arrays, or copies a disk-backed instance into the buffers of the view
+ * without allocating new arrays unless the buffers are too small.
+ * A view must not be shared by multiple threads.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class InstanceView
+{
+	/** The feature indices. */
+	public int[]    x;
+	/** The feature weights; {@code null} if features are not weighted. */
+	public double[] v;
+	/** The number of features. */
+	public int      size;
+	
+	private int[]    i_buffer = new int[0];
+	private double[] d_buffer = new double[0];
+	
+	/** Points this view at the specific arrays without copying them. */
+	public void set(int[] x, double[] v)
+	{
+		this.x    = x;
+		this.v    = v;
+		this.size = x.length;
+	}
+	
+	/**
+	 * Points this view at its own buffers, enlarged to hold at least the specific number of features.
+	 * Called by {@link DiskInstanceStore#getInstance(int, InstanceView)}.
+	 * @param hasWeight if {@code false}, {@link InstanceView#v} becomes {@code null}.
+	 */
+	void setBuffers(int size, boolean hasWeight)
+	{
+		if (i_buffer.length < size)
+			i_buffer = new int[size];
+		
+		if (hasWeight && d_buffer.length < size)
+			d_buffer = new double[size];
+		
+		this.x    = i_buffer;
+		this.v    = hasWeight ? d_buffer : null;
+		this.size = size;
+	}
+}
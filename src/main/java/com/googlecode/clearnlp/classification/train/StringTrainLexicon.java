@@ -0,0 +1,318 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.googlecode.clearnlp.classification.model.StringModel;
+
+/**
+ * Thread-safe counts of labels and features in training instances.
+ * Labels and features are distributed over lock-striped maps so that multiple threads can count them at the same time.
+ * Each label and feature is also assigned with a unique id (starting at 1) when it is first counted.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class StringTrainLexicon
+{
+	/** The number of stripes (must be a power of 2). */
+	static private final int STRIPES = 64;
+	/** The feature type used for labels. */
+	static private final String TYPE_LABEL = "";
+	
+	private Stripe[] s_labels;
+	private Stripe[] s_features;
+	private AtomicInteger n_labelIds;
+	private AtomicInteger n_featureIds;
+	
+	public StringTrainLexicon()
+	{
+		s_labels     = createStripes();
+		s_features   = createStripes();
+		n_labelIds   = new AtomicInteger();
+		n_featureIds = new AtomicInteger();
+	}
+	
+	private Stripe[] createStripes()
+	{
+		Stripe[] stripes = new Stripe[STRIPES];
+		int i;
+		
+		for (i=0; i<STRIPES; i++)
+			stripes[i] = new Stripe();
+		
+		return stripes;
+	}
+	
+//	====================================== ADD ======================================
+	
+	/**
+	 * Increments the count of the specific label.
+	 * @return the id of the label.
+	 */
+	public int addLabel(String label)
+	{
+		return getStripe(s_labels, TYPE_LABEL, label).add(TYPE_LABEL, label, 1, n_labelIds);
+	}
+	
+	/**
+	 * Increments the count of the specific feature.
+	 * @return the id of the feature.
+	 */
+	public int addFeature(String type, String value)
+	{
+		return getStripe(s_features, type, value).add(type, value, 1, n_featureIds);
+	}
+	
+	/** @return the id of the specific label, which is assigned with the count of 0 if not exists. */
+	public int getLabelId(String label)
+	{
+		return getStripe(s_labels, TYPE_LABEL, label).add(TYPE_LABEL, label, 0, n_labelIds);
+	}
+	
+	/** @return the id of the specific feature, which is assigned with the count of 0 if not exists. */
+	public int getFeatureId(String type, String value)
+	{
+		return getStripe(s_features, type, value).add(type, value, 0, n_featureIds);
+	}
+	
+	/**
+	 * Adds the counts of the specific lexicon to this lexicon.
+	 * @param lexicon the lexicon whose counts are added.
+	 * @return a pair of maps from label and feature ids of the specific lexicon to the ones of this lexicon.
+	 */
+	public int[][] appendLexicon(StringTrainLexicon lexicon)
+	{
+		int[] labels   = appendStripes(s_labels  , n_labelIds  , lexicon.s_labels  , lexicon.getLabelIdSize());
+		int[] features = appendStripes(s_features, n_featureIds, lexicon.s_features, lexicon.getFeatureIdSize());
+		
+		return new int[][]{labels, features};
+	}
+	
+	private int[] appendStripes(Stripe[] tStripes, AtomicInteger ids, Stripe[] sStripes, int size)
+	{
+		int[] map = new int[size+1];
+		ObjectIntHashMap<String> locals;
+		int local;
+		
+		for (Stripe stripe : sStripes)
+		{
+			for (String type : stripe.m_locals.keySet())
+			{
+				locals = stripe.m_locals.get(type);
+				
+				for (ObjectCursor<String> cur : locals.keys())
+				{
+					local = locals.get(cur.value) - 1;
+					map[stripe.a_ids.get(local)] = getStripe(tStripes, type, cur.value).add(type, cur.value, stripe.a_counts.get(local), ids);
+				}
+			}
+		}
+		
+		return map;
+	}
+	
+	private Stripe getStripe(Stripe[] stripes, String type, String value)
+	{
+		int h = type.hashCode() * 31 + value.hashCode();
+		return stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+	}
+	
+//	====================================== GETTERS ======================================
+	
+	/** @return the number of label ids. */
+	public int getLabelIdSize()
+	{
+		return n_labelIds.get();
+	}
+	
+	/** @return the number of feature ids. */
+	public int getFeatureIdSize()
+	{
+		return n_featureIds.get();
+	}
+	
+	/**
+	 * Adds labels and features whose counts are greater than the specific cutoffs to the specific model.
+	 * Labels and features are added in sorted order so that their indices do not depend on the order of counting.
+	 * @param model the model to add labels and features to.
+	 * @param labelCutoff the label count cutoff (exclusive).
+	 * @param featureCutoff the feature count cutoff (exclusive).
+	 */
+	public void initModel(StringModel model, int labelCutoff, int featureCutoff)
+	{
+		Map<String,List<String>> labels   = getSortedKeys(s_labels  , labelCutoff);
+		Map<String,List<String>> features = getSortedKeys(s_features, featureCutoff);
+		List<String> types;
+		
+		if (labels.containsKey(TYPE_LABEL))
+		{
+			for (String label : labels.get(TYPE_LABEL))
+				model.addLabel(label);
+		}
+		
+		model.initLabelArray();
+		types = new ArrayList<String>(features.keySet());
+		Collections.sort(types);
+		
+		for (String type : types)
+			for (String value : features.get(type))
+				model.addFeature(type, value);
+	}
+	
+	/** @return the map between types and their sorted values whose counts are greater than the specific cutoff. */
+	private Map<String,List<String>> getSortedKeys(Stripe[] stripes, int cutoff)
+	{
+		Map<String,List<String>> map = new HashMap<String,List<String>>();
+		ObjectIntHashMap<String> locals;
+		List<String> values;
+		
+		for (Stripe stripe : stripes)
+		{
+			for (String type : stripe.m_locals.keySet())
+			{
+				locals = stripe.m_locals.get(type);
+				
+				if ((values = map.get(type)) == null)
+				{
+					values = new ArrayList<String>();
+					map.put(type, values);
+				}
+				
+				for (ObjectCursor<String> cur : locals.keys())
+				{
+					if (stripe.a_counts.get(locals.get(cur.value)-1) > cutoff)
+						values.add(cur.value);
+				}
+			}
+		}
+		
+		for (List<String> list : map.values())
+			Collections.sort(list);
+		
+		return map;
+	}
+	
+	/** @return the map from label ids to label indices in the specific model ({@code -1} if not found). */
+	public int[] getLabelIndices(StringModel model)
+	{
+		int[] indices = new int[getLabelIdSize()+1];
+		ObjectIntHashMap<String> locals;
+		
+		for (Stripe stripe : s_labels)
+		{
+			if ((locals = stripe.m_locals.get(TYPE_LABEL)) == null)
+				continue;
+			
+			for (ObjectCursor<String> cur : locals.keys())
+				indices[stripe.a_ids.get(locals.get(cur.value)-1)] = model.getLabelIndex(cur.value);
+		}
+		
+		return indices;
+	}
+	
+	/** @return the map from feature ids to feature indices in the specific model ({@code -1} if not found). */
+	public int[] getFeatureIndices(StringModel model)
+	{
+		int[] indices = new int[getFeatureIdSize()+1];
+		ObjectIntHashMap<String> locals;
+		
+		for (Stripe stripe : s_features)
+		{
+			for (String type : stripe.m_locals.keySet())
+			{
+				locals = stripe.m_locals.get(type);
+				
+				for (ObjectCursor<String> cur : locals.keys())
+					indices[stripe.a_ids.get(locals.get(cur.value)-1)] = model.getFeatureIndex(type, cur.value);
+			}
+		}
+		
+		return indices;
+	}
+	
+	public void clear()
+	{
+		for (Stripe stripe : s_labels)		stripe.clear();
+		for (Stripe stripe : s_features)	stripe.clear();
+		
+		n_labelIds  .set(0);
+		n_featureIds.set(0);
+	}
+	
+//	====================================== STRIPE ======================================
+	
+	/** Counts and ids of labels or features guarded by the lock of this stripe. */
+	private class Stripe
+	{
+		/** The map between types, values and their local indices (starting at 1). */
+		Map<String,ObjectIntHashMap<String>> m_locals;
+		/** The counts of values. */
+		IntArrayList a_counts;
+		/** The ids of values. */
+		IntArrayList a_ids;
+		
+		public Stripe()
+		{
+			m_locals = new HashMap<String,ObjectIntHashMap<String>>();
+			a_counts = new IntArrayList();
+			a_ids    = new IntArrayList();
+		}
+		
+		/**
+		 * Adds the specific count to the specific value.
+		 * If the value is not found, it is assigned with a new id generated by the specific counter.
+		 * @return the id of the value.
+		 */
+		synchronized public int add(String type, String value, int count, AtomicInteger ids)
+		{
+			ObjectIntHashMap<String> locals = m_locals.get(type);
+			int local;
+			
+			if (locals == null)
+			{
+				locals = new ObjectIntHashMap<String>();
+				m_locals.put(type, locals);
+			}
+			
+			if ((local = locals.get(value) - 1) < 0)
+			{
+				locals.put(value, a_counts.size()+1);
+				a_counts.add(count);
+				a_ids.add(ids.incrementAndGet());
+				return a_ids.get(a_ids.size()-1);
+			}
+			
+			a_counts.set(local, a_counts.get(local) + count);
+			return a_ids.get(local);
+		}
+		
+		synchronized public void clear()
+		{
+			m_locals.clear();
+			a_counts.clear();
+			a_ids.clear();
+		}
+	}
+}
@@ -23,15 +23,12 @@
 */
 package com.googlecode.clearnlp.classification.train;
 
+import java.io.File;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
-import com.carrotsearch.hppc.ObjectIntHashMap;
-import com.carrotsearch.hppc.cursors.ObjectCursor;
 import com.googlecode.clearnlp.classification.model.StringModel;
 import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
@@ -53,10 +50,16 @@ public class StringTrainSpace extends AbstractTrainSpace
 	private int f_cutoff;
 	/** The list of all training instances. */
 	private List<Pair<String,StringFeatureVector>> s_instances;
-	/** The map between labels and their counts. */
-	private ObjectIntHashMap<String> m_labels;
-	/** The map between features and their counts. */
-	private Map<String,ObjectIntHashMap<String>> m_features;
+	/** The counts and ids of labels and features, which may be shared with other spaces. */
+	private StringTrainLexicon s_lexicon;
+	/** {@code true} if {@link StringTrainSpace#s_lexicon} is created by another space. */
+	private boolean b_shared;
+	/** The directory to spill training instances to; {@code null} if instances are kept in memory. */
+	private File f_spillDir;
+	/** The disk-backed store of training instances; {@code null} if instances are kept in {@link StringTrainSpace#s_instances}. */
+	private DiskInstanceStore s_store;
+	/** The model to be fine-tuned; {@code null} if a new model is trained. */
+	private StringModel s_base;
 	
 	/**
 	 * Constructs a train space containing string vectors.
@@ -65,6 +68,38 @@ public class StringTrainSpace extends AbstractTrainSpace
 	 * @param featureCutoff the feature count cutoff (exclusive).
 	 */
 	public StringTrainSpace(boolean hasWeight, int labelCutoff, int featureCutoff)
+	{
+		this(hasWeight, labelCutoff, featureCutoff, null);
+	}
+	
+	/**
+	 * Constructs a train space containing string vectors.
+	 * If the specific directory is not {@code null}, training instances are spilled to segment files in the directory
+	 * instead of being kept in memory (see {@link DiskInstanceStore}).
+	 * @param hasWeight {@code true} if features are assigned with different weights.
+	 * @param labelCutoff the label count cutoff (exclusive).
+	 * @param featureCutoff the feature count cutoff (exclusive).
+	 * @param spillDir the directory to spill training instances to; {@code null} to keep them in memory.
+	 */
+	public StringTrainSpace(boolean hasWeight, int labelCutoff, int featureCutoff, File spillDir)
+	{
+		this(hasWeight, labelCutoff, featureCutoff, spillDir, new StringTrainLexicon(), false);
+	}
+	
+	/**
+	 * Constructs an empty train space sharing the settings and the lexicon of the specific space.
+	 * Multiple threads can add instances to spaces sharing the same lexicon at the same time,
+	 * and {@link StringTrainSpace#appendSpace(StringTrainSpace)} between these spaces does not merge their lexica.
+	 * @param space the space to share the lexicon with.
+	 */
+	public StringTrainSpace(StringTrainSpace space)
+	{
+		this(space.b_weight, space.l_cutoff, space.f_cutoff, space.f_spillDir, space.s_lexicon, true);
+		setHashBits(space.s_model.getHashBits());
+		s_base = space.s_base;
+	}
+	
+	private StringTrainSpace(boolean hasWeight, int labelCutoff, int featureCutoff, File spillDir, StringTrainLexicon lexicon, boolean shared)
 	{
 		super(new StringModel(), hasWeight);
 		
@@ -72,8 +107,36 @@ public class StringTrainSpace extends AbstractTrainSpace
 		l_cutoff    = labelCutoff;
 		f_cutoff    = featureCutoff;
 		s_instances = new ArrayList<Pair<String,StringFeatureVector>>();
-		m_labels    = new ObjectIntHashMap<String>();
-		m_features  = new HashMap<String, ObjectIntHashMap<String>>();
+		s_lexicon   = lexicon;
+		b_shared    = shared;
+		f_spillDir  = spillDir;
+		
+		if (spillDir != null)
+			s_store = new DiskInstanceStore(spillDir, hasWeight);
+	}
+	
+	/**
+	 * Hashes features into a space of {@code 2^bits} features instead of indexing them by a dictionary (see {@link StringModel#setHashBits(int)}).
+	 * Feature strings are neither counted nor stored in the model, so the feature cutoff is not applied.
+	 * Must be called before any instance is added.
+	 * @param bits the number of bits of the hashed feature space; {@code 0} to index features by a dictionary.
+	 */
+	public void setHashBits(int bits)
+	{
+		s_model.setHashBits(bits);
+	}
+	
+	/**
+	 * Fine-tunes the specific model instead of training a new one.
+	 * The model built by this space keeps the labels and features of the specific model with their indices,
+	 * adds the ones found in this space (subject to the cutoffs), and starts with the weights of the specific model.
+	 * Must be called before any instance is added.
+	 * @param model the model to be fine-tuned.
+	 */
+	public void setBaseModel(StringModel model)
+	{
+		s_base = model;
+		setHashBits(model.getHashBits());
 	}
 	
 	public void printInstances(PrintStream fout)
@@ -101,8 +164,28 @@ public class StringTrainSpace extends AbstractTrainSpace
 	 */
 	public void addInstance(String label, StringFeatureVector vector)
 	{
-		addLexica(label, vector);
-		s_instances.add(new Pair<String, StringFeatureVector>(label, vector));
+		int labelId = s_lexicon.addLabel(label);
+		int i, size = vector.size();
+		
+		if (s_store != null)
+		{
+			int[] features = new int[size];
+			
+			for (i=0; i<size; i++)
+				features[i] = s_model.isHashed() ? s_model.getFeatureIndex(vector.getType(i), vector.getValue(i)) : s_lexicon.addFeature(vector.getType(i), vector.getValue(i));
+			
+			s_store.addInstance(labelId, features, getWeights(vector));
+		}
+		else
+		{
+			if (!s_model.isHashed())
+			{
+				for (i=0; i<size; i++)
+					s_lexicon.addFeature(vector.getType(i), vector.getValue(i));
+			}
+			
+			s_instances.add(new Pair<String, StringFeatureVector>(label, vector));
+		}
 	}
 	
 	/**
@@ -115,108 +198,87 @@ public class StringTrainSpace extends AbstractTrainSpace
 		addInstance(instance.o1, instance.o2);
 	}
 	
-	public void appendSpace(StringTrainSpace space)
+	/** Adds the specific training instance, whose label and features are already counted, to {@link StringTrainSpace#s_store}. */
+	private void spillInstance(String label, StringFeatureVector vector)
 	{
-		appendSpaceLabels(space);
-		appendSpaceFeatures(space);
-		appendSpaceInstances(space);
+		int i, size = vector.size();
+		int[] features = new int[size];
+		
+		for (i=0; i<size; i++)
+			features[i] = s_model.isHashed() ? s_model.getFeatureIndex(vector.getType(i), vector.getValue(i)) : s_lexicon.getFeatureId(vector.getType(i), vector.getValue(i));
+		
+		s_store.addInstance(s_lexicon.getLabelId(label), features, getWeights(vector));
 	}
 	
-	private void appendSpaceLabels(StringTrainSpace space)
+	/** @return the feature weights of the specific vector if {@link AbstractTrainSpace#b_weight} is {@code true}; otherwise, {@code null}. */
+	private double[] getWeights(StringFeatureVector vector)
 	{
-		ObjectIntHashMap<String> mLabels = space.m_labels;
-		String label;
+		if (!b_weight)	return null;
+		int i, size = vector.size();
+		double[] weights = new double[size];
 		
-		for (ObjectCursor<String> cur : mLabels.keys())
-		{
-			label = cur.value;
-			m_labels.put(label, m_labels.get(label) + mLabels.get(label));
-		}
+		for (i=0; i<size; i++)
+			weights[i] = vector.getWeight(i);
+		
+		return weights;
 	}
 	
-	private void appendSpaceFeatures(StringTrainSpace space)
+	/**
+	 * Appends the training instances of the specific space to this space.
+	 * Lexica are merged unless the spaces share the same lexicon.
+	 * @param space the space to be appended.
+	 */
+	public void appendSpace(StringTrainSpace space)
 	{
-		Map<String,ObjectIntHashMap<String>> mFeatures = space.m_features;
-		ObjectIntHashMap<String> tMap, sMap;
-		String value;
+		int[][] maps = (s_lexicon != space.s_lexicon) ? s_lexicon.appendLexicon(space.s_lexicon) : new int[2][];
 		
-		for (String type : mFeatures.keySet())
+		if (s_store == null)
 		{
-			sMap = mFeatures.get(type);
+			if (space.s_store != null)
+				throw new IllegalArgumentException("A spilled train space cannot be appended to an in-memory train space.");
 			
-			if (m_features.containsKey(type))
-			{
-				tMap = m_features.get(type);
-				
-				for (ObjectCursor<String> cur : sMap.keys())
-				{
-					value = cur.value;
-					tMap.put(value, tMap.get(value) + sMap.get(value));
-				}
-			}
-			else
-				m_features.put(type, sMap);
+			s_instances.addAll(space.s_instances);
 		}
+		else if (space.s_store == null)
+		{
+			for (Pair<String,StringFeatureVector> instance : space.s_instances)
+				spillInstance(instance.o1, instance.o2);
+		}
+		else
+			s_store.appendStore(space.s_store, maps[0], s_model.isHashed() ? null : maps[1]);
 	}
 	
-	private void appendSpaceInstances(StringTrainSpace space)
-	{
-		s_instances.addAll(space.s_instances);
-	}
-	
+	/** Clears the training instances of this space, and its lexicon unless the lexicon is shared from another space. */
 	public void clear()
 	{
 		s_instances.clear();
-		m_labels   .clear();
-		m_features .clear();
-	}
-	
-	/** 
-	 * Called by {@link StringTrainSpace#addInstance(String, StringFeatureVector)}.
-	 * Called by {@link StringTrainSpace#addInstance(String)}.
-	 */
-	private void addLexica(String label, StringFeatureVector vector)
-	{
-		addLexicaLabel(label);
-		addLexicaFeatures(vector);
-	}
-	
-	private void addLexicaLabel(String label)
-	{
-		m_labels.put(label, m_labels.get(label)+1);
-	}
-	
-	private void addLexicaFeatures(StringFeatureVector vector)
-	{
-		ObjectIntHashMap<String> map;
-		int i, size = vector.size();
-		String type, value;
-		
-		for (i=0; i<size; i++)
-		{
-			type  = vector.getType(i);
-			value = vector.getValue(i);
-			
-			if (m_features.containsKey(type))
-			{
-				map = m_features.get(type);
-				map.put(value, map.get(value)+1);
-			}
-			else
-			{
-				map = new ObjectIntHashMap<String>();
-				map.put(value, 1);
-				m_features.put(type, map);
-			}
-		}
+		if (s_store != null)	s_store.clear();
+		if (!b_shared)			s_lexicon.clear();
 	}
 	
 	@Override
 	public void build(boolean clearInstances)
 	{
 		System.out.println("Building:");
-		initModelMaps();
+		if (s_base != null)	s_model.copyDictionary(s_base);
+		s_lexicon.initModel(s_model, l_cutoff, f_cutoff);
 		
+		if (s_store != null)
+			s_store.build(s_lexicon.getLabelIndices(s_model), s_model.isHashed() ? null : s_lexicon.getFeatureIndices(s_model), a_ys, clearInstances);
+		else
+			buildInstances(clearInstances);
+		
+		a_ys.trimToSize();
+		if (s_base != null)	s_model.copyWeights(s_base);
+		System.out.println();
+		System.out.println("- # of labels   : "+s_model.getLabelSize());
+		System.out.println("- # of features : "+s_model.getFeatureSize());
+		System.out.println("- # of instances: "+a_ys.size());
+	}
+	
+	/** Called by {@link StringTrainSpace#build(boolean)}. */
+	private void buildInstances(boolean clearInstances)
+	{
 		Pair<String,StringFeatureVector> instance;
 		int y, i, size = s_instances.size();
 		SparseFeatureVector x;
@@ -237,15 +299,9 @@ public class StringTrainSpace extends AbstractTrainSpace
 			if (i%100000 == 0)	System.out.print(".");
 		}
 		
-		a_ys.trimToSize();
 		a_xs.trimToSize();
 		if (b_weight)	a_vs.trimToSize();
 		
-		System.out.println();
-		System.out.println("- # of labels   : "+s_model.getLabelSize());
-		System.out.println("- # of features : "+s_model.getFeatureSize());
-		System.out.println("- # of instances: "+a_ys.size());
-		
 		if (clearInstances)	s_instances.clear();
 	}
 	
@@ -255,62 +311,22 @@ public class StringTrainSpace extends AbstractTrainSpace
 		build(true);
 	}
 	
-	/** Called by {@link StringTrainSpace#build()}. */
-	private void initModelMaps()
+	@Override
+	public List<int[]> getXs()
 	{
-		// initialize label map
-		String label;
-		
-		for (ObjectCursor<String> cur : m_labels.keys())
-		{
-			label = cur.value;
-
-			if (m_labels.get(label) > l_cutoff)
-				s_model.addLabel(label);
-		}
-		
-		s_model.initLabelArray();
-		
-		// initialize feature map
-		ObjectIntHashMap<String> map;
-		String value;
-		
-		for (String type : m_features.keySet())
-		{
-			map = m_features.get(type);
-			
-			for (ObjectCursor<String> cur : map.keys())
-			{
-				value = cur.value;
-				
-				if (map.get(value) > f_cutoff)
-					s_model.addFeature(type, value);
-			}
-		}
-		
-	/*	for (String label : UTHppc.getSortedKeys(m_labels))
-		{
-			if (m_labels.get(label) > l_cutoff)
-				s_model.addLabel(label);
-		}
-		
-		s_model.initLabelArray();
-		
-		// initialize feature map
-		List<String> types = new ArrayList<String>(m_features.keySet());
-		ObjectIntHashMap<String> map;
-		Collections.sort(types);
-		
-		for (String type : types)
-		{
-			map = m_features.get(type);
-			
-			for (String value : UTHppc.getSortedKeys(map))
-			{
-				if (map.get(value) > f_cutoff)
-					s_model.addFeature(type, value);
-			}
-		}*/
+		return (s_store != null) ? s_store.getXs() : a_xs;
+	}
+	
+	@Override
+	public List<double[]> getVs()
+	{
+		return (s_store != null) ? s_store.getVs() : a_vs;
+	}
+	
+	@Override
+	public InstanceView getInstance(int index, InstanceView view)
+	{
+		return (s_store != null) ? s_store.getInstance(index, view) : super.getInstance(index, view);
 	}
 	
 	/** Pair of label and feature vector. */
@@ -23,10 +23,16 @@
 */
 package com.googlecode.clearnlp.classification.train;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import com.carrotsearch.hppc.IntArrayList;
 import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
 import com.googlecode.clearnlp.classification.model.AbstractModel;
 
@@ -52,53 +58,157 @@ public class Trainer
 		m_model.initWeightVector();
 		
 		if (space.isBinaryLabel())
-			trainBinary();
+			trainBinary(numThreads);
 		else
 			trainMulti(numThreads);
 	}
 	
-	private void trainBinary()
+	private void trainBinary(int numThreads)
 	{
-		double[] weights = a_algorithm.getWeight(t_space, 0);
+		double[] weights = a_algorithm.getWeight(t_space, 0, numThreads);
 		m_model.copyWeightVector(weights);
 	}
 	
+	/**
+	 * Trains one-vs-all models.
+	 * Labels are scheduled in descending order of their positive counts and idle threads keep taking the next label,
+	 * so a few expensive labels do not leave the other threads waiting at the end.
+	 * Each label is trained into its own buffer; the buffers are transposed into the model once all labels are trained.
+	 * If training a label fails, the other threads stop taking labels and the failure is rethrown (see {@link AbstractAlgorithm#invokeAll(ExecutorService, java.util.Collection)}).
+	 */
 	private void trainMulti(int numThreads)
 	{
+		int[] counts = getPositiveCounts();
+		int[] labels = getLabelOrder(counts);
+		int i, size = labels.length;
+		
 		ExecutorService executor = Executors.newFixedThreadPool(numThreads);
+		List<TrainTask> tasks = new ArrayList<TrainTask>(numThreads);
+		AtomicInteger next = new AtomicInteger(0);
+		double[][] weights = new double[size][];
+		long[] times = new long[size];
+		long   time  = System.currentTimeMillis();
 		
-		int currLabel, size = t_space.getLabelSize();
+		for (i=0; i<numThreads; i++)
+			tasks.add(new TrainTask(labels, next, weights, times));
 		
-		for (currLabel=0; currLabel<size; currLabel++)
-			executor.execute(new TrainTask(currLabel));
+		try
+		{
+			AbstractAlgorithm.invokeAll(executor, tasks);
+		}
+		finally
+		{
+			executor.shutdown();
+		}
 		
-		executor.shutdown();
+		time = System.currentTimeMillis() - time;
+		m_model.copyWeightVectors(weights);
+		printTimes(labels, counts, times, time);
+	}
+	
+	/** @return the number of positive instances for each label. */
+	private int[] getPositiveCounts()
+	{
+		IntArrayList ys = t_space.getYs();
+		int[] counts = new int[t_space.getLabelSize()];
+		int i, size = ys.size();
 		
-		try
+		for (i=0; i<size; i++)
+			counts[ys.get(i)]++;
+		
+		return counts;
+	}
+	
+	/** @return the labels sorted in descending order of their counts (ties by label indices). */
+	private int[] getLabelOrder(final int[] counts)
+	{
+		int i, size = counts.length;
+		Integer[] order = new Integer[size];
+		int[] labels = new int[size];
+		
+		for (i=0; i<size; i++)
+			order[i] = i;
+		
+		Arrays.sort(order, new Comparator<Integer>()
+		{
+			public int compare(Integer l1, Integer l2)
+			{
+				int diff = counts[l2] - counts[l1];
+				return (diff != 0) ? diff : l1 - l2;
+			}
+		});
+		
+		for (i=0; i<size; i++)
+			labels[i] = order[i];
+		
+		return labels;
+	}
+	
+	private void printTimes(int[] labels, int[] counts, long[] times, long total)
+	{
+		long sum = 0;
+		
+		System.out.println("Timing:");
+		
+		for (int label : labels)
 		{
-			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+			System.out.printf("- label = %3d: positives = %7d, time = %8.3fs\n", label, counts[label], times[label] / 1000d);
+			sum += times[label];
 		}
-		catch (InterruptedException e) {e.printStackTrace();}
+		
+		System.out.printf("- total: wall = %.3fs, sum = %.3fs\n", total / 1000d, sum / 1000d);
 	}
 	
-	class TrainTask implements Runnable
+	class TrainTask implements Callable<Object>
 	{
-		/** The current label to train */
-		int curr_label;
+		/** The labels to train in scheduling order. */
+		int[] a_labels;
+		/** The position of the next label to train in {@link #a_labels}. */
+		AtomicInteger n_next;
+		/** The weight vector of each label. */
+		double[][] d_weights;
+		/** The training time of each label in milliseconds. */
+		long[] l_times;
 		
 		/**
-		 * Trains one-vs-all model.
-		 * @param currLabel the current label to train.
+		 * Trains one-vs-all models of labels taken from the shared queue until it is empty.
+		 * @param labels the labels to train in scheduling order.
+		 * @param next the position of the next label to train, shared by all tasks.
+		 * @param weights the weight vector of each label to be filled.
+		 * @param times the training time of each label to be filled.
 		 */
-		public TrainTask(int currLabel)
+		public TrainTask(int[] labels, AtomicInteger next, double[][] weights, long[] times)
 		{
-			curr_label = currLabel;
+			a_labels  = labels;
+			n_next    = next;
+			d_weights = weights;
+			l_times   = times;
 		}
 		
-		public void run()
+		/** If training a label fails, no more label is taken from the shared queue by any task. */
+		@Override
+		public Object call()
 		{
-			double[] weights = a_algorithm.getWeight(t_space, curr_label);
-			m_model.copyWeightVector(curr_label, weights);
+			int i, label;
+			long time;
+			
+			try
+			{
+				while ((i = n_next.getAndIncrement()) < a_labels.length)
+				{
+					label = a_labels[i];
+					time  = System.currentTimeMillis();
+					d_weights[label] = a_algorithm.getWeight(t_space, label);
+					l_times  [label] = System.currentTimeMillis() - time;
+				}
+			}
+			catch (RuntimeException e)
+			{
+				n_next.set(a_labels.length);
+				throw e;
+			}
+			
+			return null;
 		}
     }
 }
@@ -91,4 +91,13 @@ abstract public class AbstractFeatureVector
 	{
 		return d_weights.toArray();
 	}
-}
\ No newline at end of file
+	
+	/**
+	 * Returns the internal buffer of feature weights without copying; only the first {@code size()} weights are valid.
+	 * @return the internal buffer of feature weights.
+	 */
+	public double[] getWeightBuffer()
+	{
+		return d_weights.buffer;
+	}
+}
@@ -126,6 +126,15 @@ public class SparseFeatureVector extends AbstractFeatureVector
 		return i_indices.toArray();
 	}
 	
+	/**
+	 * Returns the internal buffer of feature indices without copying; only the first {@link SparseFeatureVector#size()} indices are valid.
+	 * @return the internal buffer of feature indices.
+	 */
+	public int[] getIndexBuffer()
+	{
+		return i_indices.buffer;
+	}
+	
 	/**
 	 * Returns the total number of features in this vector.
 	 * @return the total number of features in this vector.
@@ -135,6 +144,13 @@ public class SparseFeatureVector extends AbstractFeatureVector
 		return i_indices.size();
 	}
 	
+	/** Removes all features from this vector; the internal buffer is kept for reuse. */
+	public void clear()
+	{
+		i_indices.clear();
+		if (b_weight)	d_weights.clear();
+	}
+	
 	/** Trims the internal buffer to the current size. */
 	public void trimToSize()
 	{
@@ -149,6 +165,7 @@ public class SparseFeatureVector extends AbstractFeatureVector
 	{
 		StringBuilder build = new StringBuilder();
 		int i, size = i_indices.size();
+		if (size == 0)	return "";
 		
 		for (i=0; i<size; i++)
 		{
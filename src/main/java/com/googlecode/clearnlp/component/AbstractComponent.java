@@ -33,4 +33,14 @@ abstract public class AbstractComponent
 	
 	/** Process this joint-component. */
 	abstract public void process(DEPTree tree);
+	
+	/**
+	 * Returns a component that can process trees concurrently with this component (e.g., in another thread).
+	 * The returned component shares read-only resources such as models and lexica with this component.
+	 * By default, this component is returned, which is valid only if this component keeps no state while processing a tree.
+	 */
+	public AbstractComponent getSharedInstance()
+	{
+		return this;
+	}
 }
@@ -15,10 +15,17 @@
 */
 package com.googlecode.clearnlp.component;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.RandomAccessFile;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -29,9 +36,13 @@ import java.util.zip.ZipOutputStream;
 
 import org.apache.commons.compress.utils.IOUtils;
 
+import com.googlecode.clearnlp.classification.model.AbstractModel;
+import com.googlecode.clearnlp.classification.model.CompiledFeatureMap;
 import com.googlecode.clearnlp.classification.model.ONStringModel;
 import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.prediction.PredictionBuffer;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
 import com.googlecode.clearnlp.dependency.DEPTree;
 import com.googlecode.clearnlp.feature.xml.FtrTemplate;
@@ -53,6 +64,18 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 	protected JointFtrXml[]			f_xmls;
 	protected DEPTree				d_tree;
 	protected int 					t_size;		// size of d_tree
+	/** Reused across predictions to avoid creating objects per prediction. */
+	protected PredictionBuffer		p_buffer = new PredictionBuffer();
+	/** If {@code true}, features are extracted by compiled templates for decoding (see {@link AbstractStatisticalComponent#getSparseFeatureVector(JointFtrXml, int)}). */
+	protected boolean				b_compiled;
+	/** Read-only resources of this component, shared by components created from it (see {@link AbstractStatisticalComponent#getComponentModel()}). */
+	private ComponentModel			m_model;
+	/** Compiled feature maps of each model, cached from {@link AbstractStatisticalComponent#m_model}. */
+	private CompiledFeatureMap[][]	c_maps;
+	/** Reused to hold the fields of each feature. */
+	private String[]				c_fields = new String[4];
+	/** Reused to hold the field sets of each set-feature. */
+	private String[][]				c_sets = new String[4][];
 	
 //	====================================== CONSTRUCTORS ======================================
 	
@@ -91,6 +114,24 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 		i_flag = FLAG_DECODE;
 		
 		loadModels(zin);
+		b_compiled = true;
+	}
+	
+	/**
+	 * Constructs a component for decoding that shares the feature templates, models and lexica of the specific component model.
+	 * The constructed component keeps its own state per sentence so that components sharing the same model can decode in parallel.
+	 * @see AbstractStatisticalComponent#getComponentModel()
+	 */
+	public AbstractStatisticalComponent(ComponentModel model)
+	{
+		i_flag     = FLAG_DECODE;
+		m_model    = model;
+		f_xmls     = model.getFeatureXmls();
+		s_models   = model.getModels();
+		b_compiled = true;
+		
+		initLexia(model.getLexica());
+		if (model.getConfiguration() != null)	initConfiguration(model.getConfiguration());
 	}
 	
 	/** Constructs a component for bootstrapping. */
@@ -147,11 +188,58 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 		return new ByteArrayInputStream(build.toString().getBytes());
 	}
 	
-	/** Called by {@link AbstractStatisticalComponent#loadModels(ZipInputStream)}}. */
+	/**
+	 * Called by {@link AbstractStatisticalComponent#loadModels(ZipInputStream)}}.
+	 * Loads either a text or a binary model (see {@link AbstractModel#BINARY_MAGIC}).
+	 * A binary model is memory-mapped (see {@link AbstractStatisticalComponent#loadMappedModel(InputStream)}).
+	 */
 	protected void loadStatisticalModels(ZipInputStream zin, int index) throws Exception
 	{
-		BufferedReader fin = UTInput.createBufferedReader(zin);
-		s_models[index] = new StringModel(fin);
+		BufferedInputStream bin = new BufferedInputStream(zin);
+		
+		if (isBinaryModel(bin))
+			s_models[index] = loadMappedModel(bin);
+		else
+			s_models[index] = new StringModel(UTInput.createBufferedReader(bin));
+	}
+	
+	/**
+	 * Extracts the binary model in the specific stream to a temporary file and memory-maps the file.
+	 * The weights are read in place from the mapped file instead of being copied onto the heap.
+	 * @param in the stream containing a binary model.
+	 * @return the memory-mapped model.
+	 */
+	private StringModel loadMappedModel(InputStream in) throws IOException
+	{
+		File tmp = File.createTempFile("clearnlp", ".model");
+		RandomAccessFile file = null;
+		
+		try
+		{
+			OutputStream fout = new BufferedOutputStream(new FileOutputStream(tmp));
+			IOUtils.copy(in, fout);
+			fout.close();
+			
+			file = new RandomAccessFile(tmp, "r");
+			return new StringModel(file.getChannel());
+		}
+		finally
+		{
+			if (file != null)	file.close();
+			if (!tmp.delete())	tmp.deleteOnExit();
+		}
+	}
+	
+	/** @return {@code true} if the specific stream starts with a binary model; the position of the stream is not changed. */
+	private boolean isBinaryModel(BufferedInputStream bin) throws IOException
+	{
+		byte[] magic = new byte[4];
+		
+		bin.mark(magic.length);
+		int len = bin.read(magic);
+		bin.reset();
+		
+		return len == magic.length && AbstractModel.isBinary(magic);
 	}
 	
 	/** For online decoders. */
@@ -223,9 +311,79 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 		return s_models;
 	}
 	
+	/** @return all feature templates of this joint-components. */
+	public JointFtrXml[] getFeatureXmls()
+	{
+		return f_xmls;
+	}
+	
+	/**
+	 * Converts the weight vectors of all models to the specific type for decoding.
+	 * @see AbstractModel#setWeightType(byte)
+	 */
+	public void setWeightType(byte type)
+	{
+		for (StringModel model : s_models)
+		{
+			if (model != null)
+				model.setWeightType(type);
+		}
+	}
+	
+	/**
+	 * Sets whether or not features are extracted by compiled templates for decoding.
+	 * Both ways of extraction give identical predictions; this is mainly used for validation.
+	 */
+	public void setCompiled(boolean compiled)
+	{
+		b_compiled = compiled;
+	}
+	
 	/** @return all objects containing lexica. */
 	abstract public Object[] getLexica();
 	
+	/**
+	 * Returns the decoding parameters loaded with the models (e.g., beam sizes), which are shared through {@link ComponentModel}.
+	 * @return the decoding parameters loaded with the models; {@code null} if there is none.
+	 * @see AbstractStatisticalComponent#initConfiguration(Object[])
+	 */
+	protected Object[] getConfiguration()
+	{
+		return null;
+	}
+	
+	/** Initializes the decoding parameters returned by {@link AbstractStatisticalComponent#getConfiguration()}. */
+	protected void initConfiguration(Object[] configuration) {}
+	
+	/**
+	 * Returns a new component that collects lexica independently from this component so that different files can be collected in parallel.
+	 * The collected lexica are added to this component by {@link AbstractStatisticalComponent#mergeLexica(AbstractStatisticalComponent)}.
+	 * @return a new component for collecting lexica, or {@code null} if this component does not support parallel collection.
+	 */
+	public AbstractStatisticalComponent getLexicaCollector()
+	{
+		return null;
+	}
+	
+	/**
+	 * Adds the lexica collected by the specific component to the lexica of this component.
+	 * @param collector the component returned by {@link AbstractStatisticalComponent#getLexicaCollector()}.
+	 */
+	public void mergeLexica(AbstractStatisticalComponent collector) {}
+	
+	/**
+	 * Returns the read-only resources of this component, which can be shared by any number of components for decoding.
+	 * The models and lexica of this component must not be modified afterwards.
+	 * @see AbstractStatisticalComponent#AbstractStatisticalComponent(ComponentModel)
+	 */
+	synchronized public ComponentModel getComponentModel()
+	{
+		if (m_model == null)
+			m_model = new ComponentModel(f_xmls, s_models, getLexica(), getConfiguration());
+		
+		return m_model;
+	}
+	
 //	====================================== PROCESS ======================================
 
 	/** Counts the number of correctly classified labels. */
@@ -305,6 +463,149 @@ abstract public class AbstractStatisticalComponent extends AbstractComponent
 			vector.addFeature(type, prev);
 	}
 	
+//	====================================== COMPILED FEATURE EXTRACTION ======================================
+	
+	/**
+	 * Returns {@code true} if features are extracted by compiled templates (see {@link AbstractStatisticalComponent#getSparseFeatureVector(JointFtrXml, int)}).
+	 * Models with hashed features have no dictionary to compile, so features are extracted as strings if any model is hashed.
+	 */
+	protected boolean isCompiled()
+	{
+		if (!b_compiled || i_flag != FLAG_DECODE)
+			return false;
+		
+		for (StringModel model : s_models)
+		{
+			if (model.isHashed())
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Returns a sparse feature vector of the specific model using the specific feature template.
+	 * Unlike {@link AbstractStatisticalComponent#getFeatureVector(JointFtrXml)}, field values are looked up
+	 * in the model without joining them into strings, and features not found in the model are discarded.
+	 * The returned vector is reused by {@link AbstractStatisticalComponent#p_buffer}.
+	 * @param xml the feature template.
+	 * @param modelIndex the index of the model in {@link AbstractStatisticalComponent#s_models}.
+	 * @return a sparse feature vector of the specific model using the specific feature template.
+	 */
+	protected SparseFeatureVector getSparseFeatureVector(JointFtrXml xml, int modelIndex)
+	{
+		SparseFeatureVector vector = p_buffer.getSparseVector(false);
+		FtrTemplate[] templates = xml.getFtrTemplates();
+		CompiledFeatureMap[] maps = getCompiledFeatureMaps(templates, modelIndex);
+		int i, size = templates.length;
+		
+		for (i=0; i<size; i++)
+		{
+			if (maps[i] != null)
+				addSparseFeatures(vector, templates[i], maps[i]);
+		}
+		
+		return vector;
+	}
+	
+	/**
+	 * Returns the sparse feature vector of the specific model converted from the string feature vector.
+	 * The returned vector is reused by {@link AbstractStatisticalComponent#p_buffer}.
+	 */
+	protected SparseFeatureVector toSparseFeatureVector(StringFeatureVector vector, int modelIndex)
+	{
+		SparseFeatureVector sparse = p_buffer.getSparseVector(vector.hasWeight());
+		s_models[modelIndex].toSparseFeatureVector(vector, sparse);
+		
+		return sparse;
+	}
+	
+	/** Called by {@link AbstractStatisticalComponent#getSparseFeatureVector(JointFtrXml, int)}. */
+	private CompiledFeatureMap[] getCompiledFeatureMaps(FtrTemplate[] templates, int modelIndex)
+	{
+		if (c_maps == null)
+			c_maps = new CompiledFeatureMap[s_models.length][];
+		
+		if (c_maps[modelIndex] == null)
+			c_maps[modelIndex] = getComponentModel().getCompiledFeatureMaps(templates, modelIndex);
+		
+		return c_maps[modelIndex];
+	}
+	
+	/** Called by {@link AbstractStatisticalComponent#getSparseFeatureVector(JointFtrXml, int)}. */
+	private void addSparseFeatures(SparseFeatureVector vector, FtrTemplate template, CompiledFeatureMap map)
+	{
+		FtrToken[] tokens = template.tokens;
+		int i, size = tokens.length;
+		
+		if (c_fields.length < size)
+		{
+			c_fields = new String[size];
+			c_sets   = new String[size][];
+		}
+		
+		if (template.isSetFeature())
+		{
+			String[] tmp;
+			
+			for (i=0; i<size; i++)
+			{
+				tmp = getFields(tokens[i]);
+				if (tmp == null)	return;
+				c_sets[i] = tmp;
+			}
+			
+			addSparseFeatures(vector, map, size, 0, 0, true);
+		}
+		else
+		{
+			String field;
+			
+			for (i=0; i<size; i++)
+			{
+				field = getField(tokens[i]);
+				if (field == null)	return;
+				c_fields[i] = field;
+			}
+			
+			addSparseFeature(vector, map.get(c_fields, size, AbstractColumnReader.BLANK_COLUMN));
+		}
+	}
+	
+	/**
+	 * Called by {@link AbstractStatisticalComponent#addSparseFeatures(SparseFeatureVector, FtrTemplate, CompiledFeatureMap)}.
+	 * As in {@link AbstractStatisticalComponent#getFeatureVector(JointFtrXml)}, no delimiter is added after an empty prefix.
+	 * @param index the index of the current field set.
+	 * @param count the number of fields in {@link AbstractStatisticalComponent#c_fields}.
+	 * @param empty {@code true} if the fields joined so far is empty.
+	 */
+	private void addSparseFeatures(SparseFeatureVector vector, CompiledFeatureMap map, int size, int index, int count, boolean empty)
+	{
+		if (index < size)
+		{
+			for (String field : c_sets[index])
+			{
+				if (empty)
+				{
+					c_fields[0] = field;
+					addSparseFeatures(vector, map, size, index+1, 1, field.isEmpty());
+				}
+				else
+				{
+					c_fields[count] = field;
+					addSparseFeatures(vector, map, size, index+1, count+1, false);
+				}
+			}
+		}
+		else
+			addSparseFeature(vector, map.get(c_fields, count, AbstractColumnReader.BLANK_COLUMN));
+	}
+	
+	private void addSparseFeature(SparseFeatureVector vector, int index)
+	{
+		if (index > 0)	vector.addFeature(index);
+	}
+	
 	protected List<Pair<String,StringFeatureVector>> getTrimmedInstances(List<Pair<String,StringFeatureVector>> insts)
 	{
 		List<Pair<String,StringFeatureVector>> nInsts = new ArrayList<Pair<String,StringFeatureVector>>();
@@ -0,0 +1,113 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.component;
+
+import com.googlecode.clearnlp.classification.model.CompiledFeatureMap;
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.feature.xml.FtrTemplate;
+import com.googlecode.clearnlp.feature.xml.JointFtrXml;
+
+/**
+ * Read-only resources of a statistical component: feature templates, statistical models and lexica.
+ * A component model is loaded once and shared by any number of components for decoding
+ * (see {@link AbstractStatisticalComponent#AbstractStatisticalComponent(ComponentModel)}),
+ * each of which keeps its own state per sentence so that multiple threads can decode with one copy of the models.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class ComponentModel
+{
+	private final JointFtrXml[]	f_xmls;
+	private final StringModel[]	s_models;
+	private final Object[]		o_lexica;
+	/** Decoding parameters loaded with the models (e.g., beam sizes); {@code null} if there is none. */
+	private final Object[]		o_configuration;
+	/** Compiled feature maps of each model, indexed by feature templates; built lazily and guarded by this object. */
+	private final CompiledFeatureMap[][] c_maps;
+	
+	/**
+	 * The dictionaries of the specific models are compiled for decoding (see {@link StringModel#compileFeatures()}).
+	 * @param xmls the feature templates of all models.
+	 * @param models the statistical models.
+	 * @param lexica all objects containing lexica (see {@link AbstractStatisticalComponent#getLexica()}).
+	 */
+	public ComponentModel(JointFtrXml[] xmls, StringModel[] models, Object[] lexica)
+	{
+		this(xmls, models, lexica, null);
+	}
+	
+	/**
+	 * @param configuration the decoding parameters loaded with the models (see {@link AbstractStatisticalComponent#getConfiguration()}).
+	 * @see ComponentModel#ComponentModel(JointFtrXml[], StringModel[], Object[])
+	 */
+	public ComponentModel(JointFtrXml[] xmls, StringModel[] models, Object[] lexica, Object[] configuration)
+	{
+		f_xmls   = xmls;
+		s_models = models;
+		o_lexica = lexica;
+		o_configuration = configuration;
+		c_maps   = new CompiledFeatureMap[models.length][];
+		
+		for (StringModel model : models)
+		{
+			if (model != null)
+				model.compileFeatures();
+		}
+	}
+	
+	public JointFtrXml[] getFeatureXmls()
+	{
+		return f_xmls;
+	}
+	
+	public StringModel[] getModels()
+	{
+		return s_models;
+	}
+	
+	public Object[] getLexica()
+	{
+		return o_lexica;
+	}
+	
+	public Object[] getConfiguration()
+	{
+		return o_configuration;
+	}
+	
+	/**
+	 * Returns the compiled feature maps of the specific model, indexed by the specific feature templates.
+	 * The maps are built once and shared by all components using this model.
+	 * @param templates the feature templates used to extract features for the model.
+	 * @param modelIndex the index of the model.
+	 */
+	synchronized public CompiledFeatureMap[] getCompiledFeatureMaps(FtrTemplate[] templates, int modelIndex)
+	{
+		if (c_maps[modelIndex] == null)
+		{
+			CompiledFeatureMap[] maps = new CompiledFeatureMap[templates.length];
+			StringModel model = s_models[modelIndex];
+			int i;
+			
+			for (i=0; i<templates.length; i++)
+				maps[i] = model.getCompiledFeatureMap(templates[i].type);
+			
+			c_maps[modelIndex] = maps;
+		}
+		
+		return c_maps[modelIndex];
+	}
+}
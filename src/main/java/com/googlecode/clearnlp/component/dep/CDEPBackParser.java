@@ -24,26 +24,29 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import com.carrotsearch.hppc.IntHashSet;
-import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
 import com.googlecode.clearnlp.classification.model.StringModel;
-import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.ComponentModel;
 import com.googlecode.clearnlp.dependency.AbstractDEPParser;
+import com.googlecode.clearnlp.dependency.DEPBeamState;
 import com.googlecode.clearnlp.dependency.DEPHead;
+import com.googlecode.clearnlp.dependency.DEPHeadRescorer;
 import com.googlecode.clearnlp.dependency.DEPLabel;
 import com.googlecode.clearnlp.dependency.DEPLib;
 import com.googlecode.clearnlp.dependency.DEPLibEn;
 import com.googlecode.clearnlp.dependency.DEPNode;
 import com.googlecode.clearnlp.dependency.DEPState;
 import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.dependency.DEPUnionFind;
 import com.googlecode.clearnlp.feature.xml.FtrToken;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.nlp.NLPLib;
@@ -77,6 +80,10 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	protected final String LB_PASS		= "P";
 	
 	protected IntHashSet	s_reduce;
+	/** The partial subtrees of {@link CDEPBackParser#d_tree} for cycle checks. */
+	protected DEPUnionFind	u_subtrees;
+	/** Rescores candidate heads of headless nodes during post-processing (see {@link CDEPBackParser#postProcessAux(DEPNode, int, Triple)}). */
+	private DEPHeadRescorer	d_rescorer;
 	protected Prob1DMap			p_punc;		// only for collecting
 	protected Set<String>		s_punc;
 	protected StringIntPair[]	g_heads;
@@ -85,8 +92,14 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	protected Map<String,Pair<DEPLabel,DEPLabel>> m_labels;
 	protected List<List<DEPHead>> l_2nd;
 	protected int                 n_trans, n_beams;
+	/** The beam width for beam-search decoding ({@code 0} or {@code 1} for backtracking; see {@link CDEPBackParser#parseBeam()}). */
+	protected int                 n_beamSize;
 	protected double              d_score, d_margin;
 	protected boolean             b_first;
+	/** The minimum probability of a transition in beam search, which keeps log-probabilities finite. */
+	static private final double MIN_PROB = 1e-12;
+	/** The beam state materialized on {@link CDEPBackParser#d_tree} (see {@link CDEPBackParser#setBeamState(DEPBeamState)}). */
+	private DEPBeamState          d_state;
 	
 //	====================================== CONSTRUCTORS ======================================
 
@@ -127,12 +140,43 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		super(in);
 	}
 	
+	/** Constructs a dependency parser for decoding that shares the specific model with other components (see {@link ComponentModel}). */
+	public CDEPBackParser(ComponentModel model)
+	{
+		super(model);
+	}
+	
+	@Override
+	public AbstractComponent getSharedInstance()
+	{
+		CDEPBackParser parser = new CDEPBackParser(getComponentModel());
+		parser.d_margin   = d_margin;
+		parser.n_beams    = n_beams;
+		parser.n_beamSize = n_beamSize;
+		
+		return parser;
+	}
+	
 	@Override @SuppressWarnings("unchecked")
 	protected void initLexia(Object[] lexica)
 	{
 		s_punc = (Set<String>)lexica[LEXICA_PUNCTUATION];
 	}
 	
+	@Override
+	protected Object[] getConfiguration()
+	{
+		return new Object[]{n_beams, d_margin, n_beamSize};
+	}
+	
+	@Override
+	protected void initConfiguration(Object[] configuration)
+	{
+		n_beams    = (Integer)configuration[0];
+		d_margin   = (Double) configuration[1];
+		n_beamSize = (Integer)configuration[2];
+	}
+	
 //	====================================== LOAD/SAVE MODELS ======================================
 	
 	@Override
@@ -230,6 +274,18 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		return lexica;
 	}
 	
+	@Override
+	public AbstractStatisticalComponent getLexicaCollector()
+	{
+		return new CDEPBackParser(f_xmls);
+	}
+	
+	@Override
+	public void mergeLexica(AbstractStatisticalComponent collector)
+	{
+		p_punc.addAll(((CDEPBackParser)collector).p_punc);
+	}
+	
 	@Override
 	public void countAccuracy(int[] counts)
 	{
@@ -272,6 +328,22 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		n_beams = beams;
 	}
 	
+	/**
+	 * Sets the beam width for decoding.
+	 * If the width is greater than 1, trees are decoded by beam search instead of backtracking (see {@link CDEPBackParser#parseBeam()}).
+	 * @param size the beam width.
+	 */
+	public void setBeamSize(int size)
+	{
+		n_beamSize = size;
+	}
+	
+	/** @return {@code true} if trees are decoded by beam search (see {@link CDEPBackParser#setBeamSize(int)}). */
+	protected boolean isBeamSearch()
+	{
+		return n_beamSize > 1 && (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP);
+	}
+	
 //	================================ PROCESS ================================
 	
 	@Override
@@ -300,6 +372,7 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	 		tree.clearHeads();	
 	 	}
 	 	
+	 	u_subtrees = new DEPUnionFind(tree);
 	 	initAux();
 	}
 	
@@ -350,7 +423,11 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	/** Called by {@link CDEPBackParser#processAux()}. */
 	protected List<Pair<String,StringFeatureVector>> parse()
 	{
-		List<Pair<String,StringFeatureVector>> insts = (i_flag == FLAG_TRAIN) ? parseMain().o2 : parseBranches();
+		List<Pair<String,StringFeatureVector>> insts;
+		
+		if      (i_flag == FLAG_TRAIN)	insts = parseMain().o2;
+		else if (isBeamSearch())		insts = parseBeam();
+		else							insts = parseBranches();
 	
 		if (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP)
 			postProcess();
@@ -397,7 +474,7 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		{
 			if (i_lambda == DEPLib.ROOT_ID)
 				noShift();
-			else if (beta.isDescendentOf(lambda))
+			else if (u_subtrees.isDescendentOf(beta, lambda))
 				noPass();
 			else if (label.isList(LB_REDUCE))
 				leftReduce(lambda, beta, label.deprel);
@@ -406,7 +483,7 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		}
 		else if (label.isArc(LB_RIGHT))
 		{
-			if (lambda.isDescendentOf(beta))
+			if (u_subtrees.isDescendentOf(lambda, beta))
 				noPass();
 			else if (label.isList(LB_SHIFT))
 				rightShift(lambda, beta, label.deprel);
@@ -427,6 +504,8 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	/** Called by {@link CDEPBackParser#parse()}. */
 	protected DEPLabel getLabel(List<Pair<String,StringFeatureVector>> insts, List<DEPState> states)
 	{
+		if (isCompiled())	return getAutoLabel(getSparseFeatureVector(f_xmls[0], 0), insts, states);
+		
 		StringFeatureVector vector = getFeatureVector(f_xmls[0]);
 		DEPLabel label = null;
 		
@@ -437,11 +516,11 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		}
 		else if (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP)
 		{
-			label = getAutoLabel(vector, insts, states);
+			label = getAutoLabel(toSparseFeatureVector(vector, 0), insts, states);
 		}
 		else if (i_flag == FLAG_BOOTSTRAP)
 		{
-			label = getAutoLabel(vector, insts, states);
+			label = getAutoLabel(toSparseFeatureVector(vector, 0), insts, states);
 			insts.add(new Pair<String,StringFeatureVector>(getGoldLabel().toString(), vector));
 		}
 
@@ -521,7 +600,7 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	}
 	
 	/** Called by {@link CDEPBackParser#getLabel()}. */
-	private DEPLabel getAutoLabel(StringFeatureVector vector, List<Pair<String,StringFeatureVector>> insts, List<DEPState> states)
+	private DEPLabel getAutoLabel(SparseFeatureVector vector, List<Pair<String,StringFeatureVector>> insts, List<DEPState> states)
 	{
 		String key = vector.toString();
 		Pair<DEPLabel,DEPLabel> val = m_labels.get(key);
@@ -535,11 +614,12 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		}
 		else
 		{
-			List<StringPrediction> ps = s_models[0].predictAll(vector);
-			AbstractAlgorithm.normalize(ps);
+			StringModel model = s_models[0];
+			model.predictTwo(vector, p_buffer);
+			p_buffer.normalize();
 
-			fst = new DEPLabel(ps.get(0).label, ps.get(0).score);
-			snd = new DEPLabel(ps.get(1).label, ps.get(1).score);
+			fst = new DEPLabel(model.getLabel(p_buffer.getLabel(0)), p_buffer.getScore(0));
+			snd = new DEPLabel(model.getLabel(p_buffer.getLabel(1)), p_buffer.getScore(1));
 			
 			m_labels.put(key, new Pair<DEPLabel,DEPLabel>(fst, snd));			
 		}
@@ -615,12 +695,12 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	
 	private void leftArc(DEPNode lambda, DEPNode beta, String deprel)
 	{
-		lambda.setHead(beta, deprel);
+		u_subtrees.setHead(lambda, beta, deprel);
 	}
 	
 	private void rightArc(DEPNode lambda, DEPNode beta, String deprel)
 	{
-		beta.setHead(lambda, deprel);
+		u_subtrees.setHead(beta, lambda, deprel);
 	}
 	
 	private void shift()
@@ -675,9 +755,9 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 					{
 						head = d_tree.get(p.headId);
 						
-						if (!head.isDescendentOf(node))
+						if (!u_subtrees.isDescendentOf(head, node))
 						{
-							node.setHead(head, p.deprel);
+							u_subtrees.setHead(node, head, p.deprel);
 							break;
 						}
 					}
@@ -690,46 +770,44 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 					postProcessAux(node, -1, max);
 					postProcessAux(node, +1, max);
 					
-					node.setHead(max.o1, max.o2);
+					u_subtrees.setHead(node, max.o1, max.o2);
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Finds the best head of the specific node among the nodes in the specific direction that are not its descendants.
+	 * Feature vectors of all candidates are extracted first, then scored together by {@link DEPHeadRescorer}.
+	 */
 	protected void postProcessAux(DEPNode node, int dir, Triple<DEPNode,String,Double> max)
 	{
-		StringFeatureVector vector;
-		List<StringPrediction> ps;
 		int i, size = d_tree.size();
 		DEPNode head;
 		
+		if (d_rescorer == null)
+			d_rescorer = new DEPHeadRescorer(DEPHeadRescorer.NORM_SOFTMAX, LB_LEFT, LB_RIGHT);
+		
+		d_rescorer.init(s_models[0]);
+		
 		if (dir < 0)	i_beta   = node.id;
 		else			i_lambda = node.id;
 		
 		for (i=node.id+dir; 0<=i && i<size; i+=dir)
 		{
-			head = d_tree.get(i);			
-			if (head.isDescendentOf(node))	continue;
+			head = d_tree.get(i);
+			if (u_subtrees.isDescendentOf(head, node))	continue;
 			
 			if (dir < 0)	i_lambda = i;
 			else			i_beta   = i;
 			
-			vector = getFeatureVector(f_xmls[0]);
-			ps = s_models[0].predictAll(vector);
-			AbstractAlgorithm.normalize(ps);
-			
-			for (StringPrediction p : ps)
-			{
-				if (p.score <= max.o3)
-					break;
-				
-				if ((dir < 0 && p.label.startsWith(LB_RIGHT)) || (dir > 0 && p.label.startsWith(LB_LEFT)))
-				{
-					max.set(head, new DEPLabel(p.label).deprel, p.score);
-					break;
-				}
-			}
+			if (isCompiled())
+				d_rescorer.addCandidate(head, getSparseFeatureVector(f_xmls[0], 0));
+			else
+				d_rescorer.addCandidate(head, toSparseFeatureVector(getFeatureVector(f_xmls[0]), 0));
 		}
+		
+		d_rescorer.rescore(dir < 0, max);
 	}
 
 //	================================ FEATURE EXTRACTION ================================
@@ -739,69 +817,43 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 	{
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
-		Matcher m;
 		
-		if (token.isField(JointFtrXml.F_FORM))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_FORM:
 			return node.form;
-		}
-		else if (token.isField(JointFtrXml.F_LEMMA))
-		{
+		case JointFtrXml.FC_LEMMA:
 			return node.lemma;
-		}
-		else if (token.isField(JointFtrXml.F_POS))
-		{
+		case JointFtrXml.FC_POS:
 			return node.pos;
-		}
-		else if (token.isField(JointFtrXml.F_DEPREL))
-		{
+		case JointFtrXml.FC_DEPREL:
 			return node.getLabel();
-		}
-		else if (token.isField(JointFtrXml.F_DISTANCE))
-		{
+		case JointFtrXml.FC_DISTANCE:
 			int dist = i_beta - i_lambda;
 			return (dist > 6) ? "6" : Integer.toString(dist);
-		}
-		else if (token.isField(JointFtrXml.F_LEFT_VALENCY))
-		{
+		case JointFtrXml.FC_LEFT_VALENCY:
 			return Integer.toString(d_tree.getLeftValency(node.id));
-		}
-		else if (token.isField(JointFtrXml.F_RIGHT_VALENCY))
-		{
+		case JointFtrXml.FC_RIGHT_VALENCY:
 			return Integer.toString(d_tree.getRightValency(node.id));
-		}
-		else if (token.isField(JointFtrXml.F_LNPL))
-		{
+		case JointFtrXml.FC_LNPL:
 			return getLeftNearestPunctuation (0, i_lambda);
-		}
-		else if (token.isField(JointFtrXml.F_RNPL))
-		{
+		case JointFtrXml.FC_RNPL:
 			return getRightNearestPunctuation(i_lambda, i_beta);
-		}
-		else if (token.isField(JointFtrXml.F_LNPB))
-		{
+		case JointFtrXml.FC_LNPB:
 			return getLeftNearestPunctuation (i_lambda, i_beta);
-		}
-		else if (token.isField(JointFtrXml.F_RNPB))
-		{
+		case JointFtrXml.FC_RNPB:
 			return getRightNearestPunctuation(i_beta, d_tree.size());
-		}
-		else if ((m = JointFtrXml.P_BOOLEAN.matcher(token.field)).find())
-		{
-			int field = Integer.parseInt(m.group(1));
-			
-			switch (field)
+		case JointFtrXml.FC_BOOLEAN:
+			switch (token.fieldArg)
 			{
 			case  0: return (i_lambda == 1) ? token.field : null;
 			case  1: return (i_beta == t_size-1) ? token.field : null;
 			case  2: return (i_lambda+1 == i_beta) ? token.field : null;
 			case  3: return s_punc.contains(node.form) ? token.field : null;
-			default: throw new IllegalArgumentException("Unsupported feature: "+field);
+			default: throw new IllegalArgumentException("Unsupported feature: "+token.fieldArg);
 			}
-		}
-		else if ((m = JointFtrXml.P_FEAT.matcher(token.field)).find())
-		{
-			return node.getFeat(m.group(1));
+		case JointFtrXml.FC_FEAT:
+			return node.getFeat(token.fieldKey);
 		}
 		
 		return null;
@@ -863,16 +915,16 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		
 		if (node == null)	return null;
 		
-		if (token.relation != null)
+		switch (token.relationCode)
 		{
-			     if (token.isRelation(JointFtrXml.R_H))		node = node.getHead();
-			else if (token.isRelation(JointFtrXml.R_H2))	node = node.getGrandHead();
-			else if (token.isRelation(JointFtrXml.R_LMD))	node = d_tree.getLeftMostDependent  (node.id);
-			else if (token.isRelation(JointFtrXml.R_RMD))	node = d_tree.getRightMostDependent (node.id);
-			else if (token.isRelation(JointFtrXml.R_LMD2))	node = d_tree.getLeftMostDependent  (node.id, 1);
-			else if (token.isRelation(JointFtrXml.R_RMD2))	node = d_tree.getRightMostDependent (node.id, 1);
-			else if (token.isRelation(JointFtrXml.R_LNS))	node = d_tree.getLeftNearestSibling (node.id);
-			else if (token.isRelation(JointFtrXml.R_RNS))	node = d_tree.getRightNearestSibling(node.id);
+		case JointFtrXml.RC_H   : node = node.getHead();	break;
+		case JointFtrXml.RC_H2  : node = node.getGrandHead();	break;
+		case JointFtrXml.RC_LMD : node = d_tree.getLeftMostDependent  (node.id);	break;
+		case JointFtrXml.RC_RMD : node = d_tree.getRightMostDependent (node.id);	break;
+		case JointFtrXml.RC_LMD2: node = d_tree.getLeftMostDependent  (node.id, 1);	break;
+		case JointFtrXml.RC_RMD2: node = d_tree.getRightMostDependent (node.id, 1);	break;
+		case JointFtrXml.RC_LNS : node = d_tree.getLeftNearestSibling (node.id);	break;
+		case JointFtrXml.RC_RNS : node = d_tree.getRightNearestSibling(node.id);	break;
 		}
 		
 		return node;
@@ -924,6 +976,247 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		return null;
 	}
 	
+//	================================ BEAM SEARCH ================================
+	
+	/**
+	 * Decodes the current tree by beam search over the same transition system as {@link CDEPBackParser#parseMain()}.
+	 * Each state in the beam is expanded by its top {@link CDEPBackParser#n_beamSize} transitions, and the best states by their average log-probabilities are kept.
+	 * Features of each state are extracted once and shared by all of its expansions; expansions with the same effect are merged.
+	 * The best terminal state is set to the tree, and the 2nd-best heads predicted along its path are added to {@link CDEPBackParser#l_2nd}; returns {@code null}.
+	 */
+	protected List<Pair<String,StringFeatureVector>> parseBeam()
+	{
+		List<DEPBeamState> beam = new ArrayList<DEPBeamState>(), next = new ArrayList<DEPBeamState>(), tmp;
+		boolean expanded = true;
+		
+		d_state = new DEPBeamState(i_lambda, i_beta);
+		beam.add(d_state);
+		
+		while (expanded)
+		{
+			expanded = false;
+			next.clear();
+			
+			for (DEPBeamState state : beam)
+			{
+				if (state.isTerminal(t_size))
+					next.add(state);
+				else
+				{
+					expandBeamState(state, next);
+					expanded = true;
+				}
+			}
+			
+			Collections.sort(next);
+			if (next.size() > n_beamSize)	next.subList(n_beamSize, next.size()).clear();
+			
+			tmp  = beam;
+			beam = next;
+			next = tmp;
+		}
+		
+		setBeamState(beam.get(0));
+		add2ndHeads(beam.get(0));
+		u_subtrees.init();
+		d_state = null;
+		
+		return null;
+	}
+	
+	/** Adds the states following the specific state to the specific list. */
+	private void expandBeamState(DEPBeamState state, List<DEPBeamState> next)
+	{
+		DEPBeamState child;
+		
+		if (state.lambda < 0)
+		{
+			child = new DEPBeamState(state, 0, false);
+			child.shift();
+			next.add(child);
+			return;
+		}
+		
+		setBeamState(state);
+		
+		SparseFeatureVector vector = isCompiled() ? getSparseFeatureVector(f_xmls[0], 0) : toSparseFeatureVector(getFeatureVector(f_xmls[0]), 0);
+		StringModel model = s_models[0];
+		int i, j, size, first = next.size(), dependent2nd = -1;
+		DEPLabel fst, snd;
+		DEPHead head2nd = null;
+		
+		model.predictTop(vector, p_buffer, n_beamSize);
+		p_buffer.normalize();
+		size = p_buffer.size();
+		
+		if (size > 1)
+		{
+			fst = new DEPLabel(model.getLabel(p_buffer.getLabel(0)), p_buffer.getScore(0));
+			snd = new DEPLabel(model.getLabel(p_buffer.getLabel(1)), p_buffer.getScore(1));
+			
+			if (fst.score - snd.score < d_margin && fst.isArc(LB_NO))
+			{
+				if (snd.isArc(LB_LEFT))
+				{
+					dependent2nd = state.lambda;
+					head2nd = new DEPHead(state.beta, snd.deprel, snd.score);
+				}
+				else if (snd.isArc(LB_RIGHT))
+				{
+					dependent2nd = state.beta;
+					head2nd = new DEPHead(state.lambda, snd.deprel, snd.score);
+				}
+			}
+		}
+		
+		for (i=0; i<size; i++)
+		{
+			child = getNextBeamState(state, new DEPLabel(model.getLabel(p_buffer.getLabel(i))), Math.log(Math.max(p_buffer.getScore(i), MIN_PROB)));
+			if (head2nd != null)	child.set2ndHead(dependent2nd, head2nd);
+			
+			for (j=first; j<next.size(); j++)
+			{
+				if (next.get(j).isSameTransition(child))
+					break;
+			}
+			
+			if (j == next.size())
+				next.add(child);
+		}
+	}
+	
+	/**
+	 * Adds the 2nd-best heads predicted along the path to the specific state to {@link CDEPBackParser#l_2nd} in the order they were predicted,
+	 * as {@link CDEPBackParser#getAutoLabel(SparseFeatureVector, List, List)} does during backtracking.
+	 */
+	private void add2ndHeads(DEPBeamState state)
+	{
+		List<DEPBeamState> path = new ArrayList<DEPBeamState>();
+		int i;
+		
+		for (; state != null; state = state.parent)
+		{
+			if (state.head2nd != null)
+				path.add(state);
+		}
+		
+		for (i=path.size()-1; i>=0; i--)
+		{
+			state = path.get(i);
+			l_2nd.get(state.dependent2nd).add(state.head2nd);
+		}
+	}
+	
+	/**
+	 * Returns the state following the specific state by the specific transition, which is equivalent to {@link CDEPBackParser#parseAux(DEPLabel)}.
+	 * The specific state must be materialized on the tree; the tree is not changed.
+	 * Cycles are checked by walking up heads since {@link CDEPBackParser#u_subtrees} is not kept in sync while states are switched.
+	 */
+	private DEPBeamState getNextBeamState(DEPBeamState state, DEPLabel label, double logProb)
+	{
+		DEPBeamState next = new DEPBeamState(state, logProb, true);
+		DEPNode lambda = d_tree.get(state.lambda);
+		DEPNode beta   = d_tree.get(state.beta);
+		
+		if (label.isArc(LB_LEFT))
+		{
+			if (state.lambda == DEPLib.ROOT_ID)
+				next.shift();
+			else if (beta.isDescendentOf(lambda))
+				passBeamState(next);
+			else
+			{
+				next.setArc(lambda, beta, label.deprel);
+				
+				if (label.isList(LB_REDUCE))
+					reduceBeamState(next);
+				else
+					passBeamState(next);
+			}
+		}
+		else if (label.isArc(LB_RIGHT))
+		{
+			if (lambda.isDescendentOf(beta))
+				passBeamState(next);
+			else
+			{
+				next.setArc(beta, lambda, label.deprel);
+				
+				if (label.isList(LB_SHIFT))
+					next.shift();
+				else
+					passBeamState(next);
+			}
+		}
+		else
+		{
+			if (label.isList(LB_SHIFT))
+				next.shift();
+			else if (label.isList(LB_REDUCE) && lambda.hasHead())
+				reduceBeamState(next);
+			else
+				passBeamState(next);
+		}
+		
+		return next;
+	}
+	
+	/** Reduces lambda of the specific state; called by {@link CDEPBackParser#getNextBeamState(DEPBeamState, DEPLabel, double)}. */
+	private void reduceBeamState(DEPBeamState state)
+	{
+		state.reduced = state.lambda;
+		passBeamState(state);
+	}
+	
+	/** Passes lambda of the specific state; called by {@link CDEPBackParser#getNextBeamState(DEPBeamState, DEPLabel, double)}. */
+	private void passBeamState(DEPBeamState state)
+	{
+		int i;
+		
+		for (i=state.lambda-1; i>=0; i--)
+		{
+			if (!s_reduce.contains(i))
+				break;
+		}
+		
+		state.lambda = i;
+	}
+	
+	/** Materializes the specific state on {@link CDEPBackParser#d_tree} and {@link CDEPBackParser#s_reduce}. */
+	private void setBeamState(DEPBeamState state)
+	{
+		List<DEPBeamState> path = new ArrayList<DEPBeamState>();
+		DEPBeamState curr = d_state, target = state;
+		int i;
+		
+		while (curr.depth > state.depth)
+		{
+			curr.undo(d_tree, s_reduce);
+			curr = curr.parent;
+		}
+		
+		while (state.depth > curr.depth)
+		{
+			path.add(state);
+			state = state.parent;
+		}
+		
+		while (curr != state)
+		{
+			curr.undo(d_tree, s_reduce);
+			curr = curr.parent;
+			path.add(state);
+			state = state.parent;
+		}
+		
+		for (i=path.size()-1; i>=0; i--)
+			path.get(i).apply(d_tree, s_reduce);
+		
+		d_state  = target;
+		i_lambda = target.lambda;
+		i_beta   = target.beta;
+	}
+	
 //	================================ BACKTRACK ================================
 	
 	@SuppressWarnings("unchecked")
@@ -945,6 +1238,7 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		{
 			tm = (Triple<StringIntPair[],List<Pair<String,StringFeatureVector>>,List<DEPState>>)getMax(list).o;
 			d_tree.resetHeads(tm.o1);
+			u_subtrees.init();
 			return null;
 		}
 		else
@@ -981,6 +1275,7 @@ public class CDEPBackParser extends AbstractStatisticalComponent
 		d_score  = state.score;
 		s_reduce = state.reduce;
 		d_tree.resetHeads(state.heads);
+		u_subtrees.init();
 		parseAux(state.label);
 	}
 	
@@ -21,23 +21,26 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
 
 import com.carrotsearch.hppc.IntHashSet;
 import com.googlecode.clearnlp.classification.model.StringModel;
-import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.ComponentModel;
 import com.googlecode.clearnlp.dependency.AbstractDEPParser;
+import com.googlecode.clearnlp.dependency.DEPHeadRescorer;
 import com.googlecode.clearnlp.dependency.DEPLabel;
 import com.googlecode.clearnlp.dependency.DEPLib;
 import com.googlecode.clearnlp.dependency.DEPLibEn;
 import com.googlecode.clearnlp.dependency.DEPNode;
 import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.dependency.DEPUnionFind;
 import com.googlecode.clearnlp.feature.xml.FtrToken;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.nlp.NLPLib;
@@ -69,12 +72,25 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	protected final String LB_REDUCE	= "R";
 	protected final String LB_PASS		= "P";
 	
+	/** The arc codes of transitions (see {@link CDEPPassParser#i_arcs}). */
+	static private final int ARC_NO		= 0;
+	static private final int ARC_LEFT	= 1;
+	static private final int ARC_RIGHT	= 2;
+	
 	protected IntHashSet	s_reduce;
 	protected Prob1DMap			p_punc;		// only for collecting
 	protected Set<String>		s_punc;
 	protected StringIntPair[]	g_heads;
 	protected DEPNode[]			lm_deps, rm_deps;
 	protected DEPNode[]			ln_sibs, rn_sibs;
+	/** The partial subtrees of {@link CDEPPassParser#d_tree} for cycle checks. */
+	protected DEPUnionFind		u_subtrees;
+	/** The transition of each label in the model, where the label index is the array index (see {@link CDEPPassParser#initTransitions(StringModel, int)}); never returned without being copied. */
+	private DEPLabel[]			d_transitions;
+	/** The arc code of the transition of each label in the model, where the label index is the array index. */
+	private int[]				i_arcs;
+	/** Rescores candidate heads of headless nodes during post-processing (see {@link CDEPPassParser#postProcessAux(DEPNode, int, Triple)}). */
+	private DEPHeadRescorer		d_rescorer;
 	protected int				i_lambda, i_beta;
 	
 	protected List<List<StringIntPair>> l_2nd;
@@ -108,6 +124,18 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 		super(in);
 	}
 	
+	/** Constructs a dependency parser for decoding that shares the specific model with other components (see {@link ComponentModel}). */
+	public CDEPPassParser(ComponentModel model)
+	{
+		super(model);
+	}
+	
+	@Override
+	public AbstractComponent getSharedInstance()
+	{
+		return new CDEPPassParser(getComponentModel());
+	}
+	
 	/** Constructs a dependency parser for bootsrapping. */
 	public CDEPPassParser(JointFtrXml[] xmls, StringTrainSpace[] spaces, StringModel[] models, Object[] lexica)
 	{
@@ -163,15 +191,24 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	{
 		try
 		{
-			saveDefaultConfiguration(zout, ENTRY_CONFIGURATION);
-			saveFeatureTemplates    (zout, ENTRY_FEATURE);
-			saveLexica              (zout);
-			saveStatisticalModels   (zout, ENTRY_MODEL);
+			writeModels(zout);
 			zout.close();
 		}
 		catch (Exception e) {e.printStackTrace();}
 	}
 	
+	/**
+	 * Writes all entries of this parser to the specific stream without closing it.
+	 * Unlike {@link CDEPPassParser#saveModels(ZipOutputStream)}, any exception is thrown to the caller.
+	 */
+	public void writeModels(ZipOutputStream zout) throws Exception
+	{
+		saveDefaultConfiguration(zout, ENTRY_CONFIGURATION);
+		saveFeatureTemplates    (zout, ENTRY_FEATURE);
+		saveLexica              (zout);
+		saveStatisticalModels   (zout, ENTRY_MODEL);
+	}
+	
 	protected void saveLexica(ZipOutputStream zout) throws Exception
 	{
 		zout.putNextEntry(new ZipEntry(ENTRY_LEXICA));
@@ -193,6 +230,18 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 		return lexica;
 	}
 	
+	@Override
+	public AbstractStatisticalComponent getLexicaCollector()
+	{
+		return new CDEPPassParser(f_xmls);
+	}
+	
+	@Override
+	public void mergeLexica(AbstractStatisticalComponent collector)
+	{
+		p_punc.addAll(((CDEPPassParser)collector).p_punc);
+	}
+	
 	@Override
 	public void countAccuracy(int[] counts)
 	{
@@ -253,6 +302,8 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	 		g_heads = tree.getHeads();
 	 		tree.clearHeads();	
 	 	}
+	 	
+	 	u_subtrees = new DEPUnionFind(tree);
 	}
 	
 	/** Called by {@link CDEPPassParser#process(DEPTree)}. */
@@ -313,7 +364,7 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 			{
 				if (i_lambda == DEPLib.ROOT_ID)
 					noShift();
-				else if (beta.isDescendentOf(lambda))
+				else if (u_subtrees.isDescendentOf(beta, lambda))
 					noPass();
 				else if (label.isList(LB_REDUCE))
 					leftReduce(lambda, beta, label.deprel);
@@ -322,7 +373,7 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 			}
 			else if (label.isArc(LB_RIGHT))
 			{
-				if (lambda.isDescendentOf(beta))
+				if (u_subtrees.isDescendentOf(lambda, beta))
 					noPass();
 				else if (label.isList(LB_SHIFT))
 					rightShift(lambda, beta, label.deprel);
@@ -349,6 +400,8 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	/** Called by {@link CDEPPassParser#parse()}. */
 	protected DEPLabel getLabel(List<Pair<String,StringFeatureVector>> insts)
 	{
+		if (isCompiled())	return getAutoLabel(getSparseFeatureVector(f_xmls[0], 0));
+		
 		StringFeatureVector vector = getFeatureVector(f_xmls[0]);
 		DEPLabel label = null;
 		
@@ -359,11 +412,11 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 		}
 		else if (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP)
 		{
-			label = getAutoLabel(vector);
+			label = getAutoLabel(toSparseFeatureVector(vector, 0));
 		}
 		else if (i_flag == FLAG_BOOTSTRAP)
 		{
-			label = getAutoLabel(vector);
+			label = getAutoLabel(toSparseFeatureVector(vector, 0));
 			insts.add(new Pair<String,StringFeatureVector>(getGoldLabel().toString(), vector));
 		}
 
@@ -443,31 +496,71 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	}
 	
 	/** Called by {@link CDEPPassParser#getLabel()}. */
-	private DEPLabel getAutoLabel(StringFeatureVector vector)
+	private DEPLabel getAutoLabel(SparseFeatureVector vector)
 	{
-		Pair<StringPrediction,StringPrediction> ps = s_models[0].predictTwo(vector);
-		DEPLabel fst = new DEPLabel(ps.o1.label);
-		DEPLabel snd = new DEPLabel(ps.o2.label);
+		StringModel model = s_models[0];
+		model.predictTwo(vector, p_buffer);
+		
+		int fst = p_buffer.getLabel(0);
+		int snd = p_buffer.getLabel(1);
 		List<StringIntPair> p;
 		
-		if (ps.o1.score - ps.o2.score < 1)
+		initTransitions(model, Math.max(fst, snd));
+		
+		if (p_buffer.getScore(0) - p_buffer.getScore(1) < 1)
 		{
-			if (fst.isArc(LB_NO))
+			if (i_arcs[fst] == ARC_NO)
 			{
-				if (snd.isArc(LB_LEFT))
+				if (i_arcs[snd] == ARC_LEFT)
 				{
 					p = l_2nd.get(i_lambda);
-					p.add(new StringIntPair(snd.deprel, i_beta));
+					p.add(new StringIntPair(d_transitions[snd].deprel, i_beta));
 				}
-				else if (snd.isArc(LB_RIGHT))
+				else if (i_arcs[snd] == ARC_RIGHT)
 				{
 					p = l_2nd.get(i_beta);
-					p.add(new StringIntPair(snd.deprel, i_lambda));
+					p.add(new StringIntPair(d_transitions[snd].deprel, i_lambda));
 				}
 			}
 		}
 		
-		return fst;
+		return new DEPLabel(d_transitions[fst]);
+	}
+	
+	/**
+	 * Builds the transition table if it does not contain the specific label index.
+	 * The labels are split into transitions once per model instead of once per prediction, and the arc of each transition is coded as an integer.
+	 * The table is extended if the model has gained labels since it was built (e.g., {@link ONDEPPassParser}).
+	 */
+	private void initTransitions(StringModel model, int index)
+	{
+		if (d_transitions != null && index < d_transitions.length)
+			return;
+		
+		int i, size = model.getLabelSize();
+		DEPLabel[] transitions = new DEPLabel[size];
+		int[] arcs = new int[size];
+		DEPLabel label;
+		
+		for (i=0; i<size; i++)
+		{
+			if (d_transitions != null && i < d_transitions.length)
+			{
+				transitions[i] = d_transitions[i];
+				arcs[i] = i_arcs[i];
+			}
+			else
+			{
+				transitions[i] = label = new DEPLabel(model.getLabel(i));
+				
+				if      (label.isArc(LB_LEFT))	arcs[i] = ARC_LEFT;
+				else if (label.isArc(LB_RIGHT))	arcs[i] = ARC_RIGHT;
+				else							arcs[i] = ARC_NO;
+			}
+		}
+		
+		d_transitions = transitions;
+		i_arcs = arcs;
 	}
 	
 	protected int[] getCosts()
@@ -559,7 +652,7 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	
 	private void leftArc(DEPNode lambda, DEPNode beta, String deprel)
 	{
-		lambda.setHead(beta, deprel);
+		u_subtrees.setHead(lambda, beta, deprel);
 		
 		if (lm_deps[i_beta] != null)	rn_sibs[i_lambda] = lm_deps[i_beta];
 		lm_deps[i_beta] = lambda;
@@ -567,7 +660,7 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	
 	private void rightArc(DEPNode lambda, DEPNode beta, String deprel)
 	{
-		beta.setHead(lambda, deprel);
+		u_subtrees.setHead(beta, lambda, deprel);
 		
 		if (rm_deps[i_lambda] != null)	ln_sibs[i_beta] = rm_deps[i_lambda];
 		rm_deps[i_lambda] = beta;
@@ -625,9 +718,9 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 					{
 						head = d_tree.get(p.i);
 						
-						if (!head.isDescendentOf(node))
+						if (!u_subtrees.isDescendentOf(head, node))
 						{
-							node.setHead(head, p.s);
+							u_subtrees.setHead(node, head, p.s);
 							break;
 						}
 					}
@@ -640,46 +733,44 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 					postProcessAux(node, -1, max);
 					postProcessAux(node, +1, max);
 					
-					node.setHead(max.o1, max.o2);					
+					u_subtrees.setHead(node, max.o1, max.o2);					
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Finds the best head of the specific node among the nodes in the specific direction that are not its descendants.
+	 * Feature vectors of all candidates are extracted first, then scored together by {@link DEPHeadRescorer}.
+	 */
 	protected void postProcessAux(DEPNode node, int dir, Triple<DEPNode,String,Double> max)
 	{
-		StringFeatureVector vector;
-		List<StringPrediction> ps;
 		int i, size = d_tree.size();
 		DEPNode head;
 		
+		if (d_rescorer == null)
+			d_rescorer = new DEPHeadRescorer(DEPHeadRescorer.NORM_SIGMOID, LB_LEFT, LB_RIGHT);
+		
+		d_rescorer.init(s_models[0]);
+		
 		if (dir < 0)	i_beta   = node.id;
 		else			i_lambda = node.id;
 		
 		for (i=node.id+dir; 0<=i && i<size; i+=dir)
 		{
-			head = d_tree.get(i);			
-			if (head.isDescendentOf(node))	continue;
+			head = d_tree.get(i);
+			if (u_subtrees.isDescendentOf(head, node))	continue;
 			
 			if (dir < 0)	i_lambda = i;
 			else			i_beta   = i;
 			
-			vector = getFeatureVector(f_xmls[0]);
-			ps = s_models[0].predictAll(vector);
-			s_models[0].normalizeScores(ps);
-			
-			for (StringPrediction p : ps)
-			{
-				if (p.score <= max.o3)
-					break;
-				
-				if ((dir < 0 && p.label.startsWith(LB_RIGHT)) || (dir > 0 && p.label.startsWith(LB_LEFT)))
-				{
-					max.set(head, new DEPLabel(p.label).deprel, p.score);
-					break;
-				}
-			}
+			if (isCompiled())
+				d_rescorer.addCandidate(head, getSparseFeatureVector(f_xmls[0], 0));
+			else
+				d_rescorer.addCandidate(head, toSparseFeatureVector(getFeatureVector(f_xmls[0]), 0));
 		}
+		
+		d_rescorer.rescore(dir < 0, max);
 	}
 
 //	================================ FEATURE EXTRACTION ================================
@@ -689,69 +780,43 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 	{
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
-		Matcher m;
 		
-		if (token.isField(JointFtrXml.F_FORM))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_FORM:
 			return node.form;
-		}
-		else if (token.isField(JointFtrXml.F_LEMMA))
-		{
+		case JointFtrXml.FC_LEMMA:
 			return node.lemma;
-		}
-		else if (token.isField(JointFtrXml.F_POS))
-		{
+		case JointFtrXml.FC_POS:
 			return node.pos;
-		}
-		else if (token.isField(JointFtrXml.F_DEPREL))
-		{
+		case JointFtrXml.FC_DEPREL:
 			return node.getLabel();
-		}
-		else if (token.isField(JointFtrXml.F_DISTANCE))
-		{
+		case JointFtrXml.FC_DISTANCE:
 			int dist = i_beta - i_lambda;
 			return (dist > 6) ? "6" : Integer.toString(dist);
-		}
-		else if (token.isField(JointFtrXml.F_LEFT_VALENCY))
-		{
+		case JointFtrXml.FC_LEFT_VALENCY:
 			return Integer.toString(d_tree.getLeftValency(node.id));
-		}
-		else if (token.isField(JointFtrXml.F_RIGHT_VALENCY))
-		{
+		case JointFtrXml.FC_RIGHT_VALENCY:
 			return Integer.toString(d_tree.getRightValency(node.id));
-		}
-		else if (token.isField(JointFtrXml.F_LNPL))
-		{
+		case JointFtrXml.FC_LNPL:
 			return getLeftNearestPunctuation (0, i_lambda);
-		}
-		else if (token.isField(JointFtrXml.F_RNPL))
-		{
+		case JointFtrXml.FC_RNPL:
 			return getRightNearestPunctuation(i_lambda, i_beta);
-		}
-		else if (token.isField(JointFtrXml.F_LNPB))
-		{
+		case JointFtrXml.FC_LNPB:
 			return getLeftNearestPunctuation (i_lambda, i_beta);
-		}
-		else if (token.isField(JointFtrXml.F_RNPB))
-		{
+		case JointFtrXml.FC_RNPB:
 			return getRightNearestPunctuation(i_beta, d_tree.size());
-		}
-		else if ((m = JointFtrXml.P_BOOLEAN.matcher(token.field)).find())
-		{
-			int field = Integer.parseInt(m.group(1));
-			
-			switch (field)
+		case JointFtrXml.FC_BOOLEAN:
+			switch (token.fieldArg)
 			{
 			case  0: return (i_lambda == 1) ? token.field : null;
 			case  1: return (i_beta == t_size-1) ? token.field : null;
 			case  2: return (i_lambda+1 == i_beta) ? token.field : null;
 			case  3: return s_punc.contains(node.form) ? token.field : null;
-			default: throw new IllegalArgumentException("Unsupported feature: "+field);
+			default: throw new IllegalArgumentException("Unsupported feature: "+token.fieldArg);
 			}
-		}
-		else if ((m = JointFtrXml.P_FEAT.matcher(token.field)).find())
-		{
-			return node.getFeat(m.group(1));
+		case JointFtrXml.FC_FEAT:
+			return node.getFeat(token.fieldKey);
 		}
 		
 		return null;
@@ -813,13 +878,13 @@ public class CDEPPassParser extends AbstractStatisticalComponent
 		
 		if (node == null)	return null;
 		
-		if (token.relation != null)
+		switch (token.relationCode)
 		{
-			     if (token.isRelation(JointFtrXml.R_H))		node = node.getHead();
-			else if (token.isRelation(JointFtrXml.R_LMD))	node = lm_deps[node.id];
-			else if (token.isRelation(JointFtrXml.R_RMD))	node = rm_deps[node.id];
-			else if (token.isRelation(JointFtrXml.R_LNS))	node = ln_sibs[node.id];
-			else if (token.isRelation(JointFtrXml.R_RNS))	node = rn_sibs[node.id];
+		case JointFtrXml.RC_H  : node = node.getHead();	break;
+		case JointFtrXml.RC_LMD: node = lm_deps[node.id];	break;
+		case JointFtrXml.RC_RMD: node = rm_deps[node.id];	break;
+		case JointFtrXml.RC_LNS: node = ln_sibs[node.id];	break;
+		case JointFtrXml.RC_RNS: node = rn_sibs[node.id];	break;
 		}
 		
 		return node;
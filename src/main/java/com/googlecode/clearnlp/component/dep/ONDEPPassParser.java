@@ -107,6 +107,7 @@ public class ONDEPPassParser extends CDEPPassParser
 	 	}
 	 	
 	 	tree.clearHeads();
+	 	u_subtrees.init();
 	}
 	
 	public void trainHard(DEPTree tree, int maxIter)
@@ -134,6 +135,33 @@ public class ONDEPPassParser extends CDEPPassParser
 		i_flag = flag;
 	}
 	
+	/**
+	 * Parses the specific tree with the current model and updates the model right away if the parse is incorrect.
+	 * Unlike {@link ONDEPPassParser#train(List)}, trees can be streamed from a reader one at a time.
+	 * While the model knows less than two labels, the tree is parsed by the oracle and the model is always updated.
+	 * @param tree the gold-standard tree.
+	 * @return {@code true} if the model is updated.
+	 */
+	public boolean train(DEPTree tree)
+	{
+		List<Pair<String,StringFeatureVector>> insts;
+		boolean cold = o_model.getLabelSize() < 2;
+		int[] counts = new int[4];
+		byte flag = i_flag;
+		
+		i_flag = cold ? FLAG_TRAIN : FLAG_BOOTSTRAP;
+		init(tree);
+		
+		insts = parse();
+		countAccuracy(counts);
+		
+		boolean update = cold || counts[0] != counts[1];
+		if (update)	o_model.updateWeights(insts);
+		
+		i_flag = flag;
+		return update;
+	}
+	
 	public void train(List<DEPTree> trees)
 	{
 		List<Pair<String,StringFeatureVector>> insts = new ArrayList<Pair<String,StringFeatureVector>>(), tmp;
@@ -162,7 +190,7 @@ public class ONDEPPassParser extends CDEPPassParser
 	{
 		byte flag = i_flag;
 		
-		i_flag = FLAG_DECODE;
+		i_flag = FLAG_DEVELOP;
 		process(tree);
 		
 		i_flag = flag;
@@ -23,7 +23,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -31,8 +30,11 @@ import java.util.zip.ZipOutputStream;
 import com.googlecode.clearnlp.classification.model.StringModel;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.ComponentModel;
 import com.googlecode.clearnlp.dependency.DEPLib;
 import com.googlecode.clearnlp.dependency.DEPNode;
 import com.googlecode.clearnlp.dependency.DEPTree;
@@ -100,6 +102,18 @@ public class CPOSTagger extends AbstractStatisticalComponent
 		super(in);
 	}
 	
+	/** Constructs a part-of-speech tagger for decoding that shares the specific model with other components (see {@link ComponentModel}). */
+	public CPOSTagger(ComponentModel model)
+	{
+		super(model);
+	}
+	
+	@Override
+	public AbstractComponent getSharedInstance()
+	{
+		return new CPOSTagger(getComponentModel());
+	}
+	
 	@Override @SuppressWarnings("unchecked")
 	protected void initLexia(Object[] lexica)
 	{
@@ -185,6 +199,18 @@ public class CPOSTagger extends AbstractStatisticalComponent
 		return lexica;
 	}
 	
+	@Override
+	public AbstractStatisticalComponent getLexicaCollector()
+	{
+		return new CPOSTagger(f_xmls, s_lsfs);
+	}
+	
+	@Override
+	public void mergeLexica(AbstractStatisticalComponent collector)
+	{
+		p_ambi.addAll(((CPOSTagger)collector).p_ambi);
+	}
+	
 	/** {@link AbstractStatisticalComponent#FLAG_LEXICA}. */
 	public Set<String> getLowerSimplifiedForms()
 	{
@@ -315,6 +341,8 @@ public class CPOSTagger extends AbstractStatisticalComponent
 	/** Called by {@link CPOSTagger#tag()}. */
 	private String getLabel(List<Pair<String,StringFeatureVector>> insts)
 	{
+		if (isCompiled())	return getAutoLabel(getSparseFeatureVector(f_xmls[0], 0));
+		
 		StringFeatureVector vector = getFeatureVector(f_xmls[0]);
 		String label = null;
 		
@@ -325,11 +353,11 @@ public class CPOSTagger extends AbstractStatisticalComponent
 		}
 		else if (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP)
 		{
-			label = getAutoLabel(vector);
+			label = getAutoLabel(toSparseFeatureVector(vector, 0));
 		}
 		else if (i_flag == FLAG_BOOTSTRAP)
 		{
-			label = getAutoLabel(vector);
+			label = getAutoLabel(toSparseFeatureVector(vector, 0));
 			if (vector.size() > 0)	insts.add(new Pair<String,StringFeatureVector>(getGoldLabel(), vector));
 		}
 		
@@ -343,16 +371,15 @@ public class CPOSTagger extends AbstractStatisticalComponent
 	}
 	
 	/** Called by {@link CPOSTagger#getLabel()}. */
-	private String getAutoLabel(StringFeatureVector vector)
+	private String getAutoLabel(SparseFeatureVector vector)
 	{
-		Pair<StringPrediction,StringPrediction> ps = s_models[0].predictTwo(vector);
-		StringPrediction fst = ps.o1;
-		StringPrediction snd = ps.o2;
+		StringModel model = s_models[0];
+		model.predictTwo(vector, p_buffer);
 		
-		if (fst.score - snd.score < 1)
-			d_tree.get(i_input).addFeat(DEPLib.FEAT_POS2, snd.label);
+		if (p_buffer.getScore(0) - p_buffer.getScore(1) < 1)
+			d_tree.get(i_input).addFeat(DEPLib.FEAT_POS2, model.getLabel(p_buffer.getLabel(1)));
 		
-		return fst.label;
+		return model.getLabel(p_buffer.getLabel(0));
 		
 	//	StringPrediction p = s_models[0].predictBest(vector);
 	//	return p.label;
@@ -365,29 +392,19 @@ public class CPOSTagger extends AbstractStatisticalComponent
 	{
 		DEPNode node = getNodeInput(token);
 		if (node == null)	return null;
-		Matcher m;
 		
-		if (token.isField(JointFtrXml.F_SIMPLIFIED_FORM))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_SIMPLIFIED_FORM:
 			return (s_lsfs.contains(node.lowerSimplifiedForm)) ? node.simplifiedForm : null;
-		}
-		else if (token.isField(JointFtrXml.F_LOWER_SIMPLIFIED_FORM))
-		{
+		case JointFtrXml.FC_LOWER_SIMPLIFIED_FORM:
 			return (s_lsfs.contains(node.lowerSimplifiedForm)) ? node.lowerSimplifiedForm : null;
-		}
-		else if (token.isField(JointFtrXml.F_POS))
-		{
+		case JointFtrXml.FC_POS:
 			return node.pos;
-		}
-		else if (token.isField(JointFtrXml.F_AMBIGUITY_CLASS))
-		{
+		case JointFtrXml.FC_AMBIGUITY_CLASS:
 			return m_ambi.get(node.simplifiedForm);
-		}
-		else if ((m = JointFtrXml.P_BOOLEAN.matcher(token.field)).find())
-		{
-			int field = Integer.parseInt(m.group(1));
-			
-			switch (field)
+		case JointFtrXml.FC_BOOLEAN:
+			switch (token.fieldArg)
 			{
 			case  0: return UTString.isAllUpperCase(node.simplifiedForm) ? token.field : null;
 			case  1: return UTString.isAllLowerCase(node.simplifiedForm) ? token.field : null;
@@ -399,23 +416,21 @@ public class CPOSTagger extends AbstractStatisticalComponent
 			case  7: return node.simplifiedForm.contains("-") ? token.field : null;
 			case  8: return (i_input == t_size-1) ? token.field : null;
 			case  9: return (i_input == 1) ? token.field : null;
-			default: throw new IllegalArgumentException("Unsupported feature: "+field);
+			default: throw new IllegalArgumentException("Unsupported feature: "+token.fieldArg);
 			}
-		}
-		else if ((m = JointFtrXml.P_FEAT.matcher(token.field)).find())
-		{
-			return node.getFeat(m.group(1));
-		}
-		else if ((m = JointFtrXml.P_PREFIX.matcher(token.field)).find())
+		case JointFtrXml.FC_FEAT:
+			return node.getFeat(token.fieldKey);
+		case JointFtrXml.FC_PREFIX:
 		{
-			int n = Integer.parseInt(m.group(1)), len = node.lowerSimplifiedForm.length();
+			int n = token.fieldArg, len = node.lowerSimplifiedForm.length();
 			return (n <= len) ? node.lowerSimplifiedForm.substring(0, n) : null;
 		}
-		else if ((m = JointFtrXml.P_SUFFIX.matcher(token.field)).find())
+		case JointFtrXml.FC_SUFFIX:
 		{
-			int n = Integer.parseInt(m.group(1)), len = node.lowerSimplifiedForm.length();
+			int n = token.fieldArg, len = node.lowerSimplifiedForm.length();
 			return (n <= len) ? node.lowerSimplifiedForm.substring(len-n, len) : null;
 		}
+		}
 		
 		return null;
 	}
@@ -425,16 +440,15 @@ public class CPOSTagger extends AbstractStatisticalComponent
 	{
 		DEPNode node = getNodeInput(token);
 		if (node == null)	return null;
-		Matcher m;
+		String[] fields;
 		
-		if ((m = JointFtrXml.P_PREFIX.matcher(token.field)).find())
+		switch (token.fieldCode)
 		{
-			String[] fields = UTString.getPrefixes(node.lowerSimplifiedForm, Integer.parseInt(m.group(1)));
+		case JointFtrXml.FC_PREFIX:
+			fields = UTString.getPrefixes(node.lowerSimplifiedForm, token.fieldArg);
 			return fields.length == 0 ? null : fields;
-		}
-		else if ((m = JointFtrXml.P_SUFFIX.matcher(token.field)).find())
-		{
-			String[] fields = UTString.getSuffixes(node.lowerSimplifiedForm, Integer.parseInt(m.group(1)));
+		case JointFtrXml.FC_SUFFIX:
+			fields = UTString.getSuffixes(node.lowerSimplifiedForm, token.fieldArg);
 			return fields.length == 0 ? null : fields;
 		}
 		
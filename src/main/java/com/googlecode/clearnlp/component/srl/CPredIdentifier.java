@@ -18,7 +18,6 @@ package com.googlecode.clearnlp.component.srl;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -28,14 +27,15 @@ import com.googlecode.clearnlp.classification.model.StringModel;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.ComponentModel;
 import com.googlecode.clearnlp.dependency.DEPArc;
 import com.googlecode.clearnlp.dependency.DEPLib;
 import com.googlecode.clearnlp.dependency.DEPNode;
 import com.googlecode.clearnlp.dependency.DEPTree;
 import com.googlecode.clearnlp.feature.xml.FtrToken;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
-import com.googlecode.clearnlp.feature.xml.SRLFtrXml;
 import com.googlecode.clearnlp.nlp.NLPLib;
 
 /**
@@ -78,6 +78,18 @@ public class CPredIdentifier extends AbstractStatisticalComponent
 		super(in);
 	}
 	
+	/** Constructs a predicate identifier for decoding that shares the specific model with other components (see {@link ComponentModel}). */
+	public CPredIdentifier(ComponentModel model)
+	{
+		super(model);
+	}
+	
+	@Override
+	public AbstractComponent getSharedInstance()
+	{
+		return new CPredIdentifier(getComponentModel());
+	}
+	
 	protected void initLexia(Object[] lexica) {}
 	
 //	====================================== LOAD/SAVE MODELS ======================================
@@ -235,27 +247,19 @@ public class CPredIdentifier extends AbstractStatisticalComponent
 	{
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
-		Matcher m;
 		
-		if (token.isField(SRLFtrXml.F_FORM))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_FORM:
 			return node.form;
-		}
-		else if (token.isField(SRLFtrXml.F_LEMMA))
-		{
+		case JointFtrXml.FC_LEMMA:
 			return node.lemma;
-		}
-		else if (token.isField(SRLFtrXml.F_POS))
-		{
+		case JointFtrXml.FC_POS:
 			return node.pos;
-		}
-		else if (token.isField(SRLFtrXml.F_DEPREL))
-		{
+		case JointFtrXml.FC_DEPREL:
 			return node.getLabel();
-		}
-		else if ((m = SRLFtrXml.P_FEAT.matcher(token.field)).find())
-		{
-			return node.getFeat(m.group(1));
+		case JointFtrXml.FC_FEAT:
+			return node.getFeat(token.fieldKey);
 		}
 		
 		return null;
@@ -267,8 +271,9 @@ public class CPredIdentifier extends AbstractStatisticalComponent
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
 		
-		if (token.isField(SRLFtrXml.F_DEPREL_SET))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_DEPREL_SET:
 			return getDeprelSet(node.getDependents());
 		}
 		
@@ -293,11 +298,11 @@ public class CPredIdentifier extends AbstractStatisticalComponent
 		DEPNode node = getNodeAux(token);
 		if (node == null)	return null;
 		
-		if (token.relation != null)
+		switch (token.relationCode)
 		{
-			     if (token.isRelation(SRLFtrXml.R_H))	node = node.getHead();
-			else if (token.isRelation(SRLFtrXml.R_LMD))	node = node.getLeftMostDependent();
-			else if (token.isRelation(SRLFtrXml.R_RMD))	node = node.getRightMostDependent();
+		case JointFtrXml.RC_H  : node = node.getHead();	break;
+		case JointFtrXml.RC_LMD: node = node.getLeftMostDependent();	break;
+		case JointFtrXml.RC_RMD: node = node.getRightMostDependent();	break;
 		}
 		
 		return node;
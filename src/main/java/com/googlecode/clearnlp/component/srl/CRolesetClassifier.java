@@ -24,7 +24,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -34,7 +33,9 @@ import com.googlecode.clearnlp.classification.model.StringModel;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.ComponentModel;
 import com.googlecode.clearnlp.dependency.DEPArc;
 import com.googlecode.clearnlp.dependency.DEPLib;
 import com.googlecode.clearnlp.dependency.DEPNode;
@@ -93,6 +94,18 @@ public class CRolesetClassifier extends AbstractStatisticalComponent
 		super(in);
 	}
 	
+	/** Constructs a roleset classifier for decoding that shares the specific model with other components (see {@link ComponentModel}). */
+	public CRolesetClassifier(ComponentModel model)
+	{
+		super(model);
+	}
+	
+	@Override
+	public AbstractComponent getSharedInstance()
+	{
+		return new CRolesetClassifier(getComponentModel());
+	}
+	
 	@Override @SuppressWarnings("unchecked")
 	protected void initLexia(Object[] lexica)
 	{
@@ -171,14 +184,44 @@ public class CRolesetClassifier extends AbstractStatisticalComponent
 	public Object[] getLexica()
 	{
 		Object[] lexica = new Object[2];
-		Map<String,String> mRolesets = getRolesetMap();
 		
-		lexica[LEXICA_ROLESETS] = mRolesets;
-		lexica[LEXICA_LEMMAS]   = getLemmas(m_collect.keySet(), mRolesets);
+		if (i_flag == FLAG_LEXICA)
+		{
+			Map<String,String> mRolesets = getRolesetMap();
+			
+			lexica[LEXICA_ROLESETS] = mRolesets;
+			lexica[LEXICA_LEMMAS]   = getLemmas(m_collect.keySet(), mRolesets);
+		}
+		else
+		{
+			lexica[LEXICA_ROLESETS] = m_rolesets;
+			lexica[LEXICA_LEMMAS]   = m_lemmas;
+		}
 		
 		return lexica;
 	}
 	
+	@Override
+	public AbstractStatisticalComponent getLexicaCollector()
+	{
+		return new CRolesetClassifier(f_xmls);
+	}
+	
+	@Override
+	public void mergeLexica(AbstractStatisticalComponent collector)
+	{
+		Map<String,Set<String>> map = ((CRolesetClassifier)collector).m_collect;
+		Set<String> set;
+		
+		for (String lemma : map.keySet())
+		{
+			if ((set = m_collect.get(lemma)) == null)
+				m_collect.put(lemma, map.get(lemma));
+			else
+				set.addAll(map.get(lemma));
+		}
+	}
+	
 	private Map<String,String> getRolesetMap()
 	{
 		Map<String,String> map = new HashMap<String,String>();
@@ -351,27 +394,19 @@ public class CRolesetClassifier extends AbstractStatisticalComponent
 	{
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
-		Matcher m;
 		
-		if (token.isField(JointFtrXml.F_FORM))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_FORM:
 			return node.form;
-		}
-		else if (token.isField(JointFtrXml.F_LEMMA))
-		{
+		case JointFtrXml.FC_LEMMA:
 			return node.lemma;
-		}
-		else if (token.isField(JointFtrXml.F_POS))
-		{
+		case JointFtrXml.FC_POS:
 			return node.pos;
-		}
-		else if (token.isField(JointFtrXml.F_DEPREL))
-		{
+		case JointFtrXml.FC_DEPREL:
 			return node.getLabel();
-		}
-		else if ((m = JointFtrXml.P_FEAT.matcher(token.field)).find())
-		{
-			return node.getFeat(m.group(1));
+		case JointFtrXml.FC_FEAT:
+			return node.getFeat(token.fieldKey);
 		}
 		
 		return null;
@@ -383,8 +418,9 @@ public class CRolesetClassifier extends AbstractStatisticalComponent
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
 		
-		if (token.isField(JointFtrXml.F_DEPREL_SET))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_DEPREL_SET:
 			return getDeprelSet(node.getDependents());
 		}
 		
@@ -412,13 +448,13 @@ public class CRolesetClassifier extends AbstractStatisticalComponent
 		DEPNode node = getNodeAux(token);
 		if (node == null)	return null;
 		
-		if (token.relation != null)
+		switch (token.relationCode)
 		{
-			     if (token.isRelation(JointFtrXml.R_H))	node = node.getHead();
-			else if (token.isRelation(JointFtrXml.R_LMD))	node = node.getLeftMostDependent();
-			else if (token.isRelation(JointFtrXml.R_RMD))	node = node.getRightMostDependent();
-			else if (token.isRelation(JointFtrXml.R_LND))	node = node.getLeftNearestDependent();
-			else if (token.isRelation(JointFtrXml.R_RND))	node = node.getRightNearestDependent();
+		case JointFtrXml.RC_H  : node = node.getHead();	break;
+		case JointFtrXml.RC_LMD: node = node.getLeftMostDependent();	break;
+		case JointFtrXml.RC_RMD: node = node.getRightMostDependent();	break;
+		case JointFtrXml.RC_LND: node = node.getLeftNearestDependent();	break;
+		case JointFtrXml.RC_RND: node = node.getRightNearestDependent();	break;
 		}
 		
 		return node;
@@ -30,7 +30,6 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -38,8 +37,11 @@ import java.util.zip.ZipOutputStream;
 import com.carrotsearch.hppc.IntHashSet;
 import com.googlecode.clearnlp.classification.model.StringModel;
 import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+import com.googlecode.clearnlp.component.AbstractComponent;
 import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.ComponentModel;
 import com.googlecode.clearnlp.dependency.DEPArc;
 import com.googlecode.clearnlp.dependency.DEPLib;
 import com.googlecode.clearnlp.dependency.DEPNode;
@@ -114,6 +116,18 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		super(in);
 	}
 	
+	/** Constructs a semantic role labeler for decoding that shares the specific model with other components (see {@link ComponentModel}). */
+	public CSRLabeler(ComponentModel model)
+	{
+		super(model);
+	}
+	
+	@Override
+	public AbstractComponent getSharedInstance()
+	{
+		return new CSRLabeler(getComponentModel());
+	}
+	
 	/** Constructs a semantic role labeler for bootstrapping. */
 	public CSRLabeler(JointFtrXml[] xmls, StringTrainSpace[] spaces, StringModel[] models, Object[] lexica)
 	{
@@ -205,6 +219,21 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		return lexica;
 	}
 	
+	@Override
+	public AbstractStatisticalComponent getLexicaCollector()
+	{
+		return new CSRLabeler(f_xmls);
+	}
+	
+	@Override
+	public void mergeLexica(AbstractStatisticalComponent collector)
+	{
+		CSRLabeler labeler = (CSRLabeler)collector;
+		
+		m_down.addAll(labeler.m_down);
+		m_up  .addAll(labeler.m_up);
+	}
+	
 	@Override
 	public void countAccuracy(int[] counts)
 	{
@@ -357,7 +386,7 @@ public class CSRLabeler extends AbstractStatisticalComponent
 	
 	private String getDUPath(DEPNode top, DEPNode bottom)
 	{
-		return getPathAux(top, bottom, JointFtrXml.F_DEPREL, SRLLib.DELIM_PATH_DOWN, true);
+		return getPathAux(top, bottom, JointFtrXml.FC_DEPREL, SRLLib.DELIM_PATH_DOWN, true);
 	}
 	
 	private List<String> getDUPathList(DEPNode top, DEPNode bottom)
@@ -462,6 +491,8 @@ public class CSRLabeler extends AbstractStatisticalComponent
 	
 	private String getLabel(int idx)
 	{
+		if (isCompiled())	return getAutoLabel(idx, getSparseFeatureVector(f_xmls[0], idx));
+		
 		StringFeatureVector vector = getFeatureVector(f_xmls[0]);
 		String label = null;
 		
@@ -472,11 +503,11 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		}
 		else if (i_flag == FLAG_DECODE || i_flag == FLAG_DEVELOP)
 		{
-			label = getAutoLabel(idx, vector);
+			label = getAutoLabel(idx, toSparseFeatureVector(vector, idx));
 		}
 		else if (i_flag == FLAG_BOOTSTRAP)
 		{
-			label = getAutoLabel(idx, vector);
+			label = getAutoLabel(idx, toSparseFeatureVector(vector, idx));
 			s_spaces[idx].addInstance(getGoldLabel(), vector);
 		}
 
@@ -496,9 +527,10 @@ public class CSRLabeler extends AbstractStatisticalComponent
 	}
 
 	/** Called by {@link CSRLabeler#getLabel(byte)}. */
-	private String getAutoLabel(int idx, StringFeatureVector vector)
+	private String getAutoLabel(int idx, SparseFeatureVector vector)
 	{
-		return s_models[idx].predictBest(vector).label;
+		StringModel model = s_models[idx];
+		return model.getLabel(model.predictBest(vector, p_buffer));
 	}
 
 	private void addArgument(String label)
@@ -524,57 +556,32 @@ public class CSRLabeler extends AbstractStatisticalComponent
 	{
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
-		Matcher m;
 		
-		if (token.isField(JointFtrXml.F_FORM))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_FORM:
 			return node.form;
-		}
-		else if (token.isField(JointFtrXml.F_LEMMA))
-		{
+		case JointFtrXml.FC_LEMMA:
 			return node.lemma;
-		}
-		else if (token.isField(JointFtrXml.F_POS))
-		{
+		case JointFtrXml.FC_POS:
 			return node.pos;
-		}
-		else if (token.isField(JointFtrXml.F_DEPREL))
-		{
+		case JointFtrXml.FC_DEPREL:
 			return node.getLabel();
-		}
-		else if (token.isField(JointFtrXml.F_DISTANCE))
-		{
+		case JointFtrXml.FC_DISTANCE:
 			return getDistance(node);
-		}
-		else if ((m = JointFtrXml.P_ARGN.matcher(token.field)).find())
-		{
-			int idx = l_argns.size() - Integer.parseInt(m.group(1)) - 1;
+		case JointFtrXml.FC_ARGN:
+			int idx = l_argns.size() - token.fieldArg - 1;
 			return (idx >= 0) ? l_argns.get(idx) : null;
-		}
-		else if ((m = JointFtrXml.P_PATH.matcher(token.field)).find())
-		{
-			String type = m.group(1);
-			int    dir  = Integer.parseInt(m.group(2));
-			
-			return getPath(type, dir);
-		}
-		else if ((m = JointFtrXml.P_SUBCAT.matcher(token.field)).find())
-		{
-			String type = m.group(1);
-			int    dir  = Integer.parseInt(m.group(2));
-			
-			return getSubcat(node, type, dir);
-		}
-		else if ((m = JointFtrXml.P_FEAT.matcher(token.field)).find())
-		{
-			return node.getFeat(m.group(1));
-		}
-		else if ((m = JointFtrXml.P_BOOLEAN.matcher(token.field)).find())
-		{
+		case JointFtrXml.FC_PATH:
+			return getPath(token.fieldType, token.fieldArg);
+		case JointFtrXml.FC_SUBCAT:
+			return getSubcat(node, token.fieldType, token.fieldArg);
+		case JointFtrXml.FC_FEAT:
+			return node.getFeat(token.fieldKey);
+		case JointFtrXml.FC_BOOLEAN:
 			DEPNode pred = d_tree.get(i_pred);
-			int    field = Integer.parseInt(m.group(1));
 			
-			switch (field)
+			switch (token.fieldArg)
 			{
 			case 0: return (node.isDependentOf(pred))  ? token.field : null;
 			case 1: return (pred.isDependentOf(node))  ? token.field : null;
@@ -593,12 +600,11 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		DEPNode node = getNode(token);
 		if (node == null)	return null;
 		
-		if (token.isField(JointFtrXml.F_DEPREL_SET))
+		switch (token.fieldCode)
 		{
+		case JointFtrXml.FC_DEPREL_SET:
 			return getDeprelSet(node.getDependents());
-		}
-		else if (token.isField(JointFtrXml.F_GRAND_DEPREL_SET))
-		{
+		case JointFtrXml.FC_GRAND_DEPREL_SET:
 			return getDeprelSet(node.getGrandDependents());
 		}
 		
@@ -628,7 +634,7 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		else					return "3";
 	}
 	
-	private String getPath(String type, int dir)
+	private String getPath(int type, int dir)
 	{
 		DEPNode pred = d_tree.get(i_pred);
 		DEPNode arg  = d_tree.get(i_arg);
@@ -661,7 +667,7 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		return null;
 	}
 	
-	private String getPathAux(DEPNode top, DEPNode bottom, String type, String delim, boolean includeTop)
+	private String getPathAux(DEPNode top, DEPNode bottom, int type, String delim, boolean includeTop)
 	{
 		StringBuilder build = new StringBuilder();
 		DEPNode head = bottom;
@@ -669,17 +675,17 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		
 		do
 		{
-			if (type.equals(JointFtrXml.F_POS))
+			if (type == JointFtrXml.FC_POS)
 			{
 				build.append(delim);
 				build.append(head.pos);
 			}
-			else if (type.equals(JointFtrXml.F_DEPREL))
+			else if (type == JointFtrXml.FC_DEPREL)
 			{
 				build.append(delim);
 				build.append(head.getLabel());
 			}
-			else if (type.equals(JointFtrXml.F_DISTANCE))
+			else if (type == JointFtrXml.FC_DISTANCE)
 			{
 				dist++;
 			}
@@ -688,7 +694,7 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		}
 		while (head != top);
 		
-		if (type.equals(JointFtrXml.F_POS))
+		if (type == JointFtrXml.FC_POS)
 		{
 			if (includeTop)
 			{
@@ -696,7 +702,7 @@ public class CSRLabeler extends AbstractStatisticalComponent
 				build.append(top.pos);	
 			}
 		}
-		else if (type.equals(JointFtrXml.F_DISTANCE))
+		else if (type == JointFtrXml.FC_DISTANCE)
 		{
 			build.append(delim);
 			build.append(dist);
@@ -705,7 +711,7 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		return build.length() == 0 ? null : build.toString();
 	}
 	
-	private String getSubcat(DEPNode node, String type, int dir)
+	private String getSubcat(DEPNode node, int type, int dir)
 	{
 		List<DEPArc>  deps  = node.getDependents();
 		StringBuilder build = new StringBuilder();
@@ -742,13 +748,13 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		return build.length() == 0 ? null : build.substring(SRLLib.DELIM_SUBCAT.length());
 	}
 	
-	private void getSubcatAux(StringBuilder build, DEPNode node, String type)
+	private void getSubcatAux(StringBuilder build, DEPNode node, int type)
 	{
 		build.append(SRLLib.DELIM_SUBCAT);
 		
-		if (type.equals(JointFtrXml.F_POS))
+		if (type == JointFtrXml.FC_POS)
 			build.append(node.pos);
-		else if (type.equals(JointFtrXml.F_DEPREL))
+		else if (type == JointFtrXml.FC_DEPREL)
 			build.append(node.getLabel());
 	}
 	
@@ -762,13 +768,13 @@ public class CSRLabeler extends AbstractStatisticalComponent
 		case JointFtrXml.S_ARG : node = d_tree.get(i_arg);	break;
 		}
 		
-		if (token.relation != null)
+		switch (token.relationCode)
 		{
-			     if (token.isRelation(JointFtrXml.R_H))	node = node.getHead();
-			else if (token.isRelation(JointFtrXml.R_LMD))	node = lm_deps[node.id];
-			else if (token.isRelation(JointFtrXml.R_RMD))	node = rm_deps[node.id];			
-			else if (token.isRelation(JointFtrXml.R_LNS))	node = ln_sibs[node.id];
-			else if (token.isRelation(JointFtrXml.R_RNS))	node = rn_sibs[node.id];
+		case JointFtrXml.RC_H  : node = node.getHead();	break;
+		case JointFtrXml.RC_LMD: node = lm_deps[node.id];	break;
+		case JointFtrXml.RC_RMD: node = rm_deps[node.id];	break;
+		case JointFtrXml.RC_LNS: node = ln_sibs[node.id];	break;
+		case JointFtrXml.RC_RNS: node = rn_sibs[node.id];	break;
 		}
 		
 		return node;
@@ -0,0 +1,174 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.dependency;
+
+import com.carrotsearch.hppc.IntHashSet;
+
+/**
+ * Persistent parsing state used for beam search in transition-based dependency parsing.
+ * Each state keeps only the arc and the reduced node added by its last transition and points to its previous state,
+ * so states in a beam share all of their common history instead of copying heads and reduced nodes.
+ * A state is materialized on a tree by undoing transitions up to the common ancestor of the current state and applying the rest
+ * (see {@link DEPBeamState#apply(DEPTree, IntHashSet)} and {@link DEPBeamState#undo(DEPTree, IntHashSet)}).
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPBeamState implements Comparable<DEPBeamState>
+{
+	/** The previous state ({@code null} if this is the initial state). */
+	public DEPBeamState parent;
+	/** The number of transitions from the initial state. */
+	public int    depth;
+	/** The index of lambda. */
+	public int    lambda;
+	/** The index of beta. */
+	public int    beta;
+	/** The number of scored transitions (forced shifts are not counted). */
+	public int    trans;
+	/** The sum of the log-probabilities of all scored transitions. */
+	public double score;
+	/** The node whose head is set by the last transition ({@code -1} if none). */
+	public int    dependent;
+	/** The head set by the last transition. */
+	public int    head;
+	/** The dependency label set by the last transition. */
+	public String deprel;
+	/** The head of {@link DEPBeamState#dependent} before the last transition ({@code -1} if none). */
+	public int    prevHead;
+	/** The dependency label of {@link DEPBeamState#dependent} before the last transition. */
+	public String prevDeprel;
+	/** The node reduced by the last transition ({@code -1} if none). */
+	public int    reduced;
+	/** The node whose 2nd-best head is predicted with the last transition ({@code -1} if none). */
+	public int    dependent2nd;
+	/** The 2nd-best head of {@link DEPBeamState#dependent2nd}, tried when the node has no head after parsing. */
+	public DEPHead head2nd;
+	
+	/** Constructs the initial state. */
+	public DEPBeamState(int lambda, int beta)
+	{
+		this.parent    = null;
+		this.depth     = 0;
+		this.lambda    = lambda;
+		this.beta      = beta;
+		this.trans     = 0;
+		this.score     = 0;
+		this.dependent = -1;
+		this.reduced   = -1;
+		this.dependent2nd = -1;
+	}
+	
+	/**
+	 * Constructs the state following the specific state, whose lambda and beta are initialized to the ones of the previous state.
+	 * @param parent the previous state.
+	 * @param score the log-probability of the transition ({@code 0} if the transition is not scored).
+	 * @param scored {@code true} if the transition is scored.
+	 */
+	public DEPBeamState(DEPBeamState parent, double score, boolean scored)
+	{
+		this.parent    = parent;
+		this.depth     = parent.depth + 1;
+		this.lambda    = parent.lambda;
+		this.beta      = parent.beta;
+		this.trans     = scored ? parent.trans + 1 : parent.trans;
+		this.score     = parent.score + score;
+		this.dependent = -1;
+		this.reduced   = -1;
+		this.dependent2nd = -1;
+	}
+	
+	/**
+	 * Sets the arc added by the last transition.
+	 * The current head of the dependent is kept so that the transition can be undone.
+	 */
+	public void setArc(DEPNode dependent, DEPNode head, String deprel)
+	{
+		DEPNode prev = dependent.getHead();
+		
+		this.dependent  = dependent.id;
+		this.head       = head.id;
+		this.deprel     = deprel;
+		this.prevHead   = (prev != null) ? prev.id : -1;
+		this.prevDeprel = dependent.getLabel();
+	}
+	
+	/** Sets the 2nd-best head of the specific node predicted with the last transition. */
+	public void set2ndHead(int dependent, DEPHead head)
+	{
+		this.dependent2nd = dependent;
+		this.head2nd      = head;
+	}
+	
+	/** Shifts beta to lambda. */
+	public void shift()
+	{
+		lambda = beta++;
+	}
+	
+	/** Applies the last transition of this state to the specific tree and set of reduced nodes. */
+	public void apply(DEPTree tree, IntHashSet reduce)
+	{
+		if (dependent >= 0)
+			tree.get(dependent).setHead(tree.get(head), deprel);
+		
+		if (reduced >= 0)
+			reduce.add(reduced);
+	}
+	
+	/** Undoes the last transition of this state from the specific tree and set of reduced nodes. */
+	public void undo(DEPTree tree, IntHashSet reduce)
+	{
+		if (dependent >= 0)
+		{
+			if (prevHead < 0)	tree.get(dependent).clearHead();
+			else				tree.get(dependent).setHead(tree.get(prevHead), prevDeprel);
+		}
+		
+		if (reduced >= 0)
+			reduce.remove(reduced);
+	}
+	
+	/** @return {@code true} if beta has passed the last node of a tree with the specific size. */
+	public boolean isTerminal(int size)
+	{
+		return beta >= size;
+	}
+	
+	/** @return the average log-probability of all scored transitions, which does not favor states with fewer transitions. */
+	public double getAverageScore()
+	{
+		return (trans > 0) ? score / trans : 0;
+	}
+	
+	/** @return {@code true} if this state and the specific state follow the same state with the same effect. */
+	public boolean isSameTransition(DEPBeamState state)
+	{
+		if (parent != state.parent || lambda != state.lambda || beta != state.beta || reduced != state.reduced || dependent != state.dependent)
+			return false;
+		
+		return dependent < 0 || (head == state.head && deprel.equals(state.deprel));
+	}
+	
+	@Override
+	public int compareTo(DEPBeamState state)
+	{
+		double diff = getAverageScore() - state.getAverageScore();
+		
+		if      (diff > 0)	return -1;
+		else if (diff < 0)	return  1;
+		else				return  0;
+	}
+}
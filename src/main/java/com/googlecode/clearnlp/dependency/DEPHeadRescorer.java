@@ -0,0 +1,278 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.dependency;
+
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
+import com.googlecode.clearnlp.util.triple.Triple;
+
+/**
+ * Rescores candidate heads of a headless node during the post-processing of dependency parsing.
+ * Feature vectors of all candidates are added first, then scored together by {@link StringModel#getScores(SparseFeatureVector[], int, double[][])}.
+ * For each candidate, only the block of left-arc or right-arc labels is searched, and the candidate is skipped
+ * if an upper bound of its normalized score does not exceed the current best score; the full normalization is computed for the rest only.
+ * This gives the same heads as sorting and normalizing all predictions of each candidate.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPHeadRescorer
+{
+	/** Scores are normalized by sigmoid functions divided by their sum (see {@link com.googlecode.clearnlp.classification.model.AbstractModel#normalizeScores(java.util.List)}). */
+	static public final byte NORM_SIGMOID = 0;
+	/** Scores are normalized by the softmax function (see {@link com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm#normalize(java.util.List)}). */
+	static public final byte NORM_SOFTMAX = 1;
+	
+	private byte    i_norm;
+	private String  s_left;
+	private String  s_right;
+	
+	private StringModel s_model;
+	private int         n_labels;
+	/** The indices of left-arc labels in ascending order. */
+	private int[]       i_lefts;
+	/** The indices of right-arc labels in ascending order. */
+	private int[]       i_rights;
+	/** The dependency label of each label index. */
+	private String[]    s_deprels;
+	
+	private SparseFeatureVector[] x_candidates;
+	private DEPNode[]             d_candidates;
+	private double[][]            d_scores;
+	private int                   n_candidates;
+	
+	/**
+	 * @param norm {@link DEPHeadRescorer#NORM_SIGMOID} or {@link DEPHeadRescorer#NORM_SOFTMAX}.
+	 * @param leftArc the arc of left-arc labels.
+	 * @param rightArc the arc of right-arc labels.
+	 */
+	public DEPHeadRescorer(byte norm, String leftArc, String rightArc)
+	{
+		i_norm  = norm;
+		s_left  = leftArc;
+		s_right = rightArc;
+		
+		x_candidates = new SparseFeatureVector[0];
+		d_candidates = new DEPNode[0];
+		d_scores     = new double[0][];
+	}
+	
+	/** Removes all candidates and sets the model to score them with. */
+	public void init(StringModel model)
+	{
+		if (s_model != model || n_labels != model.getLabelSize())
+			initLabels(model);
+		
+		n_candidates = 0;
+	}
+	
+	/** Called by {@link DEPHeadRescorer#init(StringModel)}. */
+	private void initLabels(StringModel model)
+	{
+		int i, l, r, size = model.getLabelSize();
+		int[] lefts = new int[size], rights = new int[size];
+		DEPLabel label;
+		
+		s_deprels = new String[size];
+		
+		for (i=0,l=0,r=0; i<size; i++)
+		{
+			label = new DEPLabel(model.getLabel(i));
+			s_deprels[i] = label.deprel;
+			
+			if      (label.isArc(s_left))	lefts [l++] = i;
+			else if (label.isArc(s_right))	rights[r++] = i;
+		}
+		
+		i_lefts  = new int[l];
+		i_rights = new int[r];
+		System.arraycopy(lefts , 0, i_lefts , 0, l);
+		System.arraycopy(rights, 0, i_rights, 0, r);
+		
+		s_model  = model;
+		n_labels = size;
+		
+		for (i=0; i<d_scores.length; i++)
+			d_scores[i] = new double[size];
+	}
+	
+	/**
+	 * Adds a candidate head whose feature vector is added to the returned vector.
+	 * @param head the candidate head.
+	 * @param hasWeight {@code true} if features are assigned with different weights.
+	 * @return an empty feature vector for the candidate.
+	 */
+	public SparseFeatureVector addCandidate(DEPNode head, boolean hasWeight)
+	{
+		if (n_candidates == x_candidates.length)
+			grow();
+		
+		SparseFeatureVector x = x_candidates[n_candidates];
+		
+		if (x == null || x.hasWeight() != hasWeight)
+			x = x_candidates[n_candidates] = new SparseFeatureVector(hasWeight);
+		else
+			x.clear();
+		
+		d_candidates[n_candidates++] = head;
+		return x;
+	}
+	
+	/**
+	 * Adds a candidate head with a copy of the specific feature vector.
+	 * @param head the candidate head.
+	 * @param vector the feature vector of the candidate, which can be reused afterwards.
+	 */
+	public void addCandidate(DEPNode head, SparseFeatureVector vector)
+	{
+		SparseFeatureVector x = addCandidate(head, vector.hasWeight());
+		int i, size = vector.size();
+		
+		if (vector.hasWeight())
+		{
+			for (i=0; i<size; i++)
+				x.addFeature(vector.getIndex(i), vector.getWeight(i));
+		}
+		else
+		{
+			for (i=0; i<size; i++)
+				x.addFeature(vector.getIndex(i));
+		}
+	}
+	
+	/** Called by {@link DEPHeadRescorer#addCandidate(DEPNode, boolean)}. */
+	private void grow()
+	{
+		int i, size = n_candidates, capacity = Math.max(8, 2 * size);
+		SparseFeatureVector[] xs = new SparseFeatureVector[capacity];
+		DEPNode[] heads = new DEPNode[capacity];
+		double[][] scores = new double[capacity][];
+		
+		System.arraycopy(x_candidates, 0, xs    , 0, size);
+		System.arraycopy(d_candidates, 0, heads , 0, size);
+		System.arraycopy(d_scores    , 0, scores, 0, size);
+		
+		for (i=size; i<capacity; i++)
+			scores[i] = new double[n_labels];
+		
+		x_candidates = xs;
+		d_candidates = heads;
+		d_scores     = scores;
+	}
+	
+	/**
+	 * Scores all candidates and updates the specific triple if any candidate gives a higher score than its current score.
+	 * Candidates are visited in the order they are added; a later candidate must give a strictly higher score to replace an earlier one.
+	 * @param rightArc {@code true} if candidates are on the left of the node (right-arcs), {@code false} if they are on the right (left-arcs).
+	 * @param max the best head, its dependency label, and its normalized score.
+	 */
+	public void rescore(boolean rightArc, Triple<DEPNode,String,Double> max)
+	{
+		int[] block = rightArc ? i_rights : i_lefts;
+		if (block.length == 0)	return;
+		
+		s_model.getScores(x_candidates, n_candidates, d_scores);
+		double[] scores;
+		int i, best;
+		double score;
+		
+		for (i=0; i<n_candidates; i++)
+		{
+			scores = d_scores[i];
+			best = getBestLabel(scores, block);
+			
+			if (getUpperBound(scores, best) <= max.o3)
+				continue;
+			
+			normalize(scores);
+			best  = getFirstLabel(scores, block, scores[best]);
+			score = scores[best];
+			
+			if (score > max.o3)
+				max.set(d_candidates[i], s_deprels[best], score);
+		}
+	}
+	
+	/** @return the index of the label with the highest raw score in the specific block (the first one if tied). */
+	private int getBestLabel(double[] scores, int[] block)
+	{
+		int i, best = block[0], size = block.length;
+		
+		for (i=1; i<size; i++)
+		{
+			if (scores[block[i]] > scores[best])
+				best = block[i];
+		}
+		
+		return best;
+	}
+	
+	/**
+	 * Returns the first label in the specific block with the specific normalized score.
+	 * Normalization is monotonic but can saturate, so labels with lower raw scores may be tied.
+	 */
+	private int getFirstLabel(double[] scores, int[] block, double score)
+	{
+		for (int label : block)
+		{
+			if (scores[label] == score)
+				return label;
+		}
+		
+		return block[0];
+	}
+	
+	/**
+	 * Returns an upper bound of the normalized score of the specific label using raw scores.
+	 * The bound considers the label and the other label with the highest raw score only; the rest can only increase the denominator.
+	 */
+	private double getUpperBound(double[] scores, int label)
+	{
+		int i, other = -1;
+		
+		for (i=0; i<n_labels; i++)
+		{
+			if (i != label && (other < 0 || scores[i] > scores[other]))
+				other = i;
+		}
+		
+		if (other < 0)	return 1;
+		double d = getNormalizedTerm(scores[label]);
+		
+		return d / (d + getNormalizedTerm(scores[other]));
+	}
+	
+	/** Normalizes the specific raw scores. */
+	private void normalize(double[] scores)
+	{
+		double sum = 0;
+		int i;
+		
+		for (i=0; i<n_labels; i++)
+		{
+			scores[i] = getNormalizedTerm(scores[i]);
+			sum += scores[i];
+		}
+		
+		for (i=0; i<n_labels; i++)
+			scores[i] /= sum;
+	}
+	
+	/** @return the unnormalized term of the specific raw score. */
+	private double getNormalizedTerm(double score)
+	{
+		return (i_norm == NORM_SOFTMAX) ? Math.exp(score) : 1 / (1 + Math.exp(-score));
+	}
+}
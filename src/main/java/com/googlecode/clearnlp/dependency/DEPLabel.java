@@ -42,6 +42,15 @@ public class DEPLabel
 		set(label);
 	}
 	
+	/** Constructs a copy of the specific label. */
+	public DEPLabel(DEPLabel label)
+	{
+		this.arc    = label.arc;
+		this.list   = label.list;
+		this.deprel = label.deprel;
+		this.score  = label.score;
+	}
+	
 	public DEPLabel(String arc, String deprel)
 	{
 		this.arc    = arc;
@@ -59,8 +59,18 @@ public class DEPNode extends NERNode implements Comparable<DEPNode>
 	protected List<DEPArc> s_heads;
 	/** The sorted list of all dependents of this node (default: empty). */
 	protected List<DEPArc> l_dependents;
+	/** The leftmost and rightmost dependents of this node, kept by {@link DEPNode#setHead(DEPNode, String)} and {@link DEPNode#clearHead()} (default: {@code null}). */
+	protected DEPNode      d_leftMost, d_rightMost;
+	/** The left and right nearest siblings of this node among all dependents of its head, sorted by ID (default: {@code null}). */
+	protected DEPNode      d_leftSibling, d_rightSibling;
+	/** The numbers of left and right dependents of this node (default: 0). */
+	protected int          n_leftValency, n_rightValency;
 	/** {@code true} if this node is a terminal. */
 	public boolean         b_terminal;
+	/** The character offset of the first character of this node in the source text (default: {@code -1}). */
+	public int             begin = -1;
+	/** The character offset after the last character of this node in the source text (default: {@code -1}). */
+	public int             end = -1;
 	
 	/**
 	 * Constructs a null dependency node.
@@ -205,7 +215,12 @@ public class DEPNode extends NERNode implements Comparable<DEPNode>
 	
 	public void setHead(DEPNode head)
 	{
-		d_head.setNode(head);
+		if (d_head.node != head)
+		{
+			removeFromHead();
+			d_head.setNode(head);
+			addToHead();
+		}
 	}
 	
 	/**
@@ -216,7 +231,14 @@ public class DEPNode extends NERNode implements Comparable<DEPNode>
 	 */
 	public void setHead(DEPNode head, String label)
 	{
-		d_head.set(head, label);
+		if (d_head.node != head)
+		{
+			removeFromHead();
+			d_head.set(head, label);
+			addToHead();
+		}
+		else
+			d_head.setLabel(label);
 	}
 	
 	/**
@@ -229,8 +251,75 @@ public class DEPNode extends NERNode implements Comparable<DEPNode>
 	}
 	
 	public void clearHead()
+	{
+		removeFromHead();
+		d_head.clear();
+	}
+	
+	/** Removes this node from the dependents of its head; called before the head is changed. */
+	private void removeFromHead()
+	{
+		DEPNode head = d_head.node;
+		if (head == null)	return;
+		
+		if (d_leftSibling != null)	d_leftSibling.d_rightSibling = d_rightSibling;
+		else						head.d_leftMost = d_rightSibling;
+		
+		if (d_rightSibling != null)	d_rightSibling.d_leftSibling = d_leftSibling;
+		else						head.d_rightMost = d_leftSibling;
+		
+		if (id < head.id)	head.n_leftValency--;
+		else				head.n_rightValency--;
+		
+		d_leftSibling  = null;
+		d_rightSibling = null;
+	}
+	
+	/**
+	 * Inserts this node to the dependents of its head by ID; called after the head is changed.
+	 * The search starts from the outermost dependent on the same side as this node, which is where
+	 * transition-based parsers attach new dependents, so it takes constant time during parsing.
+	 */
+	private void addToHead()
+	{
+		DEPNode head = d_head.node, left = null, right = null;
+		if (head == null)	return;
+		
+		if (id < head.id)
+		{
+			head.n_leftValency++;
+			
+			for (right = head.d_leftMost; right != null && right.id < id; right = right.d_rightSibling)
+				left = right;
+		}
+		else
+		{
+			head.n_rightValency++;
+			
+			for (left = head.d_rightMost; left != null && left.id > id; left = left.d_leftSibling)
+				right = left;
+		}
+		
+		d_leftSibling  = left;
+		d_rightSibling = right;
+		
+		if (left != null)	left.d_rightSibling = this;
+		else				head.d_leftMost = this;
+		
+		if (right != null)	right.d_leftSibling = this;
+		else				head.d_rightMost = this;
+	}
+	
+	/** Clears the head of this node without updating its head; called by {@link DEPTree#clearHeads()} for all nodes at once. */
+	void clearHeadAndDependents()
 	{
 		d_head.clear();
+		d_leftMost     = null;
+		d_rightMost    = null;
+		d_leftSibling  = null;
+		d_rightSibling = null;
+		n_leftValency  = 0;
+		n_rightValency = 0;
 	}
 	
 	public DEPNode getGrandHead()
@@ -99,134 +99,70 @@ public class DEPTree extends ArrayList<DEPNode>
 	
 	public int getLeftValency(int id)
 	{
-		DEPNode node = get(id);
-		int i, c = 0;
-		
-		for (i=node.id-1; i>0; i--)
-		{
-			if (get(i).getHead() == node)
-				c++;
-		}
-		
-		return c;
+		return get(id).n_leftValency;
 	}
 	
 	public int getRightValency(int id)
 	{
-		int i, c = 0, size = size();
-		DEPNode node = get(id);
-		
-		for (i=node.id+1; i<size; i++)
-		{
-			if (get(i).getHead() == node)
-				c++;
-		}
-		
-		return c;
+		return get(id).n_rightValency;
 	}
 	
 	public DEPNode getLeftMostDependent(int id)
 	{
-		DEPNode node, head = get(id);
-		int i;
-		
-		for (i=1; i<id; i++)
-		{
-			node = get(i);
-			
-			if (node.getHead() == head)
-				return node;
-		}
-		
-		return null;
+		return getLeftMostDependent(id, 0);
 	}
 	
+	/**
+	 * Returns the leftmost dependent of the specific node if {@code order} is 0, the 2nd leftmost if {@code order} is 1, and so on.
+	 * Takes {@code O(order)} time using the dependents kept by {@link DEPNode#setHead(DEPNode, String)}.
+	 * @return the specific left dependent if exists; otherwise, {@code null}.
+	 */
 	public DEPNode getLeftMostDependent(int id, int order)
 	{
-		DEPNode node, head = get(id);
-		int i;
+		DEPNode node = get(id).d_leftMost;
 		
-		for (i=1; i<id; i++)
-		{
-			node = get(i);
-			
-			if (node.getHead() == head)
-			{
-				if (order == 0)	return node;
-				order--;
-			}
-		}
+		for (; node != null && order > 0; order--)
+			node = node.d_rightSibling;
 		
-		return null;
+		return (node != null && node.id < id) ? node : null;
 	}
 	
 	public DEPNode getRightMostDependent(int id)
 	{
-		DEPNode node, head = get(id);
-		int i;
-		
-		for (i=size()-1; i>id; i--)
-		{
-			node = get(i);
-			
-			if (node.getHead() == head)
-				return node;
-		}
-		
-		return null;
+		return getRightMostDependent(id, 0);
 	}
 	
+	/**
+	 * Returns the rightmost dependent of the specific node if {@code order} is 0, the 2nd rightmost if {@code order} is 1, and so on.
+	 * Takes {@code O(order)} time using the dependents kept by {@link DEPNode#setHead(DEPNode, String)}.
+	 * @return the specific right dependent if exists; otherwise, {@code null}.
+	 */
 	public DEPNode getRightMostDependent(int id, int order)
 	{
-		DEPNode node, head = get(id);
-		int i;
+		DEPNode node = get(id).d_rightMost;
 		
-		for (i=size()-1; i>id; i--)
-		{
-			node = get(i);
-			
-			if (node.getHead() == head)
-			{
-				if (order == 0)	return node;
-				order--;
-			}
-		}
+		for (; node != null && order > 0; order--)
+			node = node.d_leftSibling;
 		
-		return null;
+		return (node != null && node.id > id) ? node : null;
 	}
 	
+	/** @return the nearest sibling to the left of the specific node, on the same side of their head; {@code null} if not exists. */
 	public DEPNode getLeftNearestSibling(int id)
 	{
-		DEPNode node, head = get(id).getHead();
-		if (head == null)	return null;
-		int i, eIdx = (head.id < id) ? head.id : 0;
+		DEPNode node = get(id), head = node.getHead(), sibling = node.d_leftSibling;
+		if (head == null || sibling == null)	return null;
 		
-		for (i=id-1; i>eIdx; i--)
-		{
-			node = get(i);
-			
-			if (node.getHead() == head)
-				return node;
-		}
-		
-		return null;
+		return (head.id < id && sibling.id < head.id) ? null : sibling;
 	}
 	
+	/** @return the nearest sibling to the right of the specific node, on the same side of their head; {@code null} if not exists. */
 	public DEPNode getRightNearestSibling(int id)
 	{
-		DEPNode node, head = get(id).getHead();
-		if (head == null)	return null;
-		int i, eIdx = (id < head.id) ? head.id : size();
+		DEPNode node = get(id), head = node.getHead(), sibling = node.d_rightSibling;
+		if (head == null || sibling == null)	return null;
 		
-		for (i=id+1; i<eIdx; i++)
-		{
-			node = get(i);
-			
-			if (node.getHead() == head)
-				return node;
-		}
-		
-		return null;
+		return (id < head.id && sibling.id > head.id) ? null : sibling;
 	}
 	
 	public DEPNode getNextPredicate(int prevId)
@@ -503,7 +439,7 @@ public class DEPTree extends ArrayList<DEPNode>
 	public void clearHeads()
 	{
 		for (DEPNode node : this)
-			node.d_head.clear();
+			node.clearHeadAndDependents();
 	}
 	
 	public void clearXHeads()
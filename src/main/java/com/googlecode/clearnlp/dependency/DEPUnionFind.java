@@ -0,0 +1,123 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.dependency;
+
+/**
+ * Union-find over the partial subtrees of a dependency tree being parsed.
+ * Each set contains the nodes of one subtree, which are all descendants of its root (the only node without a head in the set).
+ * Thus, {@link DEPUnionFind#isDescendentOf(DEPNode, DEPNode)} takes nearly constant time if the potential ancestor has no head,
+ * which is the case for cycle checks in transition-based parsing, instead of walking up the chain of heads.
+ * Heads must be changed by {@link DEPUnionFind#setHead(DEPNode, DEPNode, String)}, and {@link DEPUnionFind#init()} must be called
+ * when heads are changed in any other way (e.g., {@link DEPTree#resetHeads(com.googlecode.clearnlp.util.pair.StringIntPair[])}).
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPUnionFind
+{
+	private DEPTree d_tree;
+	/** The parent of each node in the union-find forest. */
+	private int[]   n_parents;
+	/** The rank of each set, valid for the representatives only. */
+	private int[]   n_ranks;
+	/** {@code false} if a head has been replaced since the sets were built; the sets are rebuilt on the next query. */
+	private boolean b_valid;
+	
+	/** Builds the sets from the current heads of the specific tree. */
+	public DEPUnionFind(DEPTree tree)
+	{
+		d_tree    = tree;
+		n_parents = new int[tree.size()];
+		n_ranks   = new int[tree.size()];
+		
+		init();
+	}
+	
+	/** Rebuilds the sets from the current heads of the tree. */
+	public void init()
+	{
+		int i, size = n_parents.length;
+		DEPNode head;
+		
+		for (i=0; i<size; i++)
+		{
+			n_parents[i] = i;
+			n_ranks  [i] = 0;
+		}
+		
+		for (i=1; i<size; i++)
+		{
+			if ((head = d_tree.get(i).getHead()) != null)
+				union(head.id, i);
+		}
+		
+		b_valid = true;
+	}
+	
+	/**
+	 * Sets the head of the specific node and updates the sets.
+	 * If the node already has a head, the sets are rebuilt on the next query since they cannot be split.
+	 */
+	public void setHead(DEPNode node, DEPNode head, String label)
+	{
+		if (node.hasHead())	b_valid = false;
+		else if (b_valid)	union(head.id, node.id);
+		
+		node.setHead(head, label);
+	}
+	
+	/**
+	 * Returns {@code true} if the specific node is a descendant of the specific ancestor.
+	 * Gives the same result as {@link DEPNode#isDescendentOf(DEPNode)}.
+	 * @param node the potential descendant.
+	 * @param ancestor the potential ancestor.
+	 * @return {@code true} if the specific node is a descendant of the specific ancestor.
+	 */
+	public boolean isDescendentOf(DEPNode node, DEPNode ancestor)
+	{
+		if (ancestor.hasHead())	return node.isDescendentOf(ancestor);
+		if (!b_valid)	init();
+		
+		return node != ancestor && find(node.id) == find(ancestor.id);
+	}
+	
+	/** @return the representative of the set containing the specific node. */
+	private int find(int id)
+	{
+		while (n_parents[id] != id)
+		{
+			n_parents[id] = n_parents[n_parents[id]];
+			id = n_parents[id];
+		}
+		
+		return id;
+	}
+	
+	/** Merges the sets containing the specific nodes. */
+	private void union(int id1, int id2)
+	{
+		id1 = find(id1);
+		id2 = find(id2);
+		if (id1 == id2)	return;
+		
+		if (n_ranks[id1] < n_ranks[id2])
+			n_parents[id1] = id2;
+		else
+		{
+			n_parents[id2] = id1;
+			if (n_ranks[id1] == n_ranks[id2])	n_ranks[id1]++;
+		}
+	}
+}
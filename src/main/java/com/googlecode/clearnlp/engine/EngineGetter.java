@@ -27,6 +27,9 @@ import java.util.zip.ZipInputStream;
 
 import com.googlecode.clearnlp.classification.model.StringModel;
 import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.ComponentModel;
+import com.googlecode.clearnlp.component.dep.CDEPBackParser;
 import com.googlecode.clearnlp.component.dep.CDEPPassParser;
 import com.googlecode.clearnlp.component.morph.CDefaultMPAnalyzer;
 import com.googlecode.clearnlp.component.morph.CEnglishMPAnalyzer;
@@ -254,6 +257,46 @@ public class EngineGetter implements EngineLib
 			return new CSenseClassifier(zin, mode.substring(mode.lastIndexOf("_")+1));
 		else if (mode.equals(NLPLib.MODE_SRL))
 			return new CSRLabeler(zin);
+		else if (mode.equals(NLPLib.MODE_DEP_BACK))
+			return new CDEPBackParser(zin);
+		
+		throw new IllegalArgumentException("The requested mode '"+mode+"' is not supported.");
+	}
+	
+	/**
+	 * Loads the read-only resources of a statistical component once so that they can be shared by
+	 * any number of components for decoding (see {@link EngineGetter#getComponent(ComponentModel, String)}).
+	 * @param mode any mode supported by {@link EngineGetter#getComponent(ComponentModel, String)}.
+	 */
+	static public ComponentModel getComponentModel(InputStream stream, String language, String mode) throws IOException
+	{
+		if (mode.equals(NLPLib.MODE_MORPH))
+			throw new IllegalArgumentException("The requested mode '"+mode+"' is not statistical.");
+		
+		return ((AbstractStatisticalComponent)getComponent(stream, language, mode)).getComponentModel();
+	}
+	
+	/**
+	 * Returns a new component for decoding that shares the specific model.
+	 * Each returned component keeps its own state so that components created from the same model can be used by different threads.
+	 * @param model the model loaded by {@link EngineGetter#getComponentModel(InputStream, String, String)} using the same mode.
+	 */
+	static public AbstractComponent getComponent(ComponentModel model, String mode)
+	{
+		if      (mode.equals(NLPLib.MODE_POS))
+			return new CPOSTagger(model);
+		else if (mode.equals(NLPLib.MODE_DEP))
+			return new CDEPPassParser(model);
+		else if (mode.equals(NLPLib.MODE_PRED))
+			return new CPredIdentifier(model);
+		else if (mode.equals(NLPLib.MODE_ROLE))
+			return new CRolesetClassifier(model);
+		else if (mode.startsWith(NLPLib.MODE_SENSE))
+			return new CSenseClassifier(model, mode.substring(mode.lastIndexOf("_")+1));
+		else if (mode.equals(NLPLib.MODE_SRL))
+			return new CSRLabeler(model);
+		else if (mode.equals(NLPLib.MODE_DEP_BACK))
+			return new CDEPBackParser(model);
 		
 		throw new IllegalArgumentException("The requested mode '"+mode+"' is not supported.");
 	}
@@ -0,0 +1,183 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.util.List;
+
+import org.kohsuke.args4j.Option;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
+import com.googlecode.clearnlp.classification.algorithm.LiblinearL2LR;
+import com.googlecode.clearnlp.classification.algorithm.LiblinearL2SV;
+import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
+import com.googlecode.clearnlp.classification.train.SparseTrainSpace;
+import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.run.AbstractRun;
+import com.googlecode.clearnlp.util.UTInput;
+
+/**
+ * Measures the time of training a binary Liblinear model (the first label against the others) with respect to the number of threads,
+ * and reports the primal objective value of each trained model.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class LiblinearBenchmark extends AbstractRun
+{
+	protected final String DELIM_THREADS = ",";
+	
+	@Option(name="-i", usage="the training file (input; required)", required=true, metaVar="<filename>")
+	private String s_trainFile;
+	
+	@Option(name="-v", usage="the type of vector space (default: "+AbstractTrainSpace.VECTOR_STRING+")", required=false, metaVar="<byte>")
+	private byte i_vectorType = AbstractTrainSpace.VECTOR_STRING;
+	
+	@Option(name="-s", usage="the type of solver (default: "+AbstractAlgorithm.SOLVER_LIBLINEAR_LR2_L1_SV+")", required=false, metaVar="<byte>")
+	private byte i_solver = AbstractAlgorithm.SOLVER_LIBLINEAR_LR2_L1_SV;
+	
+	@Option(name="-c", usage="the cost (default: 0.1)", required=false, metaVar="<double>")
+	private double d_cost = 0.1;
+	
+	@Option(name="-e", usage="the tolerance of termination criterion (default: 0.1)", required=false, metaVar="<double>")
+	private double d_eps = 0.1;
+	
+	@Option(name="-b", usage="the bias (default: 0)", required=false, metaVar="<double>")
+	private double d_bias = 0.0;
+	
+	@Option(name="-threads", usage="numbers of threads delimited by '"+DELIM_THREADS+"' (default: 1,2,4,8)", required=false, metaVar="<string>")
+	private String s_threads = "1,2,4,8";
+	
+	public LiblinearBenchmark() {}
+	
+	public LiblinearBenchmark(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			AbstractTrainSpace space = getTrainSpace(s_trainFile, i_vectorType);
+			AbstractAlgorithm algorithm = getAlgorithm(i_solver, d_cost, d_eps, d_bias);
+			
+			benchmark(space, algorithm, s_threads.split(DELIM_THREADS));
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	private AbstractTrainSpace getTrainSpace(String trainFile, byte vectorType) throws Exception
+	{
+		boolean hasWeight = AbstractTrainSpace.hasWeight(vectorType, trainFile);
+		AbstractTrainSpace space = (vectorType == AbstractTrainSpace.VECTOR_SPARSE) ? new SparseTrainSpace(hasWeight) : new StringTrainSpace(hasWeight, 0, 0);
+		
+		space.readInstances(UTInput.createBufferedFileReader(trainFile));
+		space.build();
+		
+		return space;
+	}
+	
+	private AbstractAlgorithm getAlgorithm(byte solver, double cost, double eps, double bias)
+	{
+		switch (solver)
+		{
+		case AbstractAlgorithm.SOLVER_LIBLINEAR_LR2_L1_SV:
+			return new LiblinearL2SV((byte)1, cost, eps, bias);
+		case AbstractAlgorithm.SOLVER_LIBLINEAR_LR2_L2_SV:
+			return new LiblinearL2SV((byte)2, cost, eps, bias);
+		case AbstractAlgorithm.SOLVER_LIBLINEAR_LR2_LR:
+			return new LiblinearL2LR(cost, eps, bias);
+		}
+		
+		throw new IllegalArgumentException("The requested solver '"+solver+"' is not supported.");
+	}
+	
+	private void benchmark(AbstractTrainSpace space, AbstractAlgorithm algorithm, String[] threads)
+	{
+		StringBuilder build = new StringBuilder();
+		double[] weight;
+		int numThreads;
+		long st, et;
+		
+		algorithm.getWeight(space, 0, 1);	// warm up
+		
+		for (String t : threads)
+		{
+			numThreads = Integer.parseInt(t);
+			
+			st = System.currentTimeMillis();
+			weight = algorithm.getWeight(space, 0, numThreads);
+			et = System.currentTimeMillis();
+			
+			build.append(String.format("%d\t%f\t%f\n", numThreads, (et - st) / 1000d, getObjective(space, weight)));
+		}
+		
+		System.out.println("threads\tsecs\tprimal objective");
+		System.out.print(build.toString());
+	}
+	
+	/** @return the primal objective value of the specific weight vector for the first label against the others. */
+	private double getObjective(AbstractTrainSpace space, double[] weight)
+	{
+		IntArrayList   ys = space.getYs();
+		List<int[]>    xs = space.getXs();
+		List<double[]> vs = space.getVs();
+		int i, j, y, N = space.getInstanceSize();
+		double loss, score, obj = 0;
+		int[] x; double[] v;
+		
+		for (double w : weight)
+			obj += w * w;
+		
+		obj *= 0.5;
+		
+		for (i=0; i<N; i++)
+		{
+			x = xs.get(i);
+			y = (ys.get(i) == 0) ? 1 : -1;
+			score = (d_bias > 0) ? weight[0] * d_bias : 0;
+			
+			if (space.hasWeight())
+			{
+				v = vs.get(i);
+				
+				for (j=0; j<x.length; j++)
+					score += weight[x[j]] * v[j];
+			}
+			else
+			{
+				for (j=0; j<x.length; j++)
+					score += weight[x[j]];
+			}
+			
+			switch (i_solver)
+			{
+			case AbstractAlgorithm.SOLVER_LIBLINEAR_LR2_L1_SV:
+				loss = Math.max(0, 1 - y * score); break;
+			case AbstractAlgorithm.SOLVER_LIBLINEAR_LR2_L2_SV:
+				loss = Math.max(0, 1 - y * score); loss *= loss; break;
+			default:
+				loss = Math.log(1 + Math.exp(-y * score));
+			}
+			
+			obj += d_cost * loss;
+		}
+		
+		return obj;
+	}
+	
+	static public void main(String[] args)
+	{
+		new LiblinearBenchmark(args);
+	}
+}
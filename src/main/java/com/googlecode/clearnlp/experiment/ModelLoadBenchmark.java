@@ -0,0 +1,114 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import com.googlecode.clearnlp.classification.model.AbstractModel;
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.nlp.NLPConvertModel;
+import com.googlecode.clearnlp.nlp.NLPLib;
+import com.googlecode.clearnlp.util.UTInput;
+
+/**
+ * Compares loading times of text, binary, and memory-mapped models.
+ * Binary model files are generated by {@link NLPConvertModel}.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class ModelLoadBenchmark
+{
+	/** Loads all models in the specific component model file (either text or binary). */
+	public void loadZip(String modelFile) throws Exception
+	{
+		ZipInputStream zin = new ZipInputStream(new BufferedInputStream(new FileInputStream(modelFile)));
+		List<StringModel> models = new ArrayList<StringModel>();
+		long st = System.currentTimeMillis(), mem = getUsedMemory();
+		ZipEntry zEntry;
+		byte[] bytes;
+		
+		while ((zEntry = zin.getNextEntry()) != null)
+		{
+			if (!zEntry.getName().contains(NLPLib.ENTRY_MODEL))
+				continue;
+			
+			bytes = UTInput.toByteArray(zin);
+			
+			if (AbstractModel.isBinary(bytes))
+				models.add(new StringModel(ByteBuffer.wrap(bytes)));
+			else
+				models.add(new StringModel(UTInput.createBufferedReader(new ByteArrayInputStream(bytes))));
+		}
+		
+		zin.close();
+		print(modelFile, models.size(), st, mem);
+	}
+	
+	/** Memory-maps all binary models in the specific directory (extracted by {@link NLPConvertModel}). */
+	public void loadMapped(String modelDir) throws Exception
+	{
+		List<StringModel> models = new ArrayList<StringModel>();
+		long st = System.currentTimeMillis(), mem = getUsedMemory();
+		
+		RandomAccessFile fin;
+		
+		for (File file : new File(modelDir).listFiles())
+		{
+			fin = new RandomAccessFile(file, "r");
+			models.add(new StringModel(fin.getChannel()));
+			fin.close();
+		}
+		
+		print(modelDir, models.size(), st, mem);
+	}
+	
+	private void print(String source, int nModels, long st, long mem)
+	{
+		long et = System.currentTimeMillis();
+		System.out.printf("%s: %d models, %d ms, %d MB on heap\n", source, nModels, et-st, (getUsedMemory()-mem) / (1024*1024));
+	}
+	
+	private long getUsedMemory()
+	{
+		Runtime rt = Runtime.getRuntime();
+		
+		System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+	
+	/** args[0]: text model file, args[1]: binary model file, args[2]: (optional) directory of extracted binary models. */
+	static public void main(String[] args)
+	{
+		ModelLoadBenchmark bench = new ModelLoadBenchmark();
+		
+		try
+		{
+			bench.loadZip(args[0]);
+			bench.loadZip(args[1]);
+			if (args.length > 2)	bench.loadMapped(args[2]);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
@@ -1,7 +1,12 @@
 package com.googlecode.clearnlp.experiment;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.ZipOutputStream;
 
 import com.googlecode.clearnlp.component.dep.CDEPPassParser;
 import com.googlecode.clearnlp.component.dep.ONDEPPassParser;
@@ -15,6 +20,16 @@ import com.googlecode.clearnlp.util.UTInput;
 public class NLPOnline extends NLPTrain
 {
 	public NLPOnline(String[] featureFiles, String trainDir, String devDir, double alpha, double rho, int devId) throws Exception
+	{
+		this(featureFiles, trainDir, devDir, alpha, rho, devId, 0, null);
+	}
+	
+	/**
+	 * Trains a dependency parser by streaming training trees, and evaluates it on development trees.
+	 * @param snapshot if positive, the model is saved to {@code modelFile} every {@code snapshot} sentences.
+	 * @param modelFile the file to save the model to; if {@code null}, the model is not saved.
+	 */
+	public NLPOnline(String[] featureFiles, String trainDir, String devDir, double alpha, double rho, int devId, int snapshot, String modelFile) throws Exception
 	{
 		JointFtrXml[]  xmls = getFeatureTemplates(featureFiles);
 		String[] trainFiles = UTFile.getSortedFileListBySize(trainDir, ".*", true);
@@ -23,16 +38,24 @@ public class NLPOnline extends NLPTrain
 		
 		Object[] lexica = getLexica(new CDEPPassParser(xmls), reader, xmls, trainFiles, devId);
 		ONDEPPassParser parser = new ONDEPPassParser(xmls, lexica, alpha, rho);
-		List<DEPTree> trainTrees = getTrees(reader, trainFiles, devId);
-		List<DEPTree> devTrees = getTrees(reader, devFiles, devId);
 		
-		parser.train(trainTrees);
+		train(parser, reader, trainFiles, devId, snapshot, modelFile);
+		if (modelFile != null)	saveModel(parser, modelFile);
+		
 		int[] counts = new int[4];
+		DEPTree tree;
 		
-		for (DEPTree tree : devTrees)
+		for (String devFile : devFiles)
 		{
-			parser.develop(tree);
-			parser.countAccuracy(counts);
+			reader.open(UTInput.createBufferedFileReader(devFile));
+			
+			while ((tree = reader.next()) != null)
+			{
+				parser.develop(tree);
+				parser.countAccuracy(counts);
+			}
+			
+			reader.close();
 		}
 		
 		System.out.printf("LAS: %5.2f (%d/%d)", 100d*counts[1]/counts[0], counts[1], counts[0]);
@@ -40,6 +63,68 @@ public class NLPOnline extends NLPTrain
 		System.out.printf("LS : %5.2f (%d/%d)", 100d*counts[3]/counts[0], counts[3], counts[0]);
 	}
 	
+	/** Updates the parser one tree at a time as trees are read, so no tree is kept in memory. */
+	public void train(ONDEPPassParser parser, JointReader reader, String[] trainFiles, int devId, int snapshot, String modelFile)
+	{
+		int i, n = 0, updates = 0, size = trainFiles.length;
+		DEPTree tree;
+		
+		for (i=0; i<size; i++)
+		{
+			if (i == devId)	continue;
+			reader.open(UTInput.createBufferedFileReader(trainFiles[i]));
+			
+			while ((tree = reader.next()) != null)
+			{
+				if (parser.train(tree))	updates++;
+				
+				if (++n % 1000 == 0)
+					System.out.printf("- sentences = %d, updates = %d\n", n, updates);
+				
+				if (snapshot > 0 && modelFile != null && n % snapshot == 0)
+					saveModel(parser, modelFile);
+			}
+			
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Saves the model of the specific parser to a temporary file first, then renames it so the model file is never partially written.
+	 * If writing fails, the temporary file is deleted and the previous model file is kept.
+	 */
+	public void saveModel(ONDEPPassParser parser, String modelFile)
+	{
+		File file = new File(modelFile), tmp = new File(modelFile+".tmp");
+		ZipOutputStream zout = null;
+		boolean written = false;
+		
+		try
+		{
+			zout = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+			parser.writeModels(zout);
+			zout.close();
+			written = true;
+			
+			if (file.exists() && !file.delete() || !tmp.renameTo(file))
+				throw new IOException("Cannot rename "+tmp+" to "+file);
+		}
+		catch (Exception e) {e.printStackTrace();}
+		finally
+		{
+			if (!written)
+			{
+				if (zout != null)
+				{
+					try {zout.close();}
+					catch (IOException e) {e.printStackTrace();}
+				}
+				
+				tmp.delete();
+			}
+		}
+	}
+	
 	public List<DEPTree> getTrees(JointReader reader, String[] trainFiles, int devId)
 	{
 		List<DEPTree> trees = new ArrayList<DEPTree>();
@@ -60,11 +145,15 @@ public class NLPOnline extends NLPTrain
 		return trees;
 	}
 
+	/** args: featureFiles (delimited by ':') trainDir devDir alpha rho [snapshot modelFile]. */
 	static public void main(String[] args) 
 	{
 		try
 		{
-			new NLPOnline(args[0].split(":"), args[1], args[2], Double.parseDouble(args[3]), Double.parseDouble(args[4]), -1);
+			int    snapshot  = (args.length > 5) ? Integer.parseInt(args[5]) : 0;
+			String modelFile = (args.length > 6) ? args[6] : null;
+			
+			new NLPOnline(args[0].split(":"), args[1], args[2], Double.parseDouble(args[3]), Double.parseDouble(args[4]), -1, snapshot, modelFile);
 		}
 		catch (Exception e) {e.printStackTrace();};
 	}
@@ -0,0 +1,161 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.io.FileInputStream;
+import java.util.Random;
+
+import org.kohsuke.args4j.Option;
+import org.w3c.dom.Element;
+
+import com.googlecode.clearnlp.classification.algorithm.AbstractAdaGrad;
+import com.googlecode.clearnlp.classification.algorithm.AdaGrad;
+import com.googlecode.clearnlp.classification.algorithm.AdaGradLR;
+import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.component.dep.CDEPPassParser;
+import com.googlecode.clearnlp.component.pos.CPOSTagger;
+import com.googlecode.clearnlp.feature.xml.JointFtrXml;
+import com.googlecode.clearnlp.nlp.AbstractNLP;
+import com.googlecode.clearnlp.nlp.NLPLib;
+import com.googlecode.clearnlp.nlp.NLPTrain;
+import com.googlecode.clearnlp.reader.JointReader;
+import com.googlecode.clearnlp.util.UTFile;
+import com.googlecode.clearnlp.util.UTXml;
+
+/**
+ * Measures the time of one AdaGrad epoch with respect to the number of threads,
+ * in both the Hogwild and the reproducible modes of {@link AbstractAdaGrad}.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class NLPTrainBenchmark extends AbstractNLP
+{
+	protected final String DELIM_THREADS = ",";
+	@Option(name="-c", usage="configuration file (required)", required=true, metaVar="<filename>")
+	private String s_configFile;
+	@Option(name="-f", usage="feature template file (required)", required=true, metaVar="<filename>")
+	private String s_featureFile;
+	@Option(name="-i", usage="input directory containing training files (required)", required=true, metaVar="<directory>")
+	private String s_trainDir;
+	@Option(name="-z", usage="mode (pos|dep; default: dep)", required=false, metaVar="<string>")
+	private String s_mode = NLPLib.MODE_DEP;
+	@Option(name="-threads", usage="numbers of threads delimited by '"+DELIM_THREADS+"' (default: 1,2,4,8)", required=false, metaVar="<string>")
+	private String s_threads = "1,2,4,8";
+	@Option(name="-n", usage="number of timed epochs per setting (default: 3)", required=false, metaVar="<integer>")
+	private int n_epochs = 3;
+	@Option(name="-alpha", usage="learning rate (default: 0.01)", required=false, metaVar="<double>")
+	private double d_alpha = 0.01;
+	@Option(name="-rho", usage="smoothing denominator (default: 0.1)", required=false, metaVar="<double>")
+	private double d_rho = 0.1;
+	@Option(name="-lr", usage="if set, benchmark AdaGrad-LR instead of AdaGrad", required=false, metaVar="<boolean>")
+	private boolean b_lr;
+	
+	public NLPTrainBenchmark() {}
+	
+	public NLPTrainBenchmark(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			benchmark(getStringTrainSpaces(s_configFile, s_featureFile, s_trainDir, s_mode));
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	/** @return the training spaces of the specific mode, collected by {@link NLPTrain}. */
+	StringTrainSpace[] getStringTrainSpaces(String configFile, String featureFile, String trainDir, String mode) throws Exception
+	{
+		return new SpaceCollector().getStringTrainSpaces(configFile, featureFile, trainDir, mode);
+	}
+	
+	private void benchmark(StringTrainSpace[] spaces)
+	{
+		String[] threads = s_threads.split(DELIM_THREADS);
+		int i, numThreads, size = spaces.length;
+		StringTrainSpace space;
+		
+		for (i=0; i<size; i++)
+		{
+			space = spaces[i];
+			System.out.printf("Model %d: labels = %d, features = %d, instances = %d\n", i, space.getLabelSize(), space.getFeatureSize(), space.getInstanceSize());
+			getEpochTime(space, 1, false, false);	// warm up
+			System.out.printf("sequential: %f secs/epoch\n", getEpochTime(space, 1, false, false));
+			System.out.println("threads\thogwild\treproducible (secs/epoch)");
+			
+			for (String t : threads)
+			{
+				numThreads = Integer.parseInt(t);
+				System.out.printf("%d\t%f\t%f\n", numThreads, getEpochTime(space, numThreads, true, false), getEpochTime(space, numThreads, true, true));
+			}
+		}
+	}
+	
+	/** @return the average time of one epoch in seconds. */
+	private double getEpochTime(StringTrainSpace space, int numThreads, boolean parallel, boolean reproducible)
+	{
+		AbstractAdaGrad<?> ag = b_lr ? new AdaGradLR(1, d_alpha, d_rho, new Random(5)) : new AdaGrad(1, d_alpha, d_rho, new Random(5));
+		double[] weights = new double[space.getFeatureSize() * space.getLabelSize()];
+		long st, et, total = 0;
+		int i;
+		
+		ag.setParallel(parallel, reproducible);
+		
+		for (i=0; i<n_epochs; i++)
+		{
+			st = System.currentTimeMillis();
+			ag.updateWeight(space, weights, numThreads);
+			et = System.currentTimeMillis();
+			total += et - st;
+		}
+		
+		return total / (1000d * n_epochs);
+	}
+	
+	/** Collects training spaces using the methods of {@link NLPTrain}. */
+	static private class SpaceCollector extends NLPTrain
+	{
+		public StringTrainSpace[] getStringTrainSpaces(String configFile, String featureFile, String trainDir, String mode) throws Exception
+		{
+			Element      eConfig = UTXml.getDocumentElement(new FileInputStream(configFile));
+			JointFtrXml[]   xmls = getFeatureTemplates(new String[]{featureFile});
+			String[]  trainFiles = UTFile.getSortedFileListBySize(trainDir, ".*", true);
+			JointReader   reader = getJointReader(UTXml.getFirstElementByTagName(eConfig, TAG_READER));
+			AbstractStatisticalComponent component;
+			
+			if      (mode.equals(NLPLib.MODE_POS))
+				component = new CPOSTagger(xmls, getLowerSimplifiedForms(reader, xmls[0], trainFiles, -1));
+			else if (mode.equals(NLPLib.MODE_DEP))
+				component = new CDEPPassParser(xmls);
+			else
+				throw new IllegalArgumentException("The requested mode '"+mode+"' is not supported.");
+			
+			Object[] lexica = getLexica(component, reader, xmls, trainFiles, -1);
+			StringTrainSpace[] spaces = getStringTrainSpaces(eConfig, xmls, trainFiles, null, lexica, mode, 0, -1);
+			
+			for (StringTrainSpace space : spaces)
+				space.build();
+			
+			return spaces;
+		}
+	}
+	
+	static public void main(String[] args)
+	{
+		new NLPTrainBenchmark(args);
+	}
+}
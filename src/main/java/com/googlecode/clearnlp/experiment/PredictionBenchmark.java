@@ -0,0 +1,140 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+
+import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.prediction.PredictionBuffer;
+import com.googlecode.clearnlp.classification.prediction.StringPrediction;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * Compares the time and the allocation per prediction of the list-based prediction API
+ * ({@link StringModel#predictAll(StringFeatureVector)}) and the buffer-based prediction API
+ * ({@link StringModel#predictTwo(StringFeatureVector, PredictionBuffer)}) on a synthetic model.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class PredictionBenchmark
+{
+	private StringModel           s_model;
+	private StringFeatureVector[] s_vectors;
+	
+	public PredictionBenchmark(int labelSize, int featureSize, int vectorSize, int vectorCount)
+	{
+		Random rand = new Random(0);
+		int i, j;
+		
+		s_model = new StringModel();
+		for (i=0; i<labelSize; i++)	s_model.addLabel("L"+i);
+		s_model.initLabelArray();
+		
+		for (i=0; i<featureSize; i++)	s_model.addFeature("f", Integer.toString(i));
+		s_model.initWeightVector();
+		
+		double[] weights = s_model.getWeights();
+		for (i=0; i<weights.length; i++)	weights[i] = rand.nextGaussian();
+		
+		s_vectors = new StringFeatureVector[vectorCount];
+		
+		for (i=0; i<vectorCount; i++)
+		{
+			s_vectors[i] = new StringFeatureVector();
+			
+			for (j=0; j<vectorSize; j++)
+				s_vectors[i].addFeature("f", Integer.toString(rand.nextInt(featureSize)));
+		}
+	}
+	
+	/** @return the sum of the normalized top scores (to keep the JIT from removing the work). */
+	public double runList()
+	{
+		List<StringPrediction> ps;
+		double sum = 0;
+		
+		for (StringFeatureVector x : s_vectors)
+		{
+			ps = s_model.predictAll(x);
+			AbstractAlgorithm.normalize(ps);
+			sum += ps.get(0).score - ps.get(1).score;
+		}
+		
+		return sum;
+	}
+	
+	/** @return the sum of the normalized top scores (to keep the JIT from removing the work). */
+	public double runBuffer(PredictionBuffer buffer)
+	{
+		double sum = 0;
+		
+		for (StringFeatureVector x : s_vectors)
+		{
+			s_model.predictTwo(x, buffer);
+			buffer.normalize();
+			sum += buffer.getScore(0) - buffer.getScore(1);
+		}
+		
+		return sum;
+	}
+	
+	public void benchmark(int iterations)
+	{
+		PredictionBuffer buffer = new PredictionBuffer();
+		int i, n = iterations * s_vectors.length;
+		long st, et, sb, eb;
+		double sum = 0;
+		
+		for (i=0; i<iterations; i++)	// warm-up
+			sum += runList() + runBuffer(buffer);
+		
+		st = System.nanoTime(); sb = getAllocatedBytes();
+		for (i=0; i<iterations; i++)	sum += runList();
+		et = System.nanoTime(); eb = getAllocatedBytes();
+		System.out.printf("list  : %8.1f ns/prediction, %8.1f bytes/prediction\n", (double)(et-st)/n, (double)(eb-sb)/n);
+		
+		st = System.nanoTime(); sb = getAllocatedBytes();
+		for (i=0; i<iterations; i++)	sum += runBuffer(buffer);
+		et = System.nanoTime(); eb = getAllocatedBytes();
+		System.out.printf("buffer: %8.1f ns/prediction, %8.1f bytes/prediction\n", (double)(et-st)/n, (double)(eb-sb)/n);
+		
+		System.out.println("checksum: "+sum);
+	}
+	
+	/** @return the number of bytes allocated by the current thread, or {@code 0} if not supported by the JVM. */
+	private long getAllocatedBytes()
+	{
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		
+		if (bean instanceof com.sun.management.ThreadMXBean)
+			return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		
+		return 0;
+	}
+	
+	/** args: [labels (default: 80)] [features (default: 100000)] [features per vector (default: 50)]. */
+	static public void main(String[] args)
+	{
+		int labels   = (args.length > 0) ? Integer.parseInt(args[0]) : 80;
+		int features = (args.length > 1) ? Integer.parseInt(args[1]) : 100000;
+		int vsize    = (args.length > 2) ? Integer.parseInt(args[2]) : 50;
+		
+		new PredictionBenchmark(labels, features, vsize, 1000).benchmark(50);
+	}
+}
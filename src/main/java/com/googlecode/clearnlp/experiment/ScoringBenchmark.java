@@ -0,0 +1,194 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.kohsuke.args4j.Option;
+
+import com.googlecode.clearnlp.classification.model.AbstractModel;
+import com.googlecode.clearnlp.classification.model.AbstractWeightVector;
+import com.googlecode.clearnlp.classification.model.DoubleWeightVector;
+import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
+import com.googlecode.clearnlp.nlp.AbstractNLP;
+import com.googlecode.clearnlp.nlp.NLPLib;
+
+/**
+ * Compares the per-feature scoring loop used before the scoring kernels of {@link AbstractWeightVector}
+ * with {@link AbstractModel#getScores(SparseFeatureVector, double[])} on feature vectors extracted from training data.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class ScoringBenchmark extends AbstractNLP
+{
+	@Option(name="-c", usage="configuration file (required)", required=true, metaVar="<filename>")
+	private String s_configFile;
+	@Option(name="-f", usage="feature template file (required)", required=true, metaVar="<filename>")
+	private String s_featureFile;
+	@Option(name="-i", usage="input directory containing training files (required)", required=true, metaVar="<directory>")
+	private String s_trainDir;
+	@Option(name="-z", usage="mode (pos|dep; default: dep)", required=false, metaVar="<string>")
+	private String s_mode = NLPLib.MODE_DEP;
+	@Option(name="-n", usage="number of timed passes over all feature vectors (default: 20)", required=false, metaVar="<integer>")
+	private int n_passes = 20;
+	
+	public ScoringBenchmark() {}
+	
+	public ScoringBenchmark(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			for (StringTrainSpace space : new NLPTrainBenchmark().getStringTrainSpaces(s_configFile, s_featureFile, s_trainDir, s_mode))
+				benchmark(space);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	private void benchmark(StringTrainSpace space)
+	{
+		AbstractModel model = space.getModel();
+		SparseFeatureVector[] xs = getFeatureVectors(space);
+		double[] scores = new double[Math.max(2, model.getLabelSize())];
+		int i, n = n_passes * xs.length;
+		double legacy = 0, kernel = 0;
+		long st, et;
+		
+		initWeights(model);
+		AbstractWeightVector weights = new DoubleWeightVector(model.getWeights());
+		System.out.printf("labels = %d, features = %d, vectors = %d\n", model.getLabelSize(), model.getFeatureSize(), xs.length);
+		
+		for (i=0; i<n_passes; i++)	// warm-up
+			legacy += runLegacy(model, weights, xs, scores) + runKernel(model, xs, scores);
+		
+		legacy = kernel = 0;
+		
+		st = System.nanoTime();
+		for (i=0; i<n_passes; i++)	legacy += runLegacy(model, weights, xs, scores);
+		et = System.nanoTime();
+		System.out.printf("legacy: %8.1f ns/vector\n", (double)(et-st)/n);
+		
+		st = System.nanoTime();
+		for (i=0; i<n_passes; i++)	kernel += runKernel(model, xs, scores);
+		et = System.nanoTime();
+		System.out.printf("kernel: %8.1f ns/vector\n", (double)(et-st)/n);
+		
+		System.out.println("checksums: "+legacy+" "+kernel);
+	}
+	
+	/** Fills the weights of the specific model with random values. */
+	private void initWeights(AbstractModel model)
+	{
+		Random rand = new Random(0);
+		double[] weights;
+		int i;
+		
+		model.initWeightVector();
+		weights = model.getWeights();
+		for (i=0; i<weights.length; i++)	weights[i] = rand.nextGaussian();
+	}
+	
+	private SparseFeatureVector[] getFeatureVectors(StringTrainSpace space)
+	{
+		List<int[]>    xs = space.getXs();
+		List<double[]> vs = space.getVs();
+		int i, size = xs.size();
+		SparseFeatureVector[] vectors = new SparseFeatureVector[size];
+		
+		for (i=0; i<size; i++)
+		{
+			vectors[i] = new SparseFeatureVector(vs != null);
+			
+			if (vs != null)	vectors[i].addFeatures(xs.get(i), vs.get(i));
+			else			vectors[i].addFeatures(xs.get(i));
+		}
+		
+		return vectors;
+	}
+	
+	/** @return the sum of the scores of the first labels (to keep the JIT from removing the work). */
+	private double runKernel(AbstractModel model, SparseFeatureVector[] xs, double[] scores)
+	{
+		double sum = 0;
+		
+		for (SparseFeatureVector x : xs)
+		{
+			model.getScores(x, scores);
+			sum += scores[0];
+		}
+		
+		return sum;
+	}
+	
+	/** @return the sum of the scores of the first labels, computed by the per-feature loop. */
+	private double runLegacy(AbstractModel model, AbstractWeightVector weights, SparseFeatureVector[] xs, double[] scores)
+	{
+		int i, index, size, labels = model.getLabelSize();
+		double sum = 0, score;
+		
+		for (SparseFeatureVector x : xs)
+		{
+			size = x.size();
+			
+			if (model.isBinaryLabel())
+			{
+				score = weights.get(0);
+				
+				for (i=0; i<size; i++)
+				{
+					index = x.getIndex(i);
+					
+					if (model.isRange(index))
+					{
+						if (x.hasWeight())	score += weights.get(index) * x.getWeight(i);
+						else				score += weights.get(index);
+					}
+				}
+				
+				scores[0] = score;
+			}
+			else
+			{
+				Arrays.fill(scores, 0, labels, 0);
+				weights.addScores(scores, 0, labels);
+				
+				for (i=0; i<size; i++)
+				{
+					index = x.getIndex(i);
+					
+					if (model.isRange(index))
+					{
+						if (x.hasWeight())	weights.addScores(scores, index * labels, labels, x.getWeight(i));
+						else				weights.addScores(scores, index * labels, labels);
+					}
+				}
+			}
+			
+			sum += scores[0];
+		}
+		
+		return sum;
+	}
+	
+	static public void main(String[] args)
+	{
+		new ScoringBenchmark(args);
+	}
+}
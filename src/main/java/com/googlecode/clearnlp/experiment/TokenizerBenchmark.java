@@ -0,0 +1,138 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.experiment;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kohsuke.args4j.Option;
+
+import com.googlecode.clearnlp.run.AbstractRun;
+import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
+import com.googlecode.clearnlp.tokenization.EnglishScanTokenizer;
+import com.googlecode.clearnlp.tokenization.EnglishTokenizer;
+import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.pair.StringBooleanPair;
+
+/**
+ * Compares {@link EnglishScanTokenizer} against {@link EnglishTokenizer} on the lines of an input file:
+ * reports lines whose tokens differ, then the throughput of each tokenizer in MB/s.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class TokenizerBenchmark extends AbstractRun
+{
+	@Option(name="-i", usage="input file (required)", required=true, metaVar="<filename>")
+	private String s_inputFile;
+	@Option(name="-d", usage="name of a dictionary file (required)", required=true, metaVar="<filename>")
+	private String s_dictFile;
+	@Option(name="-n", usage="number of timed iterations (default: 5)", required=false, metaVar="<integer>")
+	private int n_iter = 5;
+	@Option(name="-twit", usage="if set, tokenize for twits", required=false, metaVar="<boolean>")
+	private boolean b_twit;
+	
+	public TokenizerBenchmark() {}
+	
+	public TokenizerBenchmark(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			AbstractTokenizer oTok = new EnglishTokenizer(UTInput.createZipFileInputStream(s_dictFile));
+			AbstractTokenizer nTok = new EnglishScanTokenizer(UTInput.createZipFileInputStream(s_dictFile));
+			List<String> lines = getLines(s_inputFile);
+			
+			oTok.setTwit(b_twit);
+			nTok.setTwit(b_twit);
+			
+			System.out.printf("Lines: %d, mismatches: %d\n", lines.size(), compare(oTok, nTok, lines));
+			System.out.printf("%s: %.2f MB/s\n", oTok.getClass().getSimpleName(), getThroughput(oTok, lines));
+			System.out.printf("%s: %.2f MB/s\n", nTok.getClass().getSimpleName(), getThroughput(nTok, lines));
+		}
+		catch (IOException e) {e.printStackTrace();}
+	}
+	
+	private List<String> getLines(String inputFile) throws IOException
+	{
+		BufferedReader fin = UTInput.createBufferedFileReader(inputFile);
+		List<String> lines = new ArrayList<String>();
+		String line;
+		
+		while ((line = fin.readLine()) != null)
+			lines.add(line.trim());
+		
+		fin.close();
+		return lines;
+	}
+	
+	/** @return the number of lines whose tokens or protection flags differ; the first few differences are printed. */
+	public int compare(AbstractTokenizer oTok, AbstractTokenizer nTok, List<String> lines)
+	{
+		List<StringBooleanPair> oTokens, nTokens;
+		int i, size, mismatches = 0;
+		
+		for (String line : lines)
+		{
+			oTokens = oTok.getTokenList(line);
+			nTokens = nTok.getTokenList(line);
+			size    = oTokens.size();
+			
+			for (i=0; i<size && size == nTokens.size(); i++)
+			{
+				if (!oTokens.get(i).s.equals(nTokens.get(i).s) || oTokens.get(i).b != nTokens.get(i).b)
+					break;
+			}
+			
+			if (i < size || size != nTokens.size())
+			{
+				if (mismatches++ < 10)
+					System.out.println(line+"\n  "+oTok.getTokens(line)+"\n  "+nTok.getTokens(line));
+			}
+		}
+		
+		return mismatches;
+	}
+	
+	/** @return megabytes of characters tokenized per second, measured after one warm-up iteration. */
+	public double getThroughput(AbstractTokenizer tokenizer, List<String> lines)
+	{
+		long bytes = 0, time = 0, st;
+		int iter;
+		
+		for (String line : lines)
+			bytes += line.length();
+		
+		for (iter=0; iter<=n_iter; iter++)
+		{
+			st = System.nanoTime();
+			
+			for (String line : lines)
+				tokenizer.getTokenList(line);
+			
+			if (iter > 0)	time += System.nanoTime() - st;
+		}
+		
+		return (double)bytes * n_iter / (1024 * 1024) / (time / 1e9);
+	}
+	
+	static public void main(String[] args)
+	{
+		new TokenizerBenchmark(args);
+	}
+}
@@ -55,6 +55,8 @@ abstract public class AbstractFtrXml
 	static protected final String XML_TYPE		= "type";
 	static protected final String XML_FEATURE	= "feature";
 	static protected final String XML_LEXICA	= "lexica";
+	/** The number of bits of the hashed feature space (e.g., {@code <cutoff label="4" feature="2" hash="20"/>}). */
+	static protected final String XML_HASH		= "hash";
 	
 	/** The type of feature. */
 	static protected final String XML_FEATURE_T	= "t";
@@ -75,6 +77,7 @@ abstract public class AbstractFtrXml
 	protected boolean       b_skipInvisible;
 	protected int[]         cutoff_label;
 	protected int[]         cutoff_feature;
+	protected int[]         cutoff_hash;
 	private   Document      xml_doc;
 	
 	/**
@@ -127,6 +130,7 @@ abstract public class AbstractFtrXml
 		
 		cutoff_label   = new int[size];
 		cutoff_feature = new int[size];
+		cutoff_hash    = new int[size];
 		
 		for (i=0; i<size; i++)
 		{
@@ -134,6 +138,7 @@ abstract public class AbstractFtrXml
 			
 			cutoff_label  [i] = eCutoff.hasAttribute(XML_LABEL  ) ? Integer.parseInt(eCutoff.getAttribute(XML_LABEL  )) : 0;
 			cutoff_feature[i] = eCutoff.hasAttribute(XML_FEATURE) ? Integer.parseInt(eCutoff.getAttribute(XML_FEATURE)) : 0;
+			cutoff_hash   [i] = eCutoff.hasAttribute(XML_HASH   ) ? Integer.parseInt(eCutoff.getAttribute(XML_HASH   )) : 0;
 		}
 		
 		initCutoffMore(eList);
@@ -277,6 +282,17 @@ abstract public class AbstractFtrXml
 		return (index < cutoff_feature.length) ? cutoff_feature[index] : 0;
 	}
 	
+	/**
+	 * Returns the index'th number of bits of the hashed feature space.
+	 * If the number is not specified, returns 0, in which case features are not hashed.
+	 * @param index the index of the number of bits to be returned.
+	 * @return the index'th number of bits of the hashed feature space.
+	 */
+	public int getHashBits(int index)
+	{
+		return (index < cutoff_hash.length) ? cutoff_hash[index] : 0;
+	}
+	
 	public String toString()
 	{
 		String s = null;
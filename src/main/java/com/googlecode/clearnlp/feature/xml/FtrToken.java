@@ -38,6 +38,16 @@ public class FtrToken
 	public String relation;
 	/** The feature field. */
 	public String field;
+	/** The code of {@link FtrToken#relation} (e.g., {@link JointFtrXml#RC_H}; {@code 0} if there is no relation). */
+	public int    relationCode;
+	/** The code of {@link FtrToken#field} (e.g., {@link JointFtrXml#FC_FORM}). */
+	public int    fieldCode;
+	/** The numeric argument of {@link FtrToken#field} (e.g., {@code 3} for "pf3"). */
+	public int    fieldArg;
+	/** The code of the field type of path and subcategorization fields (e.g., {@link JointFtrXml#FC_POS} for "ptp0"). */
+	public int    fieldType;
+	/** The string argument of {@link FtrToken#field} (e.g., "pos" for "ft=pos"). */
+	public String fieldKey;
 	
 	/**
 	 * Constructs a feature token.
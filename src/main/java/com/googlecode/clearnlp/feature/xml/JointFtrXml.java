@@ -16,6 +16,7 @@
 package com.googlecode.clearnlp.feature.xml;
 
 import java.io.InputStream;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.w3c.dom.Document;
@@ -83,6 +84,49 @@ public class JointFtrXml extends AbstractFtrXml
 	static public final Pattern P_PATH	 	= Pattern.compile("^pt(["+F_POS+F_DEPREL+F_DISTANCE+"])(\\d+)$");
 	static public final Pattern P_ARGN 	 	= Pattern.compile("^argn(\\d+)$");
 
+	// codes of relations and fields resolved when feature templates are loaded (see FtrToken)
+	static public final int RC_H	=  1;
+	static public final int RC_H2	=  2;
+	static public final int RC_LMD	=  3;
+	static public final int RC_RMD	=  4;
+	static public final int RC_LMD2	=  5;
+	static public final int RC_RMD2	=  6;
+	static public final int RC_LND	=  7;
+	static public final int RC_RND	=  8;
+	static public final int RC_LNS	=  9;
+	static public final int RC_RNS	= 10;
+	
+	static public final int FC_FORM						=  1;
+	static public final int FC_SIMPLIFIED_FORM			=  2;
+	static public final int FC_LOWER_SIMPLIFIED_FORM	=  3;
+	static public final int FC_POS						=  4;
+	static public final int FC_POS_SET					=  5;
+	static public final int FC_AMBIGUITY_CLASS			=  6;
+	static public final int FC_LEMMA					=  7;
+	static public final int FC_NAMENT					=  8;
+	static public final int FC_DEPREL					=  9;
+	static public final int FC_LEFT_DEP_POS				= 10;
+	static public final int FC_RIGHT_DEP_POS			= 11;
+	static public final int FC_LEFT_DEP_DEPREL			= 12;
+	static public final int FC_RIGHT_DEP_DEPREL			= 13;
+	static public final int FC_DIRECTION				= 14;
+	static public final int FC_DISTANCE					= 15;
+	static public final int FC_DEPREL_SET				= 16;
+	static public final int FC_GRAND_DEPREL_SET			= 17;
+	static public final int FC_LEFT_VALENCY				= 18;
+	static public final int FC_RIGHT_VALENCY			= 19;
+	static public final int FC_LNPL						= 20;
+	static public final int FC_RNPL						= 21;
+	static public final int FC_LNPB						= 22;
+	static public final int FC_RNPB						= 23;
+	static public final int FC_BOOLEAN					= 24;
+	static public final int FC_PREFIX					= 25;
+	static public final int FC_SUFFIX					= 26;
+	static public final int FC_FEAT						= 27;
+	static public final int FC_SUBCAT					= 28;
+	static public final int FC_PATH						= 29;
+	static public final int FC_ARGN						= 30;
+	
 	static protected final Pattern P_REL	= UTRegex.getORPattern(R_H, R_H2, R_LMD, R_RMD, R_LMD2, R_RMD2, R_LND, R_RND, R_LNS, R_RNS); 
 	static protected final Pattern P_FIELD	= UTRegex.getORPattern(F_FORM, F_SIMPLIFIED_FORM, F_LOWER_SIMPLIFIED_FORM, F_LEMMA, F_POS, F_POS_SET, F_AMBIGUITY_CLASS, F_NAMENT, F_DEPREL, F_DIRECTION, F_DISTANCE, F_DEPREL_SET, F_LEFT_VALENCY, F_RIGHT_VALENCY, F_LNPL, F_RNPL, F_LNPB, F_RNPB, F_LEFT_DEP_POS, F_RIGHT_DEP_POS, F_LEFT_DEP_DEPREL, F_RIGHT_DEP_DEPREL);
 	
@@ -189,6 +233,118 @@ public class JointFtrXml extends AbstractFtrXml
 		}
 	}
 	
+	/**
+	 * Resolves the relation and the field of the feature token into codes so components can dispatch on them without string comparisons.
+	 * @see AbstractFtrXml#getFtrToken(String)
+	 */
+	@Override
+	protected FtrToken getFtrToken(String ftr)
+	{
+		FtrToken token = super.getFtrToken(ftr);
+		
+		if (token.relation != null)
+			token.relationCode = getRelationCode(token.relation);
+		
+		initFieldCode(token);
+		return token;
+	}
+	
+	/** Called by {@link JointFtrXml#getFtrToken(String)}. */
+	private int getRelationCode(String relation)
+	{
+		if      (relation.equals(R_H))		return RC_H;
+		else if (relation.equals(R_H2))		return RC_H2;
+		else if (relation.equals(R_LMD))	return RC_LMD;
+		else if (relation.equals(R_RMD))	return RC_RMD;
+		else if (relation.equals(R_LMD2))	return RC_LMD2;
+		else if (relation.equals(R_RMD2))	return RC_RMD2;
+		else if (relation.equals(R_LND))	return RC_LND;
+		else if (relation.equals(R_RND))	return RC_RND;
+		else if (relation.equals(R_LNS))	return RC_LNS;
+		else if (relation.equals(R_RNS))	return RC_RNS;
+		
+		return 0;
+	}
+	
+	/** Called by {@link JointFtrXml#getFtrToken(String)}. */
+	private void initFieldCode(FtrToken token)
+	{
+		int code = getFieldCode(token.field);
+		Matcher m;
+		
+		if (code > 0)
+		{
+			token.fieldCode = code;
+		}
+		else if ((m = P_BOOLEAN.matcher(token.field)).find())
+		{
+			token.fieldCode = FC_BOOLEAN;
+			token.fieldArg  = Integer.parseInt(m.group(1));
+		}
+		else if ((m = P_PREFIX.matcher(token.field)).find())
+		{
+			token.fieldCode = FC_PREFIX;
+			token.fieldArg  = Integer.parseInt(m.group(1));
+		}
+		else if ((m = P_SUFFIX.matcher(token.field)).find())
+		{
+			token.fieldCode = FC_SUFFIX;
+			token.fieldArg  = Integer.parseInt(m.group(1));
+		}
+		else if ((m = P_FEAT.matcher(token.field)).find())
+		{
+			token.fieldCode = FC_FEAT;
+			token.fieldKey  = m.group(1);
+		}
+		else if ((m = P_SUBCAT.matcher(token.field)).find())
+		{
+			token.fieldCode = FC_SUBCAT;
+			token.fieldType = getFieldCode(m.group(1));
+			token.fieldArg  = Integer.parseInt(m.group(2));
+		}
+		else if ((m = P_PATH.matcher(token.field)).find())
+		{
+			token.fieldCode = FC_PATH;
+			token.fieldType = getFieldCode(m.group(1));
+			token.fieldArg  = Integer.parseInt(m.group(2));
+		}
+		else if ((m = P_ARGN.matcher(token.field)).find())
+		{
+			token.fieldCode = FC_ARGN;
+			token.fieldArg  = Integer.parseInt(m.group(1));
+		}
+	}
+	
+	/** Called by {@link JointFtrXml#initFieldCode(FtrToken)}. */
+	private int getFieldCode(String field)
+	{
+		if      (field.equals(F_FORM))					return FC_FORM;
+		else if (field.equals(F_SIMPLIFIED_FORM))		return FC_SIMPLIFIED_FORM;
+		else if (field.equals(F_LOWER_SIMPLIFIED_FORM))	return FC_LOWER_SIMPLIFIED_FORM;
+		else if (field.equals(F_POS))					return FC_POS;
+		else if (field.equals(F_POS_SET))				return FC_POS_SET;
+		else if (field.equals(F_AMBIGUITY_CLASS))		return FC_AMBIGUITY_CLASS;
+		else if (field.equals(F_LEMMA))					return FC_LEMMA;
+		else if (field.equals(F_NAMENT))				return FC_NAMENT;
+		else if (field.equals(F_DEPREL))				return FC_DEPREL;
+		else if (field.equals(F_LEFT_DEP_POS))			return FC_LEFT_DEP_POS;
+		else if (field.equals(F_RIGHT_DEP_POS))			return FC_RIGHT_DEP_POS;
+		else if (field.equals(F_LEFT_DEP_DEPREL))		return FC_LEFT_DEP_DEPREL;
+		else if (field.equals(F_RIGHT_DEP_DEPREL))		return FC_RIGHT_DEP_DEPREL;
+		else if (field.equals(F_DIRECTION))				return FC_DIRECTION;
+		else if (field.equals(F_DISTANCE))				return FC_DISTANCE;
+		else if (field.equals(F_DEPREL_SET))			return FC_DEPREL_SET;
+		else if (field.equals(F_GRAND_DEPREL_SET))		return FC_GRAND_DEPREL_SET;
+		else if (field.equals(F_LEFT_VALENCY))			return FC_LEFT_VALENCY;
+		else if (field.equals(F_RIGHT_VALENCY))			return FC_RIGHT_VALENCY;
+		else if (field.equals(F_LNPL))					return FC_LNPL;
+		else if (field.equals(F_RNPL))					return FC_RNPL;
+		else if (field.equals(F_LNPB))					return FC_LNPB;
+		else if (field.equals(F_RNPB))					return FC_RNPB;
+		
+		return 0;
+	}
+	
 	@Override
 	protected boolean validSource(char source)
 	{
@@ -28,6 +28,7 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.googlecode.clearnlp.classification.algorithm.AbstractAdaGrad;
 import com.googlecode.clearnlp.classification.algorithm.AdaGrad;
 import com.googlecode.clearnlp.classification.algorithm.AdaGradLR;
 import com.googlecode.clearnlp.classification.model.AbstractModel;
@@ -57,6 +58,8 @@ abstract public class AbstractNLP
 	final public String TAG_TRAIN					= "train";
 	final public String TAG_TRAIN_ALGORITHM			= "algorithm";
 	final public String TAG_TRAIN_ALGORITHM_NAME	= "name";
+	final public String TAG_TRAIN_ALGORITHM_PARALLEL		= "parallel";
+	final public String TAG_TRAIN_ALGORITHM_REPRODUCIBLE	= "reproducible";
 	final public String TAG_TRAIN_THREADS			= "threads";
 	
 	final public String TAG_LANGUAGE				= "language";
@@ -224,8 +227,9 @@ abstract public class AbstractNLP
 			int    rand  = Integer.parseInt   (UTXml.getTrimmedAttribute(eAlgorithm, "rand"));
 			double alpha = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "alpha"));
 			double rho   = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "rho"));
+			byte   mode  = getAdaGradMode(eAlgorithm);
 			
-			return getAdaGradModel(space, numThreads, iter, rand, alpha, rho);
+			return getAdaGradModel(space, numThreads, iter, rand, alpha, rho, mode);
 		}
 		
 		else if (name.equals("adagrad-lr"))
@@ -236,8 +240,9 @@ abstract public class AbstractNLP
 			int    rand  = Integer.parseInt   (UTXml.getTrimmedAttribute(eAlgorithm, "rand"));
 			double alpha = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "alpha"));
 			double rho   = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "rho"));
+			byte   mode  = getAdaGradMode(eAlgorithm);
 			
-			return getAdaGradLRModel(space, numThreads, iter, rand, alpha, rho);
+			return getAdaGradLRModel(space, numThreads, iter, rand, alpha, rho, mode);
 		}
 		
 		return null;
@@ -253,33 +258,43 @@ abstract public class AbstractNLP
 	}
 	
 	/** Called by {@link AbstractNLP#getModel(Element, AbstractTrainSpace, int, int)}. */
-	protected AbstractModel getAdaGradModel(AbstractTrainSpace space, int numThreads, int iter, int rand, double alpha, double rho)
+	protected AbstractModel getAdaGradModel(AbstractTrainSpace space, int numThreads, int iter, int rand, double alpha, double rho, byte mode)
 	{
 		space.build();
 		System.out.println("AdaGrad:");
-		System.out.printf("- iter=%d, rand=%d, alpha=%f, rho=%f\n", iter, rand, alpha, rho);
+		System.out.printf("- iter=%d, rand=%d, alpha=%f, rho=%f, mode=%d\n", iter, rand, alpha, rho, mode);
 
 		System.out.println("Training:");
 		AdaGrad ag = new AdaGrad(iter, alpha, rho, new Random(rand));
+		ag.setMode(mode);
 		
 		AbstractModel model = space.getModel();
-		model.setWeights(ag.getWeight(space, numThreads));
+		
+		if (model.getWeights() != null)	// fine-tuning (see StringTrainSpace#setBaseModel())
+			ag.updateWeight(space, numThreads);
+		else
+			model.setWeights(ag.getWeight(space, numThreads));
 		
 		return model;
 	}
 	
 	/** Called by {@link AbstractNLP#getModel(Element, AbstractTrainSpace, int, int)}. */
-	protected AbstractModel getAdaGradLRModel(AbstractTrainSpace space, int numThreads, int iter, int rand, double alpha, double rho)
+	protected AbstractModel getAdaGradLRModel(AbstractTrainSpace space, int numThreads, int iter, int rand, double alpha, double rho, byte mode)
 	{
 		space.build();
 		System.out.println("AdaGrad-LR:");
-		System.out.printf("- iter=%d, rand=%d, alpha=%f, rho=%f\n", iter, rand, alpha, rho);
+		System.out.printf("- iter=%d, rand=%d, alpha=%f, rho=%f, mode=%d\n", iter, rand, alpha, rho, mode);
 
 		System.out.println("Training:");
 		AdaGradLR ag = new AdaGradLR(iter, alpha, rho, new Random(rand));
+		ag.setMode(mode);
 		
 		AbstractModel model = space.getModel();
-		model.setWeights(ag.getWeight(space, numThreads));
+		
+		if (model.getWeights() != null)	// fine-tuning (see StringTrainSpace#setBaseModel())
+			ag.updateWeight(space, numThreads);
+		else
+			model.setWeights(ag.getWeight(space, numThreads));
 		
 		return model;
 	}
@@ -301,20 +316,22 @@ abstract public class AbstractNLP
 			int    iter  = Integer.parseInt   (UTXml.getTrimmedAttribute(eAlgorithm, "iter"));
 			double alpha = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "alpha"));
 			double rho   = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "rho"));
+			byte   mode  = getAdaGradMode(eAlgorithm);
 			
-			updateAdaGradModel(space, rand, numThreads, nUpdate, iter, alpha, rho);
+			updateAdaGradModel(space, rand, numThreads, nUpdate, iter, alpha, rho, mode);
 		}
 		else if (name.equals("adagrad-lr"))
 		{
 			int    iter  = Integer.parseInt   (UTXml.getTrimmedAttribute(eAlgorithm, "iter"));
 			double alpha = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "alpha"));
 			double rho   = Double .parseDouble(UTXml.getTrimmedAttribute(eAlgorithm, "rho"));
+			byte   mode  = getAdaGradMode(eAlgorithm);
 			
-			updateAdaGradLRModel(space, rand, numThreads, nUpdate, iter, alpha, rho);
+			updateAdaGradLRModel(space, rand, numThreads, nUpdate, iter, alpha, rho, mode);
 		}
 	}
 	
-	protected void updateAdaGradModel(AbstractTrainSpace space, Random rand, int numThreads, int nUpdate, int iter, double alpha, double rho)
+	protected void updateAdaGradModel(AbstractTrainSpace space, Random rand, int numThreads, int nUpdate, int iter, double alpha, double rho, byte mode)
 	{
 		AbstractModel model = space.getModel();
 		
@@ -326,10 +343,11 @@ abstract public class AbstractNLP
 		
 		System.out.printf("%3d: AdaGrad, iter=%d, alpha=%f, rho=%f\n", nUpdate, iter, alpha, rho);
 		AdaGrad ag = new AdaGrad(iter, alpha, rho, rand);
-		ag.updateWeight(space);
+		ag.setMode(mode);
+		ag.updateWeight(space, numThreads);
 	}
 	
-	protected void updateAdaGradLRModel(AbstractTrainSpace space, Random rand, int numThreads, int nUpdate, int iter, double alpha, double rho)
+	protected void updateAdaGradLRModel(AbstractTrainSpace space, Random rand, int numThreads, int nUpdate, int iter, double alpha, double rho, byte mode)
 	{
 		AbstractModel model = space.getModel();
 		
@@ -341,7 +359,21 @@ abstract public class AbstractNLP
 		
 		System.out.printf("%3d: AdaGrad-LR, iter=%d, alpha=%f, rho=%f\n", nUpdate, iter, alpha, rho);
 		AdaGradLR ag = new AdaGradLR(iter, alpha, rho, rand);
-		ag.updateWeight(space);
+		ag.setMode(mode);
+		ag.updateWeight(space, numThreads);
+	}
+	
+	/**
+	 * Returns the parallel mode of AdaGrad given the {@code parallel} and {@code reproducible} attributes of the specific algorithm element.
+	 * @return {@link AbstractAdaGrad#MODE_SEQUENTIAL} unless {@code parallel} is {@code true};
+	 * otherwise, {@link AbstractAdaGrad#MODE_REPRODUCIBLE} if {@code reproducible} is {@code true}, or {@link AbstractAdaGrad#MODE_HOGWILD}.
+	 */
+	protected byte getAdaGradMode(Element eAlgorithm)
+	{
+		if (!Boolean.parseBoolean(UTXml.getTrimmedAttribute(eAlgorithm, TAG_TRAIN_ALGORITHM_PARALLEL)))
+			return AbstractAdaGrad.MODE_SEQUENTIAL;
+		
+		return Boolean.parseBoolean(UTXml.getTrimmedAttribute(eAlgorithm, TAG_TRAIN_ALGORITHM_REPRODUCIBLE)) ? AbstractAdaGrad.MODE_REPRODUCIBLE : AbstractAdaGrad.MODE_HOGWILD;
 	}
 	
 	protected int getNumOfThreads(Element eTrain)
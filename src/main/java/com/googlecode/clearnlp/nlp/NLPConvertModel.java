@@ -0,0 +1,129 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.nlp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.kohsuke.args4j.Option;
+
+import com.googlecode.clearnlp.classification.model.AbstractModel;
+import com.googlecode.clearnlp.classification.model.AbstractWeightVector;
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.util.UTInput;
+
+/**
+ * Converts text models in a component model file into binary models.
+ * Components load both text and binary models (see {@link AbstractModel#BINARY_MAGIC}).
+ * Components memory-map binary models when they are loaded;
+ * models extracted by this converter can be memory-mapped using {@link StringModel#StringModel(java.nio.channels.FileChannel)}.
+ * Weights can be stored in double or single precision, or as 8-bit integers (see {@link AbstractWeightVector}).
+ * Online models (e.g., ONDEPPassParser) must remain in the text format.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class NLPConvertModel extends AbstractNLP
+{
+	@Option(name="-i", usage="input model file (required)", required=true, metaVar="<filename>")
+	private String s_inputFile;
+	@Option(name="-o", usage="output model file (required)", required=true, metaVar="<filename>")
+	private String s_outputFile;
+	@Option(name="-x", usage="if set, also extract each binary model to this directory", required=false, metaVar="<directory>")
+	private String s_extractDir = null;
+	@Option(name="-w", usage="weight type of the binary models (double|float|int8; default: double)", required=false, metaVar="<string>")
+	private String s_weightType = "double";
+	
+	public NLPConvertModel(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			convert(s_inputFile, s_outputFile, s_extractDir, AbstractWeightVector.getType(s_weightType));
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	public void convert(String inputFile, String outputFile, String extractDir, byte weightType) throws IOException
+	{
+		ZipInputStream  zin  = new ZipInputStream (new BufferedInputStream (new FileInputStream (inputFile)));
+		ZipOutputStream zout = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(outputFile)));
+		ZipEntry zEntry;
+		String   entry;
+		byte[]   bytes;
+		
+		while ((zEntry = zin.getNextEntry()) != null)
+		{
+			entry = zEntry.getName();
+			bytes = UTInput.toByteArray(zin);
+			
+			if (entry.contains(NLPLib.ENTRY_MODEL) && !AbstractModel.isBinary(bytes))
+			{
+				System.out.println("Converting "+entry+".");
+				bytes = toBinary(new StringModel(UTInput.createBufferedReader(new ByteArrayInputStream(bytes))), weightType);
+			}
+			
+			zout.putNextEntry(new ZipEntry(entry));
+			zout.write(bytes);
+			zout.closeEntry();
+			
+			if (extractDir != null && AbstractModel.isBinary(bytes))
+				extract(bytes, extractDir + File.separator + entry);
+		}
+		
+		zin.close();
+		zout.close();
+	}
+	
+	/** Called by {@link NLPConvertModel#convert(String, String, String, byte)}. */
+	private byte[] toBinary(StringModel model, byte weightType) throws IOException
+	{
+		model.setWeightType(weightType);
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream fout = new DataOutputStream(bout);
+		
+		model.saveBinary(fout);
+		fout.flush();
+		
+		return bout.toByteArray();
+	}
+	
+	/** Called by {@link NLPConvertModel#convert(String, String, String, byte)}. */
+	private void extract(byte[] bytes, String filename) throws IOException
+	{
+		File file = new File(filename);
+		file.getParentFile().mkdirs();
+		FileOutputStream fout = new FileOutputStream(file);
+		
+		fout.write(bytes);
+		fout.close();
+	}
+	
+	static public void main(String[] args)
+	{
+		new NLPConvertModel(args);
+	}
+}
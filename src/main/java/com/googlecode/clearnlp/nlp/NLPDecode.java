@@ -21,7 +21,17 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.zip.ZipInputStream;
 
 import org.kohsuke.args4j.Option;
@@ -29,7 +39,9 @@ import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
+import com.googlecode.clearnlp.classification.model.AbstractWeightVector;
 import com.googlecode.clearnlp.component.AbstractComponent;
+import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
 import com.googlecode.clearnlp.component.dep.CDEPBackParser;
 import com.googlecode.clearnlp.component.dep.CDEPPassParser;
 import com.googlecode.clearnlp.component.morph.CDefaultMPAnalyzer;
@@ -47,6 +59,7 @@ import com.googlecode.clearnlp.reader.JointReader;
 import com.googlecode.clearnlp.reader.LineReader;
 import com.googlecode.clearnlp.segmentation.AbstractSegmenter;
 import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
+import com.googlecode.clearnlp.tokenization.Token;
 import com.googlecode.clearnlp.util.UTInput;
 import com.googlecode.clearnlp.util.UTOutput;
 import com.googlecode.clearnlp.util.UTXml;
@@ -69,8 +82,17 @@ public class NLPDecode extends AbstractNLP
 	protected String s_mode;
 	@Option(name="-twit", usage="if set, tokenize for twits", required=false, metaVar="<boolean>")
 	protected boolean b_twit;
-	@Option(name="-beams", usage="beam size (default: 1)", required=false, metaVar="<boolean>")
+	@Option(name="-beams", usage="beam width for decoding dep_back by beam search; 1 for backtracking (default: 1)", required=false, metaVar="<integer>")
 	protected int n_beams = 1;
+	@Option(name="-w", usage="weight type used for decoding (double|float|int8; default: double)", required=false, metaVar="<string>")
+	protected String s_weightType = "double";
+	@Option(name="-threads", usage="number of threads used for decoding (default: 1)", required=false, metaVar="<integer>")
+	protected int n_threads = 1;
+	@Option(name="-maxlen", usage="maximum number of tokens in a sentence segmented from raw text; 0 for no limit (default: 0)", required=false, metaVar="<integer>")
+	protected int n_maxLength = 0;
+	
+	/** The number of trees waiting to be decoded or printed per thread when multiple threads are used. */
+	protected final int QUEUE_SIZE_PER_THREAD = 64;
 	
 	public NLPDecode() {}
 	
@@ -98,6 +120,9 @@ public class NLPDecode extends AbstractNLP
 		AbstractSegmenter   segmenter  = readerType.equals(AbstractReader.TYPE_RAW)  ? getSegmenter(eModels, b_twit) : null;
 		AbstractTokenizer   tokenizer  = readerType.equals(AbstractReader.TYPE_LINE) ? getTokenizer(eModels, b_twit) : null;
 		AbstractComponent[] components = getComponent(eModels, getModes(readerType, mode));
+		setWeightType(components, AbstractWeightVector.getType(s_weightType));
+		setBeamSize(components, n_beams);
+		AbstractComponent[][] chains = (n_threads > 1) ? getSharedComponents(components, n_threads) : null;
 		
 		System.out.println("Decoding:");
 		
@@ -107,7 +132,11 @@ public class NLPDecode extends AbstractNLP
 			fout = UTOutput.createPrintBufferedFileStream(filename[1]);
 			System.out.println(filename[0]);
 			
-			decode(reader, fout, segmenter, tokenizer, components, mode);
+			if (chains != null)
+				decode(reader, fout, segmenter, tokenizer, chains, mode);
+			else
+				decode(reader, fout, segmenter, tokenizer, components, mode);
+			
 			reader.close(); fout.close();
 		}
 	}
@@ -126,11 +155,12 @@ public class NLPDecode extends AbstractNLP
 	
 	public void decode(BufferedReader reader, PrintStream fout, AbstractSegmenter segmenter, AbstractComponent[] components, String mode) throws IOException
 	{
+		Iterator<List<Token>> it = segmenter.getOffsetSentenceIterator(reader);
 		DEPTree tree;
 		
-		for (List<String> tokens : segmenter.getSentences(reader))
+		while (it.hasNext())
 		{
-			tree = toDEPTree(tokens);
+			tree = toDEPTreeWithOffsets(it.next());
 			
 			for (AbstractComponent component : components)
 				component.process(tree);
@@ -170,6 +200,71 @@ public class NLPDecode extends AbstractNLP
 	//	CDEPBackParser p = (CDEPBackParser)components[0];
 	}
 	
+	//	===================================== decode: multi-threads ===================================== 
+	
+	/**
+	 * Decodes trees using multiple threads, where each thread processes whole trees using its own array of components.
+	 * Trees are printed in the order they are read.
+	 * @param chains arrays of components sharing the same models, one per thread (see {@link NLPDecode#getSharedComponents(AbstractComponent[], int)}).
+	 */
+	public void decode(AbstractReader<?> reader, PrintStream fout, AbstractSegmenter segmenter, AbstractTokenizer tokenizer, AbstractComponent[][] chains, String mode) throws IOException, InterruptedException
+	{
+		DecodePipeline pipeline = new DecodePipeline(fout, chains, mode);
+		
+		try
+		{
+			if (segmenter != null)
+			{
+				Iterator<List<Token>> it = segmenter.getOffsetSentenceIterator(reader.getBufferedReader());
+				
+				while (it.hasNext())
+					pipeline.add(toDEPTreeWithOffsets(it.next()));
+			}
+			else if (tokenizer != null)
+			{
+				LineReader fin = (LineReader)reader;
+				String sentence;
+				
+				while ((sentence = fin.next()) != null)
+					pipeline.add(toDEPTree(tokenizer.getTokens(sentence)));
+			}
+			else
+			{
+				JointReader fin = (JointReader)reader;
+				DEPTree tree;
+				
+				while ((tree = fin.next()) != null)
+					pipeline.add(tree);
+			}
+		}
+		finally
+		{
+			pipeline.close();
+		}
+	}
+	
+	/**
+	 * Returns {@code size} arrays of components, where the first array is the specific components
+	 * and the other arrays share the models of the specific components (see {@link AbstractComponent#getSharedInstance()}).
+	 */
+	public AbstractComponent[][] getSharedComponents(AbstractComponent[] components, int size)
+	{
+		AbstractComponent[][] chains = new AbstractComponent[size][];
+		int i, j, len = components.length;
+		
+		chains[0] = components;
+		
+		for (i=1; i<size; i++)
+		{
+			chains[i] = new AbstractComponent[len];
+			
+			for (j=0; j<len; j++)
+				chains[i][j] = components[j].getSharedInstance();
+		}
+		
+		return chains;
+	}
+	
 	public DEPTree toDEPTree(List<String> tokens)
 	{
 		DEPTree tree = new DEPTree();
@@ -181,6 +276,26 @@ public class NLPDecode extends AbstractNLP
 		return tree;
 	}
 	
+	/** @return a dependency tree whose nodes keep the character offsets of the specific tokens. */
+	public DEPTree toDEPTreeWithOffsets(List<Token> tokens)
+	{
+		DEPTree tree = new DEPTree();
+		int i, size = tokens.size();
+		Token token;
+		DEPNode node;
+		
+		for (i=0; i<size; i++)
+		{
+			token = tokens.get(i);
+			node  = new DEPNode(i+1, token.form);
+			node.begin = token.begin;
+			node.end   = token.end;
+			tree.add(node);
+		}
+		
+		return tree;
+	}
+	
 	//	===================================== public methods =====================================
 	
 	public AbstractComponent getComponent(InputStream stream, String language, String mode) throws IOException
@@ -290,6 +405,28 @@ public class NLPDecode extends AbstractNLP
 	
 //	===================================== getComponent: protected =====================================
 	
+	/** Converts the weight vectors of all statistical components to the specific type. */
+	protected void setWeightType(AbstractComponent[] components, byte type)
+	{
+		if (type == AbstractWeightVector.TYPE_DOUBLE)	return;
+		
+		for (AbstractComponent component : components)
+		{
+			if (component instanceof AbstractStatisticalComponent)
+				((AbstractStatisticalComponent)component).setWeightType(type);
+		}
+	}
+	
+	/** Sets the beam width of all dependency parsers supporting beam search (see {@link CDEPBackParser#setBeamSize(int)}). */
+	protected void setBeamSize(AbstractComponent[] components, int size)
+	{
+		for (AbstractComponent component : components)
+		{
+			if (component instanceof CDEPBackParser)
+				((CDEPBackParser)component).setBeamSize(size);
+		}
+	}
+	
 	protected AbstractComponent[] getComponent(Element eModels, List<String> modes) throws Exception
 	{
 		AbstractComponent[] components = new AbstractComponent[modes.size()];
@@ -317,7 +454,10 @@ public class NLPDecode extends AbstractNLP
 		AbstractTokenizer tokenizer = getTokenizer(eModels, twit);
 		String language = getLanguage(eModels);
 		
-		return EngineGetter.getSegmenter(language, tokenizer);
+		AbstractSegmenter segmenter = EngineGetter.getSegmenter(language, tokenizer);
+		segmenter.setMaxSentenceLength(n_maxLength);
+		
+		return segmenter;
 	}
 	
 	protected AbstractTokenizer getTokenizer(Element eModels, boolean twit) throws IOException
@@ -343,6 +483,123 @@ public class NLPDecode extends AbstractNLP
 		return map;
 	}
 	
+//	===================================== pipeline =====================================
+	
+	/**
+	 * Bounded pipeline for decoding: the caller adds trees, a pool of threads processes them, and a writer thread prints them in the order they are added.
+	 * At most {@link NLPDecode#QUEUE_SIZE_PER_THREAD} trees per thread are in the pipeline at a time.
+	 * As in single-threaded decoding, the first exception thrown by any component stops the output and is rethrown to the caller
+	 * by {@link DecodePipeline#add(DEPTree)} or {@link DecodePipeline#close()}.
+	 */
+	private class DecodePipeline implements Runnable
+	{
+		private BlockingQueue<AbstractComponent[]> q_chains;
+		private BlockingQueue<Future<DEPTree>>     q_trees;
+		private Future<DEPTree>                    f_end;
+		private ExecutorService                    e_pool;
+		private Thread                             t_writer;
+		private PrintStream                        f_out;
+		private String                             s_mode;
+		/** The first exception thrown while decoding ({@code null} if none). */
+		private volatile Throwable                 t_error;
+		
+		public DecodePipeline(PrintStream fout, AbstractComponent[][] chains, String mode)
+		{
+			int size = chains.length;
+			
+			q_chains = new ArrayBlockingQueue<AbstractComponent[]>(size, false, Arrays.asList(chains));
+			q_trees  = new ArrayBlockingQueue<Future<DEPTree>>(size * QUEUE_SIZE_PER_THREAD);
+			f_end    = new FutureTask<DEPTree>(this, null);
+			e_pool   = Executors.newFixedThreadPool(size);
+			f_out    = fout;
+			s_mode   = mode;
+			
+			t_writer = new Thread(this);
+			t_writer.start();
+		}
+		
+		/** Adds the specific tree to be decoded; blocks while the pipeline is full. */
+		public void add(DEPTree tree) throws InterruptedException
+		{
+			checkError();
+			q_trees.put(e_pool.submit(new DecodeTask(tree)));
+		}
+		
+		/** Waits until all trees are printed and releases the threads. */
+		public void close() throws InterruptedException
+		{
+			q_trees.put(f_end);
+			t_writer.join();
+			e_pool.shutdown();
+			checkError();
+		}
+		
+		/** Rethrows the first exception thrown while decoding if any. */
+		private void checkError()
+		{
+			Throwable t = t_error;
+			
+			if      (t == null)						return;
+			else if (t instanceof RuntimeException)	throw (RuntimeException)t;
+			else if (t instanceof Error)			throw (Error)t;
+			else									throw new RuntimeException(t);
+		}
+		
+		/** Prints decoded trees in the order they are added; after an exception, remaining trees are drained without being printed. */
+		public void run()
+		{
+			Future<DEPTree> future;
+			
+			try
+			{
+				while ((future = q_trees.take()) != f_end)
+				{
+					if (t_error != null)
+					{
+						future.cancel(false);
+						continue;
+					}
+					
+					try
+					{
+						f_out.println(NLPDecode.this.toString(future.get(), s_mode)+"\n");
+					}
+					catch (ExecutionException e) {t_error = e.getCause();}
+					catch (RuntimeException e) {t_error = e;}
+				}
+			}
+			catch (InterruptedException e) {e.printStackTrace();}
+		}
+		
+		/** Processes a tree using an array of components that is not used by any other thread. */
+		private class DecodeTask implements Callable<DEPTree>
+		{
+			private DEPTree d_tree;
+			
+			public DecodeTask(DEPTree tree)
+			{
+				d_tree = tree;
+			}
+			
+			public DEPTree call() throws InterruptedException
+			{
+				AbstractComponent[] components = q_chains.take();
+				
+				try
+				{
+					for (AbstractComponent component : components)
+						component.process(d_tree);
+				}
+				finally
+				{
+					q_chains.put(components);
+				}
+				
+				return d_tree;
+			}
+		}
+	}
+	
 	static public void main(String[] args)
 	{
 		new NLPDecode(args);
@@ -76,6 +76,7 @@ public class NLPDevelop extends NLPTrain
 		String[] trainFiles = UTFile.getSortedFileListBySize(trainDir, ".*", true);
 		String[]   devFiles = UTFile.getSortedFileListBySize(devDir, ".*", true);
 		JointReader  reader = getJointReader(UTXml.getFirstElementByTagName(eConfig, TAG_READER));
+		initThreads(eConfig, mode);
 		
 		if      (mode.equals(NLPLib.MODE_POS))
 			developComponent(eConfig, reader, xmls, trainFiles, devFiles, new CPOSTagger(xmls, getLowerSimplifiedForms(reader, xmls[0], trainFiles, -1)), mode, -1);
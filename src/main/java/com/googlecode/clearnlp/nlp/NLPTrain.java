@@ -16,11 +16,14 @@
 package com.googlecode.clearnlp.nlp;
 
 import java.io.BufferedOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -29,6 +32,7 @@ import java.util.zip.ZipOutputStream;
 
 import org.kohsuke.args4j.Option;
 import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 import com.carrotsearch.hppc.ObjectIntHashMap;
 import com.googlecode.clearnlp.classification.model.StringModel;
@@ -43,9 +47,11 @@ import com.googlecode.clearnlp.component.srl.CRolesetClassifier;
 import com.googlecode.clearnlp.component.srl.CSRLabeler;
 import com.googlecode.clearnlp.component.srl.CSenseClassifier;
 import com.googlecode.clearnlp.dependency.DEPTree;
+import com.googlecode.clearnlp.engine.EngineGetter;
 import com.googlecode.clearnlp.engine.EngineProcess;
 import com.googlecode.clearnlp.feature.xml.JointFtrXml;
 import com.googlecode.clearnlp.reader.JointReader;
+import com.googlecode.clearnlp.reader.JointReaderCache;
 import com.googlecode.clearnlp.util.UTFile;
 import com.googlecode.clearnlp.util.UTInput;
 import com.googlecode.clearnlp.util.UTXml;
@@ -74,6 +80,18 @@ public class NLPTrain extends AbstractNLP
 	protected double d_margin = 0.5;
 	@Option(name="-beams", usage="the size of beam (default: 0)", required=false, metaVar="<double>")
 	protected int n_beams = 0;
+	@Option(name="-spill", usage="directory to spill training instances to (default: kept in memory)", required=false, metaVar="<directory>")
+	protected String s_spillDir = null;
+	@Option(name="-base", usage="model file to fine-tune with AdaGrad (default: trained from scratch)", required=false, metaVar="<filename>")
+	protected String s_baseFile = null;
+	/** The models of {@link NLPTrain#s_baseFile} to be fine-tuned; {@code null} if models are trained from scratch. */
+	protected StringModel[] s_baseModels = null;
+	@Option(name="-cache", usage="if set, trees of each training file are kept in memory after the file is read once (default: false)", required=false)
+	protected boolean b_cache = false;
+	/** The trees of each training file if {@link NLPTrain#b_cache} is {@code true}. */
+	protected Map<String,JointReaderCache> m_caches = new HashMap<String,JointReaderCache>();
+	/** The number of threads to collect lexica with (see {@link NLPTrain#initThreads(Element, String)}). */
+	protected int n_threads = 1;
 	
 	public NLPTrain() {}
 	
@@ -94,12 +112,38 @@ public class NLPTrain extends AbstractNLP
 		JointFtrXml[]  xmls = getFeatureTemplates(featureFiles);
 		String[] trainFiles = UTFile.getSortedFileListBySize(trainDir, ".*", true);
 		JointReader  reader = getJointReader(UTXml.getFirstElementByTagName(eConfig, TAG_READER));
+		initThreads(eConfig, mode);
 
-		AbstractStatisticalComponent component = getComponent(eConfig, reader, xmls, trainFiles, -1, mode);
+		AbstractStatisticalComponent component = (s_baseFile != null) ? getFineTunedComponent(eConfig, trainFiles, s_baseFile, -1, mode) : getComponent(eConfig, reader, xmls, trainFiles, -1, mode);
 		component.saveModels(new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(modelFile))));
 	}
 	
 	//	====================================== GETTERS/SETTERS ======================================
+	
+	/** Collects lexica with as many threads as the training of the specific mode. */
+	protected void initThreads(Element eConfig, String mode)
+	{
+		n_threads = getNumOfThreads(UTXml.getFirstElementByTagName(eConfig, mode));
+	}
+	
+	/**
+	 * Opens the specific training file, whose trees are read from memory after the first time if {@link NLPTrain#b_cache} is {@code true}.
+	 * This method is synchronized because it is called by tasks running in parallel.
+	 */
+	protected synchronized void openTrainFile(JointReader reader, String trainFile)
+	{
+		JointReaderCache cache;
+		
+		if (!b_cache)
+			reader.open(UTInput.createBufferedFileReader(trainFile));
+		else if ((cache = m_caches.get(trainFile)) != null)
+			reader.open(cache);
+		else
+		{
+			m_caches.put(trainFile, cache = new JointReaderCache());
+			reader.open(UTInput.createBufferedFileReader(trainFile), cache);
+		}
+	}
 
 	protected AbstractStatisticalComponent getComponent(Element eConfig, JointReader reader, JointFtrXml[] xmls, String[] trainFiles, int devId, String mode)
 	{
@@ -149,6 +193,12 @@ public class NLPTrain extends AbstractNLP
 	protected AbstractStatisticalComponent getTrainedComponent(Element eConfig, JointReader reader, JointFtrXml[] xmls, String[] trainFiles, AbstractStatisticalComponent component, String mode, int devId) 
 	{
 		Object[] lexica = getLexica(component, reader, xmls, trainFiles, devId);
+		return getTrainedComponent(eConfig, xmls, trainFiles, lexica, mode, devId);
+	}
+	
+	/** Called by {@link NLPTrain#getTrainedComponent(Element, JointReader, JointFtrXml[], String[], AbstractStatisticalComponent, String, int)}. */
+	protected AbstractStatisticalComponent getTrainedComponent(Element eConfig, JointFtrXml[] xmls, String[] trainFiles, Object[] lexica, String mode, int devId)
+	{
 		AbstractStatisticalComponent processor = null;
 		StringModel[] models = null;
 		int boot;
@@ -162,6 +212,44 @@ public class NLPTrain extends AbstractNLP
 		return processor;
 	}
 	
+	/**
+	 * Fine-tunes the component in the specific model file on the specific training files.
+	 * The feature templates and the lexica of the component are kept; its labels and features are extended by the ones
+	 * found in the training files, and AdaGrad resumes from its weights (see {@link StringTrainSpace#setBaseModel(StringModel)}).
+	 * Modes whose components cannot be loaded by {@link EngineGetter#getComponent(java.io.InputStream, String, String)}
+	 * (e.g., {@link NLPLib#MODE_DEP_BACK}) are rejected before the model file is read.
+	 */
+	protected AbstractStatisticalComponent getFineTunedComponent(Element eConfig, String[] trainFiles, String baseFile, int devId, String mode) throws Exception
+	{
+		if (mode.equals(NLPLib.MODE_POS_BACK) || mode.equals(NLPLib.MODE_DEP_BACK) || mode.equals(NLPLib.MODE_MORPH))
+			throw new IllegalArgumentException("Fine-tuning is not supported for the mode '"+mode+"'.");
+		
+		NodeList list = UTXml.getFirstElementByTagName(eConfig, mode).getElementsByTagName(TAG_TRAIN_ALGORITHM);
+		int i, size = list.getLength();
+		
+		for (i=0; i<size; i++)
+		{
+			if (!UTXml.getTrimmedAttribute((Element)list.item(i), TAG_TRAIN_ALGORITHM_NAME).startsWith("adagrad"))
+				throw new IllegalArgumentException("Fine-tuning is supported by AdaGrad only.");
+		}
+		
+		FileInputStream fin = new FileInputStream(baseFile);
+		AbstractStatisticalComponent base;
+		
+		try
+		{
+			base = (AbstractStatisticalComponent)EngineGetter.getComponent(fin, getLanguage(eConfig), mode);
+		}
+		finally
+		{
+			fin.close();
+		}
+		
+		s_baseModels = base.getModels();
+		
+		return getTrainedComponent(eConfig, base.getFeatureXmls(), trainFiles, base.getLexica(), mode, devId);
+	}
+	
 	protected JointFtrXml[] getFeatureTemplates(String[] featureFiles) throws Exception
 	{
 		int i, size = featureFiles.length;
@@ -180,16 +268,38 @@ public class NLPTrain extends AbstractNLP
 		
 		System.out.println("Collecting lexica:");
 		
-		for (i=0; i<size; i++)
+		if (n_threads > 1 && component.getLexicaCollector() != null)
 		{
-			if (devId == i)	continue;
-			reader.open(UTInput.createBufferedFileReader(trainFiles[i]));
+			List<LexicaTask> tasks = new ArrayList<LexicaTask>();
+			ExecutorService executor = Executors.newFixedThreadPool(n_threads);
 			
-			while ((tree = reader.next()) != null)
-				component.process(tree);
+			for (i=0; i<size; i++)
+			{
+				if (devId != i)
+					tasks.add(new LexicaTask(new JointReader(reader), trainFiles[i], component.getLexicaCollector()));
+			}
 			
-			reader.close();
-			System.out.print(".");
+			for (LexicaTask task : tasks)
+				executor.execute(task);
+			
+			awaitTermination(executor);
+			
+			for (LexicaTask task : tasks)
+				component.mergeLexica(task.j_component);
+		}
+		else
+		{
+			for (i=0; i<size; i++)
+			{
+				if (devId == i)	continue;
+				openTrainFile(reader, trainFiles[i]);
+				
+				while ((tree = reader.next()) != null)
+					component.process(tree);
+				
+				reader.close();
+				System.out.print(".");
+			}
 		}
 		
 		System.out.println();
@@ -201,34 +311,37 @@ public class NLPTrain extends AbstractNLP
 	/** Called by {@link NLPTrain#trainPOSTagger(Element, JointFtrXml[], String[], JointReader)}. */
 	protected Set<String> getLowerSimplifiedForms(JointReader reader, JointFtrXml xml, String[] trainFiles, int devId)
 	{
-		Set<String> set = new HashSet<String>();
-		int i, j, len, size = trainFiles.length;
+		List<WordFormTask> tasks = new ArrayList<WordFormTask>();
+		int i, size = trainFiles.length;
 		Prob1DMap map = new Prob1DMap();
-		DEPTree tree;
 		
 		System.out.println("Collecting word-forms:");
 		
 		for (i=0; i<size; i++)
 		{
-			if (devId == i)	continue;
+			if (devId != i)
+				tasks.add(new WordFormTask(new JointReader(reader), trainFiles[i]));
+		}
+		
+		if (n_threads > 1)
+		{
+			ExecutorService executor = Executors.newFixedThreadPool(n_threads);
 			
-			reader.open(UTInput.createBufferedFileReader(trainFiles[i]));
-			set.clear();
+			for (WordFormTask task : tasks)
+				executor.execute(task);
 			
-			while ((tree = reader.next()) != null)
-			{
-				EngineProcess.normalizeForms(tree);
-				len = tree.size();
-				
-				for (j=1; j<len; j++)
-					set.add(tree.get(j).lowerSimplifiedForm);
-			}
-			
-			reader.close();
-			map.addAll(set);
-			System.out.print(".");
-		}	System.out.println();
+			awaitTermination(executor);
+		}
+		else
+		{
+			for (WordFormTask task : tasks)
+				task.run();
+		}
+		
+		for (WordFormTask task : tasks)
+			map.addAll(task.s_forms);
 		
+		System.out.println();
 		return map.toSet(xml.getDocumentFrequencyCutoff());
 	}
 	
@@ -272,19 +385,12 @@ public class NLPTrain extends AbstractNLP
 		{
 			if (devId != i)
 			{
-				lSpaces.add(spaces = getStringTrainSpaces(xmls, lexica, mode, boot));
+				lSpaces.add(spaces = lSpaces.isEmpty() ? getStringTrainSpaces(xmls, lexica, mode, boot) : getStringTrainSpaces(lSpaces.get(0)));
 				executor.execute(new TrainTask(eConfig, trainFiles[i], getComponent(xmls, spaces, models, lexica, mode)));
 			}
 		}
 		
-		executor.shutdown();
-		
-		try
-		{
-			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
-		}
-		catch (InterruptedException e) {e.printStackTrace();}
-		
+		awaitTermination(executor);
 		System.out.println();
 		
 		mSize = lSpaces.get(0).length;
@@ -349,6 +455,18 @@ public class NLPTrain extends AbstractNLP
 			return getStringTrainSpaces(xmls);
 	}
 	
+	/** @return empty train spaces sharing the lexica of the specific spaces so that they can be filled concurrently. */
+	private StringTrainSpace[] getStringTrainSpaces(StringTrainSpace[] spaces)
+	{
+		int i, size = spaces.length;
+		StringTrainSpace[] shared = new StringTrainSpace[size];
+		
+		for (i=0; i<size; i++)
+			shared[i] = new StringTrainSpace(spaces[i]);
+		
+		return shared;
+	}
+	
 	/** Called by {@link NLPTrain#getStringTrainSpaces(JointFtrXml[], Object[], String)}. */
 	private StringTrainSpace[] getStringTrainSpaces(JointFtrXml[] xmls)
 	{
@@ -361,7 +479,11 @@ public class NLPTrain extends AbstractNLP
 		StringTrainSpace[] spaces = new StringTrainSpace[size];
 		
 		for (i=0; i<size; i++)
-			spaces[i] = new StringTrainSpace(false, xmls[i].getLabelCutoff(cIndex), xmls[i].getFeatureCutoff(cIndex));
+		{
+			spaces[i] = new StringTrainSpace(false, xmls[i].getLabelCutoff(cIndex), xmls[i].getFeatureCutoff(cIndex), getSpillDir());
+			spaces[i].setHashBits(xmls[i].getHashBits(cIndex));
+			setBaseModel(spaces[i], i);
+		}
 		
 		return spaces;
 	}
@@ -373,32 +495,147 @@ public class NLPTrain extends AbstractNLP
 		int i;
 		
 		for (i=0; i<size; i++)
-			spaces[i] = new StringTrainSpace(false, xml.getLabelCutoff(0), xml.getFeatureCutoff(0));
+		{
+			spaces[i] = new StringTrainSpace(false, xml.getLabelCutoff(0), xml.getFeatureCutoff(0), getSpillDir());
+			spaces[i].setHashBits(xml.getHashBits(0));
+			setBaseModel(spaces[i], i);
+		}
 		
 		return spaces;
 	}
 	
+	/** Lets the specific space fine-tune the base model of the specific index if {@link NLPTrain#s_baseModels} is not {@code null}. */
+	private void setBaseModel(StringTrainSpace space, int index)
+	{
+		if (s_baseModels == null)	return;
+		
+		if (index >= s_baseModels.length)
+			throw new IllegalArgumentException("The base model does not contain model "+index+".");
+		
+		space.setBaseModel(s_baseModels[index]);
+	}
+	
+	/** @return the directory to spill training instances to if specified; otherwise, {@code null}. */
+	private File getSpillDir()
+	{
+		return (s_spillDir != null) ? new File(s_spillDir) : null;
+	}
+	
+	/** Shuts down the specific executor and waits until all of its tasks are done. */
+	private void awaitTermination(ExecutorService executor)
+	{
+		executor.shutdown();
+		
+		try
+		{
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		}
+		catch (InterruptedException e) {e.printStackTrace();}
+	}
+	
+	/** Called by {@link NLPTrain#getLexica(AbstractStatisticalComponent, JointReader, JointFtrXml[], String[], int)}. */
+	private class LexicaTask implements Runnable
+	{
+		AbstractStatisticalComponent j_component;
+		JointReader j_reader;
+		String s_trainFile;
+		
+		public LexicaTask(JointReader reader, String trainFile, AbstractStatisticalComponent component)
+		{
+			j_reader    = reader;
+			s_trainFile = trainFile;
+			j_component = component;
+		}
+		
+		public void run()
+		{
+			DEPTree tree;
+			openTrainFile(j_reader, s_trainFile);
+			
+			try
+			{
+				while ((tree = j_reader.next()) != null)
+					j_component.process(tree);
+			}
+			finally
+			{
+				j_reader.close();
+			}
+			
+			System.out.print(".");
+		}
+	}
+	
+	/** Called by {@link NLPTrain#getLowerSimplifiedForms(JointReader, JointFtrXml, String[], int)}. */
+	private class WordFormTask implements Runnable
+	{
+		/** Lower simplified word-forms in the training file. */
+		Set<String> s_forms;
+		JointReader j_reader;
+		String s_trainFile;
+		
+		public WordFormTask(JointReader reader, String trainFile)
+		{
+			j_reader    = reader;
+			s_trainFile = trainFile;
+			s_forms     = new HashSet<String>();
+		}
+		
+		public void run()
+		{
+			DEPTree tree;
+			int i, size;
+			openTrainFile(j_reader, s_trainFile);
+			
+			try
+			{
+				while ((tree = j_reader.next()) != null)
+				{
+					EngineProcess.normalizeForms(tree);
+					size = tree.size();
+					
+					for (i=1; i<size; i++)
+						s_forms.add(tree.get(i).lowerSimplifiedForm);
+				}
+			}
+			finally
+			{
+				j_reader.close();
+			}
+			
+			System.out.print(".");
+		}
+	}
+	
 	/** Called by {@link NLPTrain#getStringTrainSpaces(Element, JointFtrXml[], String[], StringModel[], Object[], String, int)}. */
 	private class TrainTask implements Runnable
 	{
 		AbstractStatisticalComponent j_component;
 		JointReader j_reader;
+		String s_trainFile;
 		
 		public TrainTask(Element eConfig, String trainFile, AbstractStatisticalComponent component)
 		{
-			j_reader = getJointReader(UTXml.getFirstElementByTagName(eConfig, TAG_READER));
-			j_reader.open(UTInput.createBufferedFileReader(trainFile));
+			j_reader    = getJointReader(UTXml.getFirstElementByTagName(eConfig, TAG_READER));
+			s_trainFile = trainFile;
 			j_component = component;
 		}
 		
 		public void run()
 		{
 			DEPTree tree;
+			openTrainFile(j_reader, s_trainFile);
 			
-			while ((tree = j_reader.next()) != null)
-				j_component.process(tree);
+			try
+			{
+				while ((tree = j_reader.next()) != null)
+					j_component.process(tree);
+			}
+			finally
+			{
+				j_reader.close();
+			}
 			
-			j_reader.close();
 			System.out.print(".");
 		}
 	}
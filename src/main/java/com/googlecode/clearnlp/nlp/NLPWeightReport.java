@@ -0,0 +1,115 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.nlp;
+
+import java.io.FileInputStream;
+
+import org.kohsuke.args4j.Option;
+import org.w3c.dom.Element;
+
+import com.googlecode.clearnlp.classification.model.AbstractWeightVector;
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.component.AbstractStatisticalComponent;
+import com.googlecode.clearnlp.reader.AbstractReader;
+import com.googlecode.clearnlp.reader.JointReader;
+import com.googlecode.clearnlp.util.UTFile;
+import com.googlecode.clearnlp.util.UTXml;
+
+/**
+ * Reports the accuracy delta of decoding with weights stored in single precision or as 8-bit integers
+ * instead of double precision (see {@link AbstractWeightVector}) on held-out data.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class NLPWeightReport extends AbstractNLP
+{
+	@Option(name="-c", usage="configuration file (required)", required=true, metaVar="<filename>")
+	private String s_configFile;
+	@Option(name="-m", usage="model file (required)", required=true, metaVar="<filename>")
+	private String s_modelFile;
+	@Option(name="-d", usage="the directory containing development files (required)", required=true, metaVar="<directory>")
+	private String s_devDir;
+	@Option(name="-z", usage="mode (pos|dep|pred|role|srl)", required=true, metaVar="<string>")
+	private String s_mode;
+	
+	/** Used to develop components on the held-out data. */
+	private NLPDevelop n_develop = new NLPDevelop();
+	
+	public NLPWeightReport(String[] args)
+	{
+		initArgs(args);
+		
+		try
+		{
+			report(s_configFile, s_modelFile, s_devDir, s_mode);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+	
+	public void report(String configFile, String modelFile, String devDir, String mode) throws Exception
+	{
+		Element    eConfig = UTXml.getDocumentElement(new FileInputStream(configFile));
+		JointReader reader = getJointReader(UTXml.getFirstElementByTagName(eConfig, TAG_READER));
+		String[] devFiles  = UTFile.getSortedFileListBySize(devDir, ".*", true);
+		String[] names     = {"double", "float", "int8"};
+		double[] scores    = new double[names.length];
+		long[]   bytes     = new long[names.length];
+		int i;
+		
+		for (i=0; i<names.length; i++)
+		{
+			System.out.println("Decoding with "+names[i]+" weights:");
+			AbstractStatisticalComponent component = getComponent(modelFile, mode, AbstractWeightVector.getType(names[i]));
+			
+			bytes [i] = getWeightBytes(component.getModels());
+			scores[i] = n_develop.decode(reader, component, devFiles, mode, names[i]);
+		}
+		
+		System.out.println();
+		System.out.printf("%6s %10s %8s %8s\n", "TYPE", "WEIGHT(MB)", "SCORE", "DELTA");
+		
+		for (i=0; i<names.length; i++)
+			System.out.printf("%6s %10.2f %8.2f %+8.2f\n", names[i], bytes[i]/1024d/1024d, scores[i], scores[i]-scores[0]);
+	}
+	
+	/** @return a component for developing whose models use the specific weight type. */
+	private AbstractStatisticalComponent getComponent(String modelFile, String mode, byte weightType) throws Exception
+	{
+		AbstractStatisticalComponent component = (AbstractStatisticalComponent)new NLPDecode().getComponent(new FileInputStream(modelFile), AbstractReader.LANG_EN, mode);
+		component.setWeightType(weightType);
+		
+		return n_develop.getComponent(component.getFeatureXmls(), component.getModels(), component.getLexica(), mode);
+	}
+	
+	/** @return the total number of bytes used to store the weights of the specific models. */
+	private long getWeightBytes(StringModel[] models)
+	{
+		long bytes = 0;
+		
+		for (StringModel model : models)
+		{
+			if (model != null)
+				bytes += (long)model.getWeightSize() * AbstractWeightVector.getBytesPerWeight(model.getWeightType());
+		}
+		
+		return bytes;
+	}
+	
+	static public void main(String[] args)
+	{
+		new NLPWeightReport(args);
+	}
+}
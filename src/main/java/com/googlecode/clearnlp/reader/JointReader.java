@@ -23,6 +23,7 @@
 */
 package com.googlecode.clearnlp.reader;
 
+import java.io.BufferedReader;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -54,6 +55,12 @@ public class JointReader extends AbstractColumnReader<DEPTree>
 	protected int i_sheads;
 	protected int i_nament;
 	protected int i_coref;
+	/** The cache to read trees from or to add trees to; {@code null} if trees are not cached. */
+	protected JointReaderCache c_cache;
+	/** {@code true} if trees read from text are added to {@link JointReader#c_cache}. */
+	protected boolean b_record;
+	/** The index of the next tree in {@link JointReader#c_cache} to read. */
+	protected int i_cache;
 	
 	/** For part-of-speech tagging. */
 	public JointReader(int iForm, int iPos)
@@ -67,6 +74,12 @@ public class JointReader extends AbstractColumnReader<DEPTree>
 		init(iId, iForm, iLemma, iPos, iFeats, iHeadId, iDeprel, -1, -1, -1, -1);
 	} 
 	
+	/** Constructs a reader with the same column indices as the specific reader (e.g., to read different files in parallel). */
+	public JointReader(JointReader reader)
+	{
+		init(reader.i_id, reader.i_form, reader.i_lemma, reader.i_pos, reader.i_feats, reader.i_headId, reader.i_deprel, reader.i_xheads, reader.i_sheads, reader.i_nament, reader.i_coref);
+	}
+	
 	/**
 	 * Constructs a dependency reader.
 	 * @param iId the column index of the node ID field.
@@ -101,6 +114,43 @@ public class JointReader extends AbstractColumnReader<DEPTree>
 		i_coref  = iCoref;
 	}
 	
+	@Override
+	public void open(BufferedReader reader)
+	{
+		super.open(reader);
+		c_cache = null;
+	}
+	
+	/**
+	 * Initializes this reader with the specific reader, and adds every tree read from it to the specific cache.
+	 * @param reader the reader to be initialized.
+	 * @param cache the cache to add trees to.
+	 */
+	public void open(BufferedReader reader, JointReaderCache cache)
+	{
+		super.open(reader);
+		c_cache  = cache;
+		b_record = true;
+	}
+	
+	/**
+	 * Initializes this reader with the trees in the specific cache, which are read without parsing text.
+	 * @param cache the cache to read trees from.
+	 */
+	public void open(JointReaderCache cache)
+	{
+		f_in     = null;
+		c_cache  = cache;
+		b_record = false;
+		i_cache  = 0;
+	}
+	
+	@Override
+	public void close()
+	{
+		if (f_in != null)	super.close();
+	}
+	
 	@Override
 	public DEPTree next()
 	{
@@ -108,8 +158,18 @@ public class JointReader extends AbstractColumnReader<DEPTree>
 		
 		try
 		{
-			List<String[]> lines = readLines();
-			if (lines == null)	return null;
+			List<String[]> lines;
+			
+			if (c_cache != null && !b_record)
+			{
+				if (i_cache >= c_cache.size())	return null;
+				lines = c_cache.get(i_cache++);
+			}
+			else
+			{
+				if ((lines = readLines()) == null)	return null;
+				if (c_cache != null)	c_cache.add(lines);
+			}
 			
 			tree = getDEPTree(lines);
 		}
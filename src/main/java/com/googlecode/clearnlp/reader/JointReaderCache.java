@@ -0,0 +1,114 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.reader;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.carrotsearch.hppc.ObjectIntHashMap;
+
+/**
+ * Trees read by {@link JointReader} from one file, kept in memory so that the file can be read again without parsing its text
+ * (see {@link JointReader#open(java.io.BufferedReader, JointReaderCache)} and {@link JointReader#open(JointReaderCache)}).
+ * Each distinct column value is stored once, and each tree is stored as an integer array of its column value indices.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class JointReaderCache
+{
+	/** The map between column values and their indices (starting at 1). */
+	private ObjectIntHashMap<String> m_values;
+	/** The list of column values, where the index of {@code l_values.get(i)} is {@code i+1}. */
+	private List<String> l_values;
+	/** Each tree is stored as {@code [#lines, (#columns, indices of the column values)*]}. */
+	private List<int[]> l_trees;
+	
+	public JointReaderCache()
+	{
+		m_values = new ObjectIntHashMap<String>();
+		l_values = new ArrayList<String>();
+		l_trees  = new ArrayList<int[]>();
+	}
+	
+	/**
+	 * Adds the specific lines of a tree.
+	 * @param lines the lines of a tree, each split into columns.
+	 */
+	public void add(List<String[]> lines)
+	{
+		IntArrayList tree = new IntArrayList();
+		int index;
+		
+		tree.add(lines.size());
+		
+		for (String[] columns : lines)
+		{
+			tree.add(columns.length);
+			
+			for (String column : columns)
+			{
+				if ((index = m_values.get(column)) == 0)
+				{
+					l_values.add(column);
+					m_values.put(column, index = l_values.size());
+				}
+				
+				tree.add(index);
+			}
+		}
+		
+		l_trees.add(tree.toArray());
+	}
+	
+	/**
+	 * Returns the lines of the specific tree, where equal column values are shared among all trees.
+	 * @param index the index of the tree in the order it was added.
+	 * @return the lines of the specific tree, each split into columns.
+	 */
+	public List<String[]> get(int index)
+	{
+		int[] tree = l_trees.get(index);
+		int i, j, k = 1, size = tree[0];
+		List<String[]> lines = new ArrayList<String[]>(size);
+		String[] columns;
+		
+		for (i=0; i<size; i++)
+		{
+			columns = new String[tree[k++]];
+			
+			for (j=0; j<columns.length; j++)
+				columns[j] = l_values.get(tree[k++]-1);
+			
+			lines.add(columns);
+		}
+		
+		return lines;
+	}
+	
+	/** @return the number of trees in this cache. */
+	public int size()
+	{
+		return l_trees.size();
+	}
+	
+	public void clear()
+	{
+		m_values.clear();
+		l_values.clear();
+		l_trees .clear();
+	}
+}
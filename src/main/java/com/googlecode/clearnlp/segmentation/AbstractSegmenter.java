@@ -16,9 +16,12 @@
 package com.googlecode.clearnlp.segmentation;
 
 import java.io.BufferedReader;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
+import com.googlecode.clearnlp.tokenization.Token;
 
 /**
  * @since 1.1.0
@@ -27,10 +30,27 @@ import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
 abstract public class AbstractSegmenter
 {
 	protected AbstractTokenizer g_tokenizer;
+	/** The maximum number of tokens in a sentence; {@code 0} if there is no limit (see {@link AbstractSegmenter#setMaxSentenceLength(int)}). */
+	protected int n_maxLength;
 	
 	public AbstractSegmenter(AbstractTokenizer tokenizer)
 	{
 		g_tokenizer = tokenizer;
+		n_maxLength = 0;
+	}
+	
+	/**
+	 * Sets the maximum number of tokens in a sentence.
+	 * A sentence is broken as soon as it reaches this length, even without terminal punctuation,
+	 * so that text without sentence boundaries is not buffered as a whole.
+	 * @param length the maximum number of tokens in a sentence; {@code 0} if there is no limit.
+	 */
+	public void setMaxSentenceLength(int length)
+	{
+		if (length < 0)
+			throw new IllegalArgumentException("The maximum sentence length must not be negative: "+length);
+		
+		n_maxLength = length;
 	}
 	
 	/**
@@ -38,5 +58,60 @@ abstract public class AbstractSegmenter
 	 * @param fin the reader to retrieve sentences from.
 	 * @return a list of sentences, which are arrays of string tokens, from the specific reader.
 	 */
-	abstract public List<List<String>> getSentences(BufferedReader fin);
+	public List<List<String>> getSentences(BufferedReader fin)
+	{
+		List<List<String>> sentences = new ArrayList<List<String>>();
+		Iterator<List<String>> it = getSentenceIterator(fin);
+		
+		while (it.hasNext())
+			sentences.add(it.next());
+		
+		return sentences;
+	}
+	
+	/**
+	 * Returns an iterator of sentences, which are lists of string tokens, read incrementally from the specific reader.
+	 * Each sentence is returned as soon as it is complete so that only the current sentence is kept in memory.
+	 * @param fin the reader to retrieve sentences from.
+	 * @return an iterator of sentences, which are lists of string tokens, read incrementally from the specific reader.
+	 */
+	public Iterator<List<String>> getSentenceIterator(BufferedReader fin)
+	{
+		final Iterator<List<Token>> it = getOffsetSentenceIterator(fin);
+		
+		return new Iterator<List<String>>()
+		{
+			@Override
+			public boolean hasNext()
+			{
+				return it.hasNext();
+			}
+			
+			@Override
+			public List<String> next()
+			{
+				List<Token> tokens = it.next();
+				List<String> sentence = new ArrayList<String>(tokens.size());
+				
+				for (Token token : tokens)
+					sentence.add(token.form);
+				
+				return sentence;
+			}
+			
+			@Override
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+	
+	/**
+	 * Returns an iterator of sentences, which are lists of tokens with their character offsets in the reader,
+	 * read incrementally from the specific reader (see {@link AbstractSegmenter#getSentenceIterator(BufferedReader)}).
+	 * @param fin the reader to retrieve sentences from.
+	 * @return an iterator of sentences, which are lists of tokens with their character offsets in the reader.
+	 */
+	abstract public Iterator<List<Token>> getOffsetSentenceIterator(BufferedReader fin);
 }
@@ -16,11 +16,15 @@
 package com.googlecode.clearnlp.segmentation;
 
 import java.io.BufferedReader;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
 
 import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
+import com.googlecode.clearnlp.tokenization.Token;
 
 /**
  * @since 1.1.0
@@ -39,37 +43,12 @@ public class EnglishSegmenter extends AbstractSegmenter
 	}
 	
 	@Override
-	public List<List<String>> getSentences(BufferedReader fin)
+	public Iterator<List<Token>> getOffsetSentenceIterator(BufferedReader fin)
 	{
-		List<List<String>> sentences = new ArrayList<List<String>>();
-		List<String> tokens = g_tokenizer.getTokens(fin);
-		int[] brackets = new int[R_BRACKETS.length];
-		int bIdx, i, size = tokens.size();
-		boolean isTerminal = false;
-		String curr;
-		
-		for (i=0, bIdx=0; i<size; i++)
-		{
-			curr = tokens.get(i);
-			countBrackets(curr, brackets);
-			
-			if (isTerminal || P_TERMINAL_PUNCTUATION.matcher(curr).find())
-			{
-				if (i+1 < size && isFollowedByBracket(tokens.get(i+1), brackets))
-				{
-					isTerminal = true;
-					continue;
-				}
-				
-				sentences.add(tokens.subList(bIdx, bIdx = i+1));
-				isTerminal = false;
-			}
-		}
-		
-		return sentences;
+		return new SentenceIterator(fin);
 	}
-		
-	/** Called by {@link EnglishSegmenter#getSentencesRaw(BufferedReader)}. */
+	
+	/** Called by {@link SentenceIterator#readSentence()}. */
 	private void countBrackets(String str, int[] brackets)
 	{
 		if (str.equals("\""))
@@ -88,7 +67,7 @@ public class EnglishSegmenter extends AbstractSegmenter
 		}
 	}
 	
-	/** Called by {@link EnglishSegmenter#getSentencesRaw(BufferedReader)}. */
+	/** Called by {@link SentenceIterator#readSentence()}. */
 	private boolean isFollowedByBracket(String str, int[] brackets)
 	{
 		int i, size = R_BRACKETS.length;
@@ -101,4 +80,183 @@ public class EnglishSegmenter extends AbstractSegmenter
 		
 		return false;
 	}		
+	
+	/**
+	 * Reads sentences from a reader line by line.
+	 * The bracket state is kept across lines and sentences, and a sentence is returned as soon as its terminal punctuation
+	 * is read, unless it is followed by a closing bracket, which requires at most one token look-ahead.
+	 * Lines are split by the reader itself so that character offsets include line terminators.
+	 */
+	private class SentenceIterator implements Iterator<List<Token>>
+	{
+		private BufferedReader	f_in;
+		/** Counts of open brackets. */
+		private int[]			n_brackets;
+		/** Tokens of the current line. */
+		private List<Token>		l_tokens;
+		/** Index of the next token in {@link SentenceIterator#l_tokens}. */
+		private int				i_token;
+		/** The next sentence; {@code null} if it has not been read. */
+		private List<Token>		l_next;
+		
+		/** Characters read from {@link SentenceIterator#f_in}. */
+		private char[]			c_buffer;
+		/** Number of characters in {@link SentenceIterator#c_buffer}. */
+		private int				n_buffer;
+		/** Index of the next character in {@link SentenceIterator#c_buffer}. */
+		private int				i_buffer;
+		/** Number of characters read so far. */
+		private int				n_position;
+		/** Character offset of the line read last. */
+		private int				n_line;
+		/** {@code true} if the previous line ended with a carriage return. */
+		private boolean			b_return;
+		private StringBuilder	s_line;
+		
+		public SentenceIterator(BufferedReader fin)
+		{
+			f_in       = fin;
+			n_brackets = new int[R_BRACKETS.length];
+			l_tokens   = new ArrayList<Token>();
+			i_token    = 0;
+			c_buffer   = new char[8192];
+			s_line     = new StringBuilder();
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			if (l_next == null)
+				l_next = readSentence();
+			
+			return l_next != null;
+		}
+		
+		@Override
+		public List<Token> next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			
+			List<Token> sentence = l_next;
+			l_next = null;
+			
+			return sentence;
+		}
+		
+		@Override
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+		
+		/**
+		 * Returns the next sentence, which ends with terminal punctuation or reaches the maximum length (see {@link AbstractSegmenter#setMaxSentenceLength(int)}).
+		 * @return the next sentence, or {@code null} if no more sentence is complete.
+		 */
+		private List<Token> readSentence()
+		{
+			List<Token> sentence = new ArrayList<Token>();
+			boolean isTerminal = false;
+			Token curr, next;
+			
+			while ((curr = nextToken()) != null)
+			{
+				sentence.add(curr);
+				countBrackets(curr.form, n_brackets);
+				
+				if (n_maxLength > 0 && sentence.size() >= n_maxLength)
+					return sentence;
+				
+				if (isTerminal || P_TERMINAL_PUNCTUATION.matcher(curr.form).find())
+				{
+					if ((next = peekToken()) != null && isFollowedByBracket(next.form, n_brackets))
+					{
+						isTerminal = true;
+						continue;
+					}
+					
+					return sentence;
+				}
+			}
+			
+			return null;
+		}
+		
+		private Token nextToken()
+		{
+			return hasToken() ? l_tokens.get(i_token++) : null;
+		}
+		
+		private Token peekToken()
+		{
+			return hasToken() ? l_tokens.get(i_token) : null;
+		}
+		
+		/** Reads lines until a line containing tokens is found. */
+		private boolean hasToken()
+		{
+			String line;
+			int trim;
+			
+			try
+			{
+				while (i_token >= l_tokens.size())
+				{
+					if ((line = readLine()) == null)
+						return false;
+					
+					for (trim=0; trim<line.length() && line.charAt(trim) <= ' '; trim++);
+					l_tokens = g_tokenizer.getOffsetTokens(line.trim(), n_line + trim);
+					i_token  = 0;
+				}
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				return false;
+			}
+			
+			return true;
+		}
+		
+		/** @return the next line without its line terminator ({@code \n}, {@code \r} or {@code \r\n}), or {@code null} if there is no more line. */
+		private String readLine() throws IOException
+		{
+			int c = read();
+			
+			if (b_return && c == '\n')
+				c = read();
+			
+			b_return = false;
+			if (c < 0)	return null;
+			s_line.setLength(0);
+			n_line = n_position - 1;
+			
+			for (; c >= 0 && c != '\n' && c != '\r'; c = read())
+				s_line.append((char)c);
+			
+			b_return = (c == '\r');
+			return s_line.toString();
+		}
+		
+		/** @return the next character, or {@code -1} if there is no more character. */
+		private int read() throws IOException
+		{
+			if (i_buffer == n_buffer)
+			{
+				n_buffer = f_in.read(c_buffer, 0, c_buffer.length);
+				i_buffer = 0;
+				
+				if (n_buffer <= 0)
+				{
+					n_buffer = 0;
+					return -1;
+				}
+			}
+			
+			n_position++;
+			return c_buffer[i_buffer++];
+		}
+	}
 }
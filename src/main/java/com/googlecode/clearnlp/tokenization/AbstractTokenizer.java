@@ -66,11 +66,41 @@ abstract public class AbstractTokenizer
 		return tokens;
 	}
 	
+	/**
+	 * Returns a list of tokens with their character offsets from the specific string.
+	 * The offsets are carried through {@link AbstractTokenizer#getTokenList(String)}, and span the characters in the string that each token is made from,
+	 * which may differ from the form of the token when the tokenizer normalizes it (e.g., placeholders).
+	 * Tokens without offsets (see {@link StringBooleanPair#begin}) get the offsets {@code -1}.
+	 * @param str the string to retrieve tokens from.
+	 * @param offset the offset of the string in the input, added to the offsets of all tokens.
+	 * @return a list of tokens with their character offsets from the specific string.
+	 */
+	public List<Token> getOffsetTokens(String str, int offset)
+	{
+		List<StringBooleanPair> lTokens = getTokenList(str);
+		List<Token> tokens = new ArrayList<Token>(lTokens.size());
+		
+		for (StringBooleanPair token : lTokens)
+		{
+			if (token.begin < 0)
+				tokens.add(new Token(token.s, -1, -1));
+			else
+				tokens.add(new Token(token.s, offset+token.begin, offset+token.end));
+		}
+		
+		return tokens;
+	}
+	
 	public void setTwit(boolean isTwit)
 	{
 		b_twit = isTwit;
 	}
 	
+	/**
+	 * Returns a list of tokens from the specific string, where each token is paired with {@code true} if it is protected from further tokenization.
+	 * The character offsets of each token in the string should be set to {@link StringBooleanPair#begin} and {@link StringBooleanPair#end}
+	 * (see {@link AbstractTokenizer#getOffsetTokens(String, int)}).
+	 */
 	abstract public List<StringBooleanPair> getTokenList(String str);
 }
 
@@ -0,0 +1,334 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.tokenization;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.zip.ZipInputStream;
+
+import jregex.Replacer;
+
+import com.googlecode.clearnlp.morphology.MPLib;
+import com.googlecode.clearnlp.util.pair.IntIntPair;
+import com.googlecode.clearnlp.util.pair.StringBooleanPair;
+
+/**
+ * English tokenizer that gives the same tokens as {@link EnglishTokenizer} in a single left-to-right scan.
+ * Instead of passing the whole token list through each step of {@link EnglishTokenizer#getTokenList(String)},
+ * each whitespace-separated token is carried through all steps before the next token is read.
+ * A step is skipped without running its pattern when the token contains none of the characters the pattern requires,
+ * which is decided by a precomputed character-class table.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class EnglishScanTokenizer extends EnglishTokenizer
+{
+	static private final int STEP_URL					= 0;
+	static private final int STEP_ABBREVIATION		= 1;
+	static private final int STEP_PERIOD_LIKE			= 2;
+	static private final int STEP_MARKER				= 3;
+	static private final int STEP_USDOLLAR			= 4;
+	static private final int STEP_D0D					= 5;
+	static private final int STEP_HYPHEN				= 6;
+	static private final int STEP_PUNCTUATION_PRE		= 7;
+	static private final int STEP_PROTECT				= 8;
+	static private final int STEP_APOSTROPHY			= 9;
+	static private final int STEP_AMPERSAND			= 10;
+	static private final int STEP_WAW					= 11;
+	/** Steps from {@code STEP_UNIT} to {@code STEP_UNIT+3} apply {@link EnglishTokenizer#R_UNIT}. */
+	static private final int STEP_UNIT				= 12;
+	static private final int STEP_TWIT				= 16;
+	static private final int STEP_PUNCTUATION_POST	= 17;
+	static private final int STEP_RECOVER				= 18;
+	
+	/** Character classes: each class indicates steps whose patterns require one of its characters. */
+	static private final int C_URL					= 1;
+	static private final int C_PERIOD					= 1 << 1;
+	static private final int C_PERIOD_LIKE			= 1 << 2;
+	static private final int C_MARKER					= 1 << 3;
+	static private final int C_DOLLAR					= 1 << 4;
+	static private final int C_DIGIT					= 1 << 5;
+	static private final int C_HYPHEN					= 1 << 6;
+	static private final int C_PUNCTUATION_PRE		= 1 << 7;
+	static private final int C_APOSTROPHY				= 1 << 8;
+	static private final int C_AMPERSAND				= 1 << 9;
+	static private final int C_PUNCTUATION_POST		= 1 << 10;
+	static private final int C_UNDERSCORE				= 1 << 11;
+	
+	/** Character classes of ASCII characters. */
+	static private final int[] C_TABLE = initCharacterClasses();
+	
+	public EnglishScanTokenizer(ZipInputStream zin)
+	{
+		super(zin);
+	}
+	
+	static private int[] initCharacterClasses()
+	{
+		int[] table = new int[128];
+		
+		setCharacterClass(table, ":@.", C_URL);
+		setCharacterClass(table, ".", C_PERIOD);
+		setCharacterClass(table, ".?!", C_PERIOD_LIKE);
+		setCharacterClass(table, "-*=~,`'", C_MARKER);
+		setCharacterClass(table, "$", C_DOLLAR);
+		setCharacterClass(table, "0123456789", C_DIGIT);
+		setCharacterClass(table, "-", C_HYPHEN);
+		setCharacterClass(table, "()[]{}<>,:;\"", C_PUNCTUATION_PRE);
+		setCharacterClass(table, "'", C_APOSTROPHY);
+		setCharacterClass(table, "&", C_AMPERSAND);
+		setCharacterClass(table, ".?!`'-/@#$%&|", C_PUNCTUATION_POST);
+		setCharacterClass(table, "_", C_UNDERSCORE);
+		
+		return table;
+	}
+	
+	/** Called by {@link EnglishScanTokenizer#initCharacterClasses()}. */
+	static private void setCharacterClass(int[] table, String chars, int cClass)
+	{
+		int i, size = chars.length();
+		
+		for (i=0; i<size; i++)
+			table[chars.charAt(i)] |= cClass;
+	}
+	
+	@Override
+	public List<StringBooleanPair> getTokenList(String str)
+	{
+		List<StringBooleanPair> tokens = new ArrayList<StringBooleanPair>();
+		
+		for (StringBooleanPair token : tokenizeWhiteSpaces(str))
+		{
+			token.b = T_EMOTICONS.contains(token.s);
+			scan(tokens, token, STEP_URL);
+		}
+		
+		return tokens;
+	}
+	
+	/**
+	 * Carries the specific token through the steps starting from the specific step and adds the resulting tokens to the list.
+	 * When a step splits the token, each split token is carried through the rest of the steps in order.
+	 */
+	private void scan(List<StringBooleanPair> tokens, StringBooleanPair token, int step)
+	{
+		int cClass = getCharacterClass(token.s);
+		String s;
+		
+		for (; step < STEP_RECOVER; step++)
+		{
+			if (step == STEP_URL)
+			{
+				if (split(tokens, token, step, R_URL, cClass, C_URL)) return;
+			}
+			else if (step == STEP_ABBREVIATION)
+			{
+				if (split(tokens, token, step, R_ABBREVIATION, cClass, C_PERIOD)) return;
+			}
+			else if (step == STEP_PERIOD_LIKE)
+			{
+				if (split(tokens, token, step, R_PERIOD_LIKE, cClass, C_PERIOD_LIKE)) return;
+			}
+			else if (step == STEP_MARKER)
+			{
+				if (split(tokens, token, step, R_MARKER, cClass, C_MARKER)) return;
+			}
+			else if (step == STEP_USDOLLAR)
+			{
+				if (split(tokens, token, step, R_USDOLLAR, cClass, C_DOLLAR)) return;
+			}
+			else if (step == STEP_D0D)
+			{
+				if (!token.b && (cClass & C_DIGIT) != 0)
+				{
+					s = token.s;
+					for (Replacer r : R_D0D) token.s = r.replace(token.s);
+					if (!s.equals(token.s))	cClass = getCharacterClass(token.s);
+				}
+			}
+			else if (step == STEP_HYPHEN)
+			{
+				if (!token.b && (cClass & C_HYPHEN) != 0 && P_HYPHEN_LIST.matcher(token.s.toLowerCase()).find())
+				{
+					token.s = P_HYPHEN.matcher(token.s).replaceAll(S_HYPHEN);
+					cClass  = getCharacterClass(token.s);
+				}
+			}
+			else if (step == STEP_PUNCTUATION_PRE)
+			{
+				if (split(tokens, token, step, R_PUNCTUATION_PRE, cClass, C_PUNCTUATION_PRE)) return;
+			}
+			else if (step == STEP_PROTECT)
+			{
+				if (protect(tokens, token, step, cClass)) return;
+			}
+			else if (step == STEP_APOSTROPHY)
+			{
+				if (split(tokens, token, step, R_APOSTROPHY, cClass, C_APOSTROPHY)) return;
+			}
+			else if (step == STEP_AMPERSAND)
+			{
+				if (replace(token, R_AMPERSAND, cClass, C_AMPERSAND))	cClass = getCharacterClass(token.s);
+			}
+			else if (step == STEP_WAW)
+			{
+				if (replace(token, R_WAW, cClass, C_APOSTROPHY))	cClass = getCharacterClass(token.s);
+			}
+			else if (step < STEP_TWIT)
+			{
+				if (split(tokens, token, step, R_UNIT[step-STEP_UNIT], cClass, C_DIGIT)) return;
+			}
+			else if (step == STEP_TWIT)
+			{
+				if (b_twit)	protectTwit(token);
+			}
+			else if (step == STEP_PUNCTUATION_POST)
+			{
+				if (split(tokens, token, step, R_PUNCTUATION_POST, cClass, C_PUNCTUATION_POST)) return;
+			}
+		}
+		
+		if ((cClass & C_UNDERSCORE) != 0)
+			recover(token);
+		
+		tokens.add(token);
+	}
+	
+	/**
+	 * Called by {@link EnglishScanTokenizer#scan(List, StringBooleanPair, int)}.
+	 * Splits the specific token by the specific replacer (see {@link EnglishTokenizer#tokenizePatterns(List, Replacer)}).
+	 * @return {@code true} if the split tokens are carried through the rest of the steps; otherwise, {@code false}.
+	 */
+	private boolean split(List<StringBooleanPair> tokens, StringBooleanPair token, int step, Replacer rep, int cClass, int required)
+	{
+		if (token.b || ((cClass & required) == 0 && isPlain(token.s)))
+			return false;
+		
+		String[] split = P_DELIM.split(rep.replace(token.s).trim());
+		
+		if (split.length == 1 && split[0].equals(token.s) && isPlain(token.s))
+			return false;
+		
+		List<StringBooleanPair> sTokens = new ArrayList<StringBooleanPair>(split.length);
+		addSplitTokens(sTokens, token, split);
+		
+		for (StringBooleanPair sToken : sTokens)
+			scan(tokens, sToken, step+1);
+		
+		return true;
+	}
+	
+	/**
+	 * Called by {@link EnglishScanTokenizer#scan(List, StringBooleanPair, int)}.
+	 * @return {@code true} if the specific token is changed by the specific replacer.
+	 */
+	private boolean replace(StringBooleanPair token, Replacer rep, int cClass, int required)
+	{
+		if (token.b || (cClass & required) == 0)
+			return false;
+		
+		String s = token.s;
+		token.s = rep.replace(s);
+		
+		return !s.equals(token.s);
+	}
+	
+	/**
+	 * Called by {@link EnglishScanTokenizer#scan(List, StringBooleanPair, int)}.
+	 * Protects abbreviations and filenames, and splits compounds, using one lowercase form of the specific token.
+	 * @return {@code true} if the compound tokens are carried through the rest of the steps; otherwise, {@code false}.
+	 */
+	private boolean protect(List<StringBooleanPair> tokens, StringBooleanPair token, int step, int cClass)
+	{
+		if (token.b) return false;
+		String lower = token.s.toLowerCase();
+		
+		if (T_ABBREVIATIONS.contains(lower) || ((cClass & C_PERIOD) != 0 && (P_ABBREVIATION.matcher(lower).find() || MPLib.FILE_EXTS.matcher(lower).find())))
+		{
+			token.b = true;
+			return false;
+		}
+		
+		int idx = M_COMPOUNDS.get(lower) - 1;
+		if (idx < 0) return false;
+		
+		for (IntIntPair p : L_COMPOUNDS.get(idx))
+			scan(tokens, new StringBooleanPair(token.s.substring(p.i1, p.i2), true, getOffset(token, p.i1), getOffset(token, p.i2)), step+1);
+		
+		return true;
+	}
+	
+	/** Called by {@link EnglishScanTokenizer#scan(List, StringBooleanPair, int)}. */
+	private void protectTwit(StringBooleanPair token)
+	{
+		char c = token.s.charAt(0);
+		
+		if ((c == '@' || c == '#') && MPLib.isAlnum(token.s.substring(1)))
+			token.b = true;
+	}
+	
+	/** Called by {@link EnglishScanTokenizer#scan(List, StringBooleanPair, int)}. */
+	private void recover(StringBooleanPair token)
+	{
+		int i, size = P_RECOVER_D0D.length;
+		
+		for (i=0; i<size; i++)
+			token.s = recover(token.s, P_RECOVER_D0D[i], A_D0D[i]);
+		
+		token.s = recover(token.s, P_RECOVER_HYPHEN, "-");
+		token.s = recover(token.s, P_RECOVER_APOSTROPHY, "'");
+		token.s = recover(token.s, P_RECOVER_AMPERSAND, "&");
+	}
+	
+	/** Called by {@link EnglishScanTokenizer#recover(StringBooleanPair)}. */
+	private String recover(String s, Pattern p, String replacement)
+	{
+		return p.matcher(s).replaceAll(replacement);
+	}
+	
+	/**
+	 * @return {@code true} if splitting the specific string without any match gives the string itself as an unprotected token
+	 * (see {@link EnglishTokenizer#tokenizePatterns(List, Replacer)}).
+	 */
+	private boolean isPlain(String s)
+	{
+		int len = s.length();
+		return len > 0 && s.charAt(0) > ' ' && s.charAt(len-1) > ' ' && s.indexOf(' ') < 0 && !s.startsWith(S_PROTECTED);
+	}
+	
+	/** @return the union of the character classes of all characters in the specific string. */
+	private int getCharacterClass(String s)
+	{
+		int i, cClass = 0, size = s.length();
+		char c;
+		
+		for (i=0; i<size; i++)
+		{
+			c = s.charAt(i);
+			
+			if (c < 128)
+				cClass |= C_TABLE[c];
+			else if (Character.isDigit(c))
+				cClass |= C_DIGIT;
+		}
+		
+		if ((cClass & C_URL) == 0 && s.contains("www"))
+			cClass |= C_URL;
+		
+		return cClass;
+	}
+}
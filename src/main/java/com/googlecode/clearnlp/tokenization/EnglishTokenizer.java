@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
@@ -59,6 +60,7 @@ public class EnglishTokenizer extends AbstractTokenizer
 	protected final int    N_PROTECTED		= S_PROTECTED.length();
 	
 	protected final Pattern P_DELIM			= Pattern.compile(S_DELIM);
+	protected final Pattern P_CHUNK			= Pattern.compile("\\S+");
 	protected final Pattern P_HYPHEN		= Pattern.compile("-");
 	protected final Pattern P_ABBREVIATION	= Pattern.compile("^(\\p{Alpha}\\.)+\\p{Alpha}?$");
 	protected final String[] A_D0D = {".",",",":","-","/","'"};
@@ -316,13 +318,17 @@ public class EnglishTokenizer extends AbstractTokenizer
 		R_UNIT[3] = new jregex.Pattern("(?i)(\\d)("+units+"\\p{Punct}*)$").replacer(new SubstitutionTwo());
 	}
 	
-	/** Called by {@link EnglishTokenizer#getTokenList(String)}. */
+	/**
+	 * Called by {@link EnglishTokenizer#getTokenList(String)}.
+	 * @return the whitespace-separated tokens in the specific string with their character offsets.
+	 */
 	protected List<StringBooleanPair> tokenizeWhiteSpaces(String str)
 	{
 		List<StringBooleanPair> tokens = new ArrayList<StringBooleanPair>();
+		Matcher m = P_CHUNK.matcher(str);
 		
-		for (String token : MPLib.splitWhiteSpaces(str))
-			tokens.add(new StringBooleanPair(token, false));
+		while (m.find())
+			tokens.add(new StringBooleanPair(m.group(), false, m.start(), m.end()));
 		
 		return tokens;
 	}
@@ -412,7 +418,7 @@ public class EnglishTokenizer extends AbstractTokenizer
 			else
 			{
 				for (IntIntPair p : L_COMPOUNDS.get(idx))
-					nTokens.add(new StringBooleanPair(oToken.s.substring(p.i1, p.i2), true));
+					nTokens.add(new StringBooleanPair(oToken.s.substring(p.i1, p.i2), true, getOffset(oToken, p.i1), getOffset(oToken, p.i2)));
 			}
 		}
 		
@@ -427,24 +433,77 @@ public class EnglishTokenizer extends AbstractTokenizer
 		for (StringBooleanPair oToken : oTokens)
 		{
 			if (oToken.b)	nTokens.add(oToken);
-			else			tokenizePatternsAux(nTokens, rep, oToken.s);
+			else			addSplitTokens(nTokens, oToken, P_DELIM.split(rep.replace(oToken.s).trim()));
 		}
 		
 		return nTokens;
 	}
 	
-	/** Called by {@link EnglishTokenizer#tokenizePatterns(List, Replacer)}. */
-	private void tokenizePatternsAux(List<StringBooleanPair> tokens, Replacer rep, String str)
+	/**
+	 * Called by {@link EnglishTokenizer#tokenizePatterns(List, Replacer)}.
+	 * Adds the specific split forms of the original token to the list as tokens, whose offsets are carried over from the original token.
+	 * The last split token ends where the original token ends.
+	 */
+	protected void addSplitTokens(List<StringBooleanPair> tokens, StringBooleanPair oToken, String[] split)
 	{
-		for (String token : P_DELIM.split(rep.replace(str).trim()))
+		int i, begin = oToken.begin, end, last = split.length - 1;
+		boolean b;
+		String s;
+		
+		for (; last > 0 && split[last].isEmpty(); last--);
+		
+		for (i=0; i<=last; i++)
 		{
-			if (token.startsWith(S_PROTECTED))
-				tokens.add(new StringBooleanPair(token.substring(N_PROTECTED), true));
-			else if (!token.isEmpty())
-				tokens.add(new StringBooleanPair(token, false));
+			s = split[i];
+			if (s.isEmpty())	continue;
+			
+			b = s.startsWith(S_PROTECTED);
+			if (b)	s = s.substring(N_PROTECTED);
+			
+			end = (i == last) ? oToken.end : Math.min(begin + getInputLength(s, 0, s.length()), oToken.end);
+			tokens.add(new StringBooleanPair(s, b, begin, end));
+			begin = end;
 		}
 	}
 	
+	/**
+	 * @return the character offset in the input of the specific index of the token's form if the token has offsets; otherwise, {@code -1}.
+	 * @see EnglishTokenizer#getInputLength(String, int, int)
+	 */
+	protected int getOffset(StringBooleanPair token, int index)
+	{
+		return (token.begin < 0) ? -1 : Math.min(token.begin + getInputLength(token.s, 0, index), token.end);
+	}
+	
+	/**
+	 * @return the number of characters in the input that the specific substring is made from,
+	 * where each placeholder (e.g., {@link EnglishTokenizer#S_HYPHEN}) counts as the one character it replaces.
+	 */
+	protected int getInputLength(String s, int beginIndex, int endIndex)
+	{
+		int len;
+		
+		for (len=0; beginIndex<endIndex; len++)
+			beginIndex += getPlaceholderLength(s, beginIndex);
+		
+		return len;
+	}
+	
+	/** @return the length of the placeholder starting at the specific index of the string if exists; otherwise, {@code 1}. */
+	private int getPlaceholderLength(String s, int index)
+	{
+		if (s.charAt(index) != '_')
+			return 1;
+		
+		if (s.startsWith(S_D0D, index) && s.startsWith("_", index + S_D0D.length() + 1))
+			return S_D0D.length() + 2;
+		
+		if (s.startsWith(S_HYPHEN, index) || s.startsWith(S_AMPERSAND, index) || s.startsWith(S_APOSTROPHY, index))
+			return S_HYPHEN.length();
+		
+		return 1;
+	}
+	
 	private class SubstitutionOne implements Substitution
 	{
 		@Override
@@ -0,0 +1,38 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.tokenization;
+
+/**
+ * Token with its character offsets in the input text.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class Token
+{
+	/** The word-form of this token. */
+	public String form;
+	/** The character offset of the first character of this token in the input (inclusive); {@code -1} if the tokenizer does not keep track of offsets. */
+	public int    begin;
+	/** The character offset after the last character of this token in the input (exclusive); {@code -1} if the tokenizer does not keep track of offsets. */
+	public int    end;
+	
+	public Token(String form, int begin, int end)
+	{
+		this.form  = form;
+		this.begin = begin;
+		this.end   = end;
+	}
+}
@@ -25,9 +25,14 @@ package com.googlecode.clearnlp.util;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.FileInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -98,6 +103,40 @@ public class UTInput
 		return stream;
 	}
 
+	/**
+	 * Maps the specific file into memory as a read-only buffer.
+	 * Pages of the mapped file are shared among processes mapping the same file.
+	 * @param filename the name of the file (must be smaller than 2GB).
+	 * @return the read-only buffer mapping the specific file.
+	 */
+	static public MappedByteBuffer createMappedFileBuffer(String filename) throws IOException
+	{
+		RandomAccessFile file = new RandomAccessFile(filename, "r");
+		
+		try
+		{
+			FileChannel channel = file.getChannel();
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+		finally
+		{
+			file.close();
+		}
+	}
+	
+	/** @return all remaining bytes of the specific stream. */
+	static public byte[] toByteArray(InputStream stream) throws IOException
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		byte[] buffer = new byte[65536];
+		int len;
+		
+		while ((len = stream.read(buffer)) >= 0)
+			out.write(buffer, 0, len);
+		
+		return out.toByteArray();
+	}
+	
 	static public Set<String> getStringSet(BufferedReader fin) throws Exception
 	{
 		Set<String> set = new HashSet<String>();
@@ -51,6 +51,20 @@ public class Prob1DMap extends ObjectIntHashMap<String>
 			add(s);
 	}
 	
+	/** Adds all counts in the specific map (e.g., collected from a different file) to this map. */
+	public void addAll(Prob1DMap map)
+	{
+		String key;
+		
+		for (ObjectCursor<String> cur : map.keys())
+		{
+			key = cur.value;
+			put(key, get(key)+map.get(key));
+		}
+		
+		i_total += map.i_total;
+	}
+	
 	public double getProb(String key)
 	{
 		return (double)get(key) / i_total;
@@ -61,6 +61,32 @@ public class Prob2DMap extends HashMap<String,ObjectIntHashMap<String>>
 		i_total++;
 	}
 	
+	/** Adds all counts in the specific map (e.g., collected from a different file) to this map. */
+	public void addAll(Prob2DMap map)
+	{
+		ObjectIntHashMap<String> src, dst;
+		String value;
+		
+		for (String key : map.keySet())
+		{
+			src = map.get(key);
+			
+			if ((dst = get(key)) == null)
+			{
+				dst = new ObjectIntHashMap<String>();
+				put(key, dst);
+			}
+			
+			for (ObjectCursor<String> cur : src.keys())
+			{
+				value = cur.value;
+				dst.put(value, dst.get(value)+src.get(value));
+			}
+		}
+		
+		i_total += map.i_total;
+	}
+	
 	public int getTotal1D(String key)
 	{
 		return containsKey(key) ? get(key).get(TOTAL) : 0;
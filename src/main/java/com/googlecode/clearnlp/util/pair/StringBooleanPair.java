@@ -19,10 +19,19 @@ public class StringBooleanPair
 {
 	public String  s;
 	public boolean b;
+	/** The character offsets of {@link StringBooleanPair#s} in its source, if any (e.g., the input of a tokenizer); otherwise, {@code -1}. */
+	public int     begin, end;
 	
 	public StringBooleanPair(String s, boolean b)
+	{
+		this(s, b, -1, -1);
+	}
+	
+	public StringBooleanPair(String s, boolean b, int begin, int end)
 	{
 		set(s, b);
+		this.begin = begin;
+		this.end   = end;
 	}
 	
 	public void set(String s, boolean b)
@@ -0,0 +1,183 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.algorithm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
+import com.googlecode.clearnlp.classification.train.InstanceView;
+import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class AdaGradTest
+{
+	@Test
+	public void testSequential()
+	{
+		AbstractTrainSpace space = getTrainSpace();
+		
+		AdaGrad ag = new AdaGrad(3, 0.01, 0.1, new Random(5));
+		double[] w1 = ag.getWeight(space, 1);
+		
+		ag = new AdaGrad(3, 0.01, 0.1, new Random(5));
+		double[] w4 = ag.getWeight(space, 4);
+		
+		assertArrayEquals(w1, w4, 0);
+		assertTrue(getAccuracy(space, w1) > 0.9);
+	}
+	
+	@Test
+	public void testReproducible()
+	{
+		AbstractTrainSpace space = getTrainSpace();
+		AbstractAdaGrad<?> ag;
+		double[] w1;
+		
+		ag = new AdaGrad(3, 0.01, 0.1, new Random(5));
+		ag.setParallel(true, true);
+		w1 = ag.getWeight(space, 1);
+		assertTrue(getAccuracy(space, w1) > 0.9);
+		
+		for (int numThreads : new int[]{2, 3, 4})
+		{
+			ag = new AdaGrad(3, 0.01, 0.1, new Random(5));
+			ag.setParallel(true, true);
+			assertArrayEquals(w1, ag.getWeight(space, numThreads), 0);
+		}
+		
+		ag = new AdaGradLR(3, 0.01, 0.1, new Random(5));
+		ag.setParallel(true, true);
+		w1 = ag.getWeight(space, 1);
+		assertTrue(getAccuracy(space, w1) > 0.9);
+
+		ag = new AdaGradLR(3, 0.01, 0.1, new Random(5));
+		ag.setParallel(true, true);
+		assertArrayEquals(w1, ag.getWeight(space, 3), 0);
+	}
+	
+	@Test
+	public void testHogwild()
+	{
+		AbstractTrainSpace space = getTrainSpace();
+		AbstractAdaGrad<?> ag;
+		
+		ag = new AdaGrad(3, 0.01, 0.1, new Random(5));
+		ag.setParallel(true, false);
+		assertTrue(getAccuracy(space, ag.getWeight(space, 4)) > 0.9);
+		
+		ag = new AdaGradLR(3, 0.01, 0.1, new Random(5));
+		ag.setParallel(true, false);
+		assertTrue(getAccuracy(space, ag.getWeight(space, 4)) > 0.9);
+	}
+	
+	@Test
+	public void testWorkerFailure()
+	{
+		AbstractTrainSpace space = getTrainSpace(new StringTrainSpace(false, 0, 0)
+		{
+			@Override
+			public InstanceView getInstance(int index, InstanceView view)
+			{
+				if (index == 100)	throw new IllegalArgumentException("instance "+index);
+				return super.getInstance(index, view);
+			}
+		});
+		
+		for (boolean reproducible : new boolean[]{true, false})
+		{
+			AbstractAdaGrad<?> ag = new AdaGrad(3, 0.01, 0.1, new Random(5));
+			boolean thrown = false;
+			ag.setParallel(true, reproducible);
+			
+			try
+			{
+				ag.getWeight(space, 2);
+			}
+			catch (IllegalArgumentException e)
+			{
+				assertEquals("instance 100", e.getMessage());
+				thrown = true;
+			}
+			
+			assertEquals(true, thrown);
+		}
+	}
+	
+	private AbstractTrainSpace getTrainSpace()
+	{
+		return getTrainSpace(new StringTrainSpace(false, 0, 0));
+	}
+	
+	/** Each instance has two features indicating its label and two noisy features. */
+	private AbstractTrainSpace getTrainSpace(StringTrainSpace space)
+	{
+		Random rand = new Random(0);
+		StringFeatureVector vector;
+		int i, label;
+		
+		for (i=0; i<3000; i++)
+		{
+			label  = rand.nextInt(3);
+			vector = new StringFeatureVector();
+			
+			vector.addFeature("l", Integer.toString(label));
+			vector.addFeature("m", Integer.toString(label * 10 + rand.nextInt(5)));
+			vector.addFeature("n", Integer.toString(rand.nextInt(50)));
+			vector.addFeature("o", Integer.toString(rand.nextInt(50)));
+			
+			space.addInstance(Integer.toString(label), vector);
+		}
+		
+		space.build();
+		return space;
+	}
+	
+	private double getAccuracy(AbstractTrainSpace space, double[] weights)
+	{
+		IntArrayList     ys = space.getYs();
+		List<int[]>      xs = space.getXs();
+		int i, j, label, max, L = space.getLabelSize(), N = space.getInstanceSize(), correct = 0;
+		double[] scores;
+		
+		for (i=0; i<N; i++)
+		{
+			scores = new double[L];
+			
+			for (int x : xs.get(i))
+				for (label=0; label<L; label++)
+					scores[label] += weights[x * L + label];
+			
+			for (max=0, j=1; j<L; j++)
+				if (scores[max] < scores[j])	max = j;
+			
+			if (max == ys.get(i))	correct++;
+		}
+		
+		return (double)correct / N;
+	}
+}
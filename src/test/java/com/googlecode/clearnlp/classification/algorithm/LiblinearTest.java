@@ -0,0 +1,165 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.algorithm;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.googlecode.clearnlp.classification.train.AbstractTrainSpace;
+import com.googlecode.clearnlp.classification.train.StringTrainSpace;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class LiblinearTest
+{
+	@Test
+	public void testParallelBinary()
+	{
+		AbstractTrainSpace space = getTrainSpace();
+		AbstractAlgorithm algorithm;
+		double[] w1, w4;
+		
+		for (byte lossType=1; lossType<=2; lossType++)
+		{
+			algorithm = new LiblinearL2SV(lossType, 0.1, 0.1, -1);
+			w1 = algorithm.getWeight(space, 0);
+			assertArrayEquals(w1, algorithm.getWeight(space, 0, 1), 0);
+			
+			w4 = algorithm.getWeight(space, 0, 4);
+			assertEquals(getObjective(space, w1, lossType), getObjective(space, w4, lossType), 0.01 * getObjective(space, w1, lossType));
+		}
+		
+		algorithm = new LiblinearL2LR(0.1, 0.1, -1);
+		w1 = algorithm.getWeight(space, 0);
+		assertArrayEquals(w1, algorithm.getWeight(space, 0, 1), 0);
+		
+		w4 = algorithm.getWeight(space, 0, 4);
+		assertEquals(getObjective(space, w1, 0), getObjective(space, w4, 0), 0.01 * getObjective(space, w1, 0));
+	}
+	
+	@Test
+	public void testInvokeAll()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		List<Callable<Integer>> tasks = new ArrayList<Callable<Integer>>();
+		boolean thrown = false;
+		
+		for (int i=0; i<3; i++)
+		{
+			final int n = i;
+			
+			tasks.add(new Callable<Integer>()
+			{
+				@Override
+				public Integer call()
+				{
+					return n;
+				}
+			});
+		}
+		
+		assertEquals("[0, 1, 2]", AbstractAlgorithm.invokeAll(executor, tasks).toString());
+		
+		tasks.add(new Callable<Integer>()
+		{
+			@Override
+			public Integer call()
+			{
+				throw new IllegalArgumentException("failed");
+			}
+		});
+		
+		try
+		{
+			AbstractAlgorithm.invokeAll(executor, tasks);
+		}
+		catch (IllegalArgumentException e)
+		{
+			assertEquals("failed", e.getMessage());
+			thrown = true;
+		}
+		finally
+		{
+			executor.shutdown();
+		}
+		
+		assertEquals(true, thrown);
+	}
+	
+	private AbstractTrainSpace getTrainSpace()
+	{
+		StringTrainSpace space = new StringTrainSpace(false, 0, 0);
+		Random rand = new Random(0);
+		StringFeatureVector vector;
+		int i, j, label;
+		
+		for (i=0; i<5000; i++)
+		{
+			label  = rand.nextInt(2);
+			vector = new StringFeatureVector();
+			
+			for (j=0; j<10; j++)
+				vector.addFeature("f"+j, Integer.toString((rand.nextInt(10) < 7) ? label * 50 + rand.nextInt(50) : rand.nextInt(100)));
+			
+			space.addInstance(Integer.toString(label), vector);
+		}
+		
+		space.build();
+		return space;
+	}
+	
+	/** @param lossType 1 or 2 for the L1 or L2-loss of support vector classification; 0 for logistic regression. */
+	private double getObjective(AbstractTrainSpace space, double[] weight, int lossType)
+	{
+		IntArrayList ys = space.getYs();
+		List<int[]>  xs = space.getXs();
+		double score, loss, obj = 0;
+		int i, y;
+		
+		for (double w : weight)
+			obj += w * w;
+		
+		obj *= 0.5;
+		
+		for (i=space.getInstanceSize()-1; i>=0; i--)
+		{
+			y = (ys.get(i) == 0) ? 1 : -1;
+			score = 0;
+			
+			for (int x : xs.get(i))
+				score += weight[x];
+			
+			loss = (lossType == 0) ? Math.log(1 + Math.exp(-y * score)) : Math.max(0, 1 - y * score);
+			if (lossType == 2)	loss *= loss;
+			obj += 0.1 * loss;
+		}
+		
+		return obj;
+	}
+}
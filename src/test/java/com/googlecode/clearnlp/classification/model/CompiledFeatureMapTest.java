@@ -0,0 +1,67 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.ObjectIntHashMap;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class CompiledFeatureMapTest
+{
+	@Test
+	public void testCompiledFeatureMap()
+	{
+		ObjectIntHashMap<String> map = new ObjectIntHashMap<String>();
+		String[] values = {"NN", "NN_VB", "NN_VB_DT", "_VB", "N_N", "NNS"};
+		int i;
+		
+		for (i=0; i<values.length; i++)
+			map.put(values[i], i+1);
+		
+		CompiledFeatureMap cmap = new CompiledFeatureMap(map);
+		
+		for (i=0; i<values.length; i++)
+			assertEquals(i+1, cmap.get(values[i]));
+		
+		assertEquals(0, cmap.get("VB"));
+		assertEquals(0, cmap.get(""));
+		
+		assertEquals(1, cmap.get(new String[]{"NN"}, 1, "_"));
+		assertEquals(2, cmap.get(new String[]{"NN", "VB"}, 2, "_"));
+		assertEquals(3, cmap.get(new String[]{"NN", "VB", "DT"}, 3, "_"));
+		assertEquals(2, cmap.get(new String[]{"NN", "VB", "DT"}, 2, "_"));
+		assertEquals(4, cmap.get(new String[]{"", "VB"}, 2, "_"));
+		assertEquals(5, cmap.get(new String[]{"N", "N"}, 2, "_"));
+		
+		assertEquals(0, cmap.get(new String[]{"NN", "DT"}, 2, "_"));
+		assertEquals(3, cmap.get(new String[]{"NN", "VB_DT"}, 2, "_"));
+		assertEquals(0, cmap.get(new String[]{"NNV", "B"}, 2, "_"));
+		assertEquals(0, cmap.get(new String[]{"NN", "VB", ""}, 3, "_"));
+		
+		assertEquals(values.length, cmap.size());
+		ObjectIntHashMap<String> copy = cmap.toMap();
+		assertEquals(values.length, copy.size());
+		
+		for (i=0; i<values.length; i++)
+			assertEquals(i+1, copy.get(values[i]));
+	}
+}
@@ -0,0 +1,106 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DoubleWeightVectorTest
+{
+	@Test
+	public void testAddScores()
+	{
+		int i, k, size, labels = 7, features = 50;
+		Random rand = new Random(0);
+		double[] w = new double[labels * features];
+		DoubleWeightVector weights = new DoubleWeightVector(w);
+		double[] gold, auto;
+		int[]    indices;
+		double[] values;
+		double   score;
+		
+		for (i=0; i<w.length; i++)
+			w[i] = rand.nextGaussian();
+		
+		for (size=0; size<10; size++)
+		{
+			indices = new int[size];
+			values  = new double[size];
+			
+			for (k=0; k<size; k++)
+			{
+				indices[k] = rand.nextInt(features);
+				values [k] = rand.nextGaussian();
+			}
+			
+			// multi-classification without and with feature values
+			gold = new double[labels];
+			auto = new double[labels];
+			for (k=0; k<size; k++)	weights.addScores(gold, indices[k] * labels, labels);
+			weights.addScores(auto, indices, size, labels);
+			assertArrayEquals(gold, auto, 0);
+			
+			gold = new double[labels];
+			auto = new double[labels];
+			for (k=0; k<size; k++)	weights.addScores(gold, indices[k] * labels, labels, values[k]);
+			weights.addScores(auto, indices, values, size, labels);
+			assertArrayEquals(gold, auto, 0);
+			
+			// binary classification without and with feature values
+			score = 1;
+			for (k=0; k<size; k++)	score += w[indices[k]];
+			assertEquals(score, weights.addScore(1, indices, size), 0);
+			
+			score = 1;
+			for (k=0; k<size; k++)	score += w[indices[k]] * values[k];
+			assertEquals(score, weights.addScore(1, indices, values, size), 0);
+		}
+	}
+	
+	@Test
+	public void testOutOfRange()
+	{
+		SparseModel model = new SparseModel();
+		SparseFeatureVector x = new SparseFeatureVector();
+		
+		model.addLabel("A");
+		model.addLabel("B");
+		model.addLabel("C");
+		model.initLabelArray();
+		model.addFeatures(new int[]{1, 2, 3});
+		model.initWeightVector();
+		
+		double[] weights = model.getWeights();
+		for (int i=0; i<weights.length; i++)	weights[i] = i;
+		
+		x.addFeature(1);
+		x.addFeature(7);
+		x.addFeature(3);
+		
+		assertEquals(false, model.isRange(x));
+		assertArrayEquals(new double[]{12, 15, 18}, model.getScores(x), 0);
+	}
+}
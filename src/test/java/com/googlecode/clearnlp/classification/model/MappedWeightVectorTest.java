@@ -0,0 +1,92 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class MappedWeightVectorTest
+{
+	@Test
+	public void testSegments()
+	{
+		int i, k, labels = 3, features = 7;
+		Random rand = new Random(0);
+		double[] w = new double[labels * features];
+		
+		for (i=0; i<w.length; i++)
+			w[i] = (float)rand.nextGaussian();
+		
+		DoubleBuffer[] doubles = new DoubleBuffer[(w.length + 3) / 4];
+		FloatBuffer [] floats  = new FloatBuffer [doubles.length];
+		
+		for (k=0; k<doubles.length; k++)
+		{
+			doubles[k] = DoubleBuffer.allocate(Math.min(4, w.length - k*4));
+			floats [k] = FloatBuffer .allocate(doubles[k].limit());
+			
+			for (i=0; i<doubles[k].limit(); i++)
+			{
+				doubles[k].put(i, w[k*4+i]);
+				floats [k].put(i, (float)w[k*4+i]);
+			}
+		}
+		
+		testSegmentsAux(new DoubleWeightVector(w), new MappedWeightVector(doubles), labels, features);
+		testSegmentsAux(new DoubleWeightVector(w), new FloatWeightVector(floats), labels, features);
+	}
+	
+	private void testSegmentsAux(AbstractWeightVector gold, AbstractWeightVector auto, int labels, int features)
+	{
+		int i;
+		
+		assertEquals(gold.size(), auto.size());
+		
+		for (i=0; i<gold.size(); i++)
+			assertEquals(gold.get(i), auto.get(i), 0);
+		
+		for (i=0; i<features; i++)
+		{
+			double[] g = new double[labels], a = new double[labels];
+			gold.addScores(g, i * labels, labels, 0.5);
+			auto.addScores(a, i * labels, labels, 0.5);
+			assertArrayEquals(g, a, 0);
+		}
+	}
+	
+	@Test
+	public void testUnevenSegments()
+	{
+		boolean thrown = false;
+		
+		try
+		{
+			new MappedWeightVector(new DoubleBuffer[]{DoubleBuffer.allocate(3), DoubleBuffer.allocate(3)});
+		}
+		catch (IllegalArgumentException e) {thrown = true;}
+		
+		assertEquals(true, thrown);
+	}
+}
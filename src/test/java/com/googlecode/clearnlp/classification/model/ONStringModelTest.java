@@ -0,0 +1,79 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.model;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringReader;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class ONStringModelTest
+{
+	@Test
+	public void testONStringModelGrowth()
+	{
+		ONStringModel model = new ONStringModel(0.01, 0.1);
+		int i, j, labels = 20, features = 100;
+		StringFeatureVector[] vectors = new StringFeatureVector[labels];
+		
+		// labels and features keep arriving after the initial capacities are exceeded
+		for (i=0; i<labels; i++)
+		{
+			vectors[i] = new StringFeatureVector();
+			
+			for (j=0; j<features; j++)
+				vectors[i].addFeature("0", "F"+i+"_"+j);
+		}
+		
+		for (j=0; j<5; j++)
+			for (i=0; i<labels; i++)
+				model.updateWeights("L"+i, vectors[i]);
+		
+		assertEquals(labels, model.getLabelSize());
+		assertEquals(labels*features+1, model.getFeatureSize());
+		
+		for (i=0; i<labels; i++)
+			assertEquals("L"+i, model.predictBest(vectors[i]).label);
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		model.save(new PrintStream(out));
+		ONStringModel copy = new ONStringModel(new BufferedReader(new StringReader(out.toString())), 0.01, 0.1);
+		
+		for (i=0; i<labels; i++)
+			assertArrayEquals(model.getScores(model.toSparseFeatureVector(vectors[i])), copy.getScores(copy.toSparseFeatureVector(vectors[i])), 0);
+		
+		// a loaded model keeps learning new labels
+		StringFeatureVector vector = new StringFeatureVector();
+		vector.addFeature("1", "G");
+		
+		for (j=0; j<5; j++)
+			copy.updateWeights("M", vector);
+		
+		assertEquals(labels+1, copy.getLabelSize());
+		assertEquals("M", copy.predictBest(vector).label);
+	}
+}
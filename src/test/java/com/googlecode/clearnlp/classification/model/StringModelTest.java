@@ -23,18 +23,25 @@
 */
 package com.googlecode.clearnlp.classification.model;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.PrintStream;
+import java.io.RandomAccessFile;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 import java.util.List;
 
 import org.junit.Test;
 
 import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
 import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.prediction.PredictionBuffer;
 import com.googlecode.clearnlp.classification.prediction.StringPrediction;
 import com.googlecode.clearnlp.classification.vector.SparseFeatureVector;
 import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
@@ -44,7 +51,7 @@ import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
 public class StringModelTest
 {
 	@Test
-	public void testStringModelMultiClassification()
+	public void testStringModelMultiClassification() throws Exception
 	{
 		StringModel model    = new StringModel();
 		String[]    labels   = {"A", "B", "C"};
@@ -83,6 +90,101 @@ public class StringModelTest
 		
 		model = new StringModel(new BufferedReader(new StringReader(out.toString())));
 		testStringModelMultiClassificationAux(model);
+		
+		out = new ByteArrayOutputStream();
+		model.saveBinary(new DataOutputStream(out));
+		byte[] bytes = out.toByteArray();
+		assertEquals(true, StringModel.isBinary(bytes));
+		
+		model = new StringModel(ByteBuffer.wrap(bytes));
+		testStringModelMultiClassificationAux(model);
+		
+		ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+		direct.put(bytes).flip();
+		model = new StringModel(direct);
+		testStringModelMultiClassificationAux(model);
+		
+		File file = File.createTempFile("model", ".bin");
+		file.deleteOnExit();
+		FileOutputStream fout = new FileOutputStream(file);
+		fout.write(bytes);
+		fout.close();
+		
+		RandomAccessFile fin = new RandomAccessFile(file, "r");
+		model = new StringModel(fin.getChannel());
+		fin.close();
+		testStringModelMultiClassificationAux(model);
+		
+		model.compileFeatures();
+		assertEquals(true, model.isCompiled());
+		assertEquals(3, model.getCompiledFeatureMap("2").size());
+		assertEquals(6, model.getCompiledFeatureMap("2").get(new String[]{"F2", "2"}, 2, ""));
+		assertEquals(-1, model.getFeatureIndex("1", "F00"));
+		testStringModelMultiClassificationAux(model);
+		
+		out = new ByteArrayOutputStream();
+		model.saveBinary(new DataOutputStream(out));
+		assertEquals(bytes.length, out.size());
+		testStringModelMultiClassificationAux(new StringModel(ByteBuffer.wrap(out.toByteArray())));
+	}
+	
+	@Test
+	public void testStringModelWeightTypes()
+	{
+		StringModel model = new StringModel();
+		String[] labels = {"A", "B", "C"};
+		
+		for (String label : labels)
+			model.addLabel(label);
+		
+		model.initLabelArray();
+		
+		for (int i=0; i<4; i++)
+			model.addFeature("0", "F"+i);
+		
+		double[][] weights = {{0.5,1,-2,0.25,0},{-1,3,0.75,-0.5,1},{0,-0.125,1,2,-4}};
+		model.initWeightVector();
+		
+		for (int i=0; i<weights.length; i++)
+			model.copyWeightVector(i, weights[i]);
+		
+		StringFeatureVector vector = new StringFeatureVector();
+		vector.addFeature("0", "F0");
+		vector.addFeature("0", "F2");
+		
+		double[] gold = model.getScores(model.toSparseFeatureVector(vector));
+		
+		for (byte type : new byte[]{AbstractWeightVector.TYPE_FLOAT, AbstractWeightVector.TYPE_INT8})
+		{
+			model.setWeightType(type);
+			assertEquals(type, model.getWeightType());
+			assertEquals(null, model.getWeights());
+			testStringModelWeightTypesAux(model, vector, gold, (type == AbstractWeightVector.TYPE_FLOAT) ? 1e-6 : 0.05);
+			
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			model.saveBinary(new DataOutputStream(out));
+			byte[] bytes = out.toByteArray();
+			
+			StringModel heap = new StringModel(ByteBuffer.wrap(bytes));
+			assertEquals(type, heap.getWeightType());
+			testStringModelWeightTypesAux(heap, vector, gold, (type == AbstractWeightVector.TYPE_FLOAT) ? 1e-6 : 0.05);
+			
+			ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+			direct.put(bytes).flip();
+			testStringModelWeightTypesAux(new StringModel(direct), vector, gold, (type == AbstractWeightVector.TYPE_FLOAT) ? 1e-6 : 0.05);
+			
+			model.setWeightType(AbstractWeightVector.TYPE_DOUBLE);
+		}
+	}
+	
+	private void testStringModelWeightTypesAux(StringModel model, StringFeatureVector vector, double[] gold, double delta)
+	{
+		double[] scores = model.getScores(model.toSparseFeatureVector(vector));
+		
+		for (int i=0; i<gold.length; i++)
+			assertEquals(gold[i], scores[i], delta);
+		
+		assertEquals("C", model.predictBest(vector).label);
 	}
 	
 	private void testStringModelMultiClassificationAux(StringModel model)
@@ -113,6 +215,24 @@ public class StringModelTest
 		assertEquals("A", p.label);
 		assertEquals(true, p.score == 1.101011);
 		
+		PredictionBuffer buffer = new PredictionBuffer(1);
+		assertEquals(1, model.predictBest(vector, buffer));
+		
+		model.predictTop(vector, buffer, 3);
+		assertEquals(3, buffer.size());
+		
+		for (int i=0; i<list.size(); i++)
+		{
+			assertEquals(list.get(i).label, model.getLabel(buffer.getLabel(i)));
+			assertEquals(true, list.get(i).score == buffer.getScore(i));
+		}
+		
+		double[] scores = buffer.init(3);
+		scores[0] = 1000;	scores[1] = 999;	scores[2] = -1000;
+		buffer.normalize();
+		assertEquals(true, Math.abs(scores[0] - 1/(1+Math.exp(-1))) < 1e-12);
+		assertEquals(true, Math.abs(scores[0] + scores[1] + scores[2] - 1) < 1e-12);
+		
 		vector = new StringFeatureVector(true);
 		
 		vector.addFeature("0", "F00", 1);
@@ -181,4 +301,85 @@ public class StringModelTest
 		assertEquals("A", p.label);
 		assertEquals(true, 1.102034 == p.score);
 	}
+	
+	@Test
+	public void testStringModelHashed()
+	{
+		StringModel model = new StringModel();
+		
+		model.addLabel("A");
+		model.addLabel("B");
+		model.addLabel("C");
+		model.initLabelArray();
+		model.setHashBits(4);
+		model.addFeature("0", "F00");
+		
+		assertEquals(true, model.isHashed());
+		assertEquals(17, model.getFeatureSize());
+		assertEquals(StringModel.getHashIndex("0", "F00", 4), model.getFeatureIndex("0", "F00"));
+		
+		for (String[] feature : new String[][]{{"0","F00"},{"1","F10"},{"2","F22"},{"3",""}})
+		{
+			int index = model.getFeatureIndex(feature[0], feature[1]);
+			assertEquals(true, 1 <= index && index <= 16);
+		}
+		
+		model.initWeightVector();
+		double[] weights = model.getWeights();
+		for (int i=0; i<weights.length; i++)	weights[i] = i;
+		
+		StringFeatureVector vector = new StringFeatureVector();
+		vector.addFeature("0", "F00");
+		vector.addFeature("2", "F22");
+		double[] gold = model.getScores(model.toSparseFeatureVector(vector));
+		
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		model.save(new PrintStream(out));
+		model = new StringModel(new BufferedReader(new StringReader(out.toString())));
+		assertEquals(4, model.getHashBits());
+		assertArrayEquals(gold, model.getScores(model.toSparseFeatureVector(vector)), 0);
+		
+		out = new ByteArrayOutputStream();
+		model.saveBinary(new DataOutputStream(out));
+		model = new StringModel(ByteBuffer.wrap(out.toByteArray()));
+		assertEquals(4, model.getHashBits());
+		model.compileFeatures();
+		assertEquals(false, model.isCompiled());
+		assertEquals(null, model.getCompiledFeatureMap("0"));
+		assertArrayEquals(gold, model.getScores(model.toSparseFeatureVector(vector)), 0);
+	}
+	
+	@Test
+	public void testStringModelHashedOverflow()
+	{
+		StringModel model = new StringModel();
+		boolean thrown = false;
+		
+		model.addLabel("A");
+		model.addLabel("B");
+		model.addLabel("C");
+		model.initLabelArray();
+		
+		try
+		{
+			model.setHashBits(30);
+		}
+		catch (IllegalArgumentException e) {thrown = true;}
+		
+		assertEquals(true, thrown);
+		assertEquals(0, model.getHashBits());
+		
+		model.setHashBits(29);
+		model.addLabel("D");
+		model.initLabelArray();
+		thrown = false;
+		
+		try
+		{
+			model.initWeightVector();
+		}
+		catch (IllegalArgumentException e) {thrown = true;}
+		
+		assertEquals(true, thrown);
+	}
 }
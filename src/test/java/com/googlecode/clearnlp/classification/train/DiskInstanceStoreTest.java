@@ -0,0 +1,215 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DiskInstanceStoreTest
+{
+	@Test
+	public void testDiskInstanceStore() throws Exception
+	{
+		File dir = getTempDir();
+		DiskInstanceStore store = new DiskInstanceStore(dir, true, 32);
+		
+		store.addInstance(1, new int[]{1, 2, 3}, new double[]{0.1, 0.2, 0.3});
+		store.addInstance(2, new int[]{3, 4}, new double[]{0.3, 0.4});
+		store.addInstance(1, new int[]{}, new double[]{});
+		store.addInstance(3, new int[]{1, 4}, new double[]{0.1, 0.4});
+		
+		DiskInstanceStore other = new DiskInstanceStore(dir, true, 32);
+		other.addInstance(1, new int[]{1, 2}, new double[]{0.5, 0.6});
+		store.appendStore(other, new int[]{0, 2}, new int[]{0, 4, 1});
+		
+		int[] labels   = {-1, 0, 1, -1};
+		int[] features = {-1, 10, -1, 30, 40};
+		IntArrayList ys = new IntArrayList();
+		
+		store.build(labels, features, ys, true);
+		assertEquals(2, dir.list().length);
+		
+		List<int[]>    xs = store.getXs();
+		List<double[]> vs = store.getVs();
+		
+		assertArrayEquals(new int[]{0, 1, 0, 1}, ys.toArray());
+		assertEquals(4, xs.size());
+		assertArrayEquals(new int[]{10, 30}, xs.get(0));
+		assertArrayEquals(new int[]{30, 40}, xs.get(1));
+		assertArrayEquals(new int[]{}, xs.get(2));
+		assertArrayEquals(new int[]{40, 10}, xs.get(3));
+		assertArrayEquals(new double[]{0.1, 0.3}, vs.get(0), 0);
+		assertArrayEquals(new double[]{0.5, 0.6}, vs.get(3), 0);
+		
+		InstanceView view = new InstanceView();
+		store.getInstance(1, view);
+		int[] x = view.x;
+		
+		assertEquals(2, view.size);
+		assertEquals(30, x[0]);
+		assertEquals(40, x[1]);
+		assertEquals(0.4, view.v[1], 0);
+		
+		store.getInstance(2, view);
+		assertEquals(0, view.size);
+		assertSame(x, view.x);
+		
+		store.getInstance(3, view);
+		assertEquals(2, view.size);
+		assertSame(x, view.x);
+		assertEquals(40, x[0]);
+		assertEquals(0.6, view.v[1], 0);
+		
+		store.clear();
+		assertEquals(0, dir.list().length);
+		dir.delete();
+	}
+	
+	@Test
+	public void testStringTrainSpace() throws Exception
+	{
+		File dir = getTempDir();
+		
+		for (boolean hasWeight : new boolean[]{false, true})
+		{
+			StringTrainSpace mSpace = new StringTrainSpace(hasWeight, 1, 1);
+			StringTrainSpace dSpace = new StringTrainSpace(hasWeight, 1, 1, dir);
+			Random rand = new Random(0);
+			int i;
+			
+			for (i=0; i<3; i++)
+			{
+				StringTrainSpace mPart = new StringTrainSpace(hasWeight, 1, 1);
+				StringTrainSpace dPart = new StringTrainSpace(hasWeight, 1, 1, dir);
+				addInstances(rand, hasWeight, mPart, dPart);
+				
+				mSpace.appendSpace(mPart);	mPart.clear();
+				dSpace.appendSpace(dPart);	dPart.clear();
+			}
+			
+			addInstances(rand, hasWeight, mSpace, dSpace);
+			mSpace.build();
+			dSpace.build();
+			
+			assertArrayEquals(mSpace.getYs().toArray(), dSpace.getYs().toArray());
+			assertEquals(mSpace.getXs().size(), dSpace.getXs().size());
+			
+			InstanceView mView = new InstanceView();
+			InstanceView dView = new InstanceView();
+			int j;
+			
+			for (i=mSpace.getInstanceSize()-1; i>=0; i--)
+			{
+				assertArrayEquals(mSpace.getXs().get(i), dSpace.getXs().get(i));
+				if (hasWeight)	assertArrayEquals(mSpace.getVs().get(i), dSpace.getVs().get(i), 0);
+				
+				mSpace.getInstance(i, mView);
+				dSpace.getInstance(i, dView);
+				assertEquals(mView.size, dView.size);
+				assertEquals(hasWeight, dView.v != null);
+				
+				for (j=0; j<mView.size; j++)
+				{
+					assertEquals(mView.x[j], dView.x[j]);
+					if (hasWeight)	assertEquals(mView.v[j], dView.v[j], 0);
+				}
+			}
+			
+			dSpace.clear();
+		}
+		
+		assertEquals(0, dir.list().length);
+		dir.delete();
+	}
+	
+	private void addInstances(Random rand, boolean hasWeight, StringTrainSpace mSpace, StringTrainSpace dSpace)
+	{
+		StringFeatureVector vector;
+		String label;
+		int i, j;
+		
+		for (i=0; i<500; i++)
+		{
+			label  = Integer.toString(rand.nextInt(6));
+			vector = new StringFeatureVector(hasWeight);
+			
+			for (j=rand.nextInt(5); j>=0; j--)
+			{
+				if (hasWeight)	vector.addFeature("t"+rand.nextInt(3), Integer.toString(rand.nextInt(40)), rand.nextDouble());
+				else			vector.addFeature("t"+rand.nextInt(3), Integer.toString(rand.nextInt(40)));
+			}
+			
+			mSpace.addInstance(label, vector);
+			dSpace.addInstance(label, vector);
+		}
+	}
+	
+	@Test
+	public void testIOException() throws Exception
+	{
+		File dir = getTempDir();
+		DiskInstanceStore store = new DiskInstanceStore(new File(dir, "missing"), false);
+		boolean thrown = false;
+		
+		try
+		{
+			store.addInstance(1, new int[]{1}, null);
+		}
+		catch (RuntimeException e) {thrown = true;}
+		
+		assertEquals(true, thrown);
+		
+		store = new DiskInstanceStore(dir, false);
+		store.addInstance(1, new int[]{1}, null);
+		store.addInstance(2, new int[]{2}, null);
+		thrown = false;
+		
+		for (File file : dir.listFiles())
+			file.delete();
+		
+		try
+		{
+			store.build(new int[]{-1, 0, 1}, null, new IntArrayList(), true);
+		}
+		catch (RuntimeException e) {thrown = true;}
+		
+		assertEquals(true, thrown);
+		dir.delete();
+	}
+	
+	private File getTempDir() throws Exception
+	{
+		File dir = File.createTempFile("store", "");
+		dir.delete();
+		dir.mkdir();
+		
+		return dir;
+	}
+}
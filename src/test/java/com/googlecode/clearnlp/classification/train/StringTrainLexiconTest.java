@@ -0,0 +1,145 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class StringTrainLexiconTest
+{
+	@Test
+	public void testStringTrainLexicon()
+	{
+		StringTrainLexicon lexicon = new StringTrainLexicon();
+		
+		assertEquals(1, lexicon.addLabel("A"));
+		assertEquals(2, lexicon.addLabel("B"));
+		assertEquals(1, lexicon.addLabel("A"));
+		assertEquals(1, lexicon.addFeature("t", "x"));
+		assertEquals(2, lexicon.addFeature("u", "x"));
+		assertEquals(1, lexicon.addFeature("t", "x"));
+		assertEquals(3, lexicon.getFeatureId("t", "y"));
+		
+		StringModel model = new StringModel();
+		lexicon.initModel(model, 1, 0);
+		
+		assertEquals(1, model.getLabelSize());
+		assertEquals(0, model.getLabelIndex("A"));
+		assertEquals(-1, model.getLabelIndex("B"));
+		assertArrayEquals(new int[]{0, 0, -1}, lexicon.getLabelIndices(model));
+		assertArrayEquals(new int[]{0, model.getFeatureIndex("t", "x"), model.getFeatureIndex("u", "x"), -1}, lexicon.getFeatureIndices(model));
+	}
+	
+	@Test
+	public void testSharedSpaces() throws Exception
+	{
+		final List<List<StringFeatureVector>> vectors = new ArrayList<List<StringFeatureVector>>();
+		final List<List<String>> labels = new ArrayList<List<String>>();
+		Random rand = new Random(0);
+		int i, j, k;
+		
+		for (i=0; i<8; i++)
+		{
+			vectors.add(new ArrayList<StringFeatureVector>());
+			labels .add(new ArrayList<String>());
+			
+			for (j=0; j<2000; j++)
+			{
+				StringFeatureVector vector = new StringFeatureVector();
+				
+				for (k=rand.nextInt(6); k>=0; k--)
+					vector.addFeature("t"+rand.nextInt(4), Integer.toString(rand.nextInt(300)));
+				
+				vectors.get(i).add(vector);
+				labels .get(i).add(Integer.toString(rand.nextInt(20)));
+			}
+		}
+		
+		// sequential, single space
+		StringTrainSpace single = new StringTrainSpace(false, 2, 2);
+		
+		for (i=0; i<8; i++)
+			for (j=0; j<2000; j++)
+				single.addInstance(labels.get(i).get(j), vectors.get(i).get(j));
+		
+		// concurrent, shared spaces
+		final StringTrainSpace[] spaces = new StringTrainSpace[8];
+		Thread[] threads = new Thread[8];
+		spaces[0] = new StringTrainSpace(false, 2, 2);
+		
+		for (i=1; i<8; i++)
+			spaces[i] = new StringTrainSpace(spaces[0]);
+		
+		for (i=0; i<8; i++)
+		{
+			final int t = i;
+			
+			threads[i] = new Thread()
+			{
+				public void run()
+				{
+					for (int n=0; n<2000; n++)
+						spaces[t].addInstance(labels.get(t).get(n), vectors.get(t).get(n));
+				}
+			};
+			
+			threads[i].start();
+		}
+		
+		for (i=0; i<8; i++)
+			threads[i].join();
+		
+		for (i=1; i<8; i++)
+		{
+			spaces[0].appendSpace(spaces[i]);
+			spaces[i].clear();
+		}
+		
+		single.build();
+		spaces[0].build();
+		
+		assertEquals(getModel(single), getModel(spaces[0]));
+		assertArrayEquals(single.getYs().toArray(), spaces[0].getYs().toArray());
+		
+		for (i=single.getInstanceSize()-1; i>=0; i--)
+			assertArrayEquals(single.getXs().get(i), spaces[0].getXs().get(i));
+	}
+	
+	private String getModel(StringTrainSpace space)
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		StringModel model = (StringModel)space.getModel();
+		
+		model.initWeightVector();
+		model.save(new PrintStream(out));
+		return out.toString();
+	}
+}
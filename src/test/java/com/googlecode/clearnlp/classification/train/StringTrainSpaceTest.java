@@ -0,0 +1,119 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.model.StringModel;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class StringTrainSpaceTest
+{
+	@Test
+	public void testBaseModel()
+	{
+		StringTrainSpace space = new StringTrainSpace(false, 0, 0);
+		space.addInstance("A", getVector("x", "y"));
+		space.addInstance("B", getVector("y", "z"));
+		space.addInstance("C", getVector("x", "z"));
+		space.build();
+		
+		StringModel base = (StringModel)space.getModel();
+		int i, label, D = base.getFeatureSize(), L = base.getLabelSize();
+		double[] weights = new double[D * L];
+		
+		for (i=0; i<weights.length; i++)
+			weights[i] = i + 1;
+		
+		base.setWeights(weights);
+		
+		// the new data contains one old label, one new label, and one new feature
+		space = new StringTrainSpace(false, 0, 0);
+		space.setBaseModel(base);
+		space.addInstance("B", getVector("y", "w"));
+		space.addInstance("D", getVector("x", "w"));
+		space.build();
+		
+		StringModel model = (StringModel)space.getModel();
+		assertEquals(L+1, model.getLabelSize());
+		assertEquals(D+1, model.getFeatureSize());
+		assertEquals(D, model.getFeatureIndex("f", "w"));
+		
+		for (String f : new String[]{"x", "y", "z"})
+			assertEquals(base.getFeatureIndex("f", f), model.getFeatureIndex("f", f));
+		
+		for (label=0; label<L; label++)
+		{
+			assertEquals(base.getLabel(label), model.getLabel(label));
+			
+			for (i=0; i<D; i++)
+				assertEquals(base.getWeightVector(label)[i], model.getWeightVector(label)[i], 0);
+			
+			assertEquals(0, model.getWeightVector(label)[D], 0);
+		}
+		
+		for (i=0; i<=D; i++)
+			assertEquals(0, model.getWeightVector(model.getLabelIndex("D"))[i], 0);
+		
+		assertTrue(model.getWeights() != base.getWeights());
+	}
+	
+	@Test
+	public void testBinaryBaseModel()
+	{
+		StringTrainSpace space = new StringTrainSpace(false, 0, 0);
+		space.addInstance("A", getVector("x"));
+		space.addInstance("B", getVector("y"));
+		space.build();
+		
+		StringModel base = (StringModel)space.getModel();
+		base.initWeightVector();
+		base.copyWeightVector(new double[]{0.5, 1, -2});
+		
+		space = new StringTrainSpace(false, 0, 0);
+		space.setBaseModel(base);
+		space.addInstance("C", getVector("z"));
+		space.build();
+		
+		// scores of the binary model are kept for both of its labels
+		StringModel model = (StringModel)space.getModel();
+		StringFeatureVector vector = getVector("x", "y");
+		double[] expected = base .getScores(base .toSparseFeatureVector(vector));
+		double[] actual   = model.getScores(model.toSparseFeatureVector(vector));
+		
+		assertEquals(3, actual.length);
+		assertEquals(expected[0], actual[model.getLabelIndex(base.getLabel(0))], 0);
+		assertEquals(expected[1], actual[model.getLabelIndex(base.getLabel(1))], 0);
+		assertEquals(0, actual[model.getLabelIndex("C")], 0);
+	}
+	
+	private StringFeatureVector getVector(String... values)
+	{
+		StringFeatureVector vector = new StringFeatureVector();
+		
+		for (String value : values)
+			vector.addFeature("f", value);
+		
+		return vector;
+	}
+}
@@ -0,0 +1,105 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.classification.train;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.classification.algorithm.AbstractAlgorithm;
+import com.googlecode.clearnlp.classification.algorithm.LiblinearL2SV;
+import com.googlecode.clearnlp.classification.model.AbstractModel;
+import com.googlecode.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class TrainerTest
+{
+	@Test
+	public void testTrainMulti()
+	{
+		StringTrainSpace space = new StringTrainSpace(false, 0, 0);
+		Random rand = new Random(0);
+		StringFeatureVector vector;
+		int i, j, label;
+		
+		// skewed label distribution
+		for (i=0; i<2000; i++)
+		{
+			label  = (i % 10 < 6) ? 0 : (i % 10 < 9) ? 1 : 2 + rand.nextInt(3);
+			vector = new StringFeatureVector();
+			
+			for (j=0; j<5; j++)
+				vector.addFeature("f"+j, Integer.toString((rand.nextInt(10) < 7) ? label * 20 + rand.nextInt(20) : rand.nextInt(100)));
+			
+			space.addInstance(Integer.toString(label), vector);
+		}
+		
+		space.build();
+		AbstractAlgorithm algorithm = new LiblinearL2SV((byte)1, 0.1, 0.1, -1);
+		AbstractModel model = space.getModel();
+		
+		new Trainer(space, algorithm, 3);
+		
+		for (label=0; label<model.getLabelSize(); label++)
+			assertArrayEquals(algorithm.getWeight(space, label), model.getWeightVector(label), 0);
+	}
+	
+	@Test
+	public void testWorkerFailure()
+	{
+		StringTrainSpace space = new StringTrainSpace(false, 0, 0);
+		StringFeatureVector vector;
+		int label;
+		
+		for (label=0; label<5; label++)
+		{
+			vector = new StringFeatureVector();
+			vector.addFeature("f", Integer.toString(label));
+			space.addInstance(Integer.toString(label), vector);
+		}
+		
+		space.build();
+		boolean thrown = false;
+		
+		AbstractAlgorithm algorithm = new AbstractAlgorithm()
+		{
+			@Override
+			public double[] getWeight(AbstractTrainSpace space, int currLabel)
+			{
+				if (currLabel == 2)	throw new IllegalArgumentException("label "+currLabel);
+				return new double[space.getFeatureSize()];
+			}
+		};
+		
+		try
+		{
+			new Trainer(space, algorithm, 2);
+		}
+		catch (IllegalArgumentException e)
+		{
+			assertEquals("label 2", e.getMessage());
+			thrown = true;
+		}
+		
+		assertEquals(true, thrown);
+	}
+}
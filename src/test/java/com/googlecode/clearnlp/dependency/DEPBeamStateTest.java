@@ -0,0 +1,95 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.dependency;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import com.carrotsearch.hppc.IntHashSet;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPBeamStateTest
+{
+	@Test
+	public void testApplyUndo()
+	{
+		DEPTree tree = new DEPTree();
+		IntHashSet reduce = new IntHashSet();
+		int i;
+		
+		for (i=1; i<5; i++)
+			tree.add(new DEPNode(i, "w"+i));
+		
+		DEPBeamState s0 = new DEPBeamState(0, 1);
+		
+		DEPBeamState s1 = new DEPBeamState(s0, Math.log(0.5), true);
+		s1.setArc(tree.get(1), tree.get(0), "root");
+		s1.shift();
+		s1.apply(tree, reduce);
+		
+		DEPBeamState s2 = new DEPBeamState(s1, Math.log(0.25), true);
+		s2.setArc(tree.get(1), tree.get(2), "nsubj");
+		s2.reduced = 1;
+		s2.apply(tree, reduce);
+		
+		assertEquals(2, s2.depth);
+		assertEquals(2, s2.trans);
+		assertEquals(Math.log(0.5 * 0.25) / 2, s2.getAverageScore(), 1e-12);
+		assertEquals(tree.get(2), tree.get(1).getHead());
+		assertEquals("nsubj", tree.get(1).getLabel());
+		assertTrue(reduce.contains(1));
+		
+		s2.undo(tree, reduce);
+		assertEquals(tree.get(0), tree.get(1).getHead());
+		assertEquals("root", tree.get(1).getLabel());
+		assertFalse(reduce.contains(1));
+		
+		s1.undo(tree, reduce);
+		assertFalse(tree.get(1).hasHead());
+		assertEquals(0, tree.getRightValency(0));
+	}
+	
+	@Test
+	public void testCompare()
+	{
+		DEPTree tree = new DEPTree();
+		tree.add(new DEPNode(1, "w1"));
+		
+		DEPBeamState s0 = new DEPBeamState(0, 1);
+		DEPBeamState s1 = new DEPBeamState(s0, Math.log(0.6), true);
+		DEPBeamState s2 = new DEPBeamState(s0, Math.log(0.3), true);
+		DEPBeamState s3 = new DEPBeamState(s0, 0, false);
+		
+		s1.shift();
+		s2.shift();
+		s3.shift();
+		
+		assertTrue(s1.isSameTransition(s2));
+		assertTrue(s1.compareTo(s2) < 0);
+		assertEquals(0, s3.trans);
+		assertEquals(1, s3.depth);
+		assertTrue(s3.isTerminal(2));
+		
+		s2.setArc(tree.get(1), tree.get(0), "root");
+		assertFalse(s1.isSameTransition(s2));
+	}
+}
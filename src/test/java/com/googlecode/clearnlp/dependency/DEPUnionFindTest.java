@@ -0,0 +1,62 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.dependency;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class DEPUnionFindTest
+{
+	@Test
+	public void testDEPUnionFind()
+	{
+		Random rand = new Random(7);
+		DEPTree tree = new DEPTree();
+		int i, j, k, size = 30;
+		DEPNode node, head;
+		
+		for (i=1; i<size; i++)
+			tree.add(new DEPNode(i, "w"+i));
+		
+		DEPUnionFind subtrees = new DEPUnionFind(tree);
+		
+		for (k=0; k<1000; k++)
+		{
+			node = tree.get(rand.nextInt(size-1)+1);
+			head = tree.get(rand.nextInt(size));
+			
+			if (node != head && !head.isDescendentOf(node) && (!node.hasHead() || rand.nextInt(4) == 0))
+				subtrees.setHead(node, head, "dep");
+			
+			if (k % 100 == 99)
+			{
+				tree.clearHeads();
+				subtrees.init();
+			}
+			
+			for (i=0; i<size; i++)
+				for (j=0; j<size; j++)
+					assertEquals(tree.get(i).isDescendentOf(tree.get(j)), subtrees.isDescendentOf(tree.get(i), tree.get(j)));
+		}
+	}
+}
@@ -25,9 +25,12 @@ package com.googlecode.clearnlp.dependency;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 import com.googlecode.clearnlp.dependency.DEPLib;
+import com.googlecode.clearnlp.dependency.DEPNode;
 import com.googlecode.clearnlp.dependency.DEPTree;
 
 
@@ -41,4 +44,83 @@ public class DPTreeTest
 		assertEquals(DEPLib.ROOT_ID, tree.get(0).id);
 		assertEquals(null, tree.get(1));
 	}
+	
+	@Test
+	public void testDependents()
+	{
+		Random rand = new Random(5);
+		DEPTree tree = new DEPTree();
+		int i, j, size = 20;
+		DEPNode node, head;
+		
+		for (i=1; i<size; i++)
+			tree.add(new DEPNode(i, "w"+i));
+		
+		for (j=0; j<500; j++)
+		{
+			node = tree.get(rand.nextInt(size-1)+1);
+			
+			head = tree.get(rand.nextInt(size));
+			
+			if (rand.nextInt(5) == 0)
+				node.clearHead();
+			else if (head != node)
+				node.setHead(head, "dep");
+			
+			if (j == 250)	tree.clearHeads();
+			
+			for (i=0; i<size; i++)
+			{
+				assertEquals(getValency(tree, i, true) , tree.getLeftValency(i));
+				assertEquals(getValency(tree, i, false), tree.getRightValency(i));
+				assertEquals(getDependent(tree, i, 0, true) , tree.getLeftMostDependent(i));
+				assertEquals(getDependent(tree, i, 1, true) , tree.getLeftMostDependent(i, 1));
+				assertEquals(getDependent(tree, i, 0, false), tree.getRightMostDependent(i));
+				assertEquals(getDependent(tree, i, 1, false), tree.getRightMostDependent(i, 1));
+				assertEquals(getSibling(tree, i, true) , tree.getLeftNearestSibling(i));
+				assertEquals(getSibling(tree, i, false), tree.getRightNearestSibling(i));
+			}
+		}
+	}
+	
+	private int getValency(DEPTree tree, int id, boolean left)
+	{
+		int i, c = 0, size = tree.size();
+		
+		for (i=1; i<size; i++)
+		{
+			if (tree.get(i).getHead() == tree.get(id) && (i < id) == left)
+				c++;
+		}
+		
+		return c;
+	}
+	
+	private DEPNode getDependent(DEPTree tree, int id, int order, boolean left)
+	{
+		int i, size = tree.size();
+		
+		for (i=left ? 1 : size-1; left ? i < id : i > id; i += left ? 1 : -1)
+		{
+			if (tree.get(i).getHead() == tree.get(id) && order-- == 0)
+				return tree.get(i);
+		}
+		
+		return null;
+	}
+	
+	private DEPNode getSibling(DEPTree tree, int id, boolean left)
+	{
+		DEPNode head = tree.get(id).getHead();
+		if (head == null)	return null;
+		int i, size = tree.size();
+		
+		for (i=left ? id-1 : id+1; 0 < i && i < size && i != head.id; i += left ? -1 : 1)
+		{
+			if (tree.get(i).getHead() == head)
+				return tree.get(i);
+		}
+		
+		return null;
+	}
 }
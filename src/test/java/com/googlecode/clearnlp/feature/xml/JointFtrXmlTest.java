@@ -0,0 +1,103 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.feature.xml;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.FileInputStream;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.util.UTInput;
+
+/**
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class JointFtrXmlTest
+{
+	@Test
+	public void testFtrTokenCodes()
+	{
+		StringBuilder build = new StringBuilder();
+		
+		build.append("<feature_template>\n");
+		build.append("<cutoff label=\"0\" feature=\"0\"/>\n");
+		build.append("<feature n=\"2\" f0=\"l:f\" f1=\"b_lmd2:d\"/>\n");
+		build.append("<feature n=\"1\" f0=\"i+1:sf\"/>\n");
+		build.append("<feature n=\"1\" f0=\"i-1:sf3\"/>\n");
+		build.append("<feature n=\"1\" f0=\"l:ft=pos\"/>\n");
+		build.append("<feature n=\"1\" f0=\"a:ptd2\"/>\n");
+		build.append("<feature n=\"1\" f0=\"a:b4\"/>\n");
+		build.append("</feature_template>");
+		
+		JointFtrXml   xml       = new JointFtrXml(UTInput.toInputStream(build.toString()));
+		FtrTemplate[] templates = xml.getFtrTemplates();
+		FtrToken token;
+		
+		token = templates[0].tokens[0];
+		assertEquals(JointFtrXml.FC_FORM, token.fieldCode);
+		assertEquals(0, token.relationCode);
+		
+		token = templates[0].tokens[1];
+		assertEquals(JointFtrXml.FC_DEPREL, token.fieldCode);
+		assertEquals(JointFtrXml.RC_LMD2, token.relationCode);
+		
+		token = templates[1].tokens[0];
+		assertEquals(JointFtrXml.FC_SIMPLIFIED_FORM, token.fieldCode);
+		
+		token = templates[2].tokens[0];
+		assertEquals(JointFtrXml.FC_SUFFIX, token.fieldCode);
+		assertEquals(3, token.fieldArg);
+		
+		token = templates[3].tokens[0];
+		assertEquals(JointFtrXml.FC_FEAT, token.fieldCode);
+		assertEquals("pos", token.fieldKey);
+		
+		token = templates[4].tokens[0];
+		assertEquals(JointFtrXml.FC_PATH, token.fieldCode);
+		assertEquals(JointFtrXml.FC_DEPREL, token.fieldType);
+		assertEquals(2, token.fieldArg);
+		
+		token = templates[5].tokens[0];
+		assertEquals(JointFtrXml.FC_BOOLEAN, token.fieldCode);
+		assertEquals(4, token.fieldArg);
+		assertNull(token.fieldKey);
+	}
+	
+	@Test
+	public void testFtrTokenCodesInResources() throws Exception
+	{
+		String[] filenames = {"feature_en_pos.xml", "feature_en_dep.xml", "feature_en_srl.xml"};
+		JointFtrXml xml;
+		
+		for (String filename : filenames)
+		{
+			xml = new JointFtrXml(new FileInputStream("src/main/resources/feature/"+filename));
+			
+			for (FtrTemplate template : xml.getFtrTemplates())
+			{
+				for (FtrToken token : template.tokens)
+				{
+					assertTrue(token.toString(), token.fieldCode > 0);
+					assertEquals(token.toString(), token.relation != null, token.relationCode > 0);
+				}
+			}
+		}
+	}
+}
@@ -15,13 +15,24 @@
 */
 package com.googlecode.clearnlp.segmentation;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 import java.io.BufferedReader;
 import java.io.FileNotFoundException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
+import org.junit.Test;
+
+import com.googlecode.clearnlp.tokenization.AbstractTokenizer;
 import com.googlecode.clearnlp.tokenization.EnglishTokenizer;
+import com.googlecode.clearnlp.tokenization.Token;
 import com.googlecode.clearnlp.util.UTArray;
 import com.googlecode.clearnlp.util.UTInput;
+import com.googlecode.clearnlp.util.pair.StringBooleanPair;
 
 /**
  * @since 1.1.0
@@ -38,4 +49,80 @@ public class EnglishSegmenterTest
 		for (List<String> sentence : tok.getSentences(fin))
 			System.out.println(UTArray.join(sentence, " "));
 	}
+	
+	@Test
+	public void testSentenceIterator()
+	{
+		EnglishSegmenter seg = new EnglishSegmenter(getSpaceTokenizer());
+		
+		String text = "A b .\n\nC ( d !\n) e ?\n\" F .\n\" G";
+		Iterator<List<String>> it = seg.getSentenceIterator(new BufferedReader(new StringReader(text)));
+		
+		assertEquals("[A, b, .]", it.next().toString());
+		assertEquals("[C, (, d, !, )]", it.next().toString());
+		assertEquals("[e, ?]", it.next().toString());
+		assertEquals("[\", F, ., \"]", it.next().toString());
+		assertFalse(it.hasNext());
+		
+		assertEquals("[[A, b, .], [C, (, d, !, )], [e, ?], [\", F, ., \"]]", seg.getSentences(new BufferedReader(new StringReader(text))).toString());
+	}
+	
+	@Test
+	public void testMaxSentenceLength()
+	{
+		EnglishSegmenter seg = new EnglishSegmenter(getSpaceTokenizer());
+		
+		String text = "a b c d e\nf g .\nh i";
+		seg.setMaxSentenceLength(3);
+		
+		assertEquals("[[a, b, c], [d, e, f], [g, .]]", seg.getSentences(new BufferedReader(new StringReader(text))).toString());
+		
+		seg.setMaxSentenceLength(0);
+		assertEquals("[[a, b, c, d, e, f, g, .]]", seg.getSentences(new BufferedReader(new StringReader(text))).toString());
+	}
+	
+	@Test
+	public void testOffsetSentenceIterator()
+	{
+		EnglishSegmenter seg = new EnglishSegmenter(getSpaceTokenizer());
+		
+		String text = "  A b .\r\n\r\nC ( d !\r) e ?\n\t\" F .\n\" G";
+		Iterator<List<Token>> it = seg.getOffsetSentenceIterator(new BufferedReader(new StringReader(text)));
+		StringBuilder build = new StringBuilder();
+		
+		while (it.hasNext())
+		{
+			for (Token token : it.next())
+			{
+				assertEquals(token.form, text.substring(token.begin, token.end));
+				build.append(token.begin);
+				build.append(" ");
+			}
+		}
+		
+		assertEquals("2 4 6 11 13 15 17 19 21 23 26 28 30 32 ", build.toString());
+	}
+	
+	/** @return a tokenizer splitting tokens by spaces. */
+	private AbstractTokenizer getSpaceTokenizer()
+	{
+		return new AbstractTokenizer()
+		{
+			@Override
+			public List<StringBooleanPair> getTokenList(String str)
+			{
+				List<StringBooleanPair> tokens = new ArrayList<StringBooleanPair>();
+				int begin, end = 0;
+				
+				for (String token : str.split(" "))
+				{
+					begin = end;
+					end  += token.length() + 1;
+					if (!token.isEmpty())	tokens.add(new StringBooleanPair(token, false, begin, begin+token.length()));
+				}
+				
+				return tokens;
+			}
+		};
+	}
 }
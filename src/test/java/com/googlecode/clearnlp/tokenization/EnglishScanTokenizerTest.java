@@ -0,0 +1,135 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.tokenization;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.Test;
+
+import com.googlecode.clearnlp.util.pair.StringBooleanPair;
+
+/**
+ * Differential test between {@link EnglishScanTokenizer} and {@link EnglishTokenizer}.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class EnglishScanTokenizerTest
+{
+	private final String[] PIECES = {"a", "B", "cd", "1", "23", ".", ",", "-", "'", "\"", "(", ")", "[", "<", "$", "&", "_", "@", "#", ":", ";", "/", "?", "!", "%", "|", "`", "~", "*", "=", "www", "http://", ".com", "PR0T_", "_DPPD_0_", "n't", "'s", "'ll", "km", "usd", "US$", "can", "not", "cannot", "Prof.", "ph.d", "...", "--", "!!", ":-)", "index.html", "\u00e9", "\u0663", "\u0001"};
+	private final String[] SPACES = {" ", "  ", "\t", " \n "};
+	
+	@Test
+	public void testSamples() throws IOException
+	{
+		EnglishTokenizer  oTok = new EnglishTokenizer(getDictionary());
+		EnglishScanTokenizer nTok = new EnglishScanTokenizer(getDictionary());
+		String[] samples = {"Hello, world!", "I can't believe it's 3:30 p.m. already...", "Prof. Smith (ph.d.) paid US$1,000.50 -- or 20km/h?",
+				"AT&T's co-founders cannot go to http://www.google.com or mail me@google.com :-) !!", "The 1990's were '90s; see index.html, e.g. pre-war", "#hash @user re-do $5 5usd 10% #1"};
+		
+		for (String sample : samples)
+			assertEquals(oTok.getTokens(sample), nTok.getTokens(sample));
+	}
+	
+	@Test
+	public void testRandom() throws IOException
+	{
+		EnglishTokenizer  oTok = new EnglishTokenizer(getDictionary());
+		EnglishScanTokenizer nTok = new EnglishScanTokenizer(getDictionary());
+		Random rand = new Random(0);
+		String line;
+		int i;
+		
+		for (i=0; i<20000; i++)
+		{
+			line = getRandomLine(rand);
+			oTok.setTwit(i % 2 == 0);
+			nTok.setTwit(i % 2 == 0);
+			assertEquals(line, getTokens(oTok, line), getTokens(nTok, line));
+		}
+	}
+	
+	private String getTokens(AbstractTokenizer tokenizer, String line)
+	{
+		try
+		{
+			StringBuilder build = new StringBuilder();
+			
+			for (StringBooleanPair token : tokenizer.getTokenList(line))
+			{
+				build.append(token.s);
+				build.append(token.b ? "\t1\t" : "\t0\t");
+				build.append(token.begin);
+				build.append("\t");
+				build.append(token.end);
+				build.append("\n");
+			}
+			
+			return build.toString();
+		}
+		catch (RuntimeException e)
+		{
+			return e.getClass().getName();
+		}
+	}
+	
+	private String getRandomLine(Random rand)
+	{
+		StringBuilder build = new StringBuilder();
+		int i, j, tokens = rand.nextInt(8), pieces;
+		
+		for (i=0; i<tokens; i++)
+		{
+			build.append(SPACES[rand.nextInt(SPACES.length)]);
+			pieces = 1 + rand.nextInt(4);
+			
+			for (j=0; j<pieces; j++)
+				build.append(PIECES[rand.nextInt(PIECES.length)]);
+		}
+		
+		return build.toString().trim();
+	}
+	
+	/** @return a dictionary containing a few entries of each type. */
+	static public ZipInputStream getDictionary() throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ZipOutputStream zout = new ZipOutputStream(bout);
+		
+		addEntry(zout, "tokenize/emoticons.txt", ":-)\n:)\n(____)\n:-(");
+		addEntry(zout, "tokenize/abbreviations.txt", "prof.\nmr.\ndr.\ne.g.\np.m.");
+		addEntry(zout, "tokenize/hyphens.txt", "^(pre|co|re)-\\p{Alpha}\n-(based|like)$");
+		addEntry(zout, "tokenize/compounds.txt", "can not\ngon na\nwan na");
+		addEntry(zout, "tokenize/units.txt", "\\#\n\\$|usd|us\\$\nkm|kg|%|mph");
+		zout.close();
+		
+		return new ZipInputStream(new ByteArrayInputStream(bout.toByteArray()));
+	}
+	
+	static private void addEntry(ZipOutputStream zout, String name, String content) throws IOException
+	{
+		zout.putNextEntry(new ZipEntry(name));
+		zout.write(content.getBytes("UTF-8"));
+		zout.closeEntry();
+	}
+}
@@ -0,0 +1,111 @@
+/**
+* Copyright 2012 University of Massachusetts Amherst
+* 
+* Licensed under the Apache License, Version 2.0 (the "License");
+* you may not use this file except in compliance with the License.
+* You may obtain a copy of the License at
+* 
+*   http://www.apache.org/licenses/LICENSE-2.0
+*   
+* Unless required by applicable law or agreed to in writing, software
+* distributed under the License is distributed on an "AS IS" BASIS,
+* WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+* See the License for the specific language governing permissions and
+* limitations under the License.
+*/
+package com.googlecode.clearnlp.tokenization;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests the character offsets of tokens carried through {@link AbstractTokenizer#getTokenList(String)}.
+ * @since 1.4.0
+ * @author Jinho D. Choi ({@code jdchoi77@gmail.com})
+ */
+public class TokenizerOffsetTest
+{
+	private final String[] PIECES = {"a", "B", "cd", "1", "23", ".", ",", "-", "'", "\"", "(", ")", "[", "<", "$", "&", "_", "@", "#", ":", ";", "/", "?", "!", "%", "|", "`", "~", "*", "=", "www", "http://", ".com", "n't", "'s", "'ll", "km", "usd", "US$", "can", "not", "cannot", "Prof.", "ph.d", "...", "--", "!!", ":-)", "index.html", "co-op", "AT&T", "rock'n", "\u00e9", "\u0663"};
+	private final String[] SPACES = {" ", "  ", "\t", " \n "};
+	
+	@Test
+	public void testOffsets() throws IOException
+	{
+		testOffsets(new EnglishTokenizer(EnglishScanTokenizerTest.getDictionary()));
+		testOffsets(new EnglishScanTokenizer(EnglishScanTokenizerTest.getDictionary()));
+	}
+	
+	private void testOffsets(AbstractTokenizer tok)
+	{
+		Random rand = new Random(1);
+		String line;
+		int i, end;
+		
+		for (i=0; i<5000; i++)
+		{
+			line = getRandomLine(rand);
+			end = 0;
+			
+			for (Token token : tok.getOffsetTokens(line, 10))
+			{
+				assertEquals(line, token.form, line.substring(token.begin-10, token.end-10));
+				assertEquals(line, true, token.begin-10 >= end);
+				end = token.end-10;
+			}
+		}
+	}
+	
+	@Test
+	public void testPlaceholderOffsets() throws IOException
+	{
+		EnglishScanTokenizer tok = new EnglishScanTokenizer(EnglishScanTokenizerTest.getDictionary());
+		
+		assertEquals("[3.5 0 3][km 3 5]", toString(tok.getOffsetTokens("3.5km", 0)));
+		assertEquals("[pre-war 2 9][, 9 10]", toString(tok.getOffsetTokens("  pre-war,", 0)));
+		assertEquals("[AT&T 5 9]['s 9 11]", toString(tok.getOffsetTokens("AT&T's", 5)));
+		assertEquals("[He 0 2][\" 3 4][hi 4 6][\" 6 7]", toString(tok.getOffsetTokens("He \"hi\"", 0)));
+		
+		// placeholders in the input are normalized by the tokenizer; the offsets still span the input the tokens are made from
+		assertEquals("[a 0 1][. 2 10][b 11 12]", toString(tok.getOffsetTokens("a _DPPD_0_ b", 0)));
+		assertEquals("[a 0 1][1 2 8][b 9 10]", toString(tok.getOffsetTokens("a PR0T_1 b", 0)));
+	}
+	
+	private String toString(List<Token> tokens)
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (Token token : tokens)
+		{
+			build.append("[");
+			build.append(token.form);
+			build.append(" ");
+			build.append(token.begin);
+			build.append(" ");
+			build.append(token.end);
+			build.append("]");
+		}
+		
+		return build.toString();
+	}
+	
+	private String getRandomLine(Random rand)
+	{
+		StringBuilder build = new StringBuilder();
+		int i, j, tokens = rand.nextInt(8), pieces;
+		
+		for (i=0; i<tokens; i++)
+		{
+			build.append(SPACES[rand.nextInt(SPACES.length)]);
+			pieces = 1 + rand.nextInt(4);
+			
+			for (j=0; j<pieces; j++)
+				build.append(PIECES[rand.nextInt(PIECES.length)]);
+		}
+		
+		return build.toString().trim();
+	}
+}
@@ -29,6 +29,7 @@ import java.util.Arrays;
 
 import org.junit.Test;
 
+import com.googlecode.clearnlp.util.map.Prob1DMap;
 import com.googlecode.clearnlp.util.map.Prob2DMap;
 import com.googlecode.clearnlp.util.pair.StringDoublePair;
 
@@ -67,4 +68,35 @@ public class ProbMapTest
 		assertEquals(0.125 == p[1].d, true);
 		assertEquals(0.125 == p[2].d, true);
 	}
+	
+	@Test
+	public void testAddAll()
+	{
+		Prob1DMap m1 = new Prob1DMap(), n1 = new Prob1DMap();
+		
+		m1.add(",");	m1.add(",");	n1.add(",");	n1.add(".");
+		m1.addAll(n1);
+		
+		assertEquals(3, m1.get(","));
+		assertEquals(1, m1.get("."));
+		assertEquals(0.75 == m1.getProb(","), true);
+		
+		Prob2DMap m2 = new Prob2DMap(), n2 = new Prob2DMap();
+		
+		m2.add("study", "NN");
+		m2.add("study", "VB");
+		n2.add("study", "NN");
+		n2.add("study", "NN");
+		n2.add("home", "NN");
+		m2.addAll(n2);
+		
+		StringDoublePair[] p = m2.getProb1D("study");
+		Arrays.sort(p);
+		
+		assertEquals(5, m2.getTotal2D());
+		assertEquals(4, m2.getTotal1D("study"));
+		assertEquals("NN", p[0].s);
+		assertEquals(0.75 == p[0].d, true);
+		assertEquals(1, m2.getTotal1D("home"));
+	}
 }